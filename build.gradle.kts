@@ -1,7 +1,9 @@
 plugins {
     java
     application
+    `java-test-fixtures` // src/testFixtures: banco de testes compartilhado por src/test e src/jmh
     id("org.openjfx.javafxplugin") version "0.0.14"
+    id("me.champeau.jmh") version "0.7.2"
 }
 
 
@@ -29,6 +31,8 @@ dependencies {
 
     testImplementation(platform("org.junit:junit-bom:5.9.1"))
     testImplementation("org.junit.jupiter:junit-jupiter")
+
+    jmhImplementation(testFixtures(project))
 }
 
 javafx {
@@ -62,4 +66,20 @@ tasks.withType<JavaCompile> {
 
 tasks.test {
     useJUnitPlatform()
+    // Banco do CheckoutConcurrencyTest (padrão: o de application.properties): ./gradlew test -Ptest.jdbc.url=...
+    (project.findProperty("test.jdbc.url") as String?)?.let { systemProperty("test.jdbc.url", it) }
+}
+
+// Benchmarks (src/jmh): ./gradlew jmh, ou ./gradlew jmh -PjmhIncludes=RowMapperBenchmark para rodar só uma classe.
+jmh {
+    jmhVersion.set("1.37")
+    fork.set(1)
+    warmupIterations.set(3)
+    iterations.set(5)
+    timeOnIteration.set("2s")
+    profilers.add("gc") // Alocação por operação (gc.alloc.rate.norm) junto com o tempo
+    jvmArgs.addAll("-Xms2g", "-Xmx2g") // Heap fixo para que as execuções sejam comparáveis
+    resultFormat.set("JSON")
+    resultsFile.set(layout.buildDirectory.file("results/jmh/results.json"))
+    (project.findProperty("jmhIncludes") as String?)?.let { includes.add(it) }
 }
\ No newline at end of file
@@ -0,0 +1,29 @@
+package com.managerlibrary.benchmark;
+
+import com.managerlibrary.infra.ConnectionPool;
+import com.managerlibrary.testing.TestDatabase;
+
+import java.sql.SQLException;
+
+/**
+ * Banco dos benchmarks que precisam de um PostgreSQL: o de application.properties (ou o da
+ * propriedade de sistema {@code benchmark.jdbc.url}), mas em um schema próprio, {@value #SCHEMA},
+ * criado pelas migrações da aplicação ({@link TestDatabase}). Os dados da aplicação não são tocados.
+ */
+public final class BenchmarkDatabase {
+
+    public static final String SCHEMA = "library_benchmark";
+
+    private BenchmarkDatabase() {
+    }
+
+    /**
+     * Cria o schema, se necessário, e abre um pool de conexões para ele com as migrações aplicadas.
+     *
+     * @param maxSize O número máximo de conexões do pool.
+     * @return O pool; quem chama é responsável por fechá-lo.
+     */
+    public static ConnectionPool open(int maxSize) throws SQLException {
+        return TestDatabase.open(SCHEMA, "benchmark.jdbc.url", maxSize);
+    }
+}
@@ -0,0 +1,166 @@
+package com.managerlibrary.benchmark;
+
+import java.sql.Date;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * ResultSet somente leitura sobre linhas já em memória, para medir os mapeadores dos DAOs sem
+ * banco de dados. Os nomes das colunas são resolvidos por um HashMap, como faz o driver PostgreSQL,
+ * e os getters seguem as conversões do JDBC (NULL vira 0/false em tipos primitivos).
+ */
+public final class FakeResultSet extends UnsupportedResultSet {
+
+    private final Map<String, Integer> columnIndexes = new HashMap<>();
+    private final Object[][] rows;
+    private int cursor = -1;
+    private boolean wasNull;
+    private boolean closed;
+
+    /**
+     * @param columnLabels Os nomes das colunas, na ordem dos valores de cada linha.
+     * @param rows         As linhas; cada uma tem um valor por coluna.
+     */
+    public FakeResultSet(String[] columnLabels, Object[][] rows) {
+        for (int i = 0; i < columnLabels.length; i++) {
+            columnIndexes.put(columnLabels[i].toLowerCase(Locale.ROOT), i + 1);
+        }
+        this.rows = rows;
+    }
+
+    /**
+     * Volta o cursor para antes da primeira linha, para que o mesmo ResultSet seja percorrido
+     * em cada iteração do benchmark.
+     */
+    public void rewind() {
+        cursor = -1;
+        closed = false;
+    }
+
+    @Override
+    public boolean next() {
+        if (cursor < rows.length) {
+            cursor++;
+        }
+        return cursor < rows.length;
+    }
+
+    @Override
+    public int findColumn(String columnLabel) throws SQLException {
+        Integer index = columnIndexes.get(columnLabel);
+        if (index == null) {
+            index = columnIndexes.get(columnLabel.toLowerCase(Locale.ROOT));
+        }
+        if (index == null) {
+            throw new SQLException("Coluna inexistente no ResultSet: " + columnLabel);
+        }
+        return index;
+    }
+
+    @Override
+    public Object getObject(int columnIndex) throws SQLException {
+        if (cursor < 0 || cursor >= rows.length) {
+            throw new SQLException("O cursor não está posicionado em uma linha.");
+        }
+        Object value = rows[cursor][columnIndex - 1];
+        wasNull = value == null;
+        return value;
+    }
+
+    @Override
+    public Object getObject(String columnLabel) throws SQLException {
+        return getObject(findColumn(columnLabel));
+    }
+
+    @Override
+    public <T> T getObject(int columnIndex, Class<T> type) throws SQLException {
+        Object value = getObject(columnIndex);
+        if (value instanceof Date date && type == LocalDate.class) {
+            return type.cast(date.toLocalDate()); // Como o driver, que devolve um LocalDate novo
+        }
+        return value != null ? type.cast(value) : null;
+    }
+
+    @Override
+    public String getString(int columnIndex) throws SQLException {
+        Object value = getObject(columnIndex);
+        return value != null ? value.toString() : null;
+    }
+
+    @Override
+    public String getString(String columnLabel) throws SQLException {
+        return getString(findColumn(columnLabel));
+    }
+
+    @Override
+    public int getInt(int columnIndex) throws SQLException {
+        Object value = getObject(columnIndex);
+        return value != null ? ((Number) value).intValue() : 0;
+    }
+
+    @Override
+    public int getInt(String columnLabel) throws SQLException {
+        return getInt(findColumn(columnLabel));
+    }
+
+    @Override
+    public long getLong(int columnIndex) throws SQLException {
+        Object value = getObject(columnIndex);
+        return value != null ? ((Number) value).longValue() : 0L;
+    }
+
+    @Override
+    public long getLong(String columnLabel) throws SQLException {
+        return getLong(findColumn(columnLabel));
+    }
+
+    @Override
+    public double getDouble(int columnIndex) throws SQLException {
+        Object value = getObject(columnIndex);
+        return value != null ? ((Number) value).doubleValue() : 0.0;
+    }
+
+    @Override
+    public double getDouble(String columnLabel) throws SQLException {
+        return getDouble(findColumn(columnLabel));
+    }
+
+    @Override
+    public boolean getBoolean(int columnIndex) throws SQLException {
+        Object value = getObject(columnIndex);
+        return value != null && (Boolean) value;
+    }
+
+    @Override
+    public boolean getBoolean(String columnLabel) throws SQLException {
+        return getBoolean(findColumn(columnLabel));
+    }
+
+    @Override
+    public Date getDate(int columnIndex) throws SQLException {
+        return (Date) getObject(columnIndex);
+    }
+
+    @Override
+    public Date getDate(String columnLabel) throws SQLException {
+        return getDate(findColumn(columnLabel));
+    }
+
+    @Override
+    public boolean wasNull() {
+        return wasNull;
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+    }
+
+    @Override
+    public boolean isClosed() {
+        return closed;
+    }
+}
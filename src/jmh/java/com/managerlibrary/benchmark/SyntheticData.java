@@ -0,0 +1,176 @@
+package com.managerlibrary.benchmark;
+
+import com.managerlibrary.entities.Book;
+import com.managerlibrary.entities.Loan;
+import com.managerlibrary.entities.User;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Gera acervos sintéticos e reprodutíveis (semente fixa) para os benchmarks: livros, usuários,
+ * empréstimos e as linhas equivalentes às devolvidas pelas consultas dos DAOs.
+ * <p>
+ * Os empréstimos têm a distribuição aproximada de uma biblioteca em uso: cerca de 60% devolvidos,
+ * 30% ativos no prazo e 10% ativos e atrasados. Há um livro para cada quatro empréstimos e um
+ * usuário para cada dez, então os mesmos livros e usuários se repetem entre os empréstimos.
+ */
+public final class SyntheticData {
+
+    public static final long SEED = 20240601L;
+    // As datas são relativas a hoje porque o atraso é calculado em relação à data atual;
+    // assim a proporção de atrasados é a mesma em qualquer dia em que o benchmark rodar.
+    private static final LocalDate TODAY = LocalDate.now();
+
+    public static final String[] BOOK_COLUMNS = {
+            "id", "title", "author", "isbn", "genre", "total_copies", "available_copies",
+            "publisher", "year", "image_url", "cover_image_path"};
+
+    public static final String[] LOAN_WITH_DETAILS_COLUMNS = {
+            "loan_id", "loan_date", "return_date", "actual_return_date", "status", "fine", "returned",
+            "b_id", "book_title", "book_author", "book_isbn", "book_genre", "book_total_copies",
+            "book_available_copies", "book_publisher", "book_year", "book_image_url", "book_cover_image_path",
+            "u_id", "user_name", "user_cpf", "user_email", "user_phone", "user_address", "user_profile_image_path"};
+
+    private static final String[] WORDS = {
+            "sombra", "vento", "rio", "cidade", "memória", "jardim", "noite", "mar", "pedra", "caminho",
+            "silêncio", "fogo", "casa", "tempo", "estrela", "inverno", "ilha", "espelho", "livro", "sertão"};
+    private static final String[] FIRST_NAMES = {
+            "Ana", "Bruno", "Carla", "Diego", "Elisa", "Fábio", "Gabriela", "Heitor", "Isabel", "João",
+            "Karina", "Lucas", "Marina", "Nelson", "Olívia", "Paulo", "Queila", "Rafael", "Sofia", "Tiago"};
+    private static final String[] LAST_NAMES = {
+            "Silva", "Souza", "Oliveira", "Santos", "Pereira", "Lima", "Carvalho", "Ferreira", "Almeida", "Costa"};
+    private static final String[] GENRES = {
+            "Romance", "Ficção Científica", "Fantasia", "Biografia", "História", "Poesia", "Técnico", "Infantil"};
+    private static final String[] PUBLISHERS = {
+            "Companhia das Letras", "Record", "Rocco", "Intrínseca", "Saraiva", "Martins Fontes"};
+
+    private SyntheticData() {
+    }
+
+    public static List<Book> books(int count) {
+        Random random = new Random(SEED);
+        List<Book> books = new ArrayList<>(count);
+        for (int i = 1; i <= count; i++) {
+            Book book = new Book();
+            book.setId(i);
+            book.setTitle(capitalize(word(random)) + " " + word(random) + " " + word(random));
+            book.setAuthor(FIRST_NAMES[random.nextInt(FIRST_NAMES.length)] + " " + LAST_NAMES[random.nextInt(LAST_NAMES.length)]);
+            book.setIsbn(String.format("978%010d", i));
+            book.setGenre(GENRES[random.nextInt(GENRES.length)]);
+            int totalCopies = 1 + random.nextInt(5);
+            book.setTotalCopies(totalCopies);
+            book.setAvailableCopies(random.nextInt(totalCopies + 1));
+            book.setPublisher(PUBLISHERS[random.nextInt(PUBLISHERS.length)]);
+            book.setYear(1950 + random.nextInt(75));
+            book.setImageUrl(null);
+            book.setCoverImagePath("covers/" + i + ".jpg");
+            books.add(book);
+        }
+        return books;
+    }
+
+    public static List<User> users(int count) {
+        Random random = new Random(SEED + 1);
+        List<User> users = new ArrayList<>(count);
+        for (int i = 1; i <= count; i++) {
+            User user = new User();
+            user.setId(i);
+            String first = FIRST_NAMES[random.nextInt(FIRST_NAMES.length)];
+            String last = LAST_NAMES[random.nextInt(LAST_NAMES.length)];
+            user.setName(first + " " + last);
+            user.setCpf(String.format("%011d", 10_000_000_000L + i));
+            user.setEmail(first.toLowerCase() + "." + i + "@exemplo.com");
+            user.setPhone(String.format("(11) 9%04d-%04d", random.nextInt(10_000), random.nextInt(10_000)));
+            user.setAddress("Rua " + capitalize(word(random)) + ", " + (1 + random.nextInt(2000)));
+            user.setProfileImagePath(null);
+            users.add(user);
+        }
+        return users;
+    }
+
+    public static List<Loan> loans(int count) {
+        List<Book> books = books(Math.max(1, count / 4));
+        List<User> users = users(Math.max(1, count / 10));
+        Random random = new Random(SEED + 2);
+        List<Loan> loans = new ArrayList<>(count);
+        for (int i = 1; i <= count; i++) {
+            Loan loan = new Loan();
+            loan.setId(i);
+            loan.setBook(books.get(random.nextInt(books.size())));
+            loan.setUser(users.get(random.nextInt(users.size())));
+            int kind = random.nextInt(10);
+            if (kind < 6) { // Devolvido
+                LocalDate loanDate = TODAY.minusDays(30 + random.nextInt(700));
+                loan.setLoanDate(loanDate);
+                loan.setExpectedReturnDate(loanDate.plusDays(14));
+                loan.setActualReturnDate(loanDate.plusDays(1 + random.nextInt(20)));
+                loan.setStatus("Devolvido");
+                loan.setReturned(true);
+            } else if (kind < 9) { // Ativo no prazo
+                LocalDate loanDate = TODAY.minusDays(random.nextInt(14));
+                loan.setLoanDate(loanDate);
+                loan.setExpectedReturnDate(loanDate.plusDays(14));
+                loan.setStatus("Ativo");
+            } else { // Ativo e atrasado
+                LocalDate loanDate = TODAY.minusDays(15 + random.nextInt(60));
+                loan.setLoanDate(loanDate);
+                loan.setExpectedReturnDate(loanDate.plusDays(14));
+                loan.setStatus("Ativo");
+            }
+            loans.add(loan);
+        }
+        return loans;
+    }
+
+    /**
+     * @return Linhas com as colunas de {@link #BOOK_COLUMNS}, como as de {@code SELECT * FROM books}.
+     */
+    public static Object[][] bookRows(int count) {
+        List<Book> books = books(count);
+        Object[][] rows = new Object[count][];
+        for (int i = 0; i < count; i++) {
+            Book book = books.get(i);
+            rows[i] = new Object[]{
+                    book.getId(), book.getTitle(), book.getAuthor(), book.getIsbn(), book.getGenre(),
+                    book.getTotalCopies(), book.getAvailableCopies(), book.getPublisher(), book.getYear(),
+                    book.getImageUrl(), book.getCoverImagePath()};
+        }
+        return rows;
+    }
+
+    /**
+     * @return Linhas com as colunas de {@link #LOAN_WITH_DETAILS_COLUMNS}, como as da consulta de
+     *         empréstimos com livro e usuário.
+     */
+    public static Object[][] loanWithDetailsRows(int count) {
+        List<Loan> loans = loans(count);
+        Object[][] rows = new Object[count][];
+        for (int i = 0; i < count; i++) {
+            Loan loan = loans.get(i);
+            Book book = loan.getBook();
+            User user = loan.getUser();
+            rows[i] = new Object[]{
+                    loan.getId(), Date.valueOf(loan.getLoanDate()), Date.valueOf(loan.getExpectedReturnDate()),
+                    loan.getActualReturnDate() != null ? Date.valueOf(loan.getActualReturnDate()) : null,
+                    loan.getStatus(), loan.getFine(), loan.isReturned(),
+                    book.getId(), book.getTitle(), book.getAuthor(), book.getIsbn(), book.getGenre(),
+                    book.getTotalCopies(), book.getAvailableCopies(), book.getPublisher(), book.getYear(),
+                    book.getImageUrl(), book.getCoverImagePath(),
+                    user.getId(), user.getName(), user.getCpf(), user.getEmail(), user.getPhone(),
+                    user.getAddress(), user.getProfileImagePath()};
+        }
+        return rows;
+    }
+
+    private static String word(Random random) {
+        return WORDS[random.nextInt(WORDS.length)];
+    }
+
+    private static String capitalize(String word) {
+        return Character.toUpperCase(word.charAt(0)) + word.substring(1);
+    }
+}
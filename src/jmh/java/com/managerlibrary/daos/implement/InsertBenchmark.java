@@ -0,0 +1,80 @@
+package com.managerlibrary.daos.implement;
+
+import com.managerlibrary.benchmark.BenchmarkDatabase;
+import com.managerlibrary.benchmark.SyntheticData;
+import com.managerlibrary.entities.Book;
+import com.managerlibrary.infra.ConnectionPool;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compara a inserção de livros um a um ({@code insertBook}, um INSERT e um getGeneratedKeys por
+ * livro) com a inserção em lote ({@code insertBooks}, um INSERT de múltiplas linhas por lote).
+ * <p>
+ * Precisa de um PostgreSQL acessível ({@link BenchmarkDatabase}); as tabelas do schema do
+ * benchmark são esvaziadas antes de cada iteração.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class InsertBenchmark {
+
+    @Param({"1000", "10000"})
+    private int rows;
+
+    // Só afeta batchedInserts.
+    @Param({"100", "500", "1000"})
+    private int batchSize;
+
+    private ConnectionPool pool;
+    private BookDAOImpl bookDAO;
+    private List<Book> books;
+
+    @Setup(Level.Trial)
+    public void openDatabase() throws SQLException {
+        pool = BenchmarkDatabase.open(2);
+        bookDAO = new BookDAOImpl(pool, batchSize);
+        books = SyntheticData.books(rows);
+    }
+
+    @Setup(Level.Iteration)
+    public void emptyTables() throws SQLException {
+        try (Connection connection = pool.getConnection();
+             Statement statement = connection.createStatement()) {
+            statement.execute("TRUNCATE books RESTART IDENTITY CASCADE");
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void closeDatabase() {
+        if (pool != null) {
+            pool.close();
+        }
+    }
+
+    @Benchmark
+    public void singleRowInserts() throws SQLException {
+        for (Book book : books) {
+            bookDAO.insertBook(book);
+        }
+    }
+
+    @Benchmark
+    public void batchedInserts() throws SQLException {
+        bookDAO.insertBooks(books);
+    }
+}
@@ -0,0 +1,82 @@
+package com.managerlibrary.daos.implement;
+
+import com.managerlibrary.benchmark.FakeResultSet;
+import com.managerlibrary.benchmark.SyntheticData;
+import com.managerlibrary.entities.Loan;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Mede a memória da lista devolvida por {@code findAllLoansWithBookAndUser}: com o mapa de
+ * identidade ({@link RowMappers#loansWithDetails}, livros e usuários compartilhados entre os
+ * empréstimos) e montando um livro e um usuário por linha ({@link RowMappers#streamedLoansWithDetails},
+ * o comportamento anterior). Nos dados sintéticos há um livro para cada quatro empréstimos e um
+ * usuário para cada dez.
+ * <p>
+ * O profiler "gc" mostra a alocação por operação (gc.alloc.rate.norm). O heap retido pela lista,
+ * que é o que fica ocupado enquanto a tela de empréstimos a exibe, é impresso ao fim de cada
+ * iteração: heap usado depois de um GC com a última lista ainda referenciada, menos o heap usado
+ * depois de um GC sem ela.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class LoanIdentityMapBenchmark {
+
+    @Param({"10000", "100000"})
+    private int rows;
+
+    @Param({"identityMap", "perRow"})
+    private String mapping;
+
+    private FakeResultSet loanResultSet;
+    private RowMapper.Factory<Loan> factory;
+    private List<Loan> lastResult;
+
+    @Setup(Level.Trial)
+    public void createResultSet() {
+        loanResultSet = new FakeResultSet(SyntheticData.LOAN_WITH_DETAILS_COLUMNS, SyntheticData.loanWithDetailsRows(rows));
+        factory = mapping.equals("identityMap") ? RowMappers::loansWithDetails : RowMappers::streamedLoansWithDetails;
+    }
+
+    @Benchmark
+    public List<Loan> findAllLoansWithBookAndUser() throws SQLException {
+        loanResultSet.rewind();
+        lastResult = RowMappers.addAll(loanResultSet, factory, new ArrayList<>(rows));
+        return lastResult;
+    }
+
+    @TearDown(Level.Iteration)
+    public void printRetainedHeap() {
+        long withList = usedHeapAfterGc();
+        int loans = lastResult.size();
+        lastResult = null;
+        long withoutList = usedHeapAfterGc();
+        long retained = withList - withoutList;
+        System.out.printf("%n[%s, %d linhas] heap retido pela lista: %.1f MB (%d bytes por empréstimo)%n",
+                mapping, rows, retained / (1024.0 * 1024.0), loans == 0 ? 0 : retained / loans);
+    }
+
+    private static long usedHeapAfterGc() {
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        for (int i = 0; i < 3; i++) { // Um único System.gc() nem sempre libera tudo
+            System.gc();
+        }
+        return memory.getHeapMemoryUsage().getUsed();
+    }
+}
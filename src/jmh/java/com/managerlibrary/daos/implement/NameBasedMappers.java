@@ -0,0 +1,72 @@
+package com.managerlibrary.daos.implement;
+
+import com.managerlibrary.entities.Book;
+import com.managerlibrary.entities.Loan;
+import com.managerlibrary.entities.User;
+
+import java.sql.Date;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Os mapeadores por nome de coluna que os DAOs usavam antes de {@link RowMappers}, mantidos aqui
+ * apenas como referência de comparação no {@link RowMapperBenchmark}.
+ */
+final class NameBasedMappers {
+
+    private NameBasedMappers() {
+    }
+
+    static Book mapBook(ResultSet rs) throws SQLException {
+        Book book = new Book();
+        book.setId(rs.getInt("id"));
+        book.setTitle(rs.getString("title"));
+        book.setAuthor(rs.getString("author"));
+        book.setIsbn(rs.getString("isbn"));
+        book.setGenre(rs.getString("genre"));
+        book.setTotalCopies(rs.getInt("total_copies"));
+        book.setAvailableCopies(rs.getInt("available_copies"));
+        book.setPublisher(rs.getString("publisher"));
+        book.setYear(rs.getInt("year"));
+        book.setImageUrl(rs.getString("image_url"));
+        book.setCoverImagePath(rs.getString("cover_image_path"));
+        return book;
+    }
+
+    static Loan mapLoanWithDetails(ResultSet rs) throws SQLException {
+        Loan loan = new Loan();
+        loan.setId(rs.getInt("loan_id"));
+        loan.setLoanDate(rs.getDate("loan_date").toLocalDate());
+        loan.setExpectedReturnDate(rs.getDate("return_date").toLocalDate());
+        Date actualReturnDate = rs.getDate("actual_return_date");
+        loan.setActualReturnDate(actualReturnDate != null ? actualReturnDate.toLocalDate() : null);
+        loan.setStatus(rs.getString("status"));
+        loan.setFine(rs.getDouble("fine"));
+        loan.setReturned(rs.getBoolean("returned"));
+
+        Book book = new Book();
+        book.setId(rs.getInt("b_id"));
+        book.setTitle(rs.getString("book_title"));
+        book.setAuthor(rs.getString("book_author"));
+        book.setIsbn(rs.getString("book_isbn"));
+        book.setGenre(rs.getString("book_genre"));
+        book.setTotalCopies(rs.getInt("book_total_copies"));
+        book.setAvailableCopies(rs.getInt("book_available_copies"));
+        book.setPublisher(rs.getString("book_publisher"));
+        book.setYear(rs.getInt("book_year"));
+        book.setImageUrl(rs.getString("book_image_url"));
+        book.setCoverImagePath(rs.getString("book_cover_image_path"));
+        loan.setBook(book);
+
+        User user = new User();
+        user.setId(rs.getInt("u_id"));
+        user.setName(rs.getString("user_name"));
+        user.setCpf(rs.getString("user_cpf"));
+        user.setEmail(rs.getString("user_email"));
+        user.setPhone(rs.getString("user_phone"));
+        user.setAddress(rs.getString("user_address"));
+        user.setProfileImagePath(rs.getString("user_profile_image_path"));
+        loan.setUser(user);
+        return loan;
+    }
+}
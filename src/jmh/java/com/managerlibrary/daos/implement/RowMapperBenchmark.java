@@ -0,0 +1,78 @@
+package com.managerlibrary.daos.implement;
+
+import com.managerlibrary.benchmark.FakeResultSet;
+import com.managerlibrary.benchmark.SyntheticData;
+import com.managerlibrary.entities.Book;
+import com.managerlibrary.entities.Loan;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.sql.SQLException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Mede os mapeadores de linha dos DAOs ({@link RowMappers}, que leem as colunas por índice)
+ * percorrendo um {@link FakeResultSet} inteiro, como faz uma listagem completa, e os compara com o
+ * mapeamento por nome de coluna usado antes ({@link NameBasedMappers}). Cada operação mapeia
+ * {@code rows} linhas; com o profiler "gc" (habilitado no build) o resultado inclui a alocação
+ * por operação.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class RowMapperBenchmark {
+
+    @Param({"10000", "100000", "1000000"})
+    private int rows;
+
+    private FakeResultSet bookResultSet;
+    private FakeResultSet loanResultSet;
+
+    @Setup(Level.Trial)
+    public void createResultSets() {
+        bookResultSet = new FakeResultSet(SyntheticData.BOOK_COLUMNS, SyntheticData.bookRows(rows));
+        loanResultSet = new FakeResultSet(SyntheticData.LOAN_WITH_DETAILS_COLUMNS, SyntheticData.loanWithDetailsRows(rows));
+    }
+
+    @Benchmark
+    public void mapBooks(Blackhole blackhole) throws SQLException {
+        bookResultSet.rewind();
+        RowMapper<Book> mapper = RowMappers.books(bookResultSet);
+        while (bookResultSet.next()) {
+            blackhole.consume(mapper.map(bookResultSet));
+        }
+    }
+
+    @Benchmark
+    public void mapBooksByName(Blackhole blackhole) throws SQLException {
+        bookResultSet.rewind();
+        while (bookResultSet.next()) {
+            blackhole.consume(NameBasedMappers.mapBook(bookResultSet));
+        }
+    }
+
+    @Benchmark
+    public void mapLoansWithDetails(Blackhole blackhole) throws SQLException {
+        loanResultSet.rewind();
+        RowMapper<Loan> mapper = RowMappers.loansWithDetails(loanResultSet);
+        while (loanResultSet.next()) {
+            blackhole.consume(mapper.map(loanResultSet));
+        }
+    }
+
+    @Benchmark
+    public void mapLoansWithDetailsByName(Blackhole blackhole) throws SQLException {
+        loanResultSet.rewind();
+        while (loanResultSet.next()) {
+            blackhole.consume(NameBasedMappers.mapLoanWithDetails(loanResultSet));
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package com.managerlibrary.services;
+
+import com.managerlibrary.benchmark.BenchmarkDatabase;
+import com.managerlibrary.daos.implement.BookDAOImpl;
+import com.managerlibrary.daos.implement.LoanDAOImpl;
+import com.managerlibrary.entities.Book;
+import com.managerlibrary.entities.Loan;
+import com.managerlibrary.entities.User;
+import com.managerlibrary.infra.ConnectionPool;
+import com.managerlibrary.infra.TransactionManager;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Vazão do checkout ({@link LoanService#checkoutLoan}) sob disputa: {@value #THREADS} threads
+ * emprestam o mesmo livro ao mesmo tempo, cada uma com a sua conexão, e cada operação é um checkout
+ * (aceito ou recusado por falta de cópia). A garantia de que nenhuma cópia é emprestada além das
+ * existentes é verificada pelo teste {@code CheckoutConcurrencyTest}, que roda com {@code ./gradlew test}.
+ * <p>
+ * Com poucas cópias, o livro se esgota logo e quase todos os checkouts disputam a última cópia;
+ * com muitas, todos disputam o bloqueio da mesma linha. Precisa de um PostgreSQL acessível
+ * ({@link BenchmarkDatabase}); as tabelas do schema do benchmark são esvaziadas antes de cada iteração.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Threads(CheckoutStressBenchmark.THREADS)
+public class CheckoutStressBenchmark {
+
+    static final int THREADS = 32;
+
+    @Param({"10", "1000000"})
+    private int copies;
+
+    private ConnectionPool pool;
+    private LoanService loanService;
+    private int bookId;
+    private int userId;
+
+    @Setup(Level.Trial)
+    public void openDatabase() throws SQLException {
+        pool = BenchmarkDatabase.open(THREADS); // Uma conexão por thread: a disputa é pela linha do livro, não pelo pool
+        loanService = new LoanService(new LoanDAOImpl(pool), new BookService(new BookDAOImpl(pool)), new TransactionManager(pool));
+    }
+
+    @Setup(Level.Iteration)
+    public void createBookAndUser() throws SQLException {
+        try (Connection connection = pool.getConnection()) {
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("TRUNCATE loan, books, users RESTART IDENTITY CASCADE");
+            }
+            try (PreparedStatement pstmt = connection.prepareStatement(
+                    "INSERT INTO books (title, total_copies, available_copies) VALUES ('Livro disputado', ?, ?) RETURNING id")) {
+                pstmt.setInt(1, copies);
+                pstmt.setInt(2, copies);
+                bookId = singleInt(pstmt);
+            }
+            try (PreparedStatement pstmt = connection.prepareStatement(
+                    "INSERT INTO users (name) VALUES ('Leitor do benchmark') RETURNING id")) {
+                userId = singleInt(pstmt);
+            }
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void closeDatabase() {
+        if (pool != null) {
+            pool.close();
+        }
+    }
+
+    @Benchmark
+    public boolean checkout() throws SQLException {
+        Loan loan = new Loan();
+        loan.setBook(new Book(bookId));
+        loan.setUser(new User(userId));
+        loan.setLoanDate(LocalDate.now());
+        loan.setExpectedReturnDate(LocalDate.now().plusDays(14));
+        try {
+            loanService.checkoutLoan(loan);
+            return true;
+        } catch (IllegalStateException e) { // Sem cópias disponíveis
+            return false;
+        }
+    }
+
+    private static int singleInt(PreparedStatement pstmt) throws SQLException {
+        try (ResultSet rs = pstmt.executeQuery()) {
+            rs.next();
+            return rs.getInt(1);
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package com.managerlibrary.services;
+
+import com.managerlibrary.benchmark.SyntheticData;
+import com.managerlibrary.entities.Book;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Mede os filtros feitos em memória: a busca da tela de livros ({@link BookService#filterBooks}).
+ * A busca e os filtros de {@link LoanService} são feitos no banco (ver {@code LoanDAOImpl}) e não
+ * são medidos aqui.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class SearchBenchmark {
+
+    @Param({"10000", "100000", "1000000"})
+    private int rows;
+
+    private List<Book> books;
+
+    @Setup(Level.Trial)
+    public void createData() {
+        books = SyntheticData.books(rows);
+    }
+
+    @Benchmark
+    public List<Book> filterBooksByTitle() {
+        return BookService.filterBooks(books, "Título", "sombra");
+    }
+
+    @Benchmark
+    public List<Book> filterBooksByYear() {
+        return BookService.filterBooks(books, "Ano", "198");
+    }
+
+}
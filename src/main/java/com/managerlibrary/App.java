@@ -1,81 +1,233 @@
 package com.managerlibrary;
 
+import com.managerlibrary.controllers.BookController;
 import com.managerlibrary.controllers.RootLayoutController;
+import com.managerlibrary.daos.implement.BookCatalogReplica;
 import com.managerlibrary.daos.implement.BookDAOImpl;
+import com.managerlibrary.daos.implement.DaoCaches;
 import com.managerlibrary.daos.implement.LoanDAOImpl;
 import com.managerlibrary.daos.implement.UserDAOImpl;
+import com.managerlibrary.daos.interfaces.BookDAO;
+import com.managerlibrary.daos.interfaces.LoanDAO;
+import com.managerlibrary.daos.interfaces.UserDAO;
+import com.managerlibrary.entities.Book;
+import com.managerlibrary.entities.BookSortOrder;
+import com.managerlibrary.infra.BackgroundExecutor;
 import com.managerlibrary.infra.DataBaseConnection;
+import com.managerlibrary.infra.ImageCache;
+import com.managerlibrary.infra.PerformanceMetrics;
+import com.managerlibrary.infra.TransactionManager;
 import com.managerlibrary.services.BookService;
 import com.managerlibrary.services.LoanService;
 import com.managerlibrary.services.UserService;
 import javafx.application.Application;
 import javafx.fxml.FXMLLoader;
 import javafx.scene.Scene;
+import javafx.scene.control.Label;
 import javafx.scene.layout.BorderPane;
 import javafx.stage.Stage;
 
+import javax.sql.DataSource;
 import java.io.IOException;
+import java.nio.file.Path;
 import java.sql.SQLException;
+import java.util.List;
 import java.util.Objects;
+import java.util.Properties;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
 
 public class App extends Application {
 
     private Stage primaryStage;
     private BorderPane rootLayout;
     private RootLayoutController rootController;
+    private long startNanos;
+
+    // Statements pré-preparados nas conexões do pool durante a inicialização.
+    private static final List<String> WARM_UP_STATEMENTS = Stream.of(
+                    BookDAOImpl.WARM_UP_STATEMENTS, LoanDAOImpl.WARM_UP_STATEMENTS, UserDAOImpl.WARM_UP_STATEMENTS)
+            .flatMap(List::stream)
+            .toList();
 
     // Serviços serão inicializados aqui e passados para o RootLayoutController
     private LoanService loanService;
     private BookService bookService;
     private UserService userService;
+    private TransactionManager transactionManager;
+    private BookCatalogReplica catalogReplica; // Nulo se desligada (books.catalogReplica.enabled) ou indisponível
+    private DaoCaches daoCaches; // Nulo se desligados (cache.enabled)
+    private int batchSize; // Linhas por INSERT nas inserções em lote (jdbc.batchSize)
 
     @Override
     public void start(Stage primaryStage) {
+        startNanos = System.nanoTime();
         this.primaryStage = primaryStage;
         this.primaryStage.setTitle("ManagerLibrary");
 
+        // As fases independentes da inicialização rodam em paralelo em virtual threads:
+        // abertura do pool (seguida das migrações pendentes), leitura dos FXML das três views principais
+        // e, assim que o pool estiver pronto, a primeira página do catálogo e o pré-preparo dos statements.
+        CompletableFuture<Void> servicesReady = BackgroundExecutor
+                .supply(() -> {
+                    DataSource dataSource = timed("pool de conexões", DataBaseConnection::getDataSource);
+                    batchSize = DataBaseConnection.getBatchSize();
+                    if (DataBaseConnection.isMigrationOnStartupEnabled()) {
+                        timed("migrações do esquema", DataBaseConnection::migrate);
+                    }
+                    Properties properties = DataBaseConnection.loadProperties();
+                    if (Boolean.parseBoolean(properties.getProperty("cache.enabled", "true").trim())) {
+                        daoCaches = DaoCaches.fromProperties(properties);
+                    }
+                    String imageCacheMegabytes = properties.getProperty("imageCache.maxMegabytes");
+                    if (imageCacheMegabytes != null) {
+                        ImageCache.getInstance().setMaximumBytes(Long.parseLong(imageCacheMegabytes.trim()) * 1024 * 1024);
+                    }
+                    if (DataBaseConnection.isCatalogReplicaEnabled()) {
+                        try {
+                            catalogReplica = timed("réplica do catálogo", () -> BookCatalogReplica.start(dataSource));
+                        } catch (SQLException e) {
+                            // Não é fatal: as consultas de livros vão ao banco.
+                            System.err.println("Réplica do catálogo indisponível: " + e.getMessage());
+                        }
+                    }
+                    return dataSource;
+                })
+                .thenAccept(this::initServices);
+        CompletableFuture<List<Book>> catalog = servicesReady
+                .thenCompose(ignored -> BackgroundExecutor.supply(() -> timed("primeira página do catálogo",
+                        () -> bookService.findBooksPage(BookSortOrder.TITLE, null, BookController.PAGE_SIZE))));
+        servicesReady
+                .thenCompose(ignored -> BackgroundExecutor.supply(() -> timed("pré-preparo de statements", () -> DataBaseConnection.warmUpStatements(WARM_UP_STATEMENTS))))
+                .whenComplete((connections, error) -> {
+                    if (error != null) {
+                        // Não impede o uso da aplicação: os statements serão preparados no primeiro uso.
+                        System.err.println("Falha ao pré-preparar statements: " + error.getMessage());
+                    }
+                });
+        CompletableFuture<FXMLLoader> bookView = loadViewAsync("/views/BookView.fxml");
+        CompletableFuture<FXMLLoader> loanView = loadViewAsync("/views/LoanView.fxml");
+        CompletableFuture<FXMLLoader> userView = loadViewAsync("/views/UserView.fxml");
+
         try {
-            initServices();
-            initRootLayout();
-            // A responsabilidade de mostrar a view inicial agora é do RootLayoutController
-            rootController.showBookView(); // Define a view inicial ao iniciar a aplicação
-            primaryStage.show();
-
-            // Adicionado: Configura o fechamento da conexão com o banco de dados
-            // quando a aplicação é encerrada.
-            primaryStage.setOnCloseRequest(event -> {
-                DataBaseConnection.closeConnection();
-                System.out.println("DEBUG: Aplicação encerrada. Conexão com o banco de dados fechada.");
+            timed("RootLayout.fxml", () -> {
+                initRootLayout();
+                return null;
             });
-
-        } catch (SQLException e) {
-            System.err.println("Erro de conexão ou inicialização dos serviços: " + e.getMessage());
-            e.printStackTrace();
-            // Poderia mostrar um alerta amigável ao usuário aqui
-            System.exit(1); // Encerra a aplicação em caso de erro crítico
-        } catch (IOException e) {
+        } catch (Exception e) {
             System.err.println("Erro ao carregar layout principal: " + e.getMessage());
             e.printStackTrace();
             System.exit(1);
         }
+        // Primeiro frame: a janela aparece desabilitada até o catálogo chegar.
+        rootLayout.setDisable(true);
+        rootController.setCenterView(new Label("Carregando..."));
+        primaryStage.show();
+        logPhase("primeiro frame exibido", startNanos);
+
+        // Adicionado: Configura o fechamento do pool de conexões com o banco de dados
+        // quando a aplicação é encerrada.
+        primaryStage.setOnCloseRequest(event -> {
+            BackgroundExecutor.shutdown(); // Interrompe consultas ainda em andamento
+            if (transactionManager != null) {
+                System.out.println("Estatísticas das transações: " + transactionManager.getStats());
+            }
+            dumpMetrics();
+            System.out.println("Cache de imagens: " + ImageCache.getInstance().stats());
+            if (catalogReplica != null) {
+                catalogReplica.close(); // Devolve a conexão de avisos antes de fechar o pool
+            }
+            DataBaseConnection.closePool();
+            System.out.println("DEBUG: Aplicação encerrada. Pool de conexões com o banco de dados fechado.");
+        });
+
+        CompletableFuture.allOf(catalog, bookView).whenCompleteAsync((ignored, error) -> {
+            if (error != null) {
+                Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+                System.err.println("Erro de conexão ou inicialização dos serviços: " + cause.getMessage());
+                cause.printStackTrace();
+                // Poderia mostrar um alerta amigável ao usuário aqui
+                System.exit(1); // Encerra a aplicação em caso de erro crítico
+                return;
+            }
+            // PASSO CRUCIAL: Chamar o método setServices para injetar todos os serviços de uma vez
+            rootController.setServices(bookService, userService, loanService);
+            FXMLLoader bookLoader = bookView.join();
+            rootController.installBookView(bookLoader.getRoot(), bookLoader.getController());
+            // A responsabilidade de mostrar a view inicial agora é do RootLayoutController
+            rootController.showBookView(catalog.join()); // Define a view inicial com a primeira página já carregada
+            rootLayout.setDisable(false);
+            logPhase("interface interativa", startNanos);
+
+            // As demais views são registradas assim que seus FXML terminarem de carregar.
+            // Se o pré-carregamento falhar, a view é carregada normalmente quando o usuário abri-la.
+            loanView.whenCompleteAsync((loader, loadError) -> {
+                if (loadError == null) {
+                    rootController.installLoanView(loader.getRoot(), loader.getController());
+                } else {
+                    System.err.println("Falha ao pré-carregar LoanView.fxml: " + loadError.getMessage());
+                }
+            }, BackgroundExecutor.FX_THREAD);
+            userView.whenCompleteAsync((loader, loadError) -> {
+                if (loadError == null) {
+                    rootController.installUserView(loader.getRoot(), loader.getController());
+                } else {
+                    System.err.println("Falha ao pré-carregar UserView.fxml: " + loadError.getMessage());
+                }
+            }, BackgroundExecutor.FX_THREAD);
+        }, BackgroundExecutor.FX_THREAD);
     }
 
     /**
      * Inicializa todas as instâncias de serviço com suas respectivas DAOs.
-     * @throws SQLException Se ocorrer um erro ao obter a conexão com o banco de dados.
+     * As DAOs compartilham o pool de conexões e emprestam uma conexão por operação,
+     * e cada chamada é medida por {@link PerformanceMetrics}. Com cache.enabled, as consultas por
+     * chave (livro por id/ISBN, usuário por id/CPF) passam antes pelos caches de {@link DaoCaches}.
+     * @param dataSource O pool de conexões já inicializado.
      */
-    private void initServices() throws SQLException {
-        java.sql.Connection connection = DataBaseConnection.getConnection();
-        Objects.requireNonNull(connection, "A conexão com o banco de dados não pode ser nula.");
+    private void initServices(DataSource dataSource) {
+        Objects.requireNonNull(dataSource, "O pool de conexões com o banco de dados não pode ser nulo.");
 
-        bookService = new BookService(new BookDAOImpl(connection));
-        userService = new UserService(new UserDAOImpl(connection));
-        loanService = new LoanService(new LoanDAOImpl(connection));
+        PerformanceMetrics metrics = PerformanceMetrics.getInstance();
+        transactionManager = new TransactionManager(dataSource);
+        BookDAO bookDAO = metrics.instrument(BookDAO.class, new BookDAOImpl(dataSource, batchSize));
+        UserDAO userDAO = metrics.instrument(UserDAO.class, new UserDAOImpl(dataSource, batchSize));
+        LoanDAO loanDAO = metrics.instrument(LoanDAO.class, new LoanDAOImpl(dataSource, batchSize));
+        if (daoCaches != null) {
+            // Por fora da medição: as métricas dos DAOs passam a contar só as consultas que chegam ao banco.
+            bookDAO = daoCaches.cache(bookDAO);
+            userDAO = daoCaches.cache(userDAO);
+            loanDAO = daoCaches.cache(loanDAO);
+            daoCaches.caches().forEach(metrics::registerCache);
+        }
+        bookService = catalogReplica != null ? new BookService(bookDAO, catalogReplica) : new BookService(bookDAO);
+        userService = new UserService(userDAO);
+        loanService = new LoanService(loanDAO, bookService, transactionManager);
+    }
+
+    /**
+     * Grava as métricas de desempenho no arquivo configurado em {@code metrics.dumpFile}
+     * (vazio desativa a gravação) e as exibe no console.
+     */
+    private void dumpMetrics() {
+        PerformanceMetrics metrics = PerformanceMetrics.getInstance();
+        System.out.print("Métricas de desempenho:" + System.lineSeparator() + metrics.format());
+        try {
+            String dumpFile = DataBaseConnection.loadProperties().getProperty("metrics.dumpFile", "").trim();
+            if (!dumpFile.isEmpty()) {
+                metrics.dumpTo(Path.of(dumpFile));
+                System.out.println("Métricas de desempenho gravadas em " + Path.of(dumpFile).toAbsolutePath());
+            }
+        } catch (IOException | SQLException e) {
+            System.err.println("Erro ao gravar as métricas de desempenho: " + e.getMessage());
+        }
     }
 
     /**
      * Inicializa o layout raiz da aplicação (RootLayout.fxml) e seu controlador.
-     * Injeta todos os serviços e a referência do Stage principal no RootLayoutController.
+     * Os serviços são injetados depois, quando o pool de conexões estiver pronto.
      * @throws IOException Se o arquivo FXML não puder ser carregado.
      */
     private void initRootLayout() throws IOException {
@@ -85,13 +237,40 @@ public class App extends Application {
 
         rootController.setPrimaryStage(primaryStage);
 
-        // PASSO CRUCIAL: Chamar o método setServices para injetar todos os serviços de uma vez
-        rootController.setServices(bookService, userService, loanService);
-
         Scene scene = new Scene(rootLayout, 800, 600);
         primaryStage.setScene(scene);
     }
 
+    /**
+     * Lê um arquivo FXML em segundo plano. Os nós ainda não pertencem a nenhuma cena,
+     * então podem ser criados fora da thread da interface.
+     */
+    private CompletableFuture<FXMLLoader> loadViewAsync(String resource) {
+        return BackgroundExecutor.supply(() -> timed("FXML " + resource, () -> {
+            FXMLLoader loader = new FXMLLoader(getClass().getResource(resource));
+            loader.load();
+            return loader;
+        }));
+    }
+
+    /**
+     * Executa uma fase da inicialização e registra quanto tempo ela levou.
+     */
+    private <T> T timed(String phase, BackgroundExecutor.Task<T> task) throws Exception {
+        long phaseStart = System.nanoTime();
+        T result = task.call();
+        logPhase(phase, phaseStart);
+        return result;
+    }
+
+    private void logPhase(String phase, long phaseStartNanos) {
+        long now = System.nanoTime();
+        System.out.printf("INFO: [inicialização] %s em %d ms (%d ms desde o início) [%s]%n", phase,
+                TimeUnit.NANOSECONDS.toMillis(now - phaseStartNanos),
+                TimeUnit.NANOSECONDS.toMillis(now - startNanos),
+                Thread.currentThread().getName());
+    }
+
     public Stage getPrimaryStage() {
         return primaryStage;
     }
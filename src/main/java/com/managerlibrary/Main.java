@@ -1,7 +1,181 @@
 package com.managerlibrary;
 
+import com.managerlibrary.daos.implement.BookDAOImpl;
+import com.managerlibrary.daos.implement.LoanDAOImpl;
+import com.managerlibrary.entities.BookImportResult;
+import com.managerlibrary.entities.LoanExportFilter;
+import com.managerlibrary.entities.LoanExportFormat;
+import com.managerlibrary.infra.DataBaseConnection;
+import com.managerlibrary.infra.MigrationRunner;
+import com.managerlibrary.infra.TransactionManager;
+import com.managerlibrary.services.BookService;
+import com.managerlibrary.services.LoanService;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.List;
+import java.util.Locale;
+
 public class Main {
     public static void main(String[] args) {
+        // "migrate" aplica as migrações pendentes do esquema e encerra, sem abrir a interface.
+        if (args.length > 0 && "migrate".equals(args[0])) {
+            System.exit(migrate());
+        }
+        // "import-books <arquivo.csv>" importa um catálogo de livros e encerra.
+        if (args.length > 0 && "import-books".equals(args[0])) {
+            if (args.length < 2) {
+                System.err.println("Uso: import-books <arquivo.csv>");
+                System.exit(2);
+            }
+            System.exit(importBooks(Path.of(args[1])));
+        }
+        // "export-loans <arquivo> [--from AAAA-MM-DD] [--to AAAA-MM-DD] [--status ativos|devolvidos|atrasados] [--user id]"
+        // exporta o histórico de empréstimos (.csv ou .jsonl, com .gz para compactar) e encerra.
+        if (args.length > 0 && "export-loans".equals(args[0])) {
+            System.exit(exportLoans(args));
+        }
+        // "archive-loans [--older-than-days N]" move para o arquivo os empréstimos devolvidos há mais
+        // de N dias (padrão: LoanService.DEFAULT_ARCHIVE_AFTER_DAYS) e encerra. Feito para rodar
+        // periodicamente (ex: cron), fora do horário de atendimento.
+        if (args.length > 0 && "archive-loans".equals(args[0])) {
+            System.exit(archiveLoans(args));
+        }
         App.main(args);
     }
+
+    private static int migrate() {
+        try {
+            List<MigrationRunner.Migration> applied = DataBaseConnection.migrate();
+            System.out.println(applied.isEmpty()
+                    ? "Esquema já está atualizado."
+                    : applied.size() + " migração(ões) aplicada(s).");
+            return 0;
+        } catch (SQLException e) {
+            System.err.println("Erro ao aplicar migrações: " + e.getMessage());
+            e.printStackTrace();
+            return 1;
+        } finally {
+            DataBaseConnection.closePool();
+        }
+    }
+
+    private static int importBooks(Path csvFile) {
+        try {
+            BookService bookService = new BookService(new BookDAOImpl(DataBaseConnection.getDataSource()));
+            BookImportResult result = bookService.importBooks(csvFile);
+            System.out.println(result + ".");
+            for (BookImportResult.Rejection rejection : result.rejectedSamples()) {
+                System.out.println("  registro " + rejection.recordNumber() + " (ISBN " + rejection.isbn() + "): " + rejection.reason());
+            }
+            if (result.rejected() > result.rejectedSamples().size()) {
+                System.out.println("  ... e mais " + (result.rejected() - result.rejectedSamples().size()) + " registro(s) rejeitado(s).");
+            }
+            return 0;
+        } catch (SQLException | IOException e) {
+            System.err.println("Erro ao importar " + csvFile + ": " + e.getMessage());
+            e.printStackTrace();
+            return 1;
+        } finally {
+            DataBaseConnection.closePool();
+        }
+    }
+
+    private static int exportLoans(String[] args) {
+        Path target;
+        LoanExportFilter filter;
+        try {
+            if (args.length < 2) {
+                throw new IllegalArgumentException("Informe o arquivo de destino.");
+            }
+            target = Path.of(args[1]);
+            filter = parseExportFilter(args);
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            System.err.println(e.getMessage());
+            System.err.println("Uso: export-loans <arquivo.csv|.jsonl[.gz]> [--from AAAA-MM-DD] [--to AAAA-MM-DD]"
+                    + " [--status ativos|devolvidos|atrasados] [--user id]");
+            return 2;
+        }
+        try {
+            DataSource dataSource = DataBaseConnection.getDataSource();
+            LoanService loanService = new LoanService(new LoanDAOImpl(dataSource),
+                    new BookService(new BookDAOImpl(dataSource)), new TransactionManager(dataSource));
+            String fileName = target.getFileName().toString();
+            long rows = loanService.exportLoans(target, filter, LoanExportFormat.forFileName(fileName),
+                    LoanExportFormat.isGzipFileName(fileName));
+            System.out.println(rows + " empréstimo(s) exportado(s) para " + target + ".");
+            return 0;
+        } catch (SQLException | IOException e) {
+            System.err.println("Erro ao exportar empréstimos para " + target + ": " + e.getMessage());
+            e.printStackTrace();
+            return 1;
+        } finally {
+            DataBaseConnection.closePool();
+        }
+    }
+
+    private static int archiveLoans(String[] args) {
+        int olderThanDays = LoanService.DEFAULT_ARCHIVE_AFTER_DAYS;
+        if (args.length == 3 && "--older-than-days".equals(args[1])) {
+            try {
+                olderThanDays = Integer.parseInt(args[2]);
+            } catch (NumberFormatException e) {
+                olderThanDays = -1;
+            }
+        }
+        if ((args.length != 1 && args.length != 3) || olderThanDays < 0) {
+            System.err.println("Uso: archive-loans [--older-than-days N]");
+            return 2;
+        }
+        try {
+            DataSource dataSource = DataBaseConnection.getDataSource();
+            LoanService loanService = new LoanService(new LoanDAOImpl(dataSource),
+                    new BookService(new BookDAOImpl(dataSource)), new TransactionManager(dataSource));
+            int archived = loanService.archiveReturnedLoans(olderThanDays);
+            System.out.println(archived + " empréstimo(s) devolvido(s) há mais de " + olderThanDays + " dia(s) arquivado(s).");
+            return 0;
+        } catch (SQLException e) {
+            System.err.println("Erro ao arquivar empréstimos: " + e.getMessage());
+            e.printStackTrace();
+            return 1;
+        } finally {
+            DataBaseConnection.closePool();
+        }
+    }
+
+    private static LoanExportFilter parseExportFilter(String[] args) {
+        LocalDate from = null;
+        LocalDate to = null;
+        LoanExportFilter.Status status = null;
+        Integer userId = null;
+        for (int i = 2; i < args.length; i += 2) {
+            if (i + 1 >= args.length) {
+                throw new IllegalArgumentException("Valor ausente para " + args[i] + ".");
+            }
+            String value = args[i + 1];
+            switch (args[i]) {
+                case "--from" -> from = LocalDate.parse(value);
+                case "--to" -> to = LocalDate.parse(value);
+                case "--status" -> status = switch (value.toLowerCase(Locale.ROOT)) {
+                    case "ativos" -> LoanExportFilter.Status.ACTIVE;
+                    case "devolvidos" -> LoanExportFilter.Status.RETURNED;
+                    case "atrasados" -> LoanExportFilter.Status.OVERDUE;
+                    default -> throw new IllegalArgumentException("Situação desconhecida: " + value + ".");
+                };
+                case "--user" -> {
+                    try {
+                        userId = Integer.parseInt(value);
+                    } catch (NumberFormatException e) {
+                        throw new IllegalArgumentException("ID do usuário inválido: " + value + ".");
+                    }
+                }
+                default -> throw new IllegalArgumentException("Opção desconhecida: " + args[i] + ".");
+            }
+        }
+        return new LoanExportFilter(from, to, status, userId);
+    }
 }
@@ -1,12 +1,12 @@
 package com.managerlibrary.controllers;
 
 import com.managerlibrary.entities.Book;
+import com.managerlibrary.infra.ImageCache;
 import com.managerlibrary.services.BookService; // Importe o BookService
 import javafx.fxml.FXML;
 import javafx.scene.control.Alert;
 import javafx.scene.control.Label;
 import javafx.scene.control.TextField;
-import javafx.scene.image.Image;
 import javafx.scene.image.ImageView;
 import javafx.stage.FileChooser;
 import javafx.stage.Stage;
@@ -141,8 +141,8 @@ public class AddBookViewController {
      */
     private void displayCoverImageFromFile(File file) {
         try {
-            Image coverImage = new Image(file.toURI().toString());
-            coverImageView.setImage(coverImage);
+            ImageCache.getInstance().load(coverImageView, file.toURI().toString(), null,
+                    e -> logError("Erro ao carregar imagem do arquivo: " + file.getAbsolutePath(), e));
             coverFileNameLabel.setText(file.getName());
             selectedCoverFile = file;
         } catch (Exception e) {
@@ -159,8 +159,8 @@ public class AddBookViewController {
      */
     private void displayCoverImageFromUrl(String imageUrl) {
         try {
-            Image coverImage = new Image(imageUrl);
-            coverImageView.setImage(coverImage);
+            ImageCache.getInstance().load(coverImageView, imageUrl, null,
+                    e -> logError("Erro ao carregar imagem da URL: " + imageUrl, e));
             coverFileNameLabel.setText("URL");
             selectedCoverFile = null;
         } catch (Exception e) {
@@ -173,7 +173,7 @@ public class AddBookViewController {
      * Limpa a exibição da imagem da capa, definindo a imagem e o nome do arquivo para o estado padrão.
      */
     private void clearCoverImageDisplay() {
-        coverImageView.setImage(null);
+        ImageCache.getInstance().show(coverImageView, null);
         coverFileNameLabel.setText("Nenhuma imagem");
         selectedCoverFile = null;
     }
@@ -279,6 +279,7 @@ public class AddBookViewController {
         fileChooser.getExtensionFilters().add(imageFilter);
         File file = fileChooser.showOpenDialog(dialogStage);
         if (file != null) {
+            ImageCache.getInstance().invalidate(file.toURI().toString()); // O arquivo pode ter mudado desde a última exibição
             selectedCoverFile = file;
             coverFileNameLabel.setText(file.getName());
             displayCoverImageFromFile(file);
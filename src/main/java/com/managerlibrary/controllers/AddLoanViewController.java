@@ -3,6 +3,8 @@ package com.managerlibrary.controllers;
 import com.managerlibrary.entities.Book;
 import com.managerlibrary.entities.Loan;
 import com.managerlibrary.entities.User;
+import com.managerlibrary.infra.BackgroundExecutor;
+import com.managerlibrary.infra.ImageCache;
 import com.managerlibrary.services.BookService;
 import com.managerlibrary.services.LoanService;
 import com.managerlibrary.services.UserService;
@@ -15,9 +17,11 @@ import javafx.scene.image.ImageView;
 import javafx.scene.input.MouseEvent;
 import javafx.stage.Stage;
 
-import java.sql.SQLException;
+import java.io.File;
+import java.time.Duration;
 import java.time.LocalDate;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Controlador para a tela de adicionar um novo empréstimo. Permite a seleção de um livro,
@@ -60,6 +64,11 @@ public class AddLoanViewController {
 
     private Book selectedBook; // Livro selecionado para o empréstimo
     private User selectedUser; // Usuário selecionado para o empréstimo
+    private CompletableFuture<List<Book>> pendingBookSearch;
+    private CompletableFuture<List<User>> pendingUserSearch;
+
+    // Tempo máximo de uma busca ou do registro do empréstimo antes de desistir e avisar o usuário.
+    private static final Duration QUERY_TIMEOUT = Duration.ofSeconds(30);
 
     /**
      * Opções para o critério de busca de livros no ComboBox.
@@ -170,53 +179,58 @@ public class AddLoanViewController {
     }
 
     /**
-     * Realiza a busca de livros com base no critério e no termo de busca fornecidos.
-     * Os resultados são exibidos na ListView de livros.
+     * Realiza a busca de livros com base no critério e no termo de busca fornecidos, em segundo
+     * plano, cancelando a busca anterior ainda pendente. Os resultados são exibidos na ListView de livros.
      */
     @FXML
     private void searchBook() {
         String criteria = bookSearchCriteria.getValue();
         String searchTerm = bookSearchTextField.getText().trim();
-        ObservableList<Book> results = FXCollections.observableArrayList();
 
         if (criteria == null || searchTerm.isEmpty()) {
             showAlert("Campos Vazios", "Por favor, selecione um critério e digite um termo para buscar livros.");
+            cancel(pendingBookSearch); // Uma busca anterior não repreenche a lista
             bookResultsListView.setItems(FXCollections.observableArrayList()); // Limpa resultados anteriores
             selectedBook = null; // Reseta o livro selecionado
             selectedBookLabel.setText("Nenhum livro selecionado");
-            selectedBookImageView.setImage(null);
+            ImageCache.getInstance().show(selectedBookImageView, null);
             return;
         }
 
-        try {
-            switch (criteria.toLowerCase()) {
-                case "título":
-                    results.addAll(bookService.findBooksByTitle(searchTerm));
-                    break;
-                case "autor":
-                    results.addAll(bookService.findBooksByAuthor(searchTerm));
-                    break;
-                case "isbn":
+        BackgroundExecutor.Task<List<Book>> query;
+        switch (criteria.toLowerCase()) {
+            case "título":
+                query = () -> bookService.findBooksByTitle(searchTerm);
+                break;
+            case "autor":
+                query = () -> bookService.findBooksByAuthor(searchTerm);
+                break;
+            case "isbn":
+                query = () -> {
                     Book book = bookService.findBookByISBN(searchTerm);
-                    if (book != null) {
-                        results.add(book);
-                    }
-                    break;
-                case "gênero": // Adicionado suporte para Gênero
-                    results.addAll(bookService.findBooksByGenre(searchTerm));
-                    break;
-                default:
-                    showAlert("Critério Inválido", "Por favor, selecione um critério de busca válido para livros.");
-                    return;
-            }
-            bookResultsListView.setItems(results);
-            if (results.isEmpty()) {
-                showAlert("Nenhum Resultado", "Nenhum livro encontrado com o critério e termo fornecidos.");
-            }
-        } catch (SQLException e) {
-            logError("Erro ao buscar livros", e);
-            showAlert("Erro na Busca", "Ocorreu um erro ao buscar livros.");
+                    return book != null ? List.of(book) : List.of();
+                };
+                break;
+            case "gênero": // Adicionado suporte para Gênero
+                query = () -> bookService.findBooksByGenre(searchTerm);
+                break;
+            default:
+                showAlert("Critério Inválido", "Por favor, selecione um critério de busca válido para livros.");
+                return;
         }
+
+        cancel(pendingBookSearch);
+        pendingBookSearch = BackgroundExecutor.submit(query, QUERY_TIMEOUT,
+                results -> {
+                    bookResultsListView.setItems(FXCollections.observableArrayList(results));
+                    if (results.isEmpty()) {
+                        showAlert("Nenhum Resultado", "Nenhum livro encontrado com o critério e termo fornecidos.");
+                    }
+                },
+                e -> {
+                    logError("Erro ao buscar livros", e);
+                    showAlert("Erro na Busca", "Ocorreu um erro ao buscar livros.");
+                });
     }
 
     /**
@@ -233,7 +247,7 @@ public class AddLoanViewController {
             displayBookCover(selectedBook);
         } else {
             selectedBookLabel.setText("Nenhum livro selecionado");
-            selectedBookImageView.setImage(null);
+            ImageCache.getInstance().show(selectedBookImageView, null);
         }
     }
 
@@ -244,37 +258,22 @@ public class AddLoanViewController {
      * @param book O livro cuja capa será exibida.
      */
     private void displayBookCover(Book book) {
-        // Verifica se há um caminho de capa e se o arquivo existe
+        ImageCache images = ImageCache.getInstance();
+        Image defaultImage = images.resource("/images/default_book_icon.png");
+        // Verifica se há um caminho de capa; a imagem é decodificada em segundo plano e,
+        // até lá (ou se o carregamento falhar), o ImageView mostra a imagem padrão
         if (book.getCoverImagePath() != null && !book.getCoverImagePath().isEmpty()) {
-            try {
-                // Tenta carregar a imagem do caminho do arquivo local
-                Image image = new Image("file:" + book.getCoverImagePath());
-                if (!image.isError()) { // Verifica se houve erro no carregamento da imagem
-                    selectedBookImageView.setImage(image);
-                    return; // Imagem carregada com sucesso, sai do método
-                }
-            } catch (Exception e) {
-                logError("Tentativa de carregar capa do livro por caminho local falhou", e);
-                // Se falhar, tenta carregar do recurso padrão
-            }
-        }
-
-        // Se não tem caminho de capa, ou se o carregamento do caminho falhou, tenta imagem padrão
-        // Usar getResourceAsStream é mais robusto para recursos internos do JAR
-        try {
-            Image defaultImage = new Image(getClass().getResourceAsStream("/images/default_book_icon.png"));
-            selectedBookImageView.setImage(defaultImage);
-        } catch (Exception e) {
-            logError("Erro ao carregar imagem padrão de capa do livro", e);
-            // Em último caso, não exibe imagem
-            selectedBookImageView.setImage(null);
+            images.load(selectedBookImageView, new File(book.getCoverImagePath()).toURI().toString(), defaultImage,
+                    e -> logError("Tentativa de carregar capa do livro por caminho local falhou", e));
+        } else {
+            images.show(selectedBookImageView, defaultImage);
         }
     }
 
 
     /**
-     * Realiza a busca de usuários com base no termo de busca fornecido.
-     * Os resultados são exibidos na ListView de usuários.
+     * Realiza a busca de usuários com base no termo de busca fornecido, em segundo plano,
+     * cancelando a busca anterior ainda pendente. Os resultados são exibidos na ListView de usuários.
      */
     @FXML
     private void searchUser() {
@@ -282,23 +281,25 @@ public class AddLoanViewController {
 
         if (searchTerm.isEmpty()) {
             showAlert("Campo Vazio", "Por favor, digite um termo para buscar usuários.");
+            cancel(pendingUserSearch); // Uma busca anterior não repreenche a lista
             userResultsListView.setItems(FXCollections.observableArrayList()); // Limpa resultados anteriores
             selectedUser = null; // Reseta o usuário selecionado
             selectedUserLabel.setText("Nenhum usuário selecionado");
             return;
         }
 
-        try {
-            // Supondo que findUsersByNameOrCPFOrEmail retorne List<User>
-            List<User> results = userService.findUsersByNameOrCPFOrEmail(searchTerm);
-            userResultsListView.setItems(FXCollections.observableArrayList(results));
-            if (results.isEmpty()) {
-                showAlert("Nenhum Resultado", "Nenhum usuário encontrado com o termo fornecido.");
-            }
-        } catch (SQLException e) {
-            logError("Erro ao buscar usuários", e);
-            showAlert("Erro na Busca", "Ocorreu um erro ao buscar usuários.");
-        }
+        cancel(pendingUserSearch);
+        pendingUserSearch = BackgroundExecutor.submit(() -> userService.findUsersByNameOrCPFOrEmail(searchTerm), QUERY_TIMEOUT,
+                results -> {
+                    userResultsListView.setItems(FXCollections.observableArrayList(results));
+                    if (results.isEmpty()) {
+                        showAlert("Nenhum Resultado", "Nenhum usuário encontrado com o termo fornecido.");
+                    }
+                },
+                e -> {
+                    logError("Erro ao buscar usuários", e);
+                    showAlert("Erro na Busca", "Ocorreu um erro ao buscar usuários.");
+                });
     }
 
     /**
@@ -318,8 +319,8 @@ public class AddLoanViewController {
     }
 
     /**
-     * Salva um novo empréstimo no banco de dados utilizando os livros, usuários e datas selecionados.
-     * Atualiza a lista de empréstimos na tela principal e fecha o diálogo.
+     * Salva um novo empréstimo no banco de dados utilizando os livros, usuários e datas selecionados,
+     * em segundo plano. Atualiza a lista de empréstimos na tela principal e fecha o diálogo.
      */
     @FXML
     private void saveNewLoan() {
@@ -346,11 +347,8 @@ public class AddLoanViewController {
             showAlert("Datas Inválidas", "A data de devolução não pode ser anterior à data de empréstimo.");
             return;
         }
-        if (selectedBook.getAvailableCopies() <= 0) {
-            showAlert("Livro Indisponível", "O livro selecionado não possui cópias disponíveis para empréstimo.");
-            return;
-        }
-
+        // A disponibilidade do livro é verificada pelo checkout no banco, não pelo livro em memória,
+        // que pode estar desatualizado.
 
         Loan newLoan = new Loan();
         newLoan.setBook(selectedBook);
@@ -359,21 +357,29 @@ public class AddLoanViewController {
         newLoan.setExpectedReturnDate(returnDate); // Correção: Deveria ser ExpectedReturnDate
         newLoan.setStatus("Ativo");
 
-        try {
-            loanService.addLoan(newLoan); // Supondo que 'addLoan' é o método correto
-            // Decrementa o número de cópias disponíveis do livro
-            selectedBook.setAvailableCopies(selectedBook.getAvailableCopies() - 1);
-            bookService.updateBook(selectedBook); // Atualiza o livro no banco de dados
-
-            showAlert("Sucesso", "Empréstimo registrado e cópia do livro decrementada com sucesso!");
-            dialogStage.close();
-            if (mainLoanController != null) {
-                mainLoanController.loadLoans(); // Recarrega os empréstimos na tela principal
-            }
-        } catch (SQLException e) {
-            logError("Erro ao salvar novo empréstimo", e);
-            showAlert("Erro", "Não foi possível registrar o empréstimo: " + e.getMessage());
-        }
+        // Registra o empréstimo e decrementa as cópias disponíveis do livro em um único comando.
+        // O botão fica desabilitado até o fim, para que um segundo clique não registre outro empréstimo.
+        saveButton.setDisable(true);
+        BackgroundExecutor.submit(() -> {
+                    loanService.checkoutLoan(newLoan);
+                    return newLoan;
+                }, QUERY_TIMEOUT,
+                saved -> {
+                    showAlert("Sucesso", "Empréstimo registrado e cópia do livro decrementada com sucesso!");
+                    dialogStage.close();
+                    if (mainLoanController != null) {
+                        mainLoanController.loadLoans(); // Recarrega os empréstimos na tela principal
+                    }
+                },
+                e -> {
+                    saveButton.setDisable(false);
+                    if (e instanceof IllegalStateException) {
+                        showAlert("Livro Indisponível", e.getMessage());
+                        return;
+                    }
+                    logError("Erro ao salvar novo empréstimo", e);
+                    showAlert("Erro", "Não foi possível registrar o empréstimo: " + e.getMessage());
+                });
     }
 
     /**
@@ -381,9 +387,18 @@ public class AddLoanViewController {
      */
     @FXML
     private void cancelLoan() {
+        cancel(pendingBookSearch);
+        cancel(pendingUserSearch);
         dialogStage.close();
     }
 
+    // Cancela uma busca ainda pendente; buscas canceladas não disparam nenhum dos callbacks.
+    private static void cancel(CompletableFuture<?> search) {
+        if (search != null) {
+            search.cancel(true);
+        }
+    }
+
     /**
      * Exibe um alerta de informação ou erro.
      *
@@ -410,7 +425,7 @@ public class AddLoanViewController {
      * @param message A mensagem de erro.
      * @param e A exceção (pode ser null).
      */
-    private void logError(String message, Exception e) {
+    private void logError(String message, Throwable e) {
         System.err.print("ERRO: " + message);
         if (e != null) {
             System.err.println(": " + e.getMessage());
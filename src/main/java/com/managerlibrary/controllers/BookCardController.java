@@ -1,11 +1,11 @@
 package com.managerlibrary.controllers;
 
 import com.managerlibrary.entities.Book;
+import com.managerlibrary.infra.ImageCache;
 import com.managerlibrary.services.BookService;
 import javafx.fxml.FXML;
 import javafx.scene.control.Label;
 import javafx.scene.control.Button;
-import javafx.scene.image.Image;
 import javafx.scene.image.ImageView;
 import javafx.scene.layout.VBox;
 
@@ -14,6 +14,8 @@ import java.util.Objects;
 
 public class BookCardController {
 
+    private static final String DEFAULT_COVER = "/images/default_book_icon.png";
+
     @FXML
     private VBox bookCardVBox;
     @FXML
@@ -73,45 +75,35 @@ public class BookCardController {
             availableCopiesLabel.setText("Disponíveis: " + book.getAvailableCopies() + "/" + book.getTotalCopies());
 
             // --- Lógica de carregamento da imagem ---
+            // Decodificada em segundo plano pelo ImageCache; o card mostra o ícone padrão até ela chegar.
             String imagePath = book.getCoverImagePath(); // Use o caminho do arquivo
             String imageUrl = book.getImageUrl(); // Ou a URL (se houver)
+            String source = null;
 
             // Priorize o caminho do arquivo local, se existir
             if (imagePath != null && !imagePath.isEmpty()) {
                 File imageFile = new File(imagePath);
                 if (imageFile.exists()) {
-                    try {
-                        Image image = new Image(imageFile.toURI().toString());
-                        coverImageView.setImage(image);
-                        if (image.isError()) {
-                            logError("Erro ao carregar a imagem do arquivo para o livro " + book.getTitle() + ". Caminho: " + imagePath + ". Erro: " + image.exceptionProperty().get().getMessage(), null);
-                            coverImageView.setImage(null);
-                        } else if (image.getWidth() == 0 && image.getHeight() == 0) {
-                            logError("Imagem do arquivo carregada para " + book.getTitle() + " mas com dimensões zero. Caminho: " + imagePath, null);
-                        }
-                    } catch (IllegalArgumentException e) {
-                        logError("Caminho de arquivo da imagem inválido para o livro " + book.getTitle() + ": " + imagePath, e);
-                        coverImageView.setImage(null);
-                    } catch (Exception e) {
-                        logError("Erro inesperado ao carregar imagem do arquivo para o livro " + book.getTitle() + ": " + imagePath, e);
-                        coverImageView.setImage(null);
-                    }
-                } else {
+                    source = imageFile.toURI().toString();
+                } else if (imageUrl != null && !imageUrl.isEmpty()) {
                     // Se o arquivo não existe, tente carregar da URL se houver uma
-                    if (imageUrl != null && !imageUrl.isEmpty()) {
-                        System.out.println("Debug: Arquivo não encontrado. Tentando carregar imagem da URL para '" + book.getTitle() + "': " + imageUrl);
-                        loadImageFromUrl(imageUrl);
-                    } else {
-                        logError("Arquivo de imagem não encontrado e URL de imagem ausente para o livro: " + book.getTitle(), null);
-                        coverImageView.setImage(null);
-                    }
+                    System.out.println("Debug: Arquivo não encontrado. Tentando carregar imagem da URL para '" + book.getTitle() + "': " + imageUrl);
+                    source = imageUrl;
+                } else {
+                    logError("Arquivo de imagem não encontrado e URL de imagem ausente para o livro: " + book.getTitle(), null);
                 }
             } else if (imageUrl != null && !imageUrl.isEmpty()) { // Se não há coverImagePath, tente a imageUrl
-                System.out.println("Debug: coverImagePath vazio. Tentando carregar imagem da URL para '" + book.getTitle() + "': " + imageUrl);
-                loadImageFromUrl(imageUrl);
+                source = imageUrl;
+            }
+
+            if (source != null) {
+                String title = book.getTitle();
+                String failedSource = source;
+                ImageCache images = ImageCache.getInstance();
+                images.load(coverImageView, source, images.resource(DEFAULT_COVER),
+                        e -> logError("Erro ao carregar a imagem para o livro " + title + ": " + failedSource, e));
             } else {
-                coverImageView.setImage(null);
-                System.out.println("Debug: Imagem URL e CoverImagePath para " + book.getTitle() + " são nulos ou vazios. Não carregada.");
+                ImageCache.getInstance().show(coverImageView, null);
             }
             // --- Fim da lógica de carregamento da imagem ---
 
@@ -124,32 +116,11 @@ public class BookCardController {
             genreLabel.setText("Gênero: N/A");
             availableCopiesLabel.setText("Disponíveis: N/A");
             if (coverImageView != null) {
-                coverImageView.setImage(null);
+                ImageCache.getInstance().show(coverImageView, null);
             }
         }
     }
 
-    // Novo método para carregar imagem de URL, para evitar duplicação de código
-    private void loadImageFromUrl(String imageUrl) {
-        try {
-            Image image = new Image(imageUrl);
-            coverImageView.setImage(image);
-            if (image.isError()) {
-                logError("Erro ao carregar a imagem da URL para o livro '" + book.getTitle() + "'. URL: " + imageUrl + ". Erro: " + image.exceptionProperty().get().getMessage(), null);
-                coverImageView.setImage(null);
-            } else if (image.getWidth() == 0 && image.getHeight() == 0) {
-                logError("Imagem da URL carregada para " + book.getTitle() + " mas com dimensões zero. URL: " + imageUrl, null);
-            }
-        } catch (IllegalArgumentException e) {
-            logError("URL da imagem inválida para o livro " + book.getTitle() + ": " + imageUrl, e);
-            coverImageView.setImage(null);
-        } catch (Exception e) {
-            logError("Erro inesperado ao carregar imagem da URL para o livro " + book.getTitle() + ": " + imageUrl, e);
-            coverImageView.setImage(null);
-        }
-    }
-
-
     @FXML
     private void handleViewDetails() {
         System.out.println("Clicou em Detalhes para: " + (book != null ? book.getTitle() : "N/A"));
@@ -1,6 +1,9 @@
 package com.managerlibrary.controllers;
 
 import com.managerlibrary.entities.Book;
+import com.managerlibrary.entities.BookImportResult;
+import com.managerlibrary.entities.BookSortOrder;
+import com.managerlibrary.infra.BackgroundExecutor;
 import com.managerlibrary.services.BookService;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
@@ -13,20 +16,24 @@ import javafx.scene.control.Alert;
 import javafx.scene.control.Button;
 import javafx.scene.control.ButtonType; // Adicionado para confirmação de remoção
 import javafx.scene.control.Label;
+import javafx.scene.control.ScrollPane;
 import javafx.scene.control.TextField;
 import javafx.scene.control.ComboBox;
 import javafx.scene.layout.FlowPane;
 import javafx.scene.layout.VBox; // VBox para o card
+import javafx.stage.FileChooser;
 import javafx.stage.Modality;
 import javafx.stage.Stage;
 import javafx.stage.Window; // Para initOwner
 
+import java.io.File;
 import java.io.IOException;
 import java.sql.SQLException;
+import java.time.Duration;
 import java.util.List;
 import java.util.Objects;
 import java.util.Optional; // Adicionado para Optional em confirmação
-import java.util.stream.Collectors;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Controlador para a tela principal de livros. Exibe os livros em cards, permite
@@ -37,16 +44,43 @@ public class BookController {
     @FXML
     private FlowPane booksFlowPane;
     @FXML
+    private ScrollPane booksScrollPane;
+    @FXML
+    private ComboBox<BookSortOrder> bookSortComboBox;
+    @FXML
     private TextField searchBookTextField;
     @FXML
     private Button searchBookButton; // Se este botão for usado, ele acionaria handleSearchBook
+    @FXML
+    private Button importBooksButton;
 
     @FXML
     private ComboBox<String> bookSearchOptions;
 
     private BookService bookService;
     private RootLayoutController rootLayoutController;
-    private ObservableList<Book> allBooks = FXCollections.observableArrayList();
+    private ObservableList<Book> allBooks = FXCollections.observableArrayList(); // Páginas já carregadas, em ordem
+    private CompletableFuture<List<Book>> pendingLoad;
+    private boolean hasMorePages = true;
+    private int pageGeneration; // Incrementado a cada recarga, para ignorar respostas de cargas anteriores
+    private BookSortOrder sortOrder = BookSortOrder.TITLE;
+    // Catálogo completo, carregado só quando o usuário digita uma busca (o filtro ainda é feito em memória).
+    private List<Book> searchCatalog;
+    private CompletableFuture<List<Book>> pendingSearchLoad;
+
+    /**
+     * Quantos livros cada página do catálogo traz. A tela abre com uma página e carrega as
+     * seguintes à medida que o usuário rola até o fim da lista.
+     */
+    public static final int PAGE_SIZE = 40;
+
+    // Fração da rolagem a partir da qual a próxima página é buscada.
+    private static final double LOAD_NEXT_PAGE_AT = 0.9;
+
+    // Tempo máximo para carregar a lista de livros antes de desistir e avisar o usuário.
+    private static final Duration LOAD_TIMEOUT = Duration.ofSeconds(30);
+    // Catálogos com dezenas de milhares de títulos levam mais que uma consulta comum.
+    private static final Duration IMPORT_TIMEOUT = Duration.ofMinutes(10);
 
     // Construtor padrão removido, pois a injeção será via setters e initialize é chamado pelo FXMLLoader.
 
@@ -70,7 +104,7 @@ public class BookController {
     }
 
     /**
-     * Carrega e exibe todos os livros em formato de cards no FlowPane.
+     * Recarrega o catálogo a partir da primeira página, na ordem selecionada.
      * Este método deve ser chamado APÓS o BookService ser injetado.
      */
     public void loadAllBooks() {
@@ -79,23 +113,95 @@ public class BookController {
             logError("booksFlowPane é nulo. Não é possível exibir os cards.", null);
             return;
         }
-        booksFlowPane.getChildren().clear(); // Limpa antes de carregar
         if (bookService == null) {
             logError("ERRO CRÍTICO: BookService não injetado em BookController. Não é possível carregar dados.", new IllegalStateException("BookService é nulo."));
             showAlert(Alert.AlertType.ERROR, "Erro de Inicialização", "O serviço de livros não está disponível. Por favor, reinicie a aplicação.");
             return;
         }
-        try {
-            // Use o método correto do seu BookService (findAllBooks ou getAllBooks)
-            List<Book> books = bookService.findAllBooks();
-            allBooks.setAll(books);
-            updateBookDisplay(allBooks);
-        } catch (SQLException e) {
-            logError("Erro ao carregar livros", e);
-            showAlert(Alert.AlertType.ERROR, "Erro ao Carregar", "Ocorreu um erro ao carregar os livros: " + e.getMessage());
+        resetPages();
+        if (isSearching()) {
+            handleSearchBook(); // Refaz a busca com o catálogo atualizado
+            return;
+        }
+        booksFlowPane.getChildren().setAll(new Label("Carregando livros..."));
+        loadNextPage();
+    }
+
+    /**
+     * Exibe a primeira página do catálogo já carregada (ex: buscada em paralelo durante a
+     * inicialização), sem consultar o banco novamente. As páginas seguintes são carregadas sob demanda.
+     *
+     * @param firstPage A primeira página, na ordem por título.
+     */
+    public void showBooks(List<Book> firstPage) {
+        resetPages();
+        booksFlowPane.getChildren().clear();
+        appendPage(firstPage);
+    }
+
+    /**
+     * Busca a página seguinte à última carregada, em segundo plano. Não faz nada se já houver
+     * uma página sendo carregada, se a última página já foi lida ou se há uma busca digitada.
+     */
+    private void loadNextPage() {
+        if (!hasMorePages || (pendingLoad != null && !pendingLoad.isDone()) || isSearching()) {
+            return;
+        }
+        Book after = allBooks.isEmpty() ? null : allBooks.get(allBooks.size() - 1);
+        BookSortOrder order = sortOrder;
+        int generation = pageGeneration;
+        pendingLoad = BackgroundExecutor.submit(() -> bookService.findBooksPage(order, after, PAGE_SIZE), LOAD_TIMEOUT,
+                page -> {
+                    if (generation == pageGeneration) { // Descarta a página de uma listagem já recarregada
+                        appendPage(page);
+                    }
+                },
+                e -> {
+                    logError("Erro ao carregar livros", e);
+                    showAlert(Alert.AlertType.ERROR, "Erro ao Carregar", "Ocorreu um erro ao carregar os livros: " + e.getMessage());
+                });
+    }
+
+    /**
+     * Acrescenta os cards de uma página aos já exibidos.
+     */
+    private void appendPage(List<Book> page) {
+        boolean firstPage = allBooks.isEmpty();
+        allBooks.addAll(page);
+        hasMorePages = page.size() == PAGE_SIZE;
+        if (isSearching()) {
+            return; // Os cards exibidos são os da busca
+        }
+        if (allBooks.isEmpty()) {
+            booksFlowPane.getChildren().setAll(new Label("Nenhum livro encontrado."));
+            return;
+        }
+        if (firstPage) {
+            booksFlowPane.getChildren().clear(); // Remove "Carregando livros..."
+        }
+        addBookCards(page);
+    }
+
+    private void resetPages() {
+        if (pendingLoad != null) {
+            pendingLoad.cancel(true);
+        }
+        if (pendingSearchLoad != null) {
+            pendingSearchLoad.cancel(true);
+        }
+        pageGeneration++;
+        allBooks.clear();
+        hasMorePages = true;
+        searchCatalog = null; // O catálogo pode ter mudado (livro adicionado, editado ou removido)
+        if (booksScrollPane != null) {
+            booksScrollPane.setVvalue(0);
         }
     }
 
+    private boolean isSearching() {
+        return searchBookTextField != null && !searchBookTextField.getText().trim().isEmpty();
+    }
+
     /**
      * Método de inicialização do controlador.
      * Chamado automaticamente pelo FXMLLoader após carregar o FXML e injetar os campos @FXML.
@@ -112,6 +218,32 @@ public class BookController {
             System.err.println("WARN: ComboBox 'bookSearchOptions' não encontrado no FXML do BookController.");
         }
 
+        if (bookSortComboBox != null) {
+            bookSortComboBox.getItems().setAll(BookSortOrder.values());
+            bookSortComboBox.getSelectionModel().select(sortOrder);
+            bookSortComboBox.valueProperty().addListener((observable, oldValue, newValue) -> {
+                if (newValue != null && newValue != sortOrder) {
+                    sortOrder = newValue;
+                    loadAllBooks();
+                }
+            });
+        }
+        if (booksScrollPane != null) {
+            // Carrega a próxima página quando o usuário se aproxima do fim da lista.
+            booksScrollPane.vvalueProperty().addListener((observable, oldValue, newValue) -> {
+                if (newValue.doubleValue() >= LOAD_NEXT_PAGE_AT * booksScrollPane.getVmax()) {
+                    loadNextPage();
+                }
+            });
+            // Enquanto os cards não preenchem a área visível não há rolagem para disparar a próxima carga,
+            // então ela é buscada assim que o layout mostra que ainda sobra espaço.
+            booksFlowPane.heightProperty().addListener((observable, oldValue, newValue) -> {
+                if (!allBooks.isEmpty() && newValue.doubleValue() <= booksScrollPane.getViewportBounds().getHeight()) {
+                    loadNextPage();
+                }
+            });
+        }
+
         searchBookTextField.textProperty().addListener((observable, oldValue, newValue) -> handleSearchBook());
         // REMOVIDO: loadAllBooks(); // Não chame aqui, pois o bookService não foi injetado ainda.
     }
@@ -167,51 +299,82 @@ public class BookController {
         }
     }
 
+    /**
+     * Importa um catálogo em CSV escolhido pelo usuário, em segundo plano, e exibe quantos livros
+     * foram inseridos, atualizados e rejeitados. O botão fica desabilitado durante a importação.
+     */
+    @FXML
+    private void handleImportBooks() {
+        FileChooser fileChooser = new FileChooser();
+        fileChooser.setTitle("Importar Catálogo de Livros");
+        fileChooser.getExtensionFilters().add(new FileChooser.ExtensionFilter("Arquivos CSV", "*.csv"));
+        Window owner = booksFlowPane != null && booksFlowPane.getScene() != null ? booksFlowPane.getScene().getWindow() : null;
+        File file = fileChooser.showOpenDialog(owner);
+        if (file == null) {
+            return;
+        }
+        importBooksButton.setDisable(true);
+        BackgroundExecutor.submit(() -> bookService.importBooks(file.toPath()), IMPORT_TIMEOUT,
+                result -> {
+                    importBooksButton.setDisable(false);
+                    showAlert(result.rejected() > 0 ? Alert.AlertType.WARNING : Alert.AlertType.INFORMATION,
+                            "Importação Concluída", describeImport(result));
+                    loadAllBooks();
+                },
+                e -> {
+                    importBooksButton.setDisable(false);
+                    logError("Erro ao importar o catálogo " + file, e);
+                    showAlert(Alert.AlertType.ERROR, "Erro na Importação",
+                            "Nenhum livro foi alterado. Não foi possível importar o arquivo: " + e.getMessage());
+                });
+    }
+
+    private static String describeImport(BookImportResult result) {
+        StringBuilder text = new StringBuilder(result.toString()).append('.');
+        if (!result.rejectedSamples().isEmpty()) {
+            text.append("\n\nPrimeiros registros rejeitados:");
+            for (BookImportResult.Rejection rejection : result.rejectedSamples()) {
+                text.append("\nRegistro ").append(rejection.recordNumber())
+                        .append(rejection.isbn() != null ? " (ISBN " + rejection.isbn() + ")" : "")
+                        .append(": ").append(rejection.reason());
+            }
+        }
+        return text.toString();
+    }
+
     /**
      * Lógica para buscar livros com base no termo de pesquisa.
+     * Sem termo, exibe as páginas já carregadas. Com termo, a busca precisa do catálogo inteiro:
+     * ele é carregado uma vez em segundo plano e reaproveitado enquanto o usuário digita.
      */
     @FXML
     private void handleSearchBook() {
         String searchTerm = searchBookTextField.getText().trim().toLowerCase();
         String searchOption = bookSearchOptions != null ? bookSearchOptions.getSelectionModel().getSelectedItem() : "Título";
 
-        // REMOVIDO: O bloco de fallback para carregar todos os livros.
-        // A lista allBooks DEVE ser populada por loadAllBooks() após a injeção inicial.
-
         if (searchTerm.isEmpty()) {
-            updateBookDisplay(allBooks); // Exibe todos os livros se a busca estiver vazia
-        } else {
-            List<Book> searchResults = allBooks.stream()
-                    .filter(book -> {
-                        if (book == null) return false; // Evita NPE
-                        String valueToSearch = "";
-                        switch (searchOption) {
-                            case "Título":
-                                valueToSearch = book.getTitle();
-                                break;
-                            case "Autor":
-                                valueToSearch = book.getAuthor();
-                                break;
-                            case "ISBN":
-                                valueToSearch = book.getIsbn();
-                                break;
-                            case "Editora":
-                                valueToSearch = book.getPublisher();
-                                break;
-                            case "Gênero":
-                                valueToSearch = book.getGenre();
-                                break;
-                            case "Ano":
-                                valueToSearch = String.valueOf(book.getYear());
-                                break;
-                            default:
-                                valueToSearch = book.getTitle(); // Padrão se a opção for nula/inválida
+            updateBookDisplay(allBooks); // Volta para a listagem paginada
+            loadNextPage(); // Retoma a paginação, se ela parou durante a busca
+            return;
+        }
+        if (searchCatalog != null) {
+            updateBookDisplay(BookService.filterBooks(searchCatalog, searchOption, searchTerm));
+            return;
+        }
+        if (pendingSearchLoad == null || pendingSearchLoad.isDone()) {
+            booksFlowPane.getChildren().setAll(new Label("Buscando..."));
+            int generation = pageGeneration;
+            pendingSearchLoad = BackgroundExecutor.submit(bookService::findAllBooks, LOAD_TIMEOUT,
+                    books -> {
+                        if (generation == pageGeneration) {
+                            searchCatalog = books;
+                            handleSearchBook(); // Aplica o termo digitado enquanto o catálogo carregava
                         }
-                        return valueToSearch != null && valueToSearch.toLowerCase().contains(searchTerm);
-                    })
-                    .collect(Collectors.toList());
-
-            updateBookDisplay(searchResults);
+                    },
+                    e -> {
+                        logError("Erro ao carregar livros para a busca", e);
+                        showAlert(Alert.AlertType.ERROR, "Erro ao Buscar", "Ocorreu um erro ao buscar os livros: " + e.getMessage());
+                    });
         }
     }
 
@@ -227,17 +390,21 @@ public class BookController {
         }
         booksFlowPane.getChildren().clear();
         if (bookList != null && !bookList.isEmpty()) {
-            for (Book book : bookList) {
-                VBox bookCard = createBookCard(book);
-                if (bookCard != null) {
-                    booksFlowPane.getChildren().add(bookCard);
-                }
-            }
+            addBookCards(bookList);
         } else {
             booksFlowPane.getChildren().add(new Label("Nenhum livro encontrado."));
         }
     }
 
+    private void addBookCards(List<Book> bookList) {
+        for (Book book : bookList) {
+            VBox bookCard = createBookCard(book);
+            if (bookCard != null) {
+                booksFlowPane.getChildren().add(bookCard);
+            }
+        }
+    }
+
     /**
      * Cria um card visual para exibir as informações do livro usando o FXML BookCardView.fxml.
      *
@@ -469,7 +636,7 @@ public class BookController {
      * @param message A mensagem de erro.
      * @param e       A exceção ocorrida, pode ser nula.
      */
-    private void logError(String message, Exception e) {
+    private void logError(String message, Throwable e) {
         System.err.print("ERRO: " + message);
         if (e != null) {
             System.err.println(": " + e.getMessage());
@@ -223,18 +223,12 @@ public class EditLoanViewController {
         currentLoan.setReturned(willBeReturnedNow);
 
         try {
-            // Lógica para ajustar o contador de cópias do livro e a multa
+            // Lógica para ajustar a multa; as cópias do livro são ajustadas por saveLoanEdit
             if (wasReturnedOriginally && !currentLoan.isReturned()) {
                 // Devolvido -> Ativo (Reabrindo)
-                if (currentLoan.getBook() != null) {
-                    bookService.decrementAvailableCopies(currentLoan.getBook().getId());
-                }
                 currentLoan.setFine(0.0);
             } else if (!wasReturnedOriginally && currentLoan.isReturned()) {
                 // Ativo -> Devolvido/Atrasado (Primeira devolução)
-                if (currentLoan.getBook() != null) {
-                    bookService.incrementAvailableCopies(currentLoan.getBook().getId());
-                }
                 if (newActualReturnDate != null) {
                     // Calcula multa usando a NOVA data prevista
                     double multa = loanService.calculateLateFee(newExpectedReturnDate, newActualReturnDate);
@@ -253,7 +247,8 @@ public class EditLoanViewController {
                 }
             }
 
-            loanService.updateLoan(currentLoan);
+            // Grava o empréstimo e ajusta as cópias disponíveis do livro em uma única transação
+            loanService.saveLoanEdit(currentLoan, wasReturnedOriginally);
 
             showAlert(Alert.AlertType.INFORMATION, "Sucesso", "Empréstimo atualizado com sucesso!");
             if (mainLoanController != null) {
@@ -266,6 +261,9 @@ public class EditLoanViewController {
         } catch (IllegalArgumentException e) {
             logError("Erro de validação de negócio ao salvar empréstimo", e);
             showAlert(Alert.AlertType.WARNING, "Erro de Validação", "Falha na validação: " + e.getMessage());
+        } catch (IllegalStateException e) {
+            logError("Edição do empréstimo recusada", e);
+            showAlert(Alert.AlertType.WARNING, "Edição não permitida", e.getMessage());
         } catch (Exception e) {
             logError("Erro inesperado ao salvar edição do empréstimo", e);
             showAlert(Alert.AlertType.ERROR, "Erro ao Salvar", "Ocorreu um erro inesperado ao salvar as alterações do empréstimo.");
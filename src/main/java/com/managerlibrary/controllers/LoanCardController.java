@@ -1,6 +1,9 @@
 package com.managerlibrary.controllers;
 
 import com.managerlibrary.entities.Loan;
+import com.managerlibrary.entities.LoanSummary;
+import com.managerlibrary.infra.ImageCache;
+import com.managerlibrary.infra.PerformanceMetrics;
 import com.managerlibrary.services.BookService;
 import com.managerlibrary.services.LoanService;
 import com.managerlibrary.services.UserService;
@@ -57,7 +60,7 @@ public class LoanCardController {
     @FXML
     private Button removeButton;
 
-    private Loan loan;
+    private LoanSummary loan; // Os detalhes completos são carregados só ao editar
     private LoanController loanController; // Referência ao LoanController pai
     private LoanService loanService; // NOVO: Serviço de empréstimos
     private BookService bookService; // NOVO: Serviço de livros
@@ -68,9 +71,9 @@ public class LoanCardController {
     /**
      * Define o empréstimo a ser exibido neste card e atualiza as informações visuais.
      *
-     * @param loan O empréstimo a ser exibido.
+     * @param loan O resumo do empréstimo a ser exibido.
      */
-    public void setLoan(Loan loan) {
+    public void setLoan(LoanSummary loan) {
         this.loan = Objects.requireNonNull(loan, "Empréstimo não pode ser nulo.");
         displayLoanDetails();
     }
@@ -157,84 +160,72 @@ public class LoanCardController {
      * Se o arquivo não for encontrado ou ocorrer um erro, uma imagem padrão é exibida.
      */
     private void loadBookCover() {
-        Image imageToSet = null;
+        long start = System.nanoTime();
+        boolean loaded = loadBookCoverImage();
+        // Registrado à parte das consultas para separar o custo das imagens do custo do banco na tela de empréstimos.
+        // Mede só o trabalho na thread da interface; a decodificação aparece em ImageCache.decode.
+        PerformanceMetrics.getInstance().record("LoanCard.loadBookCover", System.nanoTime() - start, 1, !loaded);
+    }
 
-        // Limpa a imagem anterior
-        bookCoverImageView.setImage(null);
+    /**
+     * A capa é decodificada em segundo plano pelo {@link ImageCache}; até lá (ou se ela falhar) o
+     * card mostra a imagem padrão.
+     *
+     * @return {@code true} se alguma imagem (a capa ou a padrão) foi exibida.
+     */
+    private boolean loadBookCoverImage() {
+        ImageCache images = ImageCache.getInstance();
+        Image defaultCover = images.resource("/images/default_book_icon.png");
 
         // Tenta carregar a imagem do caminho do livro
-        if (loan.getBook() != null && loan.getBook().getCoverImagePath() != null && !loan.getBook().getCoverImagePath().isEmpty()) {
-            try {
-                File file = new File(loan.getBook().getCoverImagePath());
-                if (file.exists()) {
-                    imageToSet = new Image(file.toURI().toString());
-                    if (!imageToSet.isError()) {
-                        bookCoverImageView.setImage(imageToSet);
-                        return; // Imagem carregada com sucesso, sai do método
-                    } else {
-                        logError("Erro ao carregar imagem do livro do arquivo (Image.isError()): " + loan.getBook().getCoverImagePath(), null);
-                    }
-                } else {
-                    // logError("Arquivo de imagem não encontrado: " + loan.getBook().getCoverImagePath(), null); // Para debug
-                }
-            } catch (Exception e) {
-                logError("Erro ao carregar imagem do livro do arquivo: " + loan.getBook().getCoverImagePath(), e);
+        String coverImagePath = loan.bookCoverImagePath();
+        if (coverImagePath != null && !coverImagePath.isEmpty()) {
+            File file = new File(coverImagePath);
+            if (file.exists()) {
+                images.load(bookCoverImageView, file.toURI().toString(), defaultCover,
+                        e -> logError("Erro ao carregar imagem do livro do arquivo: " + coverImagePath, e));
+                return true;
             }
         }
 
-        // Se a imagem do livro não foi carregada ou houve erro, tenta uma imagem padrão
-        try {
-            // Certifique-se de que o caminho para a imagem padrão está correto no seu projeto
-            imageToSet = new Image(Objects.requireNonNull(getClass().getResourceAsStream("/images/default_book_icon.png"), "Recurso default_book_icon.png não encontrado."));
-            if (imageToSet.isError()) {
-                throw new IOException("Erro ao carregar default_book_icon.png do stream.");
-            }
-        } catch (Exception e) { // Usar Exception para pegar NullPointerException também
-            logError("Erro ao carregar imagem padrão /images/default_book_icon.png", e);
-            imageToSet = null; // Não foi possível carregar nenhuma imagem
-        }
-        bookCoverImageView.setImage(imageToSet);
+        // Sem capa ou arquivo inexistente: imagem padrão
+        images.show(bookCoverImageView, defaultCover);
+        return defaultCover != null;
     }
 
     /**
      * Exibe o título do livro no label correspondente.
      */
     private void displayBookInfo() {
-        bookTitleLabel.setText("Livro: " + (loan.getBook() != null ? loan.getBook().getTitle() : "N/A"));
+        bookTitleLabel.setText("Livro: " + (loan.bookTitle() != null ? loan.bookTitle() : "N/A"));
     }
 
     /**
      * Exibe o nome e CPF do usuário no label correspondente.
      */
     private void displayUserInfo() {
-        if (loan.getUser() != null) {
-            userNameLabel.setText("Usuário: " + loan.getUser().getName());
-            userCpfLabel.setText(loan.getUser().getCpf() != null && !loan.getUser().getCpf().isEmpty() ? "CPF: " + loan.getUser().getCpf() : "CPF: N/A");
-        } else {
-            userNameLabel.setText("Usuário: N/A");
-            userCpfLabel.setText("CPF: N/A");
-        }
+        userNameLabel.setText("Usuário: " + (loan.userName() != null ? loan.userName() : "N/A"));
+        userCpfLabel.setText(loan.userCpf() != null && !loan.userCpf().isEmpty() ? "CPF: " + loan.userCpf() : "CPF: N/A");
     }
 
     /**
      * Exibe as datas de empréstimo e devolução (prevista), e a multa (se houver).
      */
     private void displayDatesAndFine() {
-        loanDateLabel.setText("Empréstimo: " + (loan.getLoanDate() != null ? loan.getLoanDate().format(dateFormatter) : "N/A"));
-        // CORREÇÃO AQUI: Usar getExpectedReturnDate()
-        returnDateLabel.setText("Devolução Prevista: " + (loan.getExpectedReturnDate() != null ? loan.getExpectedReturnDate().format(dateFormatter) : "N/A"));
+        loanDateLabel.setText("Empréstimo: " + (loan.loanDate() != null ? loan.loanDate().format(dateFormatter) : "N/A"));
+        returnDateLabel.setText("Devolução Prevista: " + (loan.expectedReturnDate() != null ? loan.expectedReturnDate().format(dateFormatter) : "N/A"));
 
-        if (loan.getActualReturnDate() != null) {
-            actualReturnDateLabel.setText("Devolvido em: " + loan.getActualReturnDate().format(dateFormatter));
+        if (loan.actualReturnDate() != null) {
+            actualReturnDateLabel.setText("Devolvido em: " + loan.actualReturnDate().format(dateFormatter));
             actualReturnDateLabel.setVisible(true);
         } else {
             actualReturnDateLabel.setVisible(false);
         }
 
         // Exibe multa apenas se for maior que zero
-        fineLabel.setVisible(loan.getFine() > 0);
-        if (loan.getFine() > 0) {
-            fineLabel.setText(String.format("Multa: R$ %.2f", loan.getFine()));
+        fineLabel.setVisible(loan.fine() > 0);
+        if (loan.fine() > 0) {
+            fineLabel.setText(String.format("Multa: R$ %.2f", loan.fine()));
         } else {
             fineLabel.setText(""); // Limpa o texto se não houver multa
         }
@@ -245,7 +236,7 @@ public class LoanCardController {
      * Também desabilita botões de edição/remoção para empréstimos devolvidos.
      */
     private void updateReturnButtonVisibility() {
-        boolean isReturned = loan.getActualReturnDate() != null;
+        boolean isReturned = loan.isReturned();
         returnButton.setVisible(!isReturned); // Botão "Devolver" visível se NÃO devolvido
         editButton.setDisable(false); // <--- ALTERADO: O botão "Editar" agora está sempre habilitado.
         removeButton.setDisable(isReturned); // O botão "Remover" continua desabilitado para empréstimos devolvidos.
@@ -278,7 +269,8 @@ public class LoanCardController {
     }
 
     /**
-     * Carrega a tela de edição do empréstimo em um diálogo modal, passando os dados e serviços necessários.
+     * Carrega os detalhes completos do empréstimo e abre a tela de edição em um diálogo modal,
+     * passando os dados e serviços necessários.
      */
     @FXML
     private void editLoan() {
@@ -295,6 +287,10 @@ public class LoanCardController {
             return;
         }
 
+        loanController.loadLoanDetails(loan, this::openEditLoan);
+    }
+
+    private void openEditLoan(Loan loan) {
         try {
             FXMLLoader loader = new FXMLLoader(getClass().getResource("/views/EditLoanView.fxml"));
             VBox root = loader.load();
@@ -343,9 +339,8 @@ public class LoanCardController {
             return;
         }
 
-        // Verifica se o livro e usuário do empréstimo são nulos antes de tentar acessá-los
-        String bookTitle = (loan.getBook() != null) ? loan.getBook().getTitle() : "livro desconhecido";
-        String userName = (loan.getUser() != null) ? loan.getUser().getName() : "usuário desconhecido";
+        String bookTitle = (loan.bookTitle() != null) ? loan.bookTitle() : "livro desconhecido";
+        String userName = (loan.userName() != null) ? loan.userName() : "usuário desconhecido";
 
         Alert alert = new Alert(Alert.AlertType.CONFIRMATION);
         alert.setTitle("Remover Empréstimo");
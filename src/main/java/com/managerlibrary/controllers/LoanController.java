@@ -1,6 +1,12 @@
 package com.managerlibrary.controllers;
 
 import com.managerlibrary.entities.Loan;
+import com.managerlibrary.entities.LoanExportFilter;
+import com.managerlibrary.entities.LoanExportFormat;
+import com.managerlibrary.entities.LoanSearchResult;
+import com.managerlibrary.entities.LoanSummary;
+import com.managerlibrary.infra.BackgroundExecutor;
+import com.managerlibrary.infra.PerformanceMetrics;
 import com.managerlibrary.services.BookService;
 import com.managerlibrary.services.LoanService;
 import com.managerlibrary.services.UserService;
@@ -15,15 +21,19 @@ import javafx.scene.control.Alert;
 import javafx.scene.control.Label;
 import javafx.scene.control.TextField;
 import javafx.scene.layout.VBox;
+import javafx.stage.FileChooser;
 import javafx.stage.Modality;
 import javafx.stage.Stage;
 
+import java.io.File;
 import java.io.IOException;
 import java.sql.SQLException;
+import java.time.Duration;
 import java.time.LocalDate;
 import java.util.List;
 import java.util.Objects;
-import java.util.stream.Collectors;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
 
 /**
  * Controlador para a tela principal de empréstimos. Exibe os empréstimos em cards,
@@ -42,7 +52,16 @@ public class LoanController {
     private BookService bookService;
     private UserService userService;
 
-    private ObservableList<Loan> allLoans = FXCollections.observableArrayList();
+    private ObservableList<LoanSummary> allLoans = FXCollections.observableArrayList(); // Só o que os cards exibem
+    private CompletableFuture<List<LoanSummary>> pendingLoad;
+    // Busca ou filtro exibido no lugar da lista completa (nulo = lista completa), ainda pendente ou já concluído
+    private CompletableFuture<LoanSearchResult> activeQuery;
+
+    // Tempo máximo para carregar a lista de empréstimos antes de desistir e avisar o usuário.
+    private static final Duration LOAD_TIMEOUT = Duration.ofSeconds(30);
+    // A exportação do histórico inteiro pode levar bem mais que uma consulta comum.
+    private static final Duration EXPORT_TIMEOUT = Duration.ofMinutes(10);
+    private LoanExportFilter.Status currentStatusFilter; // Filtro de situação exibido (nulo = todos), usado na exportação
     private RootLayoutController rootLayoutController;
 
     /**
@@ -107,8 +126,9 @@ public class LoanController {
     }
 
     /**
-     * Carrega todos os empréstimos do banco de dados, incluindo os detalhes de livro e usuário,
-     * e atualiza a exibição.
+     * Carrega o resumo de todos os empréstimos do banco de dados (o que os cards exibem) e
+     * atualiza a exibição. Os detalhes completos de livro e usuário são carregados apenas quando
+     * um empréstimo é aberto, editado ou devolvido ({@link #loadLoanDetails}).
      * Este é o método central para recarregar a lista de empréstimos na UI.
      */
     public void loadLoans() {
@@ -121,14 +141,24 @@ public class LoanController {
             return;
         }
 
-        try {
-            List<Loan> loans = loanService.getAllLoansWithDetails(); // Assumindo que este método traz os detalhes
-            allLoans.setAll(loans); // Atualiza a ObservableList
-            displayLoans(allLoans); // Atualiza a UI
-        } catch (SQLException e) {
-            logError("Erro ao carregar empréstimos do banco de dados", e);
-            showAlert(Alert.AlertType.ERROR, "Erro ao Carregar Empréstimos", "Não foi possível carregar os empréstimos do banco de dados: " + e.getMessage());
+        // A consulta roda em segundo plano; uma carga anterior ainda pendente é cancelada, assim
+        // como uma busca ou filtro: a lista recarregada é exibida inteira.
+        if (pendingLoad != null) {
+            pendingLoad.cancel(true);
         }
+        clearActiveQuery();
+        loansVBox.getChildren().setAll(new Label("Carregando empréstimos..."));
+        pendingLoad = BackgroundExecutor.submit(loanService::getAllLoanSummaries, LOAD_TIMEOUT,
+                loans -> {
+                    allLoans.setAll(loans); // Atualiza a ObservableList
+                    if (activeQuery == null) { // Uma busca iniciada durante a carga continua exibida
+                        displayLoans(allLoans); // Atualiza a UI
+                    }
+                },
+                e -> {
+                    logError("Erro ao carregar empréstimos do banco de dados", e);
+                    showAlert(Alert.AlertType.ERROR, "Erro ao Carregar Empréstimos", "Não foi possível carregar os empréstimos do banco de dados: " + e.getMessage());
+                });
     }
 
     /**
@@ -137,7 +167,7 @@ public class LoanController {
      *
      * @param loans A lista de empréstimos a serem exibidos.
      */
-    private void displayLoans(ObservableList<Loan> loans) {
+    private void displayLoans(ObservableList<LoanSummary> loans) {
         loansVBox.getChildren().clear();
         if (loans.isEmpty()) {
             Label noLoansLabel = new Label("Nenhum empréstimo encontrado.");
@@ -146,7 +176,8 @@ public class LoanController {
             return;
         }
 
-        for (Loan loan : loans) {
+        long start = System.nanoTime(); // Medido junto com as consultas em PerformanceMetrics
+        for (LoanSummary loan : loans) {
             try {
                 FXMLLoader loader = new FXMLLoader(getClass().getResource("/views/LoanCardView.fxml"));
                 VBox loanCard = loader.load();
@@ -162,10 +193,11 @@ public class LoanController {
                 controller.setLoanController(this); // Passa a referência deste controlador para o card
                 loansVBox.getChildren().add(loanCard);
             } catch (IOException e) {
-                logError("Erro ao carregar LoanCardView.fxml para empréstimo " + (loan != null ? loan.getId() : "null"), e);
+                logError("Erro ao carregar LoanCardView.fxml para empréstimo " + (loan != null ? loan.id() : "null"), e);
                 showAlert(Alert.AlertType.ERROR, "Erro de Exibição", "Não foi possível carregar o card para um empréstimo: " + e.getMessage());
             }
         }
+        PerformanceMetrics.getInstance().record("LoanView.displayLoans", System.nanoTime() - start, loans.size(), false);
     }
 
     /**
@@ -221,40 +253,20 @@ public class LoanController {
     }
 
     /**
-     * Manipula a ação de buscar empréstimos. Filtra a lista de empréstimos com base no termo de busca
-     * em título do livro, nome do usuário ou CPF do usuário.
+     * Manipula a ação de buscar empréstimos. A busca por título do livro, nome do usuário ou CPF do
+     * usuário é feita no banco, em segundo plano ({@link LoanService#searchLoans}); com o termo
+     * vazio, volta a exibir a lista completa.
      * Pode ser chamado por um botão ou por um listener de texto no TextField.
      */
     @FXML
     public void handleSearchLoans() {
-        String searchTerm = searchTextField.getText().trim().toLowerCase();
-
-        // allLoans DEVE ESTAR POPULADO QUANDO loadLoans() É CHAMADO INICIALMENTE.
-        // Não é ideal tentar recarregar aqui, pois a lista principal já deveria estar carregada.
-        // if (allLoans.isEmpty() && loanService != null) {
-        //     try {
-        //         allLoans.setAll(loanService.getAllLoansWithDetails());
-        //     } catch (SQLException e) {
-        //         logError("Erro ao recarregar empréstimos para busca no 'handleSearchLoans'", e);
-        //     }
-        // }
-
+        String searchTerm = searchTextField.getText().trim();
         if (searchTerm.isEmpty()) {
+            clearActiveQuery();
             displayLoans(allLoans); // Exibe todos os empréstimos se a busca estiver vazia
-        } else {
-            ObservableList<Loan> searchResults = allLoans.stream()
-                    .filter(loan -> {
-                        boolean matchesBook = loan.getBook() != null && loan.getBook().getTitle().toLowerCase().contains(searchTerm);
-                        boolean matchesUser = false;
-                        if (loan.getUser() != null) {
-                            matchesUser = loan.getUser().getName().toLowerCase().contains(searchTerm) ||
-                                    (loan.getUser().getCpf() != null && loan.getUser().getCpf().toLowerCase().contains(searchTerm));
-                        }
-                        return matchesBook || matchesUser;
-                    })
-                    .collect(Collectors.toCollection(FXCollections::observableArrayList));
-            displayLoans(searchResults);
+            return;
         }
+        runQuery(() -> loanService.searchLoans(searchTerm, LoanService.MAX_FILTER_RESULTS), "buscar empréstimos");
     }
 
     /**
@@ -264,108 +276,196 @@ public class LoanController {
      */
     @FXML
     void filterLoansByAll(ActionEvent event) {
+        currentStatusFilter = null;
+        clearActiveQuery();
         displayLoans(allLoans);
     }
 
     /**
-     * Exibe apenas os empréstimos ativos (com data de devolução real nula e status "Ativo").
+     * Exibe apenas os empréstimos ativos, consultados no banco ({@link LoanService#getLoansByStatus}).
      *
      * @param event O evento de ação.
      */
     @FXML
     void filterLoansByActive(ActionEvent event) {
-        ObservableList<Loan> activeLoans = allLoans.stream()
-                .filter(loan -> loan.getActualReturnDate() == null && "Ativo".equalsIgnoreCase(loan.getStatus()))
-                .collect(Collectors.toCollection(FXCollections::observableArrayList));
-        displayLoans(activeLoans);
+        currentStatusFilter = LoanExportFilter.Status.ACTIVE;
+        runQuery(() -> loanService.getLoansByStatus("Ativo", LoanService.MAX_FILTER_RESULTS), "filtrar empréstimos ativos");
     }
 
     /**
-     * Exibe apenas os empréstimos devolvidos (com data de devolução real preenchida e status "Devolvido").
+     * Exibe apenas os empréstimos devolvidos, consultados no banco ({@link LoanService#getLoansByStatus}).
      *
      * @param event O evento de ação.
      */
     @FXML
     void filterLoansByReturned(ActionEvent event) {
-        ObservableList<Loan> returnedLoans = allLoans.stream()
-                .filter(loan -> loan.getActualReturnDate() != null && "Devolvido".equalsIgnoreCase(loan.getStatus()))
-                .collect(Collectors.toCollection(FXCollections::observableArrayList));
-        displayLoans(returnedLoans);
+        currentStatusFilter = LoanExportFilter.Status.RETURNED;
+        runQuery(() -> loanService.getLoansByStatus("Devolvido", LoanService.MAX_FILTER_RESULTS), "filtrar empréstimos devolvidos");
     }
 
     /**
-     * Exibe apenas os empréstimos atrasados (ativos e com data de devolução prevista anterior à data atual).
+     * Exibe apenas os empréstimos atrasados (ativos e com data de devolução prevista anterior à data
+     * atual), consultados no banco ({@link LoanService#getOverdueLoans}).
      *
      * @param event O evento de ação.
      */
     @FXML
     void filterLoansByOverdue(ActionEvent event) {
-        LocalDate today = LocalDate.now();
-        ObservableList<Loan> overdueLoans = allLoans.stream()
-                .filter(loan -> loan.getActualReturnDate() == null && "Ativo".equalsIgnoreCase(loan.getStatus()) &&
-                        loan.getExpectedReturnDate() != null && today.isAfter(loan.getExpectedReturnDate()))
-                .collect(Collectors.toCollection(FXCollections::observableArrayList));
-        displayLoans(overdueLoans);
+        currentStatusFilter = LoanExportFilter.Status.OVERDUE;
+        runQuery(() -> loanService.getOverdueLoans(LoanService.MAX_FILTER_RESULTS), "filtrar empréstimos atrasados");
+    }
+
+    /**
+     * Executa uma busca ou filtro de empréstimos em segundo plano e exibe o resultado no lugar da
+     * lista completa, cancelando a consulta anterior ainda pendente (ex: o usuário continuou
+     * digitando na busca).
+     *
+     * @param query       A consulta.
+     * @param description O que a consulta faz, para a mensagem de erro (ex: "buscar empréstimos").
+     */
+    private void runQuery(BackgroundExecutor.Task<LoanSearchResult> query, String description) {
+        clearActiveQuery();
+        activeQuery = BackgroundExecutor.submit(query, LOAD_TIMEOUT, this::displaySearchResult,
+                e -> {
+                    logError("Erro ao " + description, e);
+                    showAlert(Alert.AlertType.ERROR, "Erro ao Consultar Empréstimos", "Não foi possível " + description + ": " + e.getMessage());
+                });
+    }
+
+    private void clearActiveQuery() {
+        if (activeQuery != null) {
+            activeQuery.cancel(true);
+            activeQuery = null;
+        }
+    }
+
+    /**
+     * Exibe o resultado de uma busca ou filtro, avisando se ele foi cortado no limite.
+     */
+    private void displaySearchResult(LoanSearchResult result) {
+        displayLoans(FXCollections.observableArrayList(result.loans()));
+        if (result.truncated()) {
+            Label truncatedLabel = new Label("Exibindo apenas os " + result.loans().size()
+                    + " primeiros empréstimos encontrados; há outros que não foram exibidos.");
+            truncatedLabel.getStyleClass().add("label-info");
+            loansVBox.getChildren().add(0, truncatedLabel);
+        }
+    }
+
+    /**
+     * Exporta o histórico de empréstimos da situação selecionada (Todos, Ativos, Devolvidos ou
+     * Atrasados) para um arquivo escolhido pelo usuário, em segundo plano. O formato segue a
+     * extensão escolhida: .csv ou .jsonl, compactados com gzip se terminarem em .gz.
+     *
+     * @param event O evento de ação.
+     */
+    @FXML
+    void handleExportLoans(ActionEvent event) {
+        FileChooser fileChooser = new FileChooser();
+        fileChooser.setTitle("Exportar Histórico de Empréstimos");
+        fileChooser.getExtensionFilters().addAll(
+                new FileChooser.ExtensionFilter("CSV", "*.csv"),
+                new FileChooser.ExtensionFilter("CSV compactado", "*.csv.gz"),
+                new FileChooser.ExtensionFilter("JSON Lines", "*.jsonl"),
+                new FileChooser.ExtensionFilter("JSON Lines compactado", "*.jsonl.gz"));
+        fileChooser.setInitialFileName("emprestimos-" + LocalDate.now() + ".csv");
+        File file = fileChooser.showSaveDialog(loansVBox != null && loansVBox.getScene() != null ? loansVBox.getScene().getWindow() : null);
+        if (file == null) {
+            return;
+        }
+        LoanExportFilter filter = new LoanExportFilter(null, null, currentStatusFilter, null);
+        LoanExportFormat format = LoanExportFormat.forFileName(file.getName());
+        boolean gzip = LoanExportFormat.isGzipFileName(file.getName());
+        BackgroundExecutor.submit(() -> loanService.exportLoans(file.toPath(), filter, format, gzip), EXPORT_TIMEOUT,
+                rows -> showAlert(Alert.AlertType.INFORMATION, "Exportação Concluída",
+                        rows + " empréstimo(s) exportado(s) para " + file.getName() + "."),
+                e -> {
+                    logError("Erro ao exportar empréstimos para " + file, e);
+                    showAlert(Alert.AlertType.ERROR, "Erro na Exportação", "Não foi possível exportar os empréstimos: " + e.getMessage());
+                });
     }
 
     /**
      * Marca um empréstimo como devolvido, definindo a data de devolução real como a data atual,
      * atualizando o status e incrementando as cópias disponíveis do livro.
      *
-     * @param loan O empréstimo a ser marcado como devolvido.
+     * @param summary O empréstimo a ser marcado como devolvido.
      */
-    public void markLoanAsReturned(Loan loan) {
-        if (loan == null) {
+    public void markLoanAsReturned(LoanSummary summary) {
+        if (summary == null) {
             showAlert(Alert.AlertType.ERROR, "Erro", "Empréstimo inválido para devolução.");
             return;
         }
 
-        if (loan.getActualReturnDate() != null) {
-            showAlert(Alert.AlertType.INFORMATION, "Informação", "Este empréstimo já foi devolvido em " + loan.getActualReturnDate().toString() + ".");
+        if (summary.isReturned()) {
+            showAlert(Alert.AlertType.INFORMATION, "Informação", "Este empréstimo já foi devolvido em " + summary.actualReturnDate().toString() + ".");
             return;
         }
 
-        loan.setActualReturnDate(LocalDate.now());
-        loan.setStatus("Devolvido"); // Define o status como Devolvido
-
-        try {
-            if (loanService == null || bookService == null) {
-                logError("Serviços de empréstimo ou livro não estão disponíveis para marcar como devolvido.", null);
-                showAlert(Alert.AlertType.ERROR, "Erro de Serviço", "O serviço de empréstimos ou livros não está disponível.");
-                return;
-            }
-
-            loanService.updateLoan(loan); // Atualiza o empréstimo no banco de dados
-
-            // Incrementa o número de cópias disponíveis do livro
-            if (loan.getBook() != null) {
-                // Obtenha a cópia mais recente do livro do banco de dados para evitar inconsistências
-                // caso o livro tenha sido atualizado por outro lugar
-                // ou simplesmente use o objeto book já associado ao empréstimo se for confiável
-                // Por simplicidade, vamos usar o objeto associado:
-                int currentAvailable = loan.getBook().getAvailableCopies();
-                loan.getBook().setAvailableCopies(currentAvailable + 1);
-                bookService.updateBook(loan.getBook()); // Atualiza o livro no banco de dados
-            }
-
-            loadLoans(); // Recarrega a lista para refletir a mudança
-            showAlert(Alert.AlertType.INFORMATION, "Sucesso", "Empréstimo marcado como devolvido e cópia do livro incrementada com sucesso!");
-        } catch (SQLException e) {
-            logError("Erro ao marcar empréstimo como devolvido no banco de dados", e);
-            showAlert(Alert.AlertType.ERROR, "Erro de Atualização", "Não foi possível atualizar a informação de devolução no banco de dados: " + e.getMessage());
+        if (loanService == null) {
+            logError("Serviço de empréstimos não está disponível para marcar como devolvido.", null);
+            showAlert(Alert.AlertType.ERROR, "Erro de Serviço", "O serviço de empréstimos não está disponível.");
+            return;
         }
+
+        // Marca a devolução, calcula a multa e incrementa as cópias disponíveis do livro em um único
+        // comando, em segundo plano
+        BackgroundExecutor.submit(() -> loanService.returnLoan(summary.id()), LOAD_TIMEOUT,
+                returned -> {
+                    loadLoans(); // Recarrega a lista para refletir a mudança
+                    String fine = returned.getFine() > 0 ? String.format(" Multa: R$ %.2f.", returned.getFine()) : "";
+                    showAlert(Alert.AlertType.INFORMATION, "Sucesso", "Empréstimo marcado como devolvido e cópia do livro incrementada com sucesso!" + fine);
+                },
+                e -> {
+                    if (e instanceof IllegalStateException) { // Devolvido (ou removido) depois que a lista foi carregada
+                        loadLoans();
+                        showAlert(Alert.AlertType.INFORMATION, "Informação", e.getMessage());
+                        return;
+                    }
+                    logError("Erro ao marcar empréstimo como devolvido no banco de dados", e);
+                    showAlert(Alert.AlertType.ERROR, "Erro de Atualização", "Não foi possível atualizar a informação de devolução no banco de dados: " + e.getMessage());
+                });
     }
 
     /**
-     * Exibe os detalhes completos de um empréstimo em um diálogo modal.
+     * Exibe os detalhes completos de um empréstimo em um diálogo modal. Os detalhes do livro e do
+     * usuário são carregados do banco de dados, em segundo plano, antes de abrir o diálogo.
      *
-     * @param loan O empréstimo a ser exibido.
+     * @param summary O empréstimo a ser exibido.
      */
-    public void showLoanDetails(Loan loan) {
-        if (loan == null) {
+    public void showLoanDetails(LoanSummary summary) {
+        if (summary == null) {
             showAlert(Alert.AlertType.ERROR, "Erro", "Empréstimo inválido para exibir detalhes.");
             return;
         }
+        loadLoanDetails(summary, this::openLoanDetails);
+    }
+
+    /**
+     * Carrega em segundo plano os detalhes completos (livro e usuário) de um empréstimo da lista e
+     * os entrega na thread da interface. Se o empréstimo não existir mais, avisa o usuário e
+     * recarrega a lista.
+     *
+     * @param summary  O empréstimo da lista.
+     * @param onLoaded Quem recebe o empréstimo completo.
+     */
+    public void loadLoanDetails(LoanSummary summary, Consumer<Loan> onLoaded) {
+        BackgroundExecutor.submit(() -> loanService.getLoanById(summary.id()), LOAD_TIMEOUT,
+                loan -> {
+                    if (loan == null) {
+                        showAlert(Alert.AlertType.WARNING, "Empréstimo Não Encontrado", "O empréstimo " + summary.id() + " não existe mais.");
+                        loadLoans();
+                    } else {
+                        onLoaded.accept(loan);
+                    }
+                },
+                e -> {
+                    logError("Erro ao carregar os detalhes do empréstimo " + summary.id(), e);
+                    showAlert(Alert.AlertType.ERROR, "Erro ao Carregar", "Não foi possível carregar os detalhes do empréstimo: " + e.getMessage());
+                });
+    }
+
+    private void openLoanDetails(Loan loan) {
         try {
             FXMLLoader loader = new FXMLLoader(getClass().getResource("/views/LoanDetailsView.fxml"));
             Parent root = loader.load();
@@ -403,7 +503,7 @@ public class LoanController {
      *
      * @param loan O empréstimo a ser removido.
      */
-    public void removeLoan(Loan loan) {
+    public void removeLoan(LoanSummary loan) {
         if (loan == null) {
             showAlert(Alert.AlertType.ERROR, "Erro", "Empréstimo inválido para remoção.");
             return;
@@ -414,7 +514,7 @@ public class LoanController {
                 showAlert(Alert.AlertType.ERROR, "Erro de Serviço", "O serviço de empréstimos não está disponível.");
                 return;
             }
-            loanService.deleteLoan(loan.getId());
+            loanService.deleteLoan(loan.id());
             loadLoans(); // Recarrega a lista
             showAlert(Alert.AlertType.INFORMATION, "Sucesso", "Empréstimo removido com sucesso!");
         } catch (SQLException e) {
@@ -450,7 +550,7 @@ public class LoanController {
      * @param message A mensagem de erro.
      * @param e       A exceção ocorrida, pode ser nula.
      */
-    private void logError(String message, Exception e) {
+    private void logError(String message, Throwable e) {
         System.err.print("ERRO: " + message);
         if (e != null) {
             System.err.println(": " + e.getMessage());
@@ -1,17 +1,26 @@
 package com.managerlibrary.controllers;
 
+import com.managerlibrary.entities.Book;
+import com.managerlibrary.infra.PerformanceMetrics;
 import com.managerlibrary.services.BookService;
 import com.managerlibrary.services.LoanService;
 import com.managerlibrary.services.UserService;
 import javafx.event.ActionEvent;
 import javafx.fxml.FXML;
 import javafx.fxml.FXMLLoader;
+import javafx.geometry.Insets;
 import javafx.scene.Node;
+import javafx.scene.control.Button;
+import javafx.scene.control.TextArea;
 import javafx.scene.layout.BorderPane;
+import javafx.scene.layout.HBox;
 import javafx.scene.layout.Pane;
+import javafx.scene.layout.VBox;
+import javafx.scene.layout.Priority;
 import javafx.stage.Stage;
 
 import java.io.IOException;
+import java.util.List;
 import java.util.Objects;
 
 /**
@@ -97,15 +106,7 @@ public class RootLayoutController {
         if (bookViewCache == null) {
             try {
                 FXMLLoader loader = new FXMLLoader(getClass().getResource("/views/BookView.fxml"));
-                bookViewCache = loader.load(); // Carrega o FXML
-                bookControllerCache = loader.getController(); // Obtém o controlador AUTOMATICAMENTE
-
-                // *** INJEÇÃO DE DEPENDÊNCIA NO BookController ***
-                // Garante que o RootLayoutController seja injetado antes dos serviços
-                bookControllerCache.setRootLayoutController(this); // Passa a si mesmo para o BookController
-                bookControllerCache.setBookService(this.bookService);
-
-                logInfo("BookView e BookController carregados e serviços injetados.");
+                installBookView(loader.load(), loader.getController());
             } catch (IOException e) {
                 logError("Erro ao carregar BookView.fxml ou injetar serviços: " + e.getMessage(), e);
                 return; // Impede a continuação se a view não carregou
@@ -115,6 +116,40 @@ public class RootLayoutController {
         bookControllerCache.loadAllBooks(); // Chama o método para carregar os dados
     }
 
+    /**
+     * Exibe a view de livros com a primeira página do catálogo já carregada (ex: buscada em paralelo
+     * na inicialização), sem consultar o banco novamente.
+     *
+     * @param books A primeira página do catálogo, ordenada por título.
+     */
+    public void showBookView(List<Book> books) {
+        if (bookViewCache == null) {
+            showBookView();
+            return;
+        }
+        setCenterView(bookViewCache);
+        bookControllerCache.showBooks(books);
+    }
+
+    /**
+     * Registra a view de livros já carregada (o FXML pode ser lido fora da thread da interface)
+     * e injeta as dependências no seu controlador.
+     *
+     * @param view       O nó raiz de BookView.fxml.
+     * @param controller O controlador criado pelo FXMLLoader.
+     */
+    public void installBookView(Pane view, BookController controller) {
+        bookViewCache = view;
+        bookControllerCache = controller;
+
+        // *** INJEÇÃO DE DEPENDÊNCIA NO BookController ***
+        // Garante que o RootLayoutController seja injetado antes dos serviços
+        bookControllerCache.setRootLayoutController(this); // Passa a si mesmo para o BookController
+        bookControllerCache.setBookService(this.bookService);
+
+        logInfo("BookView e BookController carregados e serviços injetados.");
+    }
+
     /**
      * Ação para exibir a view de empréstimos.
      *
@@ -125,17 +160,7 @@ public class RootLayoutController {
         if (loanViewCache == null) {
             try {
                 FXMLLoader loader = new FXMLLoader(getClass().getResource("/views/LoanView.fxml"));
-                loanViewCache = loader.load();
-                loanControllerCache = loader.getController();
-
-                // *** INJEÇÃO DE DEPENDÊNCIA NO LoanController ***
-                // Garante que o RootLayoutController seja injetado antes dos serviços
-                loanControllerCache.setRootLayoutController(this);
-                loanControllerCache.setLoanService(this.loanService);
-                loanControllerCache.setBookService(this.bookService); // LoanController precisa de BookService
-                loanControllerCache.setUserService(this.userService); // LoanController precisa de UserService
-
-                logInfo("LoanView e LoanController carregados e serviços injetados.");
+                installLoanView(loader.load(), loader.getController());
             } catch (IOException e) {
                 logError("Erro ao carregar LoanView.fxml ou injetar serviços: " + e.getMessage(), e);
                 return;
@@ -145,6 +170,30 @@ public class RootLayoutController {
         loanControllerCache.loadLoans(); // Chama o método para carregar os dados
     }
 
+    /**
+     * Registra a view de empréstimos já carregada e injeta as dependências no seu controlador.
+     * Ignorada se a view já tiver sido carregada (ex: o usuário abriu a tela antes do pré-carregamento terminar).
+     *
+     * @param view       O nó raiz de LoanView.fxml.
+     * @param controller O controlador criado pelo FXMLLoader.
+     */
+    public void installLoanView(Pane view, LoanController controller) {
+        if (loanViewCache != null) {
+            return;
+        }
+        loanViewCache = view;
+        loanControllerCache = controller;
+
+        // *** INJEÇÃO DE DEPENDÊNCIA NO LoanController ***
+        // Garante que o RootLayoutController seja injetado antes dos serviços
+        loanControllerCache.setRootLayoutController(this);
+        loanControllerCache.setLoanService(this.loanService);
+        loanControllerCache.setBookService(this.bookService); // LoanController precisa de BookService
+        loanControllerCache.setUserService(this.userService); // LoanController precisa de UserService
+
+        logInfo("LoanView e LoanController carregados e serviços injetados.");
+    }
+
     /**
      * Ação para exibir a view de usuários.
      *
@@ -155,16 +204,7 @@ public class RootLayoutController {
         if (userViewCache == null) {
             try {
                 FXMLLoader loader = new FXMLLoader(getClass().getResource("/views/UserView.fxml"));
-                userViewCache = loader.load();
-                userControllerCache = loader.getController();
-
-                // *** INJEÇÃO DE DEPENDÊNCIA NO UserController ***
-                // CORREÇÃO: Garante que o RootLayoutController seja injetado PRIMEIRO
-                // antes que o setUserService chame loadAllUsers e este tente usar o RootLayoutController
-                userControllerCache.setRootLayoutController(this);
-                userControllerCache.setUserService(this.userService); // setUserService agora será chamado DEPOIS que rootLayoutController é definido
-
-                logInfo("UserView e UserController carregados e serviços injetados.");
+                installUserView(loader.load(), loader.getController());
             } catch (IOException e) {
                 logError("Erro ao carregar UserView.fxml ou injetar serviços: " + e.getMessage(), e);
                 return;
@@ -177,6 +217,55 @@ public class RootLayoutController {
         userControllerCache.loadAllUsers();
     }
 
+    /**
+     * Registra a view de usuários já carregada e injeta as dependências no seu controlador.
+     * Ignorada se a view já tiver sido carregada.
+     *
+     * @param view       O nó raiz de UserView.fxml.
+     * @param controller O controlador criado pelo FXMLLoader.
+     */
+    public void installUserView(Pane view, UserController controller) {
+        if (userViewCache != null) {
+            return;
+        }
+        userViewCache = view;
+        userControllerCache = controller;
+
+        // *** INJEÇÃO DE DEPENDÊNCIA NO UserController ***
+        // CORREÇÃO: Garante que o RootLayoutController seja injetado PRIMEIRO
+        // antes que o setUserService chame loadAllUsers e este tente usar o RootLayoutController
+        userControllerCache.setRootLayoutController(this);
+        userControllerCache.setUserService(this.userService); // setUserService agora será chamado DEPOIS que rootLayoutController é definido
+
+        logInfo("UserView e UserController carregados e serviços injetados.");
+    }
+
+    /**
+     * Ação para exibir as métricas de desempenho (chamadas, linhas e latências de cada método dos DAOs
+     * e do carregamento das capas). A tabela é um retrato do momento em que a tela foi aberta.
+     *
+     * @param event O evento de ação.
+     */
+    @FXML
+    public void showMetricsView(ActionEvent event) {
+        TextArea metricsText = new TextArea(PerformanceMetrics.getInstance().format());
+        metricsText.setEditable(false);
+        metricsText.setStyle("-fx-font-family: 'monospace';");
+        VBox.setVgrow(metricsText, Priority.ALWAYS);
+
+        Button refreshButton = new Button("Atualizar");
+        refreshButton.setOnAction(e -> metricsText.setText(PerformanceMetrics.getInstance().format()));
+        Button resetButton = new Button("Zerar");
+        resetButton.setOnAction(e -> {
+            PerformanceMetrics.getInstance().reset();
+            metricsText.setText(PerformanceMetrics.getInstance().format());
+        });
+
+        VBox metricsView = new VBox(10, new HBox(10, refreshButton, resetButton), metricsText);
+        metricsView.setPadding(new Insets(20));
+        setCenterView(metricsView);
+    }
+
     /**
      * Ação para o botão de adicionar livro. Chama o método no BookController para exibir a tela de adição.
      *
@@ -1,13 +1,13 @@
 package com.managerlibrary.controllers;
 
 import com.managerlibrary.entities.User;
+import com.managerlibrary.infra.ImageCache;
 import com.managerlibrary.services.UserService;
 import javafx.fxml.FXML;
 import javafx.fxml.FXMLLoader;
 import javafx.scene.control.Alert;
 import javafx.scene.control.Button;
 import javafx.scene.control.Label;
-import javafx.scene.image.Image;
 import javafx.scene.image.ImageView;
 import javafx.scene.layout.VBox;
 import javafx.stage.Stage;
@@ -117,19 +117,16 @@ public class UserCardController {
      * @param userName  O nome do usuário (usado para logs).
      */
     private void loadProfileImage(String imagePath, String userName) {
-        profileImageView.setImage(null); // Limpa a imagem anterior
+        ImageCache images = ImageCache.getInstance();
         if (imagePath != null && !imagePath.isEmpty()) {
-            File file = new File(imagePath);
-            // Removidos os System.out.println para um ambiente de produção
-            try {
-                String uriString = file.toURI().toString();
-                profileImageView.setImage(new Image(uriString));
-            } catch (Exception e) {
+            String uriString = new File(imagePath).toURI().toString();
+            // Decodificada em segundo plano, com a imagem padrão enquanto isso.
+            images.load(profileImageView, uriString, images.resource("/images/default_user_icon.png"), e -> {
                 System.err.println("Erro ao carregar imagem para " + userName + ": " + e.getMessage());
-                profileImageView.setImage(new Image(getClass().getResourceAsStream("/images/default_user_error.png")));
-            }
+                profileImageView.setImage(images.resource("/images/default_user_error.png"));
+            });
         } else {
-            profileImageView.setImage(new Image(getClass().getResourceAsStream("/images/default_user_icon.png")));
+            images.show(profileImageView, images.resource("/images/default_user_icon.png"));
         }
     }
 
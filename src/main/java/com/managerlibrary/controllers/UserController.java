@@ -1,6 +1,7 @@
 package com.managerlibrary.controllers;
 
 import com.managerlibrary.entities.User;
+import com.managerlibrary.infra.BackgroundExecutor;
 import com.managerlibrary.services.UserService;
 import javafx.event.ActionEvent;
 import javafx.fxml.FXML;
@@ -12,8 +13,11 @@ import javafx.stage.Stage;
 
 import java.io.IOException;
 import java.sql.SQLException;
+import java.time.Duration;
 import java.util.List;
 import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
 
 /**
  * Controlador para a tela de exibição e gerenciamento de usuários.
@@ -29,6 +33,10 @@ public class UserController {
 
     private UserService userService; // Agora, esta instância será injetada
     private RootLayoutController rootLayoutController;
+    private CompletableFuture<List<User>> pendingQuery;
+
+    // Tempo máximo de uma consulta de usuários antes de desistir e avisar o usuário.
+    private static final Duration QUERY_TIMEOUT = Duration.ofSeconds(30);
 
     /**
      * **ADICIONADO:** Define o serviço de usuários.
@@ -135,22 +143,36 @@ public class UserController {
             showAlert("Erro de Inicialização", "O serviço de usuários não está disponível. Por favor, reinicie a aplicação.");
             return;
         }
-        try {
-            List<User> users = userService.getAllUsers();
-            if (users.isEmpty()) {
-                usersCardFlowPane.getChildren().add(new Label("Nenhum usuário encontrado."));
-            } else {
-                for (User user : users) {
-                    Pane userCard = createUserCard(user);
-                    if (userCard != null) {
-                        usersCardFlowPane.getChildren().add(userCard);
+        usersCardFlowPane.getChildren().add(new Label("Carregando usuários..."));
+        runQuery(userService::getAllUsers,
+                users -> {
+                    usersCardFlowPane.getChildren().clear();
+                    if (users.isEmpty()) {
+                        usersCardFlowPane.getChildren().add(new Label("Nenhum usuário encontrado."));
+                    } else {
+                        for (User user : users) {
+                            Pane userCard = createUserCard(user);
+                            if (userCard != null) {
+                                usersCardFlowPane.getChildren().add(userCard);
+                            }
+                        }
                     }
-                }
-            }
-        } catch (SQLException e) {
-            logError("Erro ao carregar usuários", e);
-            showAlert("Erro ao Carregar", "Não foi possível carregar os usuários: " + e.getMessage());
+                },
+                e -> {
+                    logError("Erro ao carregar usuários", e);
+                    showAlert("Erro ao Carregar", "Não foi possível carregar os usuários: " + e.getMessage());
+                });
+    }
+
+    /**
+     * Executa uma consulta de usuários em segundo plano, cancelando a consulta anterior ainda pendente
+     * (ex: o usuário continuou digitando na busca). Os callbacks rodam na thread da interface.
+     */
+    private void runQuery(BackgroundExecutor.Task<List<User>> query, Consumer<List<User>> onSuccess, Consumer<Throwable> onError) {
+        if (pendingQuery != null) {
+            pendingQuery.cancel(true);
         }
+        pendingQuery = BackgroundExecutor.submit(query, QUERY_TIMEOUT, onSuccess, onError);
     }
 
     /**
@@ -232,13 +254,12 @@ public class UserController {
         }
 
         if (searchTerm != null && !searchTerm.trim().isEmpty()) {
-            try {
-                List<User> searchResults = userService.findUsersByNameOrCPFOrEmail(searchTerm);
-                updateUserCardDisplay(searchResults);
-            } catch (SQLException e) {
-                logError("Erro ao buscar usuários", e);
-                showAlert("Erro ao Buscar", "Erro ao buscar usuários: " + e.getMessage());
-            }
+            runQuery(() -> userService.findUsersByNameOrCPFOrEmail(searchTerm),
+                    this::updateUserCardDisplay,
+                    e -> {
+                        logError("Erro ao buscar usuários", e);
+                        showAlert("Erro ao Buscar", "Erro ao buscar usuários: " + e.getMessage());
+                    });
         } else {
             loadAllUsers(); // Se a busca estiver vazia, mostra todos os usuários
         }
@@ -333,7 +354,7 @@ public class UserController {
      * @param message A mensagem de erro.
      * @param e       A exceção ocorrida, pode ser nula.
      */
-    private void logError(String message, Exception e) {
+    private void logError(String message, Throwable e) {
         System.err.print(message);
         if (e != null) {
             System.err.println(": " + e.getMessage());
@@ -0,0 +1,122 @@
+package com.managerlibrary.daos.implement;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.function.ObjIntConsumer;
+
+/**
+ * Insere várias linhas com INSERTs de múltiplas linhas ({@code VALUES (...), (...), ... RETURNING id}).
+ * <p>
+ * Cada lote de {@code batchSize} entidades é um único comando e uma única ida ao banco, e os ids
+ * gerados voltam na mesma resposta, na ordem das linhas do VALUES. Os lotes completos usam sempre
+ * o mesmo texto SQL, então o statement é preparado uma vez e reaproveitado pelo cache de statements;
+ * só o último lote, se incompleto, tem um texto próprio.
+ * <p>
+ * Fora de uma transação do TransactionManager, todos os lotes são confirmados juntos em uma
+ * transação aberta aqui: ou a lista inteira é inserida, ou nada é.
+ */
+final class BatchInsert {
+
+    // Número de linhas por comando quando não configurado (jdbc.batchSize).
+    static final int DEFAULT_BATCH_SIZE = 500;
+    // O protocolo do PostgreSQL aceita no máximo 65535 parâmetros por comando.
+    private static final int MAX_PARAMETERS = 65_535;
+
+    private BatchInsert() {
+    }
+
+    /**
+     * Preenche os parâmetros de uma linha do VALUES.
+     */
+    @FunctionalInterface
+    interface RowBinder<T> {
+        /**
+         * @param pstmt      O statement do lote.
+         * @param firstIndex O índice do primeiro parâmetro desta linha.
+         * @param row        A entidade da linha.
+         */
+        void bind(PreparedStatement pstmt, int firstIndex, T row) throws SQLException;
+    }
+
+    /**
+     * Insere as entidades em lotes e atribui a cada uma o id gerado.
+     *
+     * @param connection A conexão a ser usada (o chamador é responsável por fechá-la).
+     * @param insertInto O início do comando, até a lista de colunas (ex: {@code "INSERT INTO books (title, author)"}).
+     * @param columns    O número de colunas (parâmetros) por linha.
+     * @param rows       As entidades a inserir.
+     * @param batchSize  O número máximo de linhas por comando.
+     * @param binder     Quem preenche os parâmetros de cada linha.
+     * @param idSetter   Quem atribui o id gerado a cada entidade.
+     * @param <T>        O tipo da entidade.
+     * @throws SQLException Se algum lote falhar; nesse caso nenhuma entidade recebe id.
+     */
+    static <T> void insertAll(Connection connection, String insertInto, int columns, List<T> rows, int batchSize,
+                              RowBinder<? super T> binder, ObjIntConsumer<? super T> idSetter) throws SQLException {
+        if (rows.isEmpty()) {
+            return;
+        }
+        int rowsPerStatement = Math.min(batchSize, MAX_PARAMETERS / columns);
+        String fullBatchSql = rows.size() >= rowsPerStatement ? sql(insertInto, columns, rowsPerStatement) : null;
+        int[] ids = new int[rows.size()];
+
+        boolean ownTransaction = connection.getAutoCommit();
+        if (ownTransaction) {
+            connection.setAutoCommit(false); // O pool restaura o autocommit na devolução
+        }
+        try {
+            for (int start = 0; start < rows.size(); start += rowsPerStatement) {
+                int count = Math.min(rowsPerStatement, rows.size() - start);
+                String sql = count == rowsPerStatement ? fullBatchSql : sql(insertInto, columns, count);
+                try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
+                    for (int i = 0; i < count; i++) {
+                        binder.bind(pstmt, i * columns + 1, rows.get(start + i));
+                    }
+                    try (ResultSet rs = pstmt.executeQuery()) {
+                        for (int i = 0; i < count; i++) {
+                            if (!rs.next()) {
+                                throw new SQLException("O banco devolveu menos ids do que linhas inseridas.");
+                            }
+                            ids[start + i] = rs.getInt(1);
+                        }
+                    }
+                }
+            }
+            if (ownTransaction) {
+                connection.commit();
+            }
+        } catch (SQLException | RuntimeException e) {
+            if (ownTransaction) {
+                try {
+                    connection.rollback();
+                } catch (SQLException rollbackError) {
+                    e.addSuppressed(rollbackError);
+                }
+            }
+            throw e;
+        }
+        for (int i = 0; i < ids.length; i++) {
+            idSetter.accept(rows.get(i), ids[i]);
+        }
+    }
+
+    private static String sql(String insertInto, int columns, int rowCount) {
+        StringBuilder row = new StringBuilder("(");
+        for (int c = 0; c < columns; c++) {
+            row.append(c == 0 ? "?" : ", ?");
+        }
+        row.append(')');
+        StringBuilder sql = new StringBuilder(insertInto.length() + 16 + rowCount * (row.length() + 2));
+        sql.append(insertInto).append(" VALUES ");
+        for (int r = 0; r < rowCount; r++) {
+            if (r > 0) {
+                sql.append(", ");
+            }
+            sql.append(row);
+        }
+        return sql.append(" RETURNING id").toString();
+    }
+}
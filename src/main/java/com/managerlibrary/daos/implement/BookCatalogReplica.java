@@ -0,0 +1,331 @@
+package com.managerlibrary.daos.implement;
+
+import com.managerlibrary.entities.Book;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+
+import javax.sql.DataSource;
+import java.sql.Array;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
+
+/**
+ * Cópia completa do catálogo de livros em memória, indexada por id e por ISBN, mantida atualizada
+ * pelos avisos do banco (LISTEN/NOTIFY, migração V7): cada alteração em {@code books}, feita por
+ * qualquer balcão, avisa o id do livro, e uma thread dedicada relê do banco os livros avisados.
+ * <p>
+ * As leituras não bloqueiam nem vão ao banco: consultam mapas concorrentes e devolvem cópias dos
+ * livros, que o chamador pode alterar sem afetar a réplica. Só a thread de avisos e
+ * {@link #refresh(Collection)} alteram a réplica, um de cada vez; cada um relê os livros e os aplica
+ * sem ser interrompido pelo outro, então a réplica nunca volta a um estado anterior ao já aplicado.
+ * <p>
+ * Consistência: o LISTEN é feito antes da carga completa, então nenhuma alteração confirmada depois
+ * da carga se perde; entre a confirmação no banco e a aplicação do aviso há um atraso de alguns
+ * milissegundos. Se a conexão de avisos cair, a réplica deixa de estar {@link #isLive() atualizada}
+ * (o BookService volta a consultar o banco) até reconectar e recarregar o catálogo inteiro.
+ * <p>
+ * Ocupa uma conexão do primário enquanto estiver aberta (os avisos não chegam por uma réplica de leitura).
+ */
+public final class BookCatalogReplica implements AutoCloseable {
+
+    /**
+     * Canal dos avisos de alteração de livros (ver a migração V7).
+     */
+    public static final String CHANNEL = "book_changes";
+
+    // Aviso enviado pelo TRUNCATE de books: o catálogo inteiro precisa ser recarregado.
+    private static final String RELOAD_ALL = "*";
+    // Quanto tempo cada espera por avisos bloqueia; também limita o tempo de close().
+    private static final int POLL_MILLIS = 500;
+    private static final long RECONNECT_DELAY_MILLIS = 5_000;
+
+    private static final String FIND_ALL_BOOKS_SQL = "SELECT id, title, author, isbn, genre, total_copies, available_copies, publisher, year, image_url, cover_image_path FROM books";
+    private static final String FIND_BOOKS_BY_IDS_SQL = FIND_ALL_BOOKS_SQL + " WHERE id = ANY(?)";
+    private static final Comparator<Book> BY_ID = Comparator.comparingInt(Book::getId);
+
+    private final DataSource dataSource;
+    private final Thread listener;
+    // Trocado por inteiro só na carga completa; as alterações incrementais mudam os mapas dele.
+    private volatile Catalog catalog = new Catalog();
+    private volatile boolean live;
+    private volatile boolean closed;
+    private Connection listenConnection; // Usada só pela thread de avisos depois de start()
+
+    private BookCatalogReplica(DataSource dataSource) {
+        this.dataSource = dataSource;
+        this.listener = new Thread(this::listen, "book-catalog-replica");
+        this.listener.setDaemon(true);
+    }
+
+    /**
+     * Abre a conexão de avisos, carrega o catálogo inteiro e começa a aplicar as alterações.
+     *
+     * @param dataSource O DataSource do primário.
+     * @return A réplica já carregada.
+     * @throws SQLException Se a conexão ou a carga inicial falharem.
+     */
+    public static BookCatalogReplica start(DataSource dataSource) throws SQLException {
+        BookCatalogReplica replica = new BookCatalogReplica(Objects.requireNonNull(dataSource, "O DataSource não pode ser nulo."));
+        replica.connect();
+        replica.listener.start();
+        return replica;
+    }
+
+    /**
+     * @return {@code true} enquanto a réplica estiver recebendo os avisos do banco; se for
+     *         {@code false}, ela pode estar desatualizada e as leituras devem ir ao banco.
+     */
+    public boolean isLive() {
+        return live && !closed;
+    }
+
+    /**
+     * @return Quantos livros a réplica tem.
+     */
+    public int size() {
+        return catalog.byId.size();
+    }
+
+    /**
+     * @return Todos os livros, em ordem de id.
+     */
+    public List<Book> findAll() {
+        return copies(catalog.byId.values(), book -> true);
+    }
+
+    /**
+     * @return Os livros com cópias disponíveis, em ordem de id.
+     */
+    public List<Book> findAvailable() {
+        return copies(catalog.byId.values(), book -> book.getAvailableCopies() > 0);
+    }
+
+    /**
+     * @return O livro com o id informado, ou {@code null}.
+     */
+    public Book findById(int id) {
+        return copyOf(catalog.byId.get(id));
+    }
+
+    /**
+     * @return O livro com o ISBN informado, ou {@code null}.
+     */
+    public Book findByIsbn(String isbn) {
+        return isbn == null ? null : copyOf(catalog.byIsbn.get(isbn));
+    }
+
+    /**
+     * Mesmo critério de {@code BookDAO.findBooksByTitle} (o título contém o termo, sem diferenciar
+     * maiúsculas de minúsculas), exceto que '%' e '_' no termo são procurados literalmente.
+     *
+     * @return Os livros encontrados, em ordem de id.
+     */
+    public List<Book> findByTitle(String term) {
+        String lowerTerm = term == null ? "" : term.toLowerCase(Locale.ROOT);
+        return copies(catalog.byId.values(),
+                book -> book.getTitle() != null && book.getTitle().toLowerCase(Locale.ROOT).contains(lowerTerm));
+    }
+
+    /**
+     * Relê do banco os livros informados, sem esperar pelo aviso (para que quem acabou de gravar
+     * um livro já o encontre atualizado). Livros que não existem mais saem da réplica.
+     *
+     * @param ids Os ids dos livros alterados.
+     * @throws SQLException Se ocorrer um erro de acesso ao banco de dados.
+     */
+    public void refresh(Collection<Integer> ids) throws SQLException {
+        if (ids.isEmpty() || closed) {
+            return;
+        }
+        try (Connection connection = dataSource.getConnection()) {
+            refresh(connection, ids);
+        }
+    }
+
+    /**
+     * Para a thread de avisos, que devolve a conexão ao sair.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        listener.interrupt();
+        try {
+            listener.join(2L * POLL_MILLIS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void listen() {
+        while (!closed) {
+            try {
+                if (listenConnection == null) {
+                    connect();
+                    System.out.println("Réplica do catálogo reconectada: " + size() + " livro(s).");
+                }
+                PGNotification[] notifications = listenConnection.unwrap(PGConnection.class).getNotifications(POLL_MILLIS);
+                if (notifications != null && notifications.length > 0) {
+                    apply(notifications);
+                }
+            } catch (SQLException e) {
+                if (closed) {
+                    break;
+                }
+                live = false;
+                System.err.println("Réplica do catálogo sem avisos do banco, tentando reconectar: " + e.getMessage());
+                closeListenConnection();
+                try {
+                    Thread.sleep(RECONNECT_DELAY_MILLIS);
+                } catch (InterruptedException interrupted) {
+                    break; // close()
+                }
+            }
+        }
+        closeListenConnection();
+    }
+
+    // LISTEN antes da carga: o que for confirmado depois dela chega como aviso.
+    private void connect() throws SQLException {
+        Connection connection = dataSource.getConnection();
+        try {
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("LISTEN " + CHANNEL);
+            }
+            reload(connection);
+        } catch (SQLException e) {
+            connection.close();
+            throw e;
+        }
+        listenConnection = connection;
+        live = true;
+    }
+
+    private void apply(PGNotification[] notifications) throws SQLException {
+        Set<Integer> ids = new HashSet<>();
+        for (PGNotification notification : notifications) {
+            String payload = notification.getParameter();
+            if (RELOAD_ALL.equals(payload)) {
+                reload(listenConnection);
+                return; // A carga completa já inclui as demais alterações
+            }
+            try {
+                ids.add(Integer.parseInt(payload));
+            } catch (NumberFormatException e) {
+                System.err.println("Aviso de alteração de livro ignorado: " + payload);
+            }
+        }
+        refresh(listenConnection, ids);
+    }
+
+    private synchronized void reload(Connection connection) throws SQLException {
+        Catalog loaded = new Catalog();
+        try (PreparedStatement pstmt = connection.prepareStatement(FIND_ALL_BOOKS_SQL);
+             ResultSet rs = pstmt.executeQuery()) {
+            RowMapper<Book> mapper = RowMappers.books(rs);
+            while (rs.next()) {
+                loaded.put(mapper.map(rs));
+            }
+        }
+        catalog = loaded;
+    }
+
+    // Releitura e aplicação no mesmo bloco sincronizado: a última a aplicar é a última a ler.
+    private synchronized void refresh(Connection connection, Collection<Integer> ids) throws SQLException {
+        if (ids.isEmpty()) {
+            return;
+        }
+        Set<Integer> missing = new HashSet<>(ids);
+        Catalog current = catalog;
+        try (PreparedStatement pstmt = connection.prepareStatement(FIND_BOOKS_BY_IDS_SQL)) {
+            Array array = connection.createArrayOf("integer", ids.toArray());
+            pstmt.setArray(1, array);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                RowMapper<Book> mapper = RowMappers.books(rs);
+                while (rs.next()) {
+                    Book book = mapper.map(rs);
+                    current.put(book);
+                    missing.remove(book.getId());
+                }
+            } finally {
+                array.free();
+            }
+        }
+        for (int id : missing) { // Excluídos
+            current.remove(id);
+        }
+    }
+
+    private void closeListenConnection() {
+        if (listenConnection != null) {
+            try (Statement statement = listenConnection.createStatement()) {
+                statement.execute("UNLISTEN *"); // A conexão volta limpa ao pool
+            } catch (SQLException ignored) {
+                // A conexão já caiu; o pool a descarta
+            }
+            try {
+                listenConnection.close();
+            } catch (SQLException e) {
+                System.err.println("Erro ao fechar a conexão da réplica do catálogo: " + e.getMessage());
+            }
+            listenConnection = null;
+        }
+    }
+
+    private static List<Book> copies(Collection<Book> books, Predicate<Book> filter) {
+        List<Book> result = new ArrayList<>();
+        for (Book book : books) {
+            if (filter.test(book)) {
+                result.add(copyOf(book));
+            }
+        }
+        result.sort(BY_ID);
+        return result;
+    }
+
+    private static Book copyOf(Book book) {
+        if (book == null) {
+            return null;
+        }
+        return new Book(book); // Os livros guardados foram lidos do banco, então a cópia também sai sem alterações
+    }
+
+    /**
+     * Os livros da réplica, por id e por ISBN. Os livros guardados nunca são alterados: uma
+     * alteração troca o livro inteiro nos dois mapas.
+     */
+    private static final class Catalog {
+        private final Map<Integer, Book> byId = new ConcurrentHashMap<>();
+        private final Map<String, Book> byIsbn = new ConcurrentHashMap<>();
+
+        private void put(Book book) {
+            Book previous = byId.put(book.getId(), book);
+            if (previous != null && previous.getIsbn() != null && !previous.getIsbn().equals(book.getIsbn())) {
+                byIsbn.remove(previous.getIsbn(), previous); // O ISBN mudou
+            }
+            if (book.getIsbn() != null && !book.getIsbn().isEmpty()) {
+                byIsbn.put(book.getIsbn(), book);
+            }
+        }
+
+        private void remove(int id) {
+            Book previous = byId.remove(id);
+            if (previous != null && previous.getIsbn() != null) {
+                byIsbn.remove(previous.getIsbn(), previous);
+            }
+        }
+    }
+}
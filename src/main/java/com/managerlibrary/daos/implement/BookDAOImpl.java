@@ -1,44 +1,242 @@
 package com.managerlibrary.daos.implement;
 
 import com.managerlibrary.daos.interfaces.BookDAO;
+import com.managerlibrary.daos.interfaces.RowCallback;
 import com.managerlibrary.entities.Book;
+import com.managerlibrary.entities.BookImportResult;
+import com.managerlibrary.entities.BookSortOrder;
+import com.managerlibrary.infra.RoutingDataSource;
+import com.managerlibrary.infra.TransactionManager;
+import org.postgresql.PGConnection;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.Reader;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
 import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.EnumSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 public class BookDAOImpl implements BookDAO {
 
-    private Connection connection;
+    private static final String FIND_ALL_BOOKS_SQL = "SELECT id, title, author, isbn, genre, total_copies, available_copies, publisher, year, image_url, cover_image_path FROM books";
+    private static final String FIND_BOOK_BY_ID_SQL = "SELECT id, title, author, isbn, genre, total_copies, available_copies, publisher, year, image_url, cover_image_path FROM books WHERE id = ?";
+    private static final String INSERT_BOOK_SQL = "INSERT INTO books (title, author, isbn, genre, total_copies, available_copies, publisher, year, image_url, cover_image_path)";
+    private static final int INSERT_BOOK_COLUMNS = 10;
+    // UPDATE só das colunas alteradas (ver updateBook); UPDATE_BOOK_SQL é o de todas as colunas.
+    private static final PartialUpdate<Book.Field> BOOK_UPDATE = new PartialUpdate<>("books", Map.of(
+            Book.Field.TITLE, "title", Book.Field.AUTHOR, "author", Book.Field.ISBN, "isbn", Book.Field.GENRE, "genre",
+            Book.Field.TOTAL_COPIES, "total_copies", Book.Field.AVAILABLE_COPIES, "available_copies",
+            Book.Field.PUBLISHER, "publisher", Book.Field.YEAR, "year", Book.Field.IMAGE_URL, "image_url",
+            Book.Field.COVER_IMAGE_PATH, "cover_image_path"), PartialUpdate.DEFAULT_CACHE_SIZE);
+    private static final String UPDATE_BOOK_SQL = BOOK_UPDATE.sql(EnumSet.allOf(Book.Field.class));
+
+    // Importação por COPY (migração V4). O arquivo entra como texto na tabela de preparação, é
+    // validado em SQL e só as linhas válidas são mescladas em books, em um único comando.
+    private static final String IMPORT_COLUMNS = "title, author, isbn, genre, total_copies, available_copies, publisher, year, image_url, cover_image_path";
+    private static final String IMPORT_COPY_SQL = "COPY book_import_staging (" + IMPORT_COLUMNS + ") FROM STDIN WITH (FORMAT csv, HEADER true)";
+    private static final String IMPORT_VALIDATE_SQL = "UPDATE book_import_staging SET reject_reason = CASE"
+            + " WHEN NULLIF(btrim(title), '') IS NULL THEN 'título vazio'"
+            + " WHEN length(btrim(title)) > 255 THEN 'título com mais de 255 caracteres'"
+            + " WHEN NULLIF(btrim(isbn), '') IS NULL THEN 'ISBN vazio'"
+            + " WHEN length(btrim(isbn)) > 20 THEN 'ISBN com mais de 20 caracteres'"
+            + " WHEN length(btrim(author)) > 255 OR length(btrim(publisher)) > 255 THEN 'autor ou editora com mais de 255 caracteres'"
+            + " WHEN length(btrim(genre)) > 100 THEN 'gênero com mais de 100 caracteres'"
+            + " WHEN length(btrim(image_url)) > 500 OR length(btrim(cover_image_path)) > 500 THEN 'caminho de imagem com mais de 500 caracteres'"
+            + " WHEN COALESCE(btrim(total_copies), '') !~ '^[0-9]{1,6}$' THEN 'total de cópias inválido'"
+            + " WHEN COALESCE(btrim(available_copies), '') !~ '^[0-9]{0,6}$' THEN 'cópias disponíveis inválidas'"
+            + " WHEN COALESCE(btrim(year), '') !~ '^(-?[0-9]{1,4})?$' THEN 'ano inválido'"
+            + " WHEN NULLIF(btrim(available_copies), '')::int > btrim(total_copies)::int THEN 'mais cópias disponíveis que o total'"
+            + " END";
+    // Um mesmo ISBN repetido no arquivo faria o ON CONFLICT atualizar a mesma linha duas vezes no
+    // mesmo comando (o que o PostgreSQL recusa): vale a última ocorrência, as anteriores são rejeitadas.
+    private static final String IMPORT_REJECT_DUPLICATES_SQL = "UPDATE book_import_staging s"
+            + " SET reject_reason = 'ISBN repetido no arquivo (vale a última ocorrência)'"
+            + " FROM (SELECT line_number, row_number() OVER (PARTITION BY btrim(isbn) ORDER BY line_number DESC) AS occurrence"
+            + " FROM book_import_staging WHERE reject_reason IS NULL) d"
+            + " WHERE s.line_number = d.line_number AND d.occurrence > 1";
+    // Livros novos são inseridos como vieram no arquivo (cópias disponíveis em branco = total). Nos
+    // que já existem, campos opcionais em branco não apagam o valor atual, e as cópias disponíveis
+    // são recalculadas a partir do novo total, descontando as que estão emprestadas.
+    // xmax = 0 identifica as linhas inseridas (as atualizadas têm o xmax da própria transação).
+    private static final String IMPORT_MERGE_SQL = "WITH merged AS ("
+            + " INSERT INTO books (" + IMPORT_COLUMNS + ")"
+            + " SELECT btrim(title), NULLIF(btrim(author), ''), btrim(isbn), NULLIF(btrim(genre), ''),"
+            + " btrim(total_copies)::int, COALESCE(NULLIF(btrim(available_copies), '')::int, btrim(total_copies)::int),"
+            + " NULLIF(btrim(publisher), ''), NULLIF(btrim(year), '')::int, NULLIF(btrim(image_url), ''), NULLIF(btrim(cover_image_path), '')"
+            + " FROM book_import_staging WHERE reject_reason IS NULL"
+            + " ON CONFLICT (isbn) WHERE isbn <> '' DO UPDATE SET"
+            + " title = EXCLUDED.title,"
+            + " author = COALESCE(EXCLUDED.author, books.author),"
+            + " genre = COALESCE(EXCLUDED.genre, books.genre),"
+            + " total_copies = EXCLUDED.total_copies,"
+            + " available_copies = GREATEST(EXCLUDED.total_copies - (books.total_copies - books.available_copies), 0),"
+            + " publisher = COALESCE(EXCLUDED.publisher, books.publisher),"
+            + " year = COALESCE(EXCLUDED.year, books.year),"
+            + " image_url = COALESCE(EXCLUDED.image_url, books.image_url),"
+            + " cover_image_path = COALESCE(EXCLUDED.cover_image_path, books.cover_image_path)"
+            + " RETURNING (xmax = 0) AS inserted)"
+            + " SELECT count(*) FILTER (WHERE inserted), count(*) FILTER (WHERE NOT inserted) FROM merged";
+    private static final String IMPORT_REJECTED_COUNT_SQL = "SELECT count(*) FROM book_import_staging WHERE reject_reason IS NOT NULL";
+    private static final String IMPORT_REJECTED_SAMPLES_SQL = "SELECT line_number, isbn, reject_reason FROM book_import_staging"
+            + " WHERE reject_reason IS NOT NULL ORDER BY line_number LIMIT " + BookDAO.IMPORT_REJECTED_SAMPLES;
+    // Também impede duas importações simultâneas: o TRUNCATE bloqueia a tabela até o fim da transação.
+    private static final String IMPORT_TRUNCATE_SQL = "TRUNCATE book_import_staging RESTART IDENTITY";
+
+    // Consultas da paginação por chave, uma primeira página e uma "página seguinte" por ordem de exibição.
+    private static final Map<BookSortOrder, String> FIRST_PAGE_SQL = new EnumMap<>(BookSortOrder.class);
+    private static final Map<BookSortOrder, String> NEXT_PAGE_SQL = new EnumMap<>(BookSortOrder.class);
+
+    static {
+        for (BookSortOrder sortOrder : BookSortOrder.values()) {
+            String key = sortKeyExpression(sortOrder);
+            boolean descending = sortOrder == BookSortOrder.YEAR;
+            String orderBy = descending ? " ORDER BY " + key + " DESC, id DESC LIMIT ?" : " ORDER BY " + key + ", id LIMIT ?";
+            FIRST_PAGE_SQL.put(sortOrder, FIND_ALL_BOOKS_SQL + orderBy);
+            NEXT_PAGE_SQL.put(sortOrder, FIND_ALL_BOOKS_SQL + " WHERE (" + key + ", id) " + (descending ? "<" : ">") + " (?, ?)" + orderBy);
+        }
+    }
+
+    /**
+     * Statements mais usados logo após a abertura da aplicação, pré-preparados na inicialização.
+     */
+    public static final List<String> WARM_UP_STATEMENTS = List.of(FIRST_PAGE_SQL.get(BookSortOrder.TITLE),
+            NEXT_PAGE_SQL.get(BookSortOrder.TITLE), FIND_BOOK_BY_ID_SQL, UPDATE_BOOK_SQL);
+
+    // Cada operação empresta uma conexão do pool e a devolve ao final. As consultas (find*/search*)
+    // usam RoutingDataSource.readConnection, que as envia à réplica de leitura quando configurada;
+    // as escritas usam TransactionManager.getConnection, que participa da transação ativa, se houver.
+    private final DataSource dataSource;
+    private final int batchSize;
 
-    public BookDAOImpl(Connection connection) {
-        this.connection = connection;
+    public BookDAOImpl(DataSource dataSource) {
+        this(dataSource, BatchInsert.DEFAULT_BATCH_SIZE);
+    }
+
+    /**
+     * @param dataSource O DataSource de onde as conexões são emprestadas.
+     * @param batchSize  Quantos livros cada comando de {@link #insertBooks(List)} insere.
+     */
+    public BookDAOImpl(DataSource dataSource, int batchSize) {
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("O tamanho do lote deve ser positivo.");
+        }
+        this.dataSource = dataSource;
+        this.batchSize = batchSize;
     }
 
     @Override
     public void insertBook(Book book) throws SQLException {
-        String sql = "INSERT INTO books (title, author, isbn, genre, total_copies, available_copies, publisher, year, image_url, cover_image_path) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
-        try (PreparedStatement pstmt = connection.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
-            pstmt.setString(1, book.getTitle());
-            pstmt.setString(2, book.getAuthor());
-            pstmt.setString(3, book.getIsbn());
-            pstmt.setString(4, book.getGenre());
-            pstmt.setInt(5, book.getTotalCopies());
-            pstmt.setInt(6, book.getAvailableCopies());
-            pstmt.setString(7, book.getPublisher());
-            pstmt.setInt(8, book.getYear());
-            pstmt.setString(9, book.getImageUrl());
-            pstmt.setString(10, book.getCoverImagePath());
+        String sql = INSERT_BOOK_SQL + " VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+        try (Connection connection = TransactionManager.getConnection(dataSource);
+             PreparedStatement pstmt = connection.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+            bindInsertParameters(pstmt, 1, book);
             pstmt.executeUpdate();
 
-            ResultSet generatedKeys = pstmt.getGeneratedKeys();
-            if (generatedKeys.next()) {
-                book.setId(generatedKeys.getInt(1));
+            try (ResultSet generatedKeys = pstmt.getGeneratedKeys()) {
+                if (generatedKeys.next()) {
+                    book.setId(generatedKeys.getInt(1));
+                }
+            }
+        }
+        book.markClean();
+    }
+
+    /**
+     * Insere os livros em lotes de {@code batchSize} por comando (ver {@link BatchInsert}) e
+     * atribui a cada um o id gerado.
+     */
+    @Override
+    public void insertBooks(List<Book> books) throws SQLException {
+        try (Connection connection = TransactionManager.getConnection(dataSource)) {
+            BatchInsert.insertAll(connection, INSERT_BOOK_SQL, INSERT_BOOK_COLUMNS, books, batchSize,
+                    BookDAOImpl::bindInsertParameters, (book, id) -> {
+                        book.setId(id);
+                        book.markClean();
+                    });
+        }
+    }
+
+    private static void bindInsertParameters(PreparedStatement pstmt, int firstIndex, Book book) throws SQLException {
+        pstmt.setString(firstIndex, book.getTitle());
+        pstmt.setString(firstIndex + 1, book.getAuthor());
+        pstmt.setString(firstIndex + 2, book.getIsbn());
+        pstmt.setString(firstIndex + 3, book.getGenre());
+        pstmt.setInt(firstIndex + 4, book.getTotalCopies());
+        pstmt.setInt(firstIndex + 5, book.getAvailableCopies());
+        pstmt.setString(firstIndex + 6, book.getPublisher());
+        pstmt.setInt(firstIndex + 7, book.getYear());
+        pstmt.setString(firstIndex + 8, book.getImageUrl());
+        pstmt.setString(firstIndex + 9, book.getCoverImagePath());
+    }
+
+    /**
+     * Importa um catálogo em CSV em memória constante: o arquivo é enviado ao banco por COPY, sem
+     * passar por objetos Book, e a validação e a mescla são comandos SQL sobre a tabela de
+     * preparação. Fora de uma transação do TransactionManager, a importação inteira é uma transação:
+     * se falhar, nenhum livro é alterado.
+     */
+    @Override
+    public BookImportResult importBooks(Reader csv) throws SQLException, IOException {
+        try (Connection connection = TransactionManager.getConnection(dataSource)) {
+            boolean ownTransaction = connection.getAutoCommit();
+            if (ownTransaction) {
+                connection.setAutoCommit(false); // O pool restaura o autocommit na devolução
+            }
+            try {
+                BookImportResult result = importIntoStaging(connection, csv);
+                if (ownTransaction) {
+                    connection.commit();
+                }
+                return result;
+            } catch (SQLException | IOException | RuntimeException e) {
+                if (ownTransaction) {
+                    try {
+                        connection.rollback();
+                    } catch (SQLException rollbackError) {
+                        e.addSuppressed(rollbackError);
+                    }
+                }
+                throw e;
+            }
+        }
+    }
+
+    private static BookImportResult importIntoStaging(Connection connection, Reader csv) throws SQLException, IOException {
+        long inserted;
+        long updated;
+        long rejected;
+        List<BookImportResult.Rejection> samples = new ArrayList<>();
+        try (Statement stmt = connection.createStatement()) {
+            stmt.execute(IMPORT_TRUNCATE_SQL);
+            connection.unwrap(PGConnection.class).getCopyAPI().copyIn(IMPORT_COPY_SQL, csv);
+            stmt.executeUpdate(IMPORT_VALIDATE_SQL);
+            stmt.executeUpdate(IMPORT_REJECT_DUPLICATES_SQL);
+            try (ResultSet rs = stmt.executeQuery(IMPORT_MERGE_SQL)) {
+                rs.next();
+                inserted = rs.getLong(1);
+                updated = rs.getLong(2);
+            }
+            try (ResultSet rs = stmt.executeQuery(IMPORT_REJECTED_COUNT_SQL)) {
+                rs.next();
+                rejected = rs.getLong(1);
             }
+            try (ResultSet rs = stmt.executeQuery(IMPORT_REJECTED_SAMPLES_SQL)) {
+                while (rs.next()) {
+                    samples.add(new BookImportResult.Rejection(rs.getLong("line_number"), rs.getString("isbn"),
+                            rs.getString("reject_reason")));
+                }
+            }
+            stmt.execute(IMPORT_TRUNCATE_SQL);
         }
+        return new BookImportResult(inserted, updated, rejected, samples);
     }
 
     @Override
@@ -56,13 +254,13 @@ public class BookDAOImpl implements BookDAO {
             params.add("%" + book.getAuthor() + "%");
         }
 
-        try (PreparedStatement pstmt = connection.prepareStatement(sql.toString())) {
+        try (Connection connection = RoutingDataSource.readConnection(dataSource);
+             PreparedStatement pstmt = connection.prepareStatement(sql.toString())) {
             for (int i = 0; i < params.size(); i++) {
                 pstmt.setString(i + 1, params.get(i));
             }
-            ResultSet rs = pstmt.executeQuery();
-            while (rs.next()) {
-                books.add(mapResultSetToBook(rs));
+            try (ResultSet rs = pstmt.executeQuery()) {
+                RowMappers.addAll(rs, RowMappers::books, books);
             }
         }
         return books;
@@ -70,26 +268,22 @@ public class BookDAOImpl implements BookDAO {
 
     @Override
     public Book findBookById(int id) throws SQLException {
-        String sql = "SELECT id, title, author, isbn, genre, total_copies, available_copies, publisher, year, image_url, cover_image_path FROM books WHERE id = ?";
-        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
+        try (Connection connection = RoutingDataSource.readConnection(dataSource);
+             PreparedStatement pstmt = connection.prepareStatement(FIND_BOOK_BY_ID_SQL)) {
             pstmt.setInt(1, id);
-            ResultSet rs = pstmt.executeQuery();
-            if (rs.next()) {
-                return mapResultSetToBook(rs);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                return RowMappers.first(rs, RowMappers::books);
             }
-            return null;
         }
     }
 
     @Override
     public List<Book> findAllBooks() throws SQLException {
         List<Book> books = new ArrayList<>();
-        String sql = "SELECT id, title, author, isbn, genre, total_copies, available_copies, publisher, year, image_url, cover_image_path FROM books";
-        try (Statement stmt = connection.createStatement();
-             ResultSet rs = stmt.executeQuery(sql)) {
-            while (rs.next()) {
-                books.add(mapResultSetToBook(rs));
-            }
+        try (Connection connection = RoutingDataSource.readConnection(dataSource);
+             PreparedStatement pstmt = connection.prepareStatement(FIND_ALL_BOOKS_SQL);
+             ResultSet rs = pstmt.executeQuery()) {
+            RowMappers.addAll(rs, RowMappers::books, books);
         } catch (SQLException e) {
             System.err.println("Erro ao executar consulta findAllBooks: " + e.getMessage());
             e.printStackTrace();
@@ -98,42 +292,101 @@ public class BookDAOImpl implements BookDAO {
         return books;
     }
 
+    @Override
+    public long streamAllBooks(RowCallback<? super Book> callback) throws SQLException {
+        try (Connection connection = RoutingDataSource.readConnection(dataSource)) {
+            return CursorQuery.forEachRow(connection, FIND_ALL_BOOKS_SQL, RowMappers::books, callback);
+        }
+    }
+
+    /**
+     * Busca uma página do catálogo sem OFFSET: a consulta continua a partir da chave de ordenação
+     * do último livro já exibido, percorrendo o índice correspondente (migração V3). O custo de
+     * cada página não depende de quantas páginas já foram lidas.
+     */
+    @Override
+    public List<Book> findBooksPage(BookSortOrder sortOrder, Book after, int limit) throws SQLException {
+        List<Book> books = new ArrayList<>(limit);
+        String sql = after == null ? FIRST_PAGE_SQL.get(sortOrder) : NEXT_PAGE_SQL.get(sortOrder);
+        try (Connection connection = RoutingDataSource.readConnection(dataSource);
+             PreparedStatement pstmt = connection.prepareStatement(sql)) {
+            int index = 1;
+            if (after != null) {
+                switch (sortOrder) {
+                    case TITLE -> pstmt.setString(index++, after.getTitle());
+                    case AUTHOR -> pstmt.setString(index++, after.getAuthor() != null ? after.getAuthor() : "");
+                    case YEAR -> pstmt.setInt(index++, after.getYear());
+                }
+                pstmt.setInt(index++, after.getId());
+            }
+            pstmt.setInt(index, limit);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                RowMappers.addAll(rs, RowMappers::books, books);
+            }
+        }
+        return books;
+    }
+
+    // Mesmas expressões dos índices da migração V3, para que o planejador os use.
+    private static String sortKeyExpression(BookSortOrder sortOrder) {
+        return switch (sortOrder) {
+            case TITLE -> "title";
+            case AUTHOR -> "COALESCE(author, '')";
+            case YEAR -> "COALESCE(year, 0)";
+        };
+    }
+
     @Override
     public List<Book> findAllAvailable() throws SQLException {
         List<Book> availableBooks = new ArrayList<>();
         String sql = "SELECT id, title, author, isbn, genre, total_copies, available_copies, publisher, year, image_url, cover_image_path FROM books WHERE available_copies > 0";
-        try (Statement stmt = connection.createStatement();
-             ResultSet rs = stmt.executeQuery(sql)) {
-            while (rs.next()) {
-                availableBooks.add(mapResultSetToBook(rs));
-            }
+        try (Connection connection = RoutingDataSource.readConnection(dataSource);
+             PreparedStatement pstmt = connection.prepareStatement(sql);
+             ResultSet rs = pstmt.executeQuery()) {
+            RowMappers.addAll(rs, RowMappers::books, availableBooks);
         }
         return availableBooks;
     }
 
+    /**
+     * Grava só os campos alterados desde que o livro foi lido ou gravado ({@link Book#getDirtyFields()});
+     * se nada mudou, nenhum comando é enviado.
+     */
     @Override
     public void updateBook(Book book) throws SQLException {
-        String sql = "UPDATE books SET title = ?, author = ?, isbn = ?, genre = ?, total_copies = ?, available_copies = ?, publisher = ?, year = ?, image_url = ?, cover_image_path = ? WHERE id = ?";
-        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
-            pstmt.setString(1, book.getTitle());
-            pstmt.setString(2, book.getAuthor());
-            pstmt.setString(3, book.getIsbn());
-            pstmt.setString(4, book.getGenre());
-            pstmt.setInt(5, book.getTotalCopies());
-            pstmt.setInt(6, book.getAvailableCopies());
-            pstmt.setString(7, book.getPublisher());
-            pstmt.setInt(8, book.getYear());
-            pstmt.setString(9, book.getImageUrl());
-            pstmt.setString(10, book.getCoverImagePath());
-            pstmt.setInt(11, book.getId());
+        Set<Book.Field> fields = book.getDirtyFields();
+        if (fields.isEmpty()) {
+            return;
+        }
+        try (Connection connection = TransactionManager.getConnection(dataSource);
+             PreparedStatement pstmt = connection.prepareStatement(BOOK_UPDATE.sql(fields))) {
+            int index = 1;
+            for (Book.Field field : fields) {
+                switch (field) {
+                    case TITLE -> pstmt.setString(index, book.getTitle());
+                    case AUTHOR -> pstmt.setString(index, book.getAuthor());
+                    case ISBN -> pstmt.setString(index, book.getIsbn());
+                    case GENRE -> pstmt.setString(index, book.getGenre());
+                    case TOTAL_COPIES -> pstmt.setInt(index, book.getTotalCopies());
+                    case AVAILABLE_COPIES -> pstmt.setInt(index, book.getAvailableCopies());
+                    case PUBLISHER -> pstmt.setString(index, book.getPublisher());
+                    case YEAR -> pstmt.setInt(index, book.getYear());
+                    case IMAGE_URL -> pstmt.setString(index, book.getImageUrl());
+                    case COVER_IMAGE_PATH -> pstmt.setString(index, book.getCoverImagePath());
+                }
+                index++;
+            }
+            pstmt.setInt(index, book.getId());
             pstmt.executeUpdate();
         }
+        book.markClean();
     }
 
     @Override
     public void deleteBook(int id) throws SQLException {
         String sql = "DELETE FROM books WHERE id = ?";
-        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
+        try (Connection connection = TransactionManager.getConnection(dataSource);
+             PreparedStatement pstmt = connection.prepareStatement(sql)) {
             pstmt.setInt(1, id);
             pstmt.executeUpdate();
         }
@@ -141,90 +394,68 @@ public class BookDAOImpl implements BookDAO {
 
     @Override
     public List<Book> findBooksByTitle(String title) throws SQLException {
-        List<Book> books = new ArrayList<>();
         String sql = "SELECT id, title, author, isbn, genre, total_copies, available_copies, publisher, year, image_url, cover_image_path FROM books WHERE title ILIKE ?";
-        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
-            pstmt.setString(1, "%" + title + "%");
-            ResultSet rs = pstmt.executeQuery();
-            while (rs.next()) {
-                books.add(mapResultSetToBook(rs));
-            }
-        }
-        return books;
+        return findBooksByPattern(sql, title);
     }
 
     @Override
     public List<Book> findBooksByAuthor(String author) throws SQLException {
-        List<Book> books = new ArrayList<>();
         String sql = "SELECT id, title, author, isbn, genre, total_copies, available_copies, publisher, year, image_url, cover_image_path FROM books WHERE author ILIKE ?";
-        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
-            pstmt.setString(1, "%" + author + "%");
-            ResultSet rs = pstmt.executeQuery();
-            while (rs.next()) {
-                books.add(mapResultSetToBook(rs));
-            }
-        }
-        return books;
+        return findBooksByPattern(sql, author);
     }
 
     @Override
     public Book findBookByISBN(String isbn) throws SQLException {
         String sql = "SELECT id, title, author, isbn, genre, total_copies, available_copies, publisher, year, image_url, cover_image_path FROM books WHERE isbn = ?";
-        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
+        try (Connection connection = RoutingDataSource.readConnection(dataSource);
+             PreparedStatement pstmt = connection.prepareStatement(sql)) {
             pstmt.setString(1, isbn);
-            ResultSet rs = pstmt.executeQuery();
-            if (rs.next()) {
-                return mapResultSetToBook(rs);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                return RowMappers.first(rs, RowMappers::books);
             }
-            return null;
         }
     }
 
     @Override
     public List<Book> findBooksByGenre(String genre) throws SQLException {
-        List<Book> books = new ArrayList<>();
         String sql = "SELECT id, title, author, isbn, genre, total_copies, available_copies, publisher, year, image_url, cover_image_path FROM books WHERE genre ILIKE ?";
-        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
-            pstmt.setString(1, "%" + genre + "%");
-            ResultSet rs = pstmt.executeQuery();
-            while (rs.next()) {
-                books.add(mapResultSetToBook(rs));
-            }
-        }
-        return books;
+        return findBooksByPattern(sql, genre);
     }
 
     @Override
-    public void incrementAvailableCopies(int bookId) throws SQLException {
+    public boolean incrementAvailableCopies(int bookId) throws SQLException {
         String sql = "UPDATE books SET available_copies = available_copies + 1 WHERE id = ?";
-        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
+        try (Connection connection = TransactionManager.getConnection(dataSource);
+             PreparedStatement pstmt = connection.prepareStatement(sql)) {
             pstmt.setInt(1, bookId);
-            pstmt.executeUpdate();
+            return pstmt.executeUpdate() == 1;
         }
     }
 
     @Override
-    public void decrementAvailableCopies(int bookId) throws SQLException {
-        String sql = "UPDATE books SET available_copies = available_copies - 1 WHERE id = ?";
-        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
+    public boolean decrementAvailableCopies(int bookId) throws SQLException {
+        // A condição é avaliada na linha bloqueada pelo UPDATE: decrementos simultâneos nunca
+        // deixam available_copies negativo.
+        String sql = "UPDATE books SET available_copies = available_copies - 1 WHERE id = ? AND available_copies > 0";
+        try (Connection connection = TransactionManager.getConnection(dataSource);
+             PreparedStatement pstmt = connection.prepareStatement(sql)) {
             pstmt.setInt(1, bookId);
-            pstmt.executeUpdate();
+            return pstmt.executeUpdate() == 1;
         }
     }
 
-    private Book mapResultSetToBook(ResultSet rs) throws SQLException {
-        Book book = new Book();
-        book.setId(rs.getInt("id"));
-        book.setTitle(rs.getString("title"));
-        book.setAuthor(rs.getString("author"));
-        book.setIsbn(rs.getString("isbn"));
-        book.setGenre(rs.getString("genre"));
-        book.setTotalCopies(rs.getInt("total_copies"));
-        book.setAvailableCopies(rs.getInt("available_copies"));
-        book.setPublisher(rs.getString("publisher"));
-        book.setYear(rs.getInt("year"));
-        book.setImageUrl(rs.getString("image_url"));
-        book.setCoverImagePath(rs.getString("cover_image_path"));
-        return book;
+    /**
+     * Executa uma consulta de livros com um único parâmetro ILIKE, envolvendo o termo em '%'.
+     */
+    private List<Book> findBooksByPattern(String sql, String term) throws SQLException {
+        List<Book> books = new ArrayList<>();
+        try (Connection connection = RoutingDataSource.readConnection(dataSource);
+             PreparedStatement pstmt = connection.prepareStatement(sql)) {
+            pstmt.setString(1, "%" + term + "%");
+            try (ResultSet rs = pstmt.executeQuery()) {
+                RowMappers.addAll(rs, RowMappers::books, books);
+            }
+        }
+        return books;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,56 @@
+package com.managerlibrary.daos.implement;
+
+import com.managerlibrary.daos.interfaces.RowCallback;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Percorre uma consulta com um cursor no servidor, entregando as linhas em lotes de {@code fetchSize}.
+ * <p>
+ * O driver do PostgreSQL só usa cursor quando a conexão está fora do modo autocommit e o statement
+ * tem fetch size positivo; caso contrário ele carrega o resultado inteiro na memória antes de
+ * devolver a primeira linha. A transação aberta aqui é somente de leitura e é encerrada quando a
+ * conexão volta ao pool. Dentro de uma transação do TransactionManager a conexão já está sem
+ * autocommit e é usada como está.
+ */
+final class CursorQuery {
+
+    // Número de linhas trazidas do servidor a cada ida ao banco durante a leitura por cursor.
+    static final int DEFAULT_FETCH_SIZE = 500;
+
+    private CursorQuery() {
+    }
+
+    /**
+     * Executa a consulta e entrega cada linha mapeada ao callback.
+     *
+     * @param connection A conexão a ser usada (o chamador é responsável por fechá-la).
+     * @param sql        A consulta, sem parâmetros.
+     * @param mappers    A fábrica do mapeador das linhas (ver {@link RowMappers}).
+     * @param callback   Quem recebe cada entidade.
+     * @param <T>        O tipo da entidade.
+     * @return O número de linhas entregues.
+     * @throws SQLException Se a consulta ou o callback falharem.
+     */
+    static <T> long forEachRow(Connection connection, String sql, RowMapper.Factory<T> mappers, RowCallback<? super T> callback)
+            throws SQLException {
+        if (connection.getAutoCommit()) {
+            connection.setAutoCommit(false);
+        }
+        long rows = 0;
+        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
+            pstmt.setFetchSize(DEFAULT_FETCH_SIZE);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                RowMapper<T> mapper = mappers.forResultSet(rs);
+                while (rs.next()) {
+                    callback.onRow(mapper.map(rs));
+                    rows++;
+                }
+            }
+        }
+        return rows;
+    }
+}
@@ -0,0 +1,105 @@
+package com.managerlibrary.daos.implement;
+
+import com.managerlibrary.daos.interfaces.BookDAO;
+import com.managerlibrary.daos.interfaces.LoanDAO;
+import com.managerlibrary.daos.interfaces.UserDAO;
+import com.managerlibrary.entities.Book;
+import com.managerlibrary.entities.Loan;
+import com.managerlibrary.entities.User;
+import com.managerlibrary.infra.BoundedCache;
+import com.managerlibrary.infra.CachingDecorator;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Locale;
+import java.util.Properties;
+import java.util.function.ToIntFunction;
+import java.util.function.UnaryOperator;
+
+/**
+ * Os caches das consultas por chave dos DAOs ({@code findBookById}, {@code findBookByISBN},
+ * {@code findUserById}, {@code findUserByCPF}) e as gravações que removem deles as entidades
+ * alteradas. Os livros e usuários buscados várias vezes durante um atendimento (ex: o mesmo ISBN
+ * ou CPF consultado ao montar um empréstimo) passam a ser lidos da memória.
+ * <p>
+ * Configuração (application.properties), por método:
+ * {@code cache.<método>.maxSize} e {@code cache.<método>.ttlSeconds}; a política de substituição
+ * de todos é {@code cache.eviction} ({@code tiny_lfu} ou {@code lru}).
+ */
+public final class DaoCaches {
+
+    private static final int DEFAULT_MAX_SIZE = 1_000;
+    private static final long DEFAULT_TTL_SECONDS = 300;
+
+    private final BoundedCache<Integer, Book> booksById;
+    private final BoundedCache<String, Book> booksByIsbn;
+    private final BoundedCache<Integer, User> usersById;
+    private final BoundedCache<String, User> usersByCpf;
+
+    private DaoCaches(Properties properties) {
+        BoundedCache.Eviction eviction = BoundedCache.Eviction.valueOf(
+                properties.getProperty("cache.eviction", "tiny_lfu").trim().toUpperCase(Locale.ROOT));
+        booksById = cache(properties, "findBookById", eviction, Book::getId, Book::new);
+        booksByIsbn = cache(properties, "findBookByISBN", eviction, Book::getId, Book::new);
+        usersById = cache(properties, "findUserById", eviction, User::getId, User::new);
+        usersByCpf = cache(properties, "findUserByCPF", eviction, User::getId, User::new);
+    }
+
+    /**
+     * @param properties As propriedades da aplicação.
+     * @return Os caches configurados.
+     * @throws IllegalArgumentException Se algum valor configurado for inválido.
+     */
+    public static DaoCaches fromProperties(Properties properties) {
+        return new DaoCaches(properties);
+    }
+
+    /**
+     * @return Todos os caches, para as métricas.
+     */
+    public List<BoundedCache<?, ?>> caches() {
+        return List.of(booksById, booksByIsbn, usersById, usersByCpf);
+    }
+
+    public BookDAO cache(BookDAO dao) {
+        CachingDecorator.AffectedIds bookArgument = (args, result) -> List.of(((Book) args[0]).getId());
+        CachingDecorator.AffectedIds idArgument = (args, result) -> List.of((Integer) args[0]);
+        return CachingDecorator.forInterface(BookDAO.class)
+                .cache("findBookById", booksById)
+                .cache("findBookByISBN", booksByIsbn)
+                .invalidate("updateBook", bookArgument, booksById, booksByIsbn)
+                .invalidate("deleteBook", idArgument, booksById, booksByIsbn)
+                .invalidate("incrementAvailableCopies", idArgument, booksById, booksByIsbn)
+                .invalidate("decrementAvailableCopies", idArgument, booksById, booksByIsbn)
+                .invalidateAll("importBooks", booksById, booksByIsbn) // Atualiza livros existentes pelo ISBN
+                .wrap(dao);
+    }
+
+    public UserDAO cache(UserDAO dao) {
+        return CachingDecorator.forInterface(UserDAO.class)
+                .cache("findUserById", usersById)
+                .cache("findUserByCPF", usersByCpf)
+                .invalidate("updateUser", (args, result) -> List.of(((User) args[0]).getId()), usersById, usersByCpf)
+                .invalidate("deleteUser", (args, result) -> List.of((Integer) args[0]), usersById, usersByCpf)
+                .wrap(dao);
+    }
+
+    /**
+     * O checkout e a devolução alteram as cópias disponíveis do livro no próprio comando do
+     * empréstimo, sem passar pelo DAO de livros.
+     */
+    public LoanDAO cache(LoanDAO dao) {
+        return CachingDecorator.forInterface(LoanDAO.class)
+                .invalidate("checkoutLoan", (args, result) -> List.of((Integer) args[0]), booksById, booksByIsbn)
+                .invalidate("returnLoan", (args, result) -> result instanceof Loan loan && loan.getBook() != null
+                        ? List.of(loan.getBook().getId()) : List.of(), booksById, booksByIsbn)
+                .wrap(dao);
+    }
+
+    private static <K, V> BoundedCache<K, V> cache(Properties properties, String method, BoundedCache.Eviction eviction,
+                                                   ToIntFunction<V> entityId, UnaryOperator<V> copier) {
+        int maxSize = Integer.parseInt(properties.getProperty("cache." + method + ".maxSize", String.valueOf(DEFAULT_MAX_SIZE)).trim());
+        long ttlSeconds = Long.parseLong(properties.getProperty("cache." + method + ".ttlSeconds", String.valueOf(DEFAULT_TTL_SECONDS)).trim());
+        return new BoundedCache<>(method, maxSize, Duration.ofSeconds(ttlSeconds), eviction, entityId, copier);
+    }
+}
@@ -0,0 +1,96 @@
+package com.managerlibrary.daos.implement;
+
+import java.util.Objects;
+
+/**
+ * Mapa de chaves {@code int} para objetos, com endereçamento aberto (sondagem linear) em dois
+ * vetores: ao contrário de um {@code HashMap<Integer, V>}, não aloca um {@code Integer} nem um nó por
+ * item. Usado pelos mapeadores de linha como mapa de identidade de uma consulta (ver
+ * {@link RowMappers#loansWithDetails(java.sql.ResultSet)}).
+ * <p>
+ * Os valores não podem ser nulos (uma posição com valor nulo está livre). Não há remoção, e o mapa
+ * não é thread-safe: cada um vive durante a leitura de um único ResultSet.
+ *
+ * @param <V> O tipo dos valores.
+ */
+final class IntObjectMap<V> {
+
+    private static final int INITIAL_CAPACITY = 64;
+
+    private int[] keys;
+    private Object[] values;
+    private int size;
+    private int resizeAt;
+
+    IntObjectMap() {
+        allocate(INITIAL_CAPACITY);
+    }
+
+    /**
+     * @return O valor da chave, ou {@code null} se ela não estiver no mapa.
+     */
+    @SuppressWarnings("unchecked")
+    V get(int key) {
+        int mask = keys.length - 1;
+        for (int index = indexOf(key, mask); values[index] != null; index = (index + 1) & mask) {
+            if (keys[index] == key) {
+                return (V) values[index];
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Guarda o valor da chave, substituindo o anterior.
+     */
+    void put(int key, V value) {
+        Objects.requireNonNull(value, "O valor não pode ser nulo.");
+        int mask = keys.length - 1;
+        int index = indexOf(key, mask);
+        while (values[index] != null) {
+            if (keys[index] == key) {
+                values[index] = value;
+                return;
+            }
+            index = (index + 1) & mask;
+        }
+        keys[index] = key;
+        values[index] = value;
+        if (++size >= resizeAt) {
+            grow();
+        }
+    }
+
+    int size() {
+        return size;
+    }
+
+    private void grow() {
+        int[] oldKeys = keys;
+        Object[] oldValues = values;
+        allocate(keys.length * 2);
+        int mask = keys.length - 1;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldValues[i] != null) {
+                int index = indexOf(oldKeys[i], mask);
+                while (values[index] != null) {
+                    index = (index + 1) & mask;
+                }
+                keys[index] = oldKeys[i];
+                values[index] = oldValues[i];
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        keys = new int[capacity];
+        values = new Object[capacity];
+        resizeAt = capacity / 2; // Carga máxima de 50%: sequências de sondagem curtas
+    }
+
+    // Ids sequenciais (SERIAL) ficariam em posições vizinhas; o embaralhamento evita agrupamentos.
+    private static int indexOf(int key, int mask) {
+        int h = key * 0x9E3779B9;
+        return (h ^ (h >>> 16)) & mask;
+    }
+}
@@ -1,9 +1,21 @@
 package com.managerlibrary.daos.implement;
 
 import com.managerlibrary.daos.interfaces.LoanDAO;
+import com.managerlibrary.daos.interfaces.RowCallback;
 import com.managerlibrary.entities.Book;
 import com.managerlibrary.entities.Loan;
+import com.managerlibrary.entities.LoanExportFilter;
+import com.managerlibrary.entities.LoanExportFormat;
+import com.managerlibrary.entities.LoanSummary;
 import com.managerlibrary.entities.User;
+import com.managerlibrary.infra.RoutingDataSource;
+import com.managerlibrary.infra.TransactionManager;
+import org.postgresql.PGConnection;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
 import java.sql.Connection;
 import java.sql.Date;
 import java.sql.PreparedStatement;
@@ -12,54 +24,197 @@ import java.sql.SQLException;
 import java.sql.Statement;
 import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 public class LoanDAOImpl implements LoanDAO {
 
-    private Connection connection;
+    private static final String FIND_ALL_LOANS_WITH_DETAILS_SQL = "SELECT l.id AS loan_id, l.book_id, l.user_id, l.loan_date, l.return_date, l.actual_return_date, l.status, l.fine, l.returned, " +
+            "b.id AS b_id, b.title AS book_title, b.author AS book_author, b.isbn AS book_isbn, b.genre AS book_genre, b.total_copies AS book_total_copies, b.available_copies AS book_available_copies, b.publisher AS book_publisher, b.year AS book_year, b.image_url AS book_image_url, b.cover_image_path AS book_cover_image_path, " +
+            "u.id AS u_id, u.name AS user_name, u.cpf AS user_cpf, u.email AS user_email, u.phone AS user_phone, u.address AS user_address, u.profile_image_path AS user_profile_image_path " +
+            "FROM loan l " +
+            "JOIN books b ON l.book_id = b.id " +
+            "JOIN \"users\" u ON l.user_id = u.id";
+    private static final String FIND_LOAN_BY_ID_WITH_DETAILS_SQL = FIND_ALL_LOANS_WITH_DETAILS_SQL + " WHERE l.id = ?";
+    // Só as 12 colunas exibidas na lista de empréstimos, em vez das 25 da consulta com detalhes.
+    private static final String FIND_ALL_LOAN_SUMMARIES_SQL = "SELECT l.id AS loan_id, l.loan_date, l.return_date, l.actual_return_date, l.status, l.fine, " +
+            "b.id AS b_id, b.title AS book_title, b.cover_image_path AS book_cover_image_path, " +
+            "u.id AS u_id, u.name AS user_name, u.cpf AS user_cpf " +
+            "FROM loan l " +
+            "JOIN books b ON l.book_id = b.id " +
+            "JOIN \"users\" u ON l.user_id = u.id";
+    private static final String FIND_RECENT_LOAN_SUMMARIES_SQL = FIND_ALL_LOAN_SUMMARIES_SQL
+            + " ORDER BY l.id DESC LIMIT ?"; // Chave primária (id, archived, loan_date) de cada partição, de trás para frente
+    // Filtros da tela/serviço de empréstimos, com ordem estável e LIMIT. Cada um percorre um índice
+    // (migrações V2 e V5) em vez de juntar todos os empréstimos e filtrar na JVM.
+    private static final String FIND_LOANS_BY_STATUS_SQL = FIND_ALL_LOANS_WITH_DETAILS_SQL
+            + " WHERE l.status = ? ORDER BY l.id DESC LIMIT ?"; // idx_loan_status_id, de trás para frente
+    // "l.archived = FALSE" limita a consulta à partição quente (migração V6): o arquivo só tem
+    // empréstimos devolvidos, então o filtro não muda o resultado, mas o planejador deixa de consultá-lo.
+    private static final String FIND_ACTIVE_LOANS_SQL = FIND_ALL_LOANS_WITH_DETAILS_SQL
+            + " WHERE l.archived = FALSE AND l.status = 'Ativo' AND l.actual_return_date IS NULL";
+    private static final String FIND_OVERDUE_LOANS_SQL = FIND_ALL_LOANS_WITH_DETAILS_SQL
+            + " WHERE l.archived = FALSE AND l.status = 'Ativo' AND l.actual_return_date IS NULL AND l.return_date < CURRENT_DATE" // 'return_date' é a data de devolução prevista
+            + " ORDER BY l.return_date, l.id LIMIT ?"; // Predicado e ordem do índice parcial idx_loan_active_return_date_id
+    // Um OR entre colunas de tabelas diferentes impede o uso dos índices trigrama: o planejador
+    // faria a junção de todos os empréstimos e filtraria depois. Cada ramo do UNION ALL usa o seu
+    // índice (LOWER(title), LOWER(name), LOWER(cpf)) e chega aos empréstimos por idx_loan_book_id /
+    // idx_loan_user_id; o IN elimina os empréstimos encontrados pelos dois ramos.
+    private static final String SEARCH_LOANS_SQL = FIND_ALL_LOANS_WITH_DETAILS_SQL + " WHERE l.id IN (" +
+            "SELECT lb.id FROM loan lb JOIN books sb ON lb.book_id = sb.id WHERE LOWER(sb.title) LIKE ? " +
+            "UNION ALL " +
+            "SELECT lu.id FROM loan lu JOIN \"users\" su ON lu.user_id = su.id WHERE LOWER(su.name) LIKE ? OR LOWER(su.cpf) LIKE ?" +
+            ") ORDER BY l.loan_date DESC, l.id DESC LIMIT ?";
+    // Devolução em um único comando: marca o empréstimo, calcula a multa (dias de atraso x valor por
+    // dia) e incrementa as cópias disponíveis do livro, devolvendo o empréstimo e o livro já
+    // atualizados nas colunas da consulta com detalhes. "actual_return_date IS NULL" torna a
+    // devolução idempotente: com duas devoluções simultâneas, a segunda espera o bloqueio da linha,
+    // reavalia a condição e não encontra o empréstimo, então o livro é incrementado uma única vez.
+    // O incremento usa o valor atual da linha bloqueada, não um valor lido antes pela aplicação.
+    private static final String RETURN_LOAN_SQL = "WITH returned_loan AS (" +
+            "UPDATE loan SET actual_return_date = ?, status = 'Devolvido', returned = TRUE, " +
+            "fine = GREATEST(?::date - return_date, 0) * ?::numeric " +
+            "WHERE id = ? AND archived = FALSE AND actual_return_date IS NULL " + // Só a partição quente tem empréstimos não devolvidos
+            "RETURNING id, book_id, user_id, loan_date, return_date, actual_return_date, status, fine, returned" +
+            "), returned_book AS (" +
+            "UPDATE books b SET available_copies = b.available_copies + 1 " +
+            "FROM returned_loan rl WHERE b.id = rl.book_id " +
+            "RETURNING b.id, b.title, b.author, b.isbn, b.genre, b.total_copies, b.available_copies, b.publisher, b.year, b.image_url, b.cover_image_path" +
+            ") " +
+            "SELECT l.id AS loan_id, l.book_id, l.user_id, l.loan_date, l.return_date, l.actual_return_date, l.status, l.fine, l.returned, " +
+            "b.id AS b_id, b.title AS book_title, b.author AS book_author, b.isbn AS book_isbn, b.genre AS book_genre, b.total_copies AS book_total_copies, b.available_copies AS book_available_copies, b.publisher AS book_publisher, b.year AS book_year, b.image_url AS book_image_url, b.cover_image_path AS book_cover_image_path, " +
+            "u.id AS u_id, u.name AS user_name, u.cpf AS user_cpf, u.email AS user_email, u.phone AS user_phone, u.address AS user_address, u.profile_image_path AS user_profile_image_path " +
+            "FROM returned_loan l " +
+            "JOIN returned_book b ON l.book_id = b.id " +
+            "JOIN \"users\" u ON l.user_id = u.id";
+    // Empréstimo em um único comando: decrementa as cópias disponíveis só se houver cópia
+    // ("available_copies > 0", reavaliada na linha bloqueada, então checkouts simultâneos nunca
+    // emprestam mais cópias do que existem) e insere o empréstimo apenas se o decremento aconteceu.
+    // Sem cópia, nenhuma linha é alterada e o resultado vem vazio; se o INSERT falhar (ex: usuário
+    // inexistente), o decremento é desfeito junto, pois é o mesmo comando.
+    private static final String CHECKOUT_LOAN_SQL = "WITH taken_book AS (" +
+            "UPDATE books SET available_copies = available_copies - 1 " +
+            "WHERE id = ? AND available_copies > 0 " +
+            "RETURNING id, title, author, isbn, genre, total_copies, available_copies, publisher, year, image_url, cover_image_path" +
+            "), new_loan AS (" +
+            "INSERT INTO loan (book_id, user_id, loan_date, return_date, status, fine, returned) " +
+            "SELECT tb.id, ?, ?, ?, 'Ativo', 0, FALSE FROM taken_book tb " +
+            "RETURNING id, book_id, user_id, loan_date, return_date, actual_return_date, status, fine, returned" +
+            ") " +
+            "SELECT l.id AS loan_id, l.book_id, l.user_id, l.loan_date, l.return_date, l.actual_return_date, l.status, l.fine, l.returned, " +
+            "b.id AS b_id, b.title AS book_title, b.author AS book_author, b.isbn AS book_isbn, b.genre AS book_genre, b.total_copies AS book_total_copies, b.available_copies AS book_available_copies, b.publisher AS book_publisher, b.year AS book_year, b.image_url AS book_image_url, b.cover_image_path AS book_cover_image_path, " +
+            "u.id AS u_id, u.name AS user_name, u.cpf AS user_cpf, u.email AS user_email, u.phone AS user_phone, u.address AS user_address, u.profile_image_path AS user_profile_image_path " +
+            "FROM new_loan l " +
+            "JOIN taken_book b ON l.book_id = b.id " +
+            "JOIN \"users\" u ON l.user_id = u.id";
+    // Arquivamento (ver archiveReturnedLoans): cada lote escolhe os empréstimos a mover e os anos
+    // das suas datas; o UPDATE move só esses ids, e só se a data ainda cair em um dos anos cujas
+    // partições foram criadas. Mudar archived faz o PostgreSQL mover a linha de partição.
+    private static final String ARCHIVE_CANDIDATES_SQL = "SELECT id, EXTRACT(YEAR FROM loan_date)::int FROM loan " +
+            "WHERE archived = FALSE AND actual_return_date < ? ORDER BY actual_return_date LIMIT ?";
+    private static final String ARCHIVE_LOANS_SQL = "UPDATE loan SET archived = TRUE " +
+            "WHERE archived = FALSE AND id = ANY(?) AND actual_return_date < ? " +
+            "AND EXTRACT(YEAR FROM loan_date)::int = ANY(?)";
+    private static final int ARCHIVE_BATCH_SIZE = 5_000;
+    private static final String IS_ARCHIVED_SQL = "SELECT archived FROM loan WHERE id = ?";
+    private static final String INSERT_LOAN_SQL = "INSERT INTO loan (book_id, user_id, loan_date, return_date, actual_return_date, status, fine, returned)";
+    private static final int INSERT_LOAN_COLUMNS = 8;
+    // UPDATE só das colunas alteradas (ver updateLoan); UPDATE_LOAN_SQL é o de todas as colunas.
+    private static final PartialUpdate<Loan.Field> LOAN_UPDATE = new PartialUpdate<>("loan", Map.of(
+            Loan.Field.BOOK, "book_id", Loan.Field.USER, "user_id", Loan.Field.LOAN_DATE, "loan_date",
+            Loan.Field.EXPECTED_RETURN_DATE, "return_date", Loan.Field.ACTUAL_RETURN_DATE, "actual_return_date",
+            Loan.Field.STATUS, "status", Loan.Field.FINE, "fine", Loan.Field.RETURNED, "returned"),
+            PartialUpdate.DEFAULT_CACHE_SIZE);
+    private static final String UPDATE_LOAN_SQL = LOAN_UPDATE.sql(EnumSet.allOf(Loan.Field.class));
+
+    /**
+     * Statements mais usados logo após a abertura da aplicação, pré-preparados na inicialização.
+     */
+    public static final List<String> WARM_UP_STATEMENTS = List.of(FIND_ALL_LOAN_SUMMARIES_SQL, FIND_LOAN_BY_ID_WITH_DETAILS_SQL, CHECKOUT_LOAN_SQL, RETURN_LOAN_SQL, UPDATE_LOAN_SQL);
+
+    // JSON Lines: uma linha por objeto. O COPY em CSV com aspas e delimitador que não aparecem no
+    // JSON gerado por row_to_json grava cada objeto sem escapes adicionais (o formato texto do COPY
+    // duplicaria as barras invertidas do JSON).
+    private static final String EXPORT_JSON_COPY_OPTIONS = "(FORMAT csv, QUOTE E'\\x01', DELIMITER E'\\x02')";
+    private static final String EXPORT_CSV_COPY_OPTIONS = "(FORMAT csv, HEADER true)";
+
+    // Cada operação empresta uma conexão do pool e a devolve ao final. As consultas (find*/search*)
+    // usam RoutingDataSource.readConnection, que as envia à réplica de leitura quando configurada;
+    // as escritas usam TransactionManager.getConnection, que participa da transação ativa, se houver.
+    private final DataSource dataSource;
+    private final int batchSize;
 
-    public LoanDAOImpl(Connection connection) {
-        this.connection = connection;
+    public LoanDAOImpl(DataSource dataSource) {
+        this(dataSource, BatchInsert.DEFAULT_BATCH_SIZE);
+    }
+
+    /**
+     * @param dataSource O DataSource de onde as conexões são emprestadas.
+     * @param batchSize  Quantos empréstimos cada comando de {@link #insertLoans(List)} insere.
+     */
+    public LoanDAOImpl(DataSource dataSource, int batchSize) {
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("O tamanho do lote deve ser positivo.");
+        }
+        this.dataSource = dataSource;
+        this.batchSize = batchSize;
     }
 
     @Override
     public void insertLoan(Loan loan) throws SQLException {
         // CORRIGIDO: Adicionado 'returned' na query SQL
-        String sql = "INSERT INTO loan (book_id, user_id, loan_date, return_date, actual_return_date, status, fine, returned) VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
-        try (PreparedStatement pstmt = connection.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
-            pstmt.setInt(1, loan.getBook().getId());
-            pstmt.setInt(2, loan.getUser().getId());
-            pstmt.setDate(3, Date.valueOf(loan.getLoanDate()));
-            pstmt.setDate(4, Date.valueOf(loan.getExpectedReturnDate()));
-            pstmt.setDate(5, loan.getActualReturnDate() == null ? null : Date.valueOf(loan.getActualReturnDate()));
-            pstmt.setString(6, loan.getStatus());
-            pstmt.setDouble(7, loan.getFine());
-            pstmt.setBoolean(8, loan.isReturned()); // NOVO: Define o valor de 'returned'
+        String sql = INSERT_LOAN_SQL + " VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+        try (Connection connection = TransactionManager.getConnection(dataSource);
+             PreparedStatement pstmt = connection.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+            bindInsertParameters(pstmt, 1, loan);
             pstmt.executeUpdate();
 
-            ResultSet generatedKeys = pstmt.getGeneratedKeys();
-            if (generatedKeys.next()) {
-                loan.setId(generatedKeys.getInt(1));
+            try (ResultSet generatedKeys = pstmt.getGeneratedKeys()) {
+                if (generatedKeys.next()) {
+                    loan.setId(generatedKeys.getInt(1));
+                }
             }
         }
+        loan.markClean();
+    }
+
+    /**
+     * Insere os empréstimos em lotes de {@code batchSize} por comando (ver {@link BatchInsert}) e
+     * atribui a cada um o id gerado. Livro e usuário devem já existir (com id).
+     */
+    @Override
+    public void insertLoans(List<Loan> loans) throws SQLException {
+        try (Connection connection = TransactionManager.getConnection(dataSource)) {
+            BatchInsert.insertAll(connection, INSERT_LOAN_SQL, INSERT_LOAN_COLUMNS, loans, batchSize,
+                    LoanDAOImpl::bindInsertParameters, (loan, id) -> {
+                        loan.setId(id);
+                        loan.markClean();
+                    });
+        }
+    }
+
+    private static void bindInsertParameters(PreparedStatement pstmt, int firstIndex, Loan loan) throws SQLException {
+        pstmt.setInt(firstIndex, loan.getBook().getId());
+        pstmt.setInt(firstIndex + 1, loan.getUser().getId());
+        pstmt.setDate(firstIndex + 2, Date.valueOf(loan.getLoanDate()));
+        pstmt.setDate(firstIndex + 3, Date.valueOf(loan.getExpectedReturnDate()));
+        pstmt.setDate(firstIndex + 4, loan.getActualReturnDate() == null ? null : Date.valueOf(loan.getActualReturnDate()));
+        pstmt.setString(firstIndex + 5, loan.getStatus());
+        pstmt.setDouble(firstIndex + 6, loan.getFine());
+        pstmt.setBoolean(firstIndex + 7, loan.isReturned()); // NOVO: Define o valor de 'returned'
     }
 
     @Override
     public Loan findLoanByIdWithDetails(int id) throws SQLException {
-        String sql = "SELECT l.id AS loan_id, l.book_id, l.user_id, l.loan_date, l.return_date, l.actual_return_date, l.status, l.fine, l.returned, " + // NOVO: Seleciona 'returned'
-                "b.id AS b_id, b.title AS book_title, b.author AS book_author, b.isbn AS book_isbn, b.genre AS book_genre, b.total_copies AS book_total_copies, b.available_copies AS book_available_copies, b.publisher AS book_publisher, b.year AS book_year, b.image_url AS book_image_url, b.cover_image_path AS book_cover_image_path, " +
-                "u.id AS u_id, u.name AS user_name, u.cpf AS user_cpf, u.email AS user_email, u.phone AS user_phone, u.address AS user_address, u.profile_image_path AS user_profile_image_path " +
-                "FROM loan l " +
-                "JOIN books b ON l.book_id = b.id " +
-                "JOIN \"users\" u ON l.user_id = u.id " +
-                "WHERE l.id = ?";
-        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
+        try (Connection connection = RoutingDataSource.readConnection(dataSource);
+             PreparedStatement pstmt = connection.prepareStatement(FIND_LOAN_BY_ID_WITH_DETAILS_SQL)) {
             pstmt.setInt(1, id);
-            ResultSet rs = pstmt.executeQuery();
-            if (rs.next()) {
-                return mapResultSetToLoanWithDetails(rs);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                return RowMappers.first(rs, RowMappers::loansWithDetails);
             }
-            return null;
         }
     }
 
@@ -76,28 +231,43 @@ public class LoanDAOImpl implements LoanDAO {
     }
 
 
+    /**
+     * Grava só os campos alterados desde que o empréstimo foi lido ou gravado ({@link Loan#getDirtyFields()});
+     * se nada mudou, nenhum comando é enviado.
+     */
     @Override
     public void updateLoan(Loan loan) throws SQLException {
-        // CORRIGIDO: Adicionado 'returned' na query SQL
-        String sql = "UPDATE loan SET book_id = ?, user_id = ?, loan_date = ?, return_date = ?, actual_return_date = ?, status = ?, fine = ?, returned = ? WHERE id = ?";
-        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
-            pstmt.setInt(1, loan.getBook().getId());
-            pstmt.setInt(2, loan.getUser().getId());
-            pstmt.setDate(3, Date.valueOf(loan.getLoanDate()));
-            pstmt.setDate(4, Date.valueOf(loan.getExpectedReturnDate()));
-            pstmt.setDate(5, loan.getActualReturnDate() == null ? null : Date.valueOf(loan.getActualReturnDate()));
-            pstmt.setString(6, loan.getStatus());
-            pstmt.setDouble(7, loan.getFine());
-            pstmt.setBoolean(8, loan.isReturned()); // NOVO: Atualiza o valor de 'returned'
-            pstmt.setInt(9, loan.getId()); // ID é o 9º parâmetro agora
+        Set<Loan.Field> fields = loan.getDirtyFields();
+        if (fields.isEmpty()) {
+            return;
+        }
+        try (Connection connection = TransactionManager.getConnection(dataSource);
+             PreparedStatement pstmt = connection.prepareStatement(LOAN_UPDATE.sql(fields))) {
+            int index = 1;
+            for (Loan.Field field : fields) {
+                switch (field) {
+                    case BOOK -> pstmt.setInt(index, loan.getBook().getId());
+                    case USER -> pstmt.setInt(index, loan.getUser().getId());
+                    case LOAN_DATE -> pstmt.setDate(index, Date.valueOf(loan.getLoanDate()));
+                    case EXPECTED_RETURN_DATE -> pstmt.setDate(index, Date.valueOf(loan.getExpectedReturnDate()));
+                    case ACTUAL_RETURN_DATE -> pstmt.setDate(index, loan.getActualReturnDate() == null ? null : Date.valueOf(loan.getActualReturnDate()));
+                    case STATUS -> pstmt.setString(index, loan.getStatus());
+                    case FINE -> pstmt.setDouble(index, loan.getFine());
+                    case RETURNED -> pstmt.setBoolean(index, loan.isReturned());
+                }
+                index++;
+            }
+            pstmt.setInt(index, loan.getId());
             pstmt.executeUpdate();
         }
+        loan.markClean();
     }
 
     @Override
     public void deleteLoan(int id) throws SQLException {
         String sql = "DELETE FROM loan WHERE id = ?";
-        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
+        try (Connection connection = TransactionManager.getConnection(dataSource);
+             PreparedStatement pstmt = connection.prepareStatement(sql)) {
             pstmt.setInt(1, id);
             pstmt.executeUpdate();
         }
@@ -107,31 +277,198 @@ public class LoanDAOImpl implements LoanDAO {
     public void markAsReturned(int loanId, LocalDate returnDate) throws SQLException {
         // CORRIGIDO: Adicionado 'returned = TRUE' na query SQL
         String sql = "UPDATE loan SET actual_return_date = ?, status = 'Devolvido', returned = TRUE WHERE id = ?";
-        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
+        try (Connection connection = TransactionManager.getConnection(dataSource);
+             PreparedStatement pstmt = connection.prepareStatement(sql)) {
             pstmt.setDate(1, Date.valueOf(returnDate));
             pstmt.setInt(2, loanId);
             pstmt.executeUpdate();
         }
     }
 
+    @Override
+    public Loan checkoutLoan(int bookId, int userId, LocalDate loanDate, LocalDate expectedReturnDate) throws SQLException {
+        try (Connection connection = TransactionManager.getConnection(dataSource);
+             PreparedStatement pstmt = connection.prepareStatement(CHECKOUT_LOAN_SQL)) {
+            pstmt.setInt(1, bookId);
+            pstmt.setInt(2, userId);
+            pstmt.setObject(3, loanDate);
+            pstmt.setObject(4, expectedReturnDate);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                return RowMappers.first(rs, RowMappers::loansWithDetails);
+            }
+        }
+    }
+
+    @Override
+    public Loan returnLoan(int loanId, LocalDate returnDate, BigDecimal finePerDay) throws SQLException {
+        try (Connection connection = TransactionManager.getConnection(dataSource);
+             PreparedStatement pstmt = connection.prepareStatement(RETURN_LOAN_SQL)) {
+            pstmt.setObject(1, returnDate);
+            pstmt.setObject(2, returnDate);
+            pstmt.setBigDecimal(3, finePerDay);
+            pstmt.setInt(4, loanId);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                return RowMappers.first(rs, RowMappers::loansWithDetails);
+            }
+        }
+    }
+
+    /**
+     * Move os empréstimos em lotes de {@value #ARCHIVE_BATCH_SIZE}: cada lote fixa os ids a mover,
+     * cria as partições anuais do arquivo que faltam para eles e então os move. Um empréstimo
+     * devolvido (ou com a data alterada) durante o arquivamento nunca chega ao UPDATE sem a sua
+     * partição: ou fica para o próximo lote, ou para a próxima execução. Os lotes são confirmados
+     * um a um (fora de uma transação), então um arquivamento grande não segura bloqueios na partição
+     * quente até o fim, e se for interrompido o que já foi movido permanece no arquivo; basta
+     * executá-lo de novo.
+     */
+    @Override
+    public int archiveReturnedLoans(LocalDate returnedBefore) throws SQLException {
+        try (Connection connection = TransactionManager.getConnection(dataSource);
+             PreparedStatement candidates = connection.prepareStatement(ARCHIVE_CANDIDATES_SQL);
+             PreparedStatement archive = connection.prepareStatement(ARCHIVE_LOANS_SQL)) {
+            Set<Integer> partitionYears = new HashSet<>(); // Anos cujas partições já existem nesta execução
+            int archived = 0;
+            int selected;
+            do {
+                List<Integer> ids = new ArrayList<>();
+                Set<Integer> years = new HashSet<>();
+                candidates.setObject(1, returnedBefore);
+                candidates.setInt(2, ARCHIVE_BATCH_SIZE);
+                try (ResultSet rs = candidates.executeQuery()) {
+                    while (rs.next()) {
+                        ids.add(rs.getInt(1));
+                        years.add(rs.getInt(2));
+                    }
+                }
+                selected = ids.size();
+                if (selected == 0) {
+                    break;
+                }
+                years.removeAll(partitionYears);
+                createArchivePartitions(connection, years);
+                partitionYears.addAll(years);
+                archive.setArray(1, connection.createArrayOf("integer", ids.toArray()));
+                archive.setObject(2, returnedBefore);
+                archive.setArray(3, connection.createArrayOf("integer", partitionYears.toArray()));
+                int moved = archive.executeUpdate();
+                archived += moved;
+                if (moved == 0) {
+                    break; // Todos os escolhidos mudaram desde a consulta: ficam para a próxima execução
+                }
+            } while (selected == ARCHIVE_BATCH_SIZE);
+            return archived;
+        }
+    }
+
+    @Override
+    public boolean isArchived(int loanId) throws SQLException {
+        // Pelo primário: a consulta antecede uma escrita e não pode ver uma réplica atrasada.
+        try (Connection connection = TransactionManager.getConnection(dataSource);
+             PreparedStatement pstmt = connection.prepareStatement(IS_ARCHIVED_SQL)) {
+            pstmt.setInt(1, loanId);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                return rs.next() && rs.getBoolean(1);
+            }
+        }
+    }
+
+    private static void createArchivePartitions(Connection connection, Set<Integer> years) throws SQLException {
+        if (years.isEmpty()) {
+            return;
+        }
+        try (Statement statement = connection.createStatement()) {
+            for (int year : years) { // Inteiros vindos do banco, nunca texto digitado pelo usuário
+                statement.execute("CREATE TABLE IF NOT EXISTS loan_archive_" + year + " PARTITION OF loan_archive"
+                        + " FOR VALUES FROM (DATE '" + LocalDate.of(year, 1, 1) + "') TO (DATE '" + LocalDate.of(year + 1, 1, 1) + "')");
+            }
+        }
+    }
+
     @Override
     public List<Loan> findAllLoansWithBookAndUser() throws SQLException {
         List<Loan> loans = new ArrayList<>();
-        String sql = "SELECT l.id AS loan_id, l.book_id, l.user_id, l.loan_date, l.return_date, l.actual_return_date, l.status, l.fine, l.returned, " + // NOVO: Seleciona 'returned'
-                "b.id AS b_id, b.title AS book_title, b.author AS book_author, b.isbn AS book_isbn, b.genre AS book_genre, b.total_copies AS book_total_copies, b.available_copies AS book_available_copies, b.publisher AS book_publisher, b.year AS book_year, b.image_url AS book_image_url, b.cover_image_path AS book_cover_image_path, " +
-                "u.id AS u_id, u.name AS user_name, u.cpf AS user_cpf, u.email AS user_email, u.phone AS user_phone, u.address AS user_address, u.profile_image_path AS user_profile_image_path " +
-                "FROM loan l " +
-                "JOIN books b ON l.book_id = b.id " +
-                "JOIN \"users\" u ON l.user_id = u.id";
-        try (Statement stmt = connection.createStatement();
-             ResultSet rs = stmt.executeQuery(sql)) {
-            while (rs.next()) {
-                loans.add(mapResultSetToLoanWithDetails(rs));
-            }
+        try (Connection connection = RoutingDataSource.readConnection(dataSource);
+             PreparedStatement pstmt = connection.prepareStatement(FIND_ALL_LOANS_WITH_DETAILS_SQL);
+             ResultSet rs = pstmt.executeQuery()) {
+            RowMappers.addAll(rs, RowMappers::loansWithDetails, loans);
         }
         return loans;
     }
 
+    @Override
+    public List<LoanSummary> findAllLoanSummaries() throws SQLException {
+        List<LoanSummary> summaries = new ArrayList<>();
+        try (Connection connection = RoutingDataSource.readConnection(dataSource);
+             PreparedStatement pstmt = connection.prepareStatement(FIND_ALL_LOAN_SUMMARIES_SQL);
+             ResultSet rs = pstmt.executeQuery()) {
+            RowMappers.addAll(rs, RowMappers::loanSummaries, summaries);
+        }
+        return summaries;
+    }
+
+    @Override
+    public List<LoanSummary> findRecentLoanSummaries(int limit) throws SQLException {
+        requirePositiveLimit(limit);
+        List<LoanSummary> summaries = new ArrayList<>();
+        try (Connection connection = RoutingDataSource.readConnection(dataSource);
+             PreparedStatement pstmt = connection.prepareStatement(FIND_RECENT_LOAN_SUMMARIES_SQL)) {
+            pstmt.setInt(1, limit);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                RowMappers.addAll(rs, RowMappers::loanSummaries, summaries);
+            }
+        }
+        return summaries;
+    }
+
+    @Override
+    public long streamAllLoansWithBookAndUser(RowCallback<? super Loan> callback) throws SQLException {
+        try (Connection connection = RoutingDataSource.readConnection(dataSource)) {
+            return CursorQuery.forEachRow(connection, FIND_ALL_LOANS_WITH_DETAILS_SQL, RowMappers::streamedLoansWithDetails, callback);
+        }
+    }
+
+    /**
+     * Exporta por {@code COPY (consulta) TO STDOUT}: o banco formata as linhas e o driver copia os
+     * bytes recebidos direto para o OutputStream, sem criar Loan, Book, User ou Strings por linha.
+     * O COPY não aceita parâmetros, então os filtros entram no texto da consulta; todos são tipados
+     * (datas, id inteiro e enum), nunca texto digitado pelo usuário.
+     */
+    @Override
+    public long exportLoansWithBookAndUser(LoanExportFilter filter, LoanExportFormat format, OutputStream out)
+            throws SQLException, IOException {
+        String query = FIND_ALL_LOANS_WITH_DETAILS_SQL + exportWhereClause(filter) + " ORDER BY l.loan_date, l.id";
+        String copy = switch (format) {
+            case CSV -> "COPY (" + query + ") TO STDOUT WITH " + EXPORT_CSV_COPY_OPTIONS;
+            case JSON_LINES -> "COPY (SELECT row_to_json(e) FROM (" + query + ") e) TO STDOUT WITH " + EXPORT_JSON_COPY_OPTIONS;
+        };
+        try (Connection connection = RoutingDataSource.readConnection(dataSource)) {
+            return connection.unwrap(PGConnection.class).getCopyAPI().copyOut(copy, out);
+        }
+    }
+
+    // Mesmos critérios de findActive/findReturned/findOverdueLoansWithDetails.
+    private static String exportWhereClause(LoanExportFilter filter) {
+        List<String> conditions = new ArrayList<>();
+        if (filter.from() != null) {
+            conditions.add("l.loan_date >= DATE '" + filter.from() + "'");
+        }
+        if (filter.to() != null) {
+            conditions.add("l.loan_date <= DATE '" + filter.to() + "'");
+        }
+        if (filter.status() != null) {
+            conditions.add(switch (filter.status()) {
+                case ACTIVE -> "l.archived = FALSE AND l.status = 'Ativo' AND l.actual_return_date IS NULL";
+                case RETURNED -> "l.actual_return_date IS NOT NULL";
+                case OVERDUE -> "l.archived = FALSE AND l.status = 'Ativo' AND l.actual_return_date IS NULL AND l.return_date < CURRENT_DATE";
+            });
+        }
+        if (filter.userId() != null) {
+            conditions.add("l.user_id = " + filter.userId().intValue());
+        }
+        return conditions.isEmpty() ? "" : " WHERE " + String.join(" AND ", conditions);
+    }
+
     @Override
     public List<Loan> findLoansByUserId(int userId) throws SQLException {
         List<Loan> loans = new ArrayList<>();
@@ -142,11 +479,11 @@ public class LoanDAOImpl implements LoanDAO {
                 "JOIN books b ON l.book_id = b.id " +
                 "JOIN \"users\" u ON l.user_id = u.id " +
                 "WHERE l.user_id = ?";
-        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
+        try (Connection connection = RoutingDataSource.readConnection(dataSource);
+             PreparedStatement pstmt = connection.prepareStatement(sql)) {
             pstmt.setInt(1, userId);
-            ResultSet rs = pstmt.executeQuery();
-            while (rs.next()) {
-                loans.add(mapResultSetToLoanWithDetails(rs));
+            try (ResultSet rs = pstmt.executeQuery()) {
+                RowMappers.addAll(rs, RowMappers::loansWithDetails, loans);
             }
         }
         return loans;
@@ -162,31 +499,26 @@ public class LoanDAOImpl implements LoanDAO {
                 "JOIN books b ON l.book_id = b.id " +
                 "JOIN \"users\" u ON l.user_id = u.id " +
                 "WHERE l.book_id = ?";
-        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
+        try (Connection connection = RoutingDataSource.readConnection(dataSource);
+             PreparedStatement pstmt = connection.prepareStatement(sql)) {
             pstmt.setInt(1, bookId);
-            ResultSet rs = pstmt.executeQuery();
-            while (rs.next()) {
-                loans.add(mapResultSetToLoanWithDetails(rs));
+            try (ResultSet rs = pstmt.executeQuery()) {
+                RowMappers.addAll(rs, RowMappers::loansWithDetails, loans);
             }
         }
         return loans;
     }
 
     @Override
-    public List<Loan> findLoansByStatus(String status) throws SQLException {
+    public List<Loan> findLoansByStatus(String status, int limit) throws SQLException {
+        requirePositiveLimit(limit);
         List<Loan> loans = new ArrayList<>();
-        String sql = "SELECT l.id AS loan_id, l.book_id, l.user_id, l.loan_date, l.return_date, l.actual_return_date, l.status, l.fine, l.returned, " + // NOVO: Seleciona 'returned'
-                "b.id AS b_id, b.title AS book_title, b.author AS book_author, b.isbn AS book_isbn, b.genre AS book_genre, b.total_copies AS book_total_copies, b.available_copies AS book_available_copies, b.publisher AS book_publisher, b.year AS book_year, b.image_url AS book_image_url, b.cover_image_path AS book_cover_image_path, " +
-                "u.id AS u_id, u.name AS user_name, u.cpf AS user_cpf, u.email AS user_email, u.phone AS user_phone, u.address AS user_address, u.profile_image_path AS user_profile_image_path " +
-                "FROM loan l " +
-                "JOIN books b ON l.book_id = b.id " +
-                "JOIN \"users\" u ON l.user_id = u.id " +
-                "WHERE l.status = ?";
-        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
+        try (Connection connection = RoutingDataSource.readConnection(dataSource);
+             PreparedStatement pstmt = connection.prepareStatement(FIND_LOANS_BY_STATUS_SQL)) {
             pstmt.setString(1, status);
-            ResultSet rs = pstmt.executeQuery();
-            while (rs.next()) {
-                loans.add(mapResultSetToLoanWithDetails(rs));
+            pstmt.setInt(2, limit);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                RowMappers.addAll(rs, RowMappers::loansWithDetails, loans);
             }
         }
         return loans;
@@ -197,18 +529,10 @@ public class LoanDAOImpl implements LoanDAO {
     @Override
     public List<Loan> findActiveLoansWithDetails() throws SQLException {
         List<Loan> loans = new ArrayList<>();
-        String sql = "SELECT l.id AS loan_id, l.book_id, l.user_id, l.loan_date, l.return_date, l.actual_return_date, l.status, l.fine, l.returned, " +
-                "b.id AS b_id, b.title AS book_title, b.author AS book_author, b.isbn AS book_isbn, b.genre AS book_genre, b.total_copies AS book_total_copies, b.available_copies AS book_available_copies, b.publisher AS book_publisher, b.year AS book_year, b.image_url AS book_image_url, b.cover_image_path AS book_cover_image_path, " +
-                "u.id AS u_id, u.name AS user_name, u.cpf AS user_cpf, u.email AS user_email, u.phone AS user_phone, u.address AS user_address, u.profile_image_path AS user_profile_image_path " +
-                "FROM loan l " +
-                "JOIN books b ON l.book_id = b.id " +
-                "JOIN \"users\" u ON l.user_id = u.id " +
-                "WHERE l.status = 'Ativo' AND l.actual_return_date IS NULL"; // Condição crucial
-        try (PreparedStatement pstmt = connection.prepareStatement(sql);
+        try (Connection connection = RoutingDataSource.readConnection(dataSource);
+             PreparedStatement pstmt = connection.prepareStatement(FIND_ACTIVE_LOANS_SQL);
              ResultSet rs = pstmt.executeQuery()) {
-            while (rs.next()) {
-                loans.add(mapResultSetToLoanWithDetails(rs));
-            }
+            RowMappers.addAll(rs, RowMappers::loansWithDetails, loans);
         }
         return loans;
     }
@@ -223,95 +547,54 @@ public class LoanDAOImpl implements LoanDAO {
                 "JOIN books b ON l.book_id = b.id " +
                 "JOIN \"users\" u ON l.user_id = u.id " +
                 "WHERE l.actual_return_date IS NOT NULL"; // Condição crucial
-        try (PreparedStatement pstmt = connection.prepareStatement(sql);
+        try (Connection connection = RoutingDataSource.readConnection(dataSource);
+             PreparedStatement pstmt = connection.prepareStatement(sql);
              ResultSet rs = pstmt.executeQuery()) {
-            while (rs.next()) {
-                loans.add(mapResultSetToLoanWithDetails(rs));
-            }
+            RowMappers.addAll(rs, RowMappers::loansWithDetails, loans);
         }
         return loans;
     }
 
     @Override
-    public List<Loan> findOverdueLoansWithDetails() throws SQLException {
+    public List<Loan> findOverdueLoansWithDetails(int limit) throws SQLException {
+        requirePositiveLimit(limit);
         List<Loan> loans = new ArrayList<>();
-        String sql = "SELECT l.id AS loan_id, l.book_id, l.user_id, l.loan_date, l.return_date, l.actual_return_date, l.status, l.fine, l.returned, " +
-                "b.id AS b_id, b.title AS book_title, b.author AS book_author, b.isbn AS book_isbn, b.genre AS book_genre, b.total_copies AS book_total_copies, b.available_copies AS book_available_copies, b.publisher AS book_publisher, b.year AS book_year, b.image_url AS book_image_url, b.cover_image_path AS book_cover_image_path, " +
-                "u.id AS u_id, u.name AS user_name, u.cpf AS user_cpf, u.email AS user_email, u.phone AS user_phone, u.address AS user_address, u.profile_image_path AS user_profile_image_path " +
-                "FROM loan l " +
-                "JOIN books b ON l.book_id = b.id " +
-                "JOIN \"users\" u ON l.user_id = u.id " +
-                "WHERE l.status = 'Ativo' AND l.actual_return_date IS NULL AND l.return_date < CURRENT_DATE"; // Condição crucial: 'return_date' é a data de devolução prevista
-        try (PreparedStatement pstmt = connection.prepareStatement(sql);
-             ResultSet rs = pstmt.executeQuery()) {
-            while (rs.next()) {
-                loans.add(mapResultSetToLoanWithDetails(rs));
+        try (Connection connection = RoutingDataSource.readConnection(dataSource);
+             PreparedStatement pstmt = connection.prepareStatement(FIND_OVERDUE_LOANS_SQL)) {
+            pstmt.setInt(1, limit);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                RowMappers.addAll(rs, RowMappers::loansWithDetails, loans);
             }
         }
         return loans;
     }
 
     @Override
-    public List<Loan> searchLoansByBookTitleOrUserNameOrUserCpf(String searchTerm) throws SQLException {
+    public List<Loan> searchLoansByBookTitleOrUserNameOrUserCpf(String searchTerm, int limit) throws SQLException {
+        requirePositiveLimit(limit);
         List<Loan> loans = new ArrayList<>();
-        String sql = "SELECT l.id AS loan_id, l.book_id, l.user_id, l.loan_date, l.return_date, l.actual_return_date, l.status, l.fine, l.returned, " +
-                "b.id AS b_id, b.title AS book_title, b.author AS book_author, b.isbn AS book_isbn, b.genre AS book_genre, b.total_copies AS book_total_copies, b.available_copies AS book_available_copies, b.publisher AS book_publisher, b.year AS book_year, b.image_url AS book_image_url, b.cover_image_path AS book_cover_image_path, " +
-                "u.id AS u_id, u.name AS user_name, u.cpf AS user_cpf, u.email AS user_email, u.phone AS user_phone, u.address AS user_address, u.profile_image_path AS user_profile_image_path " +
-                "FROM loan l " +
-                "JOIN books b ON l.book_id = b.id " +
-                "JOIN \"users\" u ON l.user_id = u.id " +
-                "WHERE LOWER(b.title) LIKE ? OR LOWER(u.name) LIKE ? OR LOWER(u.cpf) LIKE ?";
-        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
-            String likeTerm = "%" + searchTerm.toLowerCase() + "%";
+        try (Connection connection = RoutingDataSource.readConnection(dataSource);
+             PreparedStatement pstmt = connection.prepareStatement(SEARCH_LOANS_SQL)) {
+            String likeTerm = "%" + escapeLike(searchTerm.toLowerCase()) + "%";
             pstmt.setString(1, likeTerm);
             pstmt.setString(2, likeTerm);
             pstmt.setString(3, likeTerm);
+            pstmt.setInt(4, limit);
             try (ResultSet rs = pstmt.executeQuery()) {
-                while (rs.next()) {
-                    loans.add(mapResultSetToLoanWithDetails(rs));
-                }
+                RowMappers.addAll(rs, RowMappers::loansWithDetails, loans);
             }
         }
         return loans;
     }
 
+    // '%' e '_' digitados pelo usuário são procurados literalmente (a barra invertida é o escape padrão do LIKE).
+    private static String escapeLike(String term) {
+        return term.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
 
-    // --- Métodos de Mapeamento ---
-    private Loan mapResultSetToLoanWithDetails(ResultSet rs) throws SQLException {
-        Loan loan = new Loan();
-        loan.setId(rs.getInt("loan_id"));
-        loan.setLoanDate(rs.getDate("loan_date").toLocalDate());
-        loan.setExpectedReturnDate(rs.getDate("return_date").toLocalDate()); // return_date do banco
-        Date actualReturnDate = rs.getDate("actual_return_date");
-        loan.setActualReturnDate(actualReturnDate != null ? actualReturnDate.toLocalDate() : null);
-        loan.setStatus(rs.getString("status"));
-        loan.setFine(rs.getDouble("fine"));
-        loan.setReturned(rs.getBoolean("returned")); // NOVO: Mapeia o campo 'returned'
-
-        Book book = new Book();
-        book.setId(rs.getInt("b_id"));
-        book.setTitle(rs.getString("book_title"));
-        book.setAuthor(rs.getString("book_author"));
-        book.setIsbn(rs.getString("book_isbn"));
-        book.setGenre(rs.getString("book_genre"));
-        book.setTotalCopies(rs.getInt("book_total_copies"));
-        book.setAvailableCopies(rs.getInt("book_available_copies"));
-        book.setPublisher(rs.getString("book_publisher"));
-        book.setYear(rs.getInt("book_year"));
-        book.setImageUrl(rs.getString("book_image_url"));
-        book.setCoverImagePath(rs.getString("book_cover_image_path"));
-        loan.setBook(book);
-
-        User user = new User();
-        user.setId(rs.getInt("u_id"));
-        user.setName(rs.getString("user_name"));
-        user.setCpf(rs.getString("user_cpf"));
-        user.setEmail(rs.getString("user_email"));
-        user.setPhone(rs.getString("user_phone"));
-        user.setAddress(rs.getString("user_address"));
-        user.setProfileImagePath(rs.getString("user_profile_image_path"));
-        loan.setUser(user);
-
-        return loan;
+    private static void requirePositiveLimit(int limit) {
+        if (limit <= 0) {
+            throw new IllegalArgumentException("O limite de resultados deve ser positivo.");
+        }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,80 @@
+package com.managerlibrary.daos.implement;
+
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.StringJoiner;
+
+/**
+ * Gera os UPDATEs parciais de uma tabela: só as colunas dos campos alterados da entidade entram
+ * no SET, na ordem dos campos. Um checkout que muda apenas available_copies grava uma coluna em
+ * vez de dez, sem reescrever as demais (menos WAL e nenhuma manutenção dos índices das colunas
+ * que não mudaram).
+ * <p>
+ * Os SQLs gerados ficam em um cache LRU limitado, indexado pelo conjunto de campos. Na prática
+ * poucas combinações aparecem (ex: só cópias, só situação, todos os campos), então o cache evita
+ * montar o mesmo SQL a cada gravação; o limite impede que combinações raras o façam crescer, e
+ * mantém pequeno o número de SQLs distintos que disputam o cache de statements de cada conexão.
+ *
+ * @param <F> O enum dos campos da entidade (ex: {@code Book.Field}).
+ */
+final class PartialUpdate<F extends Enum<F>> {
+
+    static final int DEFAULT_CACHE_SIZE = 16;
+
+    private final String table;
+    private final EnumMap<F, String> columns;
+    private final int cacheSize;
+    private final LinkedHashMap<Set<F>, String> cache;
+
+    /**
+     * @param table     A tabela atualizada.
+     * @param columns   A coluna de cada campo; todos os campos do enum devem ter uma coluna.
+     * @param cacheSize Quantos SQLs gerados manter no cache.
+     */
+    PartialUpdate(String table, Map<F, String> columns, int cacheSize) {
+        if (cacheSize <= 0) {
+            throw new IllegalArgumentException("O tamanho do cache deve ser positivo.");
+        }
+        this.table = table;
+        this.columns = new EnumMap<>(columns);
+        this.cacheSize = cacheSize;
+        this.cache = new LinkedHashMap<>(16, 0.75f, true);
+    }
+
+    /**
+     * @param fields Os campos alterados (não vazio).
+     * @return {@code UPDATE <tabela> SET <coluna> = ?, ... WHERE id = ?}, com os parâmetros na ordem
+     *         dos campos e o id por último.
+     */
+    String sql(Set<F> fields) {
+        if (fields.isEmpty()) {
+            throw new IllegalArgumentException("Nenhum campo para atualizar.");
+        }
+        synchronized (cache) {
+            String sql = cache.get(fields);
+            if (sql == null) {
+                sql = generate(fields);
+                cache.put(EnumSet.copyOf(fields), sql); // Cópia: o conjunto recebido pode mudar depois
+                if (cache.size() > cacheSize) {
+                    cache.remove(cache.keySet().iterator().next()); // O menos usado recentemente
+                }
+            }
+            return sql;
+        }
+    }
+
+    private String generate(Set<F> fields) {
+        StringJoiner set = new StringJoiner(", ", "UPDATE " + table + " SET ", " WHERE id = ?");
+        for (F field : EnumSet.copyOf(fields)) { // Na ordem dos campos, a mesma em que os DAOs passam os valores
+            String column = columns.get(field);
+            if (column == null) {
+                throw new IllegalArgumentException("Campo sem coluna em " + table + ": " + field);
+            }
+            set.add(column + " = ?");
+        }
+        return set.toString();
+    }
+}
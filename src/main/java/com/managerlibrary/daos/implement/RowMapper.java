@@ -0,0 +1,25 @@
+package com.managerlibrary.daos.implement;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Mapeia a linha atual de um ResultSet para uma entidade.
+ * <p>
+ * Os mapeadores são criados por uma {@link Factory} para um ResultSet específico, depois de
+ * executada a consulta: a fábrica resolve uma única vez o índice de cada coluna e o mapeador lê
+ * todas as linhas por índice (ver {@link RowMappers}).
+ */
+@FunctionalInterface
+interface RowMapper<T> {
+
+    T map(ResultSet rs) throws SQLException;
+
+    /**
+     * Cria o mapeador das linhas de um ResultSet.
+     */
+    @FunctionalInterface
+    interface Factory<T> {
+        RowMapper<T> forResultSet(ResultSet rs) throws SQLException;
+    }
+}
@@ -0,0 +1,257 @@
+package com.managerlibrary.daos.implement;
+
+import com.managerlibrary.entities.Book;
+import com.managerlibrary.entities.Loan;
+import com.managerlibrary.entities.LoanSummary;
+import com.managerlibrary.entities.User;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Mapeadores de linha compartilhados pelos DAOs, para livros, usuários e empréstimos com livro e
+ * usuário.
+ * <p>
+ * Ler uma coluna pelo nome faz o driver procurar o nome (sem diferenciar maiúsculas de minúsculas)
+ * a cada chamada; na consulta de empréstimos com detalhes são 25 buscas por linha. Aqui os nomes
+ * são resolvidos com {@link ResultSet#findColumn(String)} uma vez por ResultSet, quando o mapeador
+ * é criado, e cada linha é lida pelos índices guardados. Por linha, a única alocação é a das
+ * próprias entidades (e dos valores que elas guardam, como Strings e datas).
+ * <p>
+ * Na consulta de empréstimos com detalhes, o mesmo livro e o mesmo usuário aparecem em muitas
+ * linhas. O mapeador guarda um mapa de identidade ({@link IntObjectMap}, pelos ids) durante o
+ * ResultSet: cada livro e cada usuário é montado na primeira linha em que aparece, e as seguintes
+ * só leem o id e reaproveitam a mesma instância.
+ */
+final class RowMappers {
+
+    private RowMappers() {
+    }
+
+    /**
+     * @return O mapeador de livros para as colunas de {@code SELECT ... FROM books}.
+     */
+    static RowMapper<Book> books(ResultSet rs) throws SQLException {
+        return new BookColumns(rs, "id", "");
+    }
+
+    /**
+     * @return O mapeador de usuários para as colunas de {@code SELECT ... FROM users}.
+     */
+    static RowMapper<User> users(ResultSet rs) throws SQLException {
+        return new UserColumns(rs, "id", "");
+    }
+
+    /**
+     * Os empréstimos do mesmo livro (ou usuário) no ResultSet compartilham a mesma instância de
+     * {@link Book} (ou {@link User}); alterar o livro de um empréstimo altera o de todos os outros
+     * da mesma consulta, que representam o mesmo registro.
+     *
+     * @return O mapeador da consulta de empréstimos com livro e usuário (colunas {@code loan_id},
+     *         {@code b_id}/{@code book_*} e {@code u_id}/{@code user_*}).
+     */
+    static RowMapper<Loan> loansWithDetails(ResultSet rs) throws SQLException {
+        return new LoanWithDetailsColumns(rs, true);
+    }
+
+    /**
+     * Como {@link #loansWithDetails(ResultSet)}, mas monta um livro e um usuário novos a cada linha.
+     * Para a leitura por cursor, em que cada empréstimo é descartado depois de processado: o mapa
+     * de identidade guardaria todos os livros e usuários até o fim da leitura.
+     */
+    static RowMapper<Loan> streamedLoansWithDetails(ResultSet rs) throws SQLException {
+        return new LoanWithDetailsColumns(rs, false);
+    }
+
+    /**
+     * @return O mapeador da consulta de resumos de empréstimos (colunas {@code loan_id}, datas,
+     *         {@code status}, {@code fine}, {@code b_id}, {@code book_title}, {@code book_cover_image_path},
+     *         {@code u_id}, {@code user_name} e {@code user_cpf}).
+     */
+    static RowMapper<LoanSummary> loanSummaries(ResultSet rs) throws SQLException {
+        int id = rs.findColumn("loan_id");
+        int loanDate = rs.findColumn("loan_date");
+        int returnDate = rs.findColumn("return_date");
+        int actualReturnDate = rs.findColumn("actual_return_date");
+        int status = rs.findColumn("status");
+        int fine = rs.findColumn("fine");
+        int bookId = rs.findColumn("b_id");
+        int bookTitle = rs.findColumn("book_title");
+        int bookCoverImagePath = rs.findColumn("book_cover_image_path");
+        int userId = rs.findColumn("u_id");
+        int userName = rs.findColumn("user_name");
+        int userCpf = rs.findColumn("user_cpf");
+        return row -> new LoanSummary(row.getInt(id), row.getInt(bookId), row.getString(bookTitle),
+                row.getString(bookCoverImagePath), row.getInt(userId), row.getString(userName), row.getString(userCpf),
+                localDate(row, loanDate), localDate(row, returnDate), localDate(row, actualReturnDate),
+                row.getString(status), row.getDouble(fine));
+    }
+
+    /**
+     * Mapeia todas as linhas restantes do ResultSet, adicionando-as à lista.
+     */
+    static <T> List<T> addAll(ResultSet rs, RowMapper.Factory<T> factory, List<T> target) throws SQLException {
+        RowMapper<T> mapper = factory.forResultSet(rs);
+        while (rs.next()) {
+            target.add(mapper.map(rs));
+        }
+        return target;
+    }
+
+    /**
+     * Mapeia a próxima linha do ResultSet, ou devolve {@code null} se não houver mais linhas.
+     */
+    static <T> T first(ResultSet rs, RowMapper.Factory<T> factory) throws SQLException {
+        return rs.next() ? factory.forResultSet(rs).map(rs) : null;
+    }
+
+    private static LocalDate localDate(ResultSet rs, int column) throws SQLException {
+        return rs.getObject(column, LocalDate.class); // Sem o java.sql.Date intermediário
+    }
+
+    private static final class BookColumns implements RowMapper<Book> {
+        private final int id;
+        private final int title;
+        private final int author;
+        private final int isbn;
+        private final int genre;
+        private final int totalCopies;
+        private final int availableCopies;
+        private final int publisher;
+        private final int year;
+        private final int imageUrl;
+        private final int coverImagePath;
+
+        private BookColumns(ResultSet rs, String idLabel, String prefix) throws SQLException {
+            id = rs.findColumn(idLabel);
+            title = rs.findColumn(prefix + "title");
+            author = rs.findColumn(prefix + "author");
+            isbn = rs.findColumn(prefix + "isbn");
+            genre = rs.findColumn(prefix + "genre");
+            totalCopies = rs.findColumn(prefix + "total_copies");
+            availableCopies = rs.findColumn(prefix + "available_copies");
+            publisher = rs.findColumn(prefix + "publisher");
+            year = rs.findColumn(prefix + "year");
+            imageUrl = rs.findColumn(prefix + "image_url");
+            coverImagePath = rs.findColumn(prefix + "cover_image_path");
+        }
+
+        @Override
+        public Book map(ResultSet rs) throws SQLException {
+            Book book = new Book();
+            book.setId(rs.getInt(id));
+            book.setTitle(rs.getString(title));
+            book.setAuthor(rs.getString(author));
+            book.setIsbn(rs.getString(isbn));
+            book.setGenre(rs.getString(genre));
+            book.setTotalCopies(rs.getInt(totalCopies));
+            book.setAvailableCopies(rs.getInt(availableCopies));
+            book.setPublisher(rs.getString(publisher));
+            book.setYear(rs.getInt(year));
+            book.setImageUrl(rs.getString(imageUrl));
+            book.setCoverImagePath(rs.getString(coverImagePath));
+            book.markClean(); // Estado lido do banco: a partir daqui só as alterações contam
+            return book;
+        }
+    }
+
+    private static final class UserColumns implements RowMapper<User> {
+        private final int id;
+        private final int name;
+        private final int address;
+        private final int phone;
+        private final int email;
+        private final int cpf;
+        private final int profileImagePath;
+
+        private UserColumns(ResultSet rs, String idLabel, String prefix) throws SQLException {
+            id = rs.findColumn(idLabel);
+            name = rs.findColumn(prefix + "name");
+            address = rs.findColumn(prefix + "address");
+            phone = rs.findColumn(prefix + "phone");
+            email = rs.findColumn(prefix + "email");
+            cpf = rs.findColumn(prefix + "cpf");
+            profileImagePath = rs.findColumn(prefix + "profile_image_path");
+        }
+
+        @Override
+        public User map(ResultSet rs) throws SQLException {
+            User user = new User();
+            user.setId(rs.getInt(id));
+            user.setName(rs.getString(name));
+            user.setAddress(rs.getString(address));
+            user.setPhone(rs.getString(phone));
+            user.setEmail(rs.getString(email));
+            user.setCpf(rs.getString(cpf));
+            user.setProfileImagePath(rs.getString(profileImagePath));
+            user.markClean();
+            return user;
+        }
+    }
+
+    private static final class LoanWithDetailsColumns implements RowMapper<Loan> {
+        private final int id;
+        private final int loanDate;
+        private final int returnDate;
+        private final int actualReturnDate;
+        private final int status;
+        private final int fine;
+        private final int returned;
+        private final BookColumns book;
+        private final UserColumns user;
+        private final IntObjectMap<Book> booksById; // Nulos sem o mapa de identidade
+        private final IntObjectMap<User> usersById;
+
+        private LoanWithDetailsColumns(ResultSet rs, boolean shareEntities) throws SQLException {
+            id = rs.findColumn("loan_id");
+            loanDate = rs.findColumn("loan_date");
+            returnDate = rs.findColumn("return_date");
+            actualReturnDate = rs.findColumn("actual_return_date");
+            status = rs.findColumn("status");
+            fine = rs.findColumn("fine");
+            returned = rs.findColumn("returned");
+            book = new BookColumns(rs, "b_id", "book_");
+            user = new UserColumns(rs, "u_id", "user_");
+            booksById = shareEntities ? new IntObjectMap<>() : null;
+            usersById = shareEntities ? new IntObjectMap<>() : null;
+        }
+
+        @Override
+        public Loan map(ResultSet rs) throws SQLException {
+            Loan loan = new Loan();
+            loan.setId(rs.getInt(id));
+            loan.setLoanDate(localDate(rs, loanDate));
+            loan.setExpectedReturnDate(localDate(rs, returnDate)); // return_date do banco
+            loan.setActualReturnDate(localDate(rs, actualReturnDate));
+            loan.setStatus(rs.getString(status));
+            loan.setFine(rs.getDouble(fine));
+            loan.setReturned(rs.getBoolean(returned));
+            loan.setBook(booksById != null ? sharedBook(rs) : book.map(rs));
+            loan.setUser(usersById != null ? sharedUser(rs) : user.map(rs));
+            loan.markClean();
+            return loan;
+        }
+
+        private Book sharedBook(ResultSet rs) throws SQLException {
+            int bookId = rs.getInt(book.id);
+            Book shared = booksById.get(bookId);
+            if (shared == null) {
+                shared = book.map(rs);
+                booksById.put(bookId, shared);
+            }
+            return shared;
+        }
+
+        private User sharedUser(ResultSet rs) throws SQLException {
+            int userId = rs.getInt(user.id);
+            User shared = usersById.get(userId);
+            if (shared == null) {
+                shared = user.map(rs);
+                usersById.put(userId, shared);
+            }
+            return shared;
+        }
+    }
+}
@@ -2,6 +2,10 @@ package com.managerlibrary.daos.implement;
 
 import com.managerlibrary.daos.interfaces.UserDAO;
 import com.managerlibrary.entities.User;
+import com.managerlibrary.infra.RoutingDataSource;
+import com.managerlibrary.infra.TransactionManager;
+
+import javax.sql.DataSource;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
@@ -9,15 +13,27 @@ import java.sql.SQLException;
 import java.sql.Statement;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 public class UserDAOImpl implements UserDAO {
 
-    private Connection connection;
+    // Cada operação empresta uma conexão do pool e a devolve ao final. As consultas (find*/search*)
+    // usam RoutingDataSource.readConnection, que as envia à réplica de leitura quando configurada;
+    // as escritas usam TransactionManager.getConnection, que participa da transação ativa, se houver.
+    private final DataSource dataSource;
+    private final int batchSize;
 
-    private static final String INSERT_USER_SQL = "INSERT INTO users (name, address, phone, email, cpf, profile_image_path) VALUES (?, ?, ?, ?, ?, ?)";
+    private static final String INSERT_USERS_INTO = "INSERT INTO users (name, address, phone, email, cpf, profile_image_path)";
+    private static final int INSERT_USER_COLUMNS = 6;
+    private static final String INSERT_USER_SQL = INSERT_USERS_INTO + " VALUES (?, ?, ?, ?, ?, ?)";
     private static final String FIND_USER_BY_ID_SQL = "SELECT id, name, address, phone, email, cpf, profile_image_path FROM users WHERE id = ?";
     private static final String FIND_ALL_USERS_SQL = "SELECT id, name, address, phone, email, cpf, profile_image_path FROM users";
-    private static final String UPDATE_USER_SQL = "UPDATE users SET name = ?, address = ?, phone = ?, email = ?, cpf = ?, profile_image_path = ? WHERE id = ?";
+    // UPDATE só das colunas alteradas (ver updateUser).
+    private static final PartialUpdate<User.Field> USER_UPDATE = new PartialUpdate<>("users", Map.of(
+            User.Field.NAME, "name", User.Field.ADDRESS, "address", User.Field.PHONE, "phone",
+            User.Field.EMAIL, "email", User.Field.CPF, "cpf", User.Field.PROFILE_IMAGE_PATH, "profile_image_path"),
+            PartialUpdate.DEFAULT_CACHE_SIZE);
     private static final String DELETE_USER_SQL = "DELETE FROM users WHERE id = ?";
     private static final String FIND_USERS_BY_NAME_SQL = "SELECT id, name, address, phone, email, cpf, profile_image_path FROM users WHERE LOWER(name) LIKE ?";
     private static final String FIND_USER_BY_CPF_SQL = "SELECT id, name, address, phone, email, cpf, profile_image_path FROM users WHERE cpf = ?";
@@ -25,58 +41,77 @@ public class UserDAOImpl implements UserDAO {
     // Se a intenção é buscar por parte do CPF, mude de volta para LIKE e adicione '%%'.
     private static final String FIND_USERS_BY_NAME_OR_CPF_OR_EMAIL_SQL = "SELECT id, name, address, phone, email, cpf, profile_image_path FROM users WHERE LOWER(name) LIKE ? OR cpf = ? OR LOWER(email) LIKE ?";
 
-    public UserDAOImpl(Connection connection) {
-        this.connection = connection;
+    /**
+     * Statements mais usados logo após a abertura da aplicação, pré-preparados na inicialização.
+     */
+    public static final List<String> WARM_UP_STATEMENTS = List.of(FIND_ALL_USERS_SQL, FIND_USER_BY_ID_SQL);
+
+    public UserDAOImpl(DataSource dataSource) {
+        this(dataSource, BatchInsert.DEFAULT_BATCH_SIZE);
     }
 
     /**
-     * Mapeia um ResultSet para um objeto User.
-     * @param resultSet O ResultSet contendo os dados do usuário.
-     * @return Um objeto User preenchido com os dados do ResultSet.
-     * @throws SQLException Se ocorrer um erro ao acessar os dados do ResultSet.
+     * @param dataSource O DataSource de onde as conexões são emprestadas.
+     * @param batchSize  Quantos usuários cada comando de {@link #insertUsers(List)} insere.
      */
-    private User createUser(ResultSet resultSet) throws SQLException {
-        User user = new User();
-        user.setId(resultSet.getInt("id"));
-        user.setName(resultSet.getString("name"));
-        user.setAddress(resultSet.getString("address"));
-        user.setPhone(resultSet.getString("phone"));
-        user.setEmail(resultSet.getString("email"));
-        user.setCpf(resultSet.getString("cpf"));
-        user.setProfileImagePath(resultSet.getString("profile_image_path"));
-        // Não mapeia registrationNumber pois não existe no DB, conforme Screenshot 2025-05-20 at 16.28.03.png
-        return user;
+    public UserDAOImpl(DataSource dataSource, int batchSize) {
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("O tamanho do lote deve ser positivo.");
+        }
+        this.dataSource = dataSource;
+        this.batchSize = batchSize;
     }
 
     @Override
     public void insertUser(User user) throws SQLException {
         // Adicionado Statement.RETURN_GENERATED_KEYS para obter o ID gerado
-        try (PreparedStatement preparedStatement = connection.prepareStatement(INSERT_USER_SQL, Statement.RETURN_GENERATED_KEYS)) {
-            preparedStatement.setString(1, user.getName());
-            preparedStatement.setString(2, user.getAddress());
-            preparedStatement.setString(3, user.getPhone());
-            preparedStatement.setString(4, user.getEmail());
-            preparedStatement.setString(5, user.getCpf());
-            preparedStatement.setString(6, user.getProfileImagePath());
+        try (Connection connection = TransactionManager.getConnection(dataSource);
+             PreparedStatement preparedStatement = connection.prepareStatement(INSERT_USER_SQL, Statement.RETURN_GENERATED_KEYS)) {
+            bindInsertParameters(preparedStatement, 1, user);
             preparedStatement.executeUpdate();
 
             // Recupera o ID gerado e define no objeto User
-            ResultSet generatedKeys = preparedStatement.getGeneratedKeys();
-            if (generatedKeys.next()) {
-                user.setId(generatedKeys.getInt(1));
+            try (ResultSet generatedKeys = preparedStatement.getGeneratedKeys()) {
+                if (generatedKeys.next()) {
+                    user.setId(generatedKeys.getInt(1));
+                }
             }
         }
+        user.markClean();
+    }
+
+    /**
+     * Insere os usuários em lotes de {@code batchSize} por comando (ver {@link BatchInsert}) e
+     * atribui a cada um o id gerado.
+     */
+    @Override
+    public void insertUsers(List<User> users) throws SQLException {
+        try (Connection connection = TransactionManager.getConnection(dataSource)) {
+            BatchInsert.insertAll(connection, INSERT_USERS_INTO, INSERT_USER_COLUMNS, users, batchSize,
+                    UserDAOImpl::bindInsertParameters, (user, id) -> {
+                        user.setId(id);
+                        user.markClean();
+                    });
+        }
+    }
+
+    private static void bindInsertParameters(PreparedStatement preparedStatement, int firstIndex, User user) throws SQLException {
+        preparedStatement.setString(firstIndex, user.getName());
+        preparedStatement.setString(firstIndex + 1, user.getAddress());
+        preparedStatement.setString(firstIndex + 2, user.getPhone());
+        preparedStatement.setString(firstIndex + 3, user.getEmail());
+        preparedStatement.setString(firstIndex + 4, user.getCpf());
+        preparedStatement.setString(firstIndex + 5, user.getProfileImagePath());
     }
 
     @Override
     public User findUserById(int id) throws SQLException {
-        try (PreparedStatement preparedStatement = connection.prepareStatement(FIND_USER_BY_ID_SQL)) {
+        try (Connection connection = RoutingDataSource.readConnection(dataSource);
+             PreparedStatement preparedStatement = connection.prepareStatement(FIND_USER_BY_ID_SQL)) {
             preparedStatement.setInt(1, id);
-            ResultSet resultSet = preparedStatement.executeQuery();
-            if (resultSet.next()) {
-                return createUser(resultSet);
+            try (ResultSet resultSet = preparedStatement.executeQuery()) {
+                return RowMappers.first(resultSet, RowMappers::users);
             }
-            return null;
         }
     }
 
@@ -84,11 +119,10 @@ public class UserDAOImpl implements UserDAO {
     public List<User> findAllUsers() throws SQLException {
         List<User> users = new ArrayList<>();
         // Removidos System.out.println para ambiente de produção. Use um logger real (ex: SLF4J)
-        try (Statement statement = connection.createStatement();
-             ResultSet resultSet = statement.executeQuery(FIND_ALL_USERS_SQL)) {
-            while (resultSet.next()) {
-                users.add(createUser(resultSet));
-            }
+        try (Connection connection = RoutingDataSource.readConnection(dataSource);
+             PreparedStatement preparedStatement = connection.prepareStatement(FIND_ALL_USERS_SQL);
+             ResultSet resultSet = preparedStatement.executeQuery()) {
+            RowMappers.addAll(resultSet, RowMappers::users, users);
             return users;
         } catch (SQLException e) {
             System.err.println("Erro ao executar consulta findAllUsers: " + e.getMessage());
@@ -97,23 +131,39 @@ public class UserDAOImpl implements UserDAO {
         }
     }
 
+    /**
+     * Grava só os campos alterados desde que o usuário foi lido ou gravado ({@link User#getDirtyFields()});
+     * se nada mudou, nenhum comando é enviado.
+     */
     @Override
     public void updateUser(User user) throws SQLException {
-        try (PreparedStatement preparedStatement = connection.prepareStatement(UPDATE_USER_SQL)) {
-            preparedStatement.setString(1, user.getName());
-            preparedStatement.setString(2, user.getAddress());
-            preparedStatement.setString(3, user.getPhone());
-            preparedStatement.setString(4, user.getEmail());
-            preparedStatement.setString(5, user.getCpf());
-            preparedStatement.setString(6, user.getProfileImagePath());
-            preparedStatement.setInt(7, user.getId());
+        Set<User.Field> fields = user.getDirtyFields();
+        if (fields.isEmpty()) {
+            return;
+        }
+        try (Connection connection = TransactionManager.getConnection(dataSource);
+             PreparedStatement preparedStatement = connection.prepareStatement(USER_UPDATE.sql(fields))) {
+            int index = 1;
+            for (User.Field field : fields) {
+                preparedStatement.setString(index++, switch (field) {
+                    case NAME -> user.getName();
+                    case ADDRESS -> user.getAddress();
+                    case PHONE -> user.getPhone();
+                    case EMAIL -> user.getEmail();
+                    case CPF -> user.getCpf();
+                    case PROFILE_IMAGE_PATH -> user.getProfileImagePath();
+                });
+            }
+            preparedStatement.setInt(index, user.getId());
             preparedStatement.executeUpdate();
         }
+        user.markClean();
     }
 
     @Override
     public void deleteUser(int id) throws SQLException {
-        try (PreparedStatement preparedStatement = connection.prepareStatement(DELETE_USER_SQL)) {
+        try (Connection connection = TransactionManager.getConnection(dataSource);
+             PreparedStatement preparedStatement = connection.prepareStatement(DELETE_USER_SQL)) {
             preparedStatement.setInt(1, id);
             preparedStatement.executeUpdate();
         }
@@ -122,11 +172,11 @@ public class UserDAOImpl implements UserDAO {
     @Override
     public List<User> findUsersByName(String name) throws SQLException {
         List<User> users = new ArrayList<>();
-        try (PreparedStatement preparedStatement = connection.prepareStatement(FIND_USERS_BY_NAME_SQL)) {
+        try (Connection connection = RoutingDataSource.readConnection(dataSource);
+             PreparedStatement preparedStatement = connection.prepareStatement(FIND_USERS_BY_NAME_SQL)) {
             preparedStatement.setString(1, "%" + name.toLowerCase() + "%");
-            ResultSet resultSet = preparedStatement.executeQuery();
-            while (resultSet.next()) {
-                users.add(createUser(resultSet));
+            try (ResultSet resultSet = preparedStatement.executeQuery()) {
+                RowMappers.addAll(resultSet, RowMappers::users, users);
             }
             return users;
         }
@@ -134,27 +184,26 @@ public class UserDAOImpl implements UserDAO {
 
     @Override
     public User findUserByCPF(String cpf) throws SQLException {
-        try (PreparedStatement preparedStatement = connection.prepareStatement(FIND_USER_BY_CPF_SQL)) {
+        try (Connection connection = RoutingDataSource.readConnection(dataSource);
+             PreparedStatement preparedStatement = connection.prepareStatement(FIND_USER_BY_CPF_SQL)) {
             preparedStatement.setString(1, cpf);
-            ResultSet resultSet = preparedStatement.executeQuery();
-            if (resultSet.next()) {
-                return createUser(resultSet);
+            try (ResultSet resultSet = preparedStatement.executeQuery()) {
+                return RowMappers.first(resultSet, RowMappers::users);
             }
-            return null;
         }
     }
 
     @Override
     public List<User> findUsersByNameOrCPFOrEmail(String searchTerm) throws SQLException {
         List<User> users = new ArrayList<>();
-        try (PreparedStatement preparedStatement = connection.prepareStatement(FIND_USERS_BY_NAME_OR_CPF_OR_EMAIL_SQL)) {
+        try (Connection connection = RoutingDataSource.readConnection(dataSource);
+             PreparedStatement preparedStatement = connection.prepareStatement(FIND_USERS_BY_NAME_OR_CPF_OR_EMAIL_SQL)) {
             String likeTerm = "%" + searchTerm.toLowerCase() + "%";
             preparedStatement.setString(1, likeTerm);
             preparedStatement.setString(2, searchTerm); // Para CPF, ainda assumindo busca exata (sem %)
             preparedStatement.setString(3, likeTerm);
-            ResultSet resultSet = preparedStatement.executeQuery();
-            while (resultSet.next()) {
-                users.add(createUser(resultSet));
+            try (ResultSet resultSet = preparedStatement.executeQuery()) {
+                RowMappers.addAll(resultSet, RowMappers::users, users);
             }
             return users;
         }
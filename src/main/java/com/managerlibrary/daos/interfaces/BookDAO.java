@@ -1,13 +1,25 @@
 package com.managerlibrary.daos.interfaces;
 
 import com.managerlibrary.entities.Book;
+import com.managerlibrary.entities.BookImportResult;
+import com.managerlibrary.entities.BookSortOrder;
+import java.io.IOException;
+import java.io.Reader;
 import java.sql.SQLException;
 import java.util.List;
 
 public interface BookDAO {
+    int IMPORT_REJECTED_SAMPLES = 20; // Quantos registros rejeitados importBooks devolve como amostra
+
     void insertBook(Book book) throws SQLException;
+    void insertBooks(List<Book> books) throws SQLException; // Em lotes; atribui os ids gerados
+    // CSV com cabeçalho e as colunas de insertBook; insere ou atualiza pelo ISBN
+    BookImportResult importBooks(Reader csv) throws SQLException, IOException;
     Book findBookById(int id) throws SQLException;
     List<Book> findAllBooks() throws SQLException;
+    long streamAllBooks(RowCallback<? super Book> callback) throws SQLException; // Por cursor, sem carregar tudo na memória
+    // Paginação por chave: os próximos 'limit' livros depois de 'after' na ordem informada (after nulo = primeira página)
+    List<Book> findBooksPage(BookSortOrder sortOrder, Book after, int limit) throws SQLException;
     List<Book> findAllAvailable() throws SQLException;
     void updateBook(Book book) throws SQLException;
     void deleteBook(int id) throws SQLException;
@@ -18,6 +30,8 @@ public interface BookDAO {
     List<Book> searchBook(Book book) throws SQLException; // Mantido se ainda for usado, mas os findBooksBy... são mais específicos
 
     // NOVOS MÉTODOS PARA ATUALIZAR CÓPIAS
-    void incrementAvailableCopies(int bookId) throws SQLException;
-    void decrementAvailableCopies(int bookId) throws SQLException;
+    // Atualizam a linha no próprio banco (sem ler o livro antes); retornam false se o livro não existir
+    boolean incrementAvailableCopies(int bookId) throws SQLException;
+    // Só decrementa se houver cópia disponível; retorna false se não houver (ou se o livro não existir)
+    boolean decrementAvailableCopies(int bookId) throws SQLException;
 }
\ No newline at end of file
@@ -1,7 +1,13 @@
 package com.managerlibrary.daos.interfaces;
 
 import com.managerlibrary.entities.Loan;
+import com.managerlibrary.entities.LoanExportFilter;
+import com.managerlibrary.entities.LoanExportFormat;
+import com.managerlibrary.entities.LoanSummary;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
 import java.sql.SQLException;
 import java.time.LocalDate;
 import java.util.List;
@@ -10,6 +16,9 @@ public interface LoanDAO {
 
     void insertLoan(Loan loan) throws SQLException;
 
+    // Insere em lotes (INSERT de múltiplas linhas) e atribui os ids gerados a cada empréstimo
+    void insertLoans(List<Loan> loans) throws SQLException;
+
     Loan findLoanByIdWithDetails(int id) throws SQLException;
 
     List<Loan> findAllLoans() throws SQLException;
@@ -20,18 +29,48 @@ public interface LoanDAO {
 
     List<Loan> findAllLoansWithBookAndUser() throws SQLException;
 
+    // Só as colunas exibidas na lista de empréstimos; os detalhes vêm de findLoanByIdWithDetails
+    List<LoanSummary> findAllLoanSummaries() throws SQLException;
+
+    // Os resumos dos empréstimos mais recentes primeiro (maior id), no máximo limit
+    List<LoanSummary> findRecentLoanSummaries(int limit) throws SQLException;
+
+    // Percorre os empréstimos com detalhes por cursor, sem carregar todos na memória; retorna o número de linhas
+    long streamAllLoansWithBookAndUser(RowCallback<? super Loan> callback) throws SQLException;
+
+    // Grava os empréstimos com detalhes, já formatados pelo banco, no OutputStream; retorna o número de linhas
+    long exportLoansWithBookAndUser(LoanExportFilter filter, LoanExportFormat format, OutputStream out) throws SQLException, IOException;
+
     void markAsReturned(int loanId, LocalDate returnDate) throws SQLException;
 
+    // Decrementa as cópias disponíveis do livro (se houver) e insere o empréstimo em um único comando;
+    // retorna o empréstimo criado, com livro e usuário, ou null se o livro não existir ou não tiver cópias
+    Loan checkoutLoan(int bookId, int userId, LocalDate loanDate, LocalDate expectedReturnDate) throws SQLException;
+
+    // Marca a devolução, calcula a multa e incrementa as cópias disponíveis do livro em um único comando;
+    // retorna o empréstimo atualizado, com livro e usuário, ou null se não existir ou já tiver sido devolvido
+    Loan returnLoan(int loanId, LocalDate returnDate, BigDecimal finePerDay) throws SQLException;
+
+    // Move para as partições de arquivo os empréstimos devolvidos antes de returnedBefore, em lotes
+    // confirmados um a um; retorna quantos empréstimos foram arquivados
+    int archiveReturnedLoans(LocalDate returnedBefore) throws SQLException;
+
+    // Indica se o empréstimo está no arquivo (onde a data de devolução é obrigatória); false se não existir
+    boolean isArchived(int loanId) throws SQLException;
+
     List<Loan> findLoansByUserId(int userId) throws SQLException;
 
     List<Loan> findLoansByBookId(int bookId) throws SQLException;
 
     // Métodos adicionais (alguns já existiam, mas o foco agora é a implementação)
-    List<Loan> findLoansByStatus(String status) throws SQLException; // Mantém este, mas não será o principal para Ativos/Devolvidos
+    // Os mais recentes primeiro (maior id), no máximo limit empréstimos
+    List<Loan> findLoansByStatus(String status, int limit) throws SQLException;
 
     // NOVO: Métodos específicos para buscar empréstimos por status via banco de dados
     List<Loan> findActiveLoansWithDetails() throws SQLException; // <--- NOVO
     List<Loan> findReturnedLoansWithDetails() throws SQLException; // <--- NOVO
-    List<Loan> findOverdueLoansWithDetails() throws SQLException; // <--- RENOMEADO/MELHORADO
-    List<Loan> searchLoansByBookTitleOrUserNameOrUserCpf(String searchTerm) throws SQLException; // <--- NOVO (para pesquisa)
+    // Os atrasados há mais tempo primeiro (menor data prevista), no máximo limit empréstimos
+    List<Loan> findOverdueLoansWithDetails(int limit) throws SQLException;
+    // Os empréstimos mais recentes primeiro (data do empréstimo), no máximo limit empréstimos
+    List<Loan> searchLoansByBookTitleOrUserNameOrUserCpf(String searchTerm, int limit) throws SQLException;
 }
\ No newline at end of file
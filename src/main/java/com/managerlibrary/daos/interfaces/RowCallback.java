@@ -0,0 +1,15 @@
+package com.managerlibrary.daos.interfaces;
+
+import java.sql.SQLException;
+
+/**
+ * Recebe, uma a uma, as linhas de uma consulta percorrida por cursor (métodos stream* dos DAOs).
+ * Cada objeto é entregue assim que a linha é lida, sem acumular o resultado inteiro em memória.
+ * Lançar uma exceção interrompe a leitura e libera o cursor.
+ *
+ * @param <T> O tipo da entidade mapeada a partir de cada linha.
+ */
+@FunctionalInterface
+public interface RowCallback<T> {
+    void onRow(T row) throws SQLException;
+}
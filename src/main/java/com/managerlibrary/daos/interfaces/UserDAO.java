@@ -15,6 +15,9 @@ public interface UserDAO {
      */
     void insertUser(User user) throws SQLException;
 
+    // Insere em lotes (INSERT de múltiplas linhas) e atribui os ids gerados a cada usuário
+    void insertUsers(List<User> users) throws SQLException;
+
     /**
      * Busca um usuário pelo ID.
      *
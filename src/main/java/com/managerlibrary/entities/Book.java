@@ -1,6 +1,25 @@
 package com.managerlibrary.entities;
 
+import java.util.EnumSet;
+import java.util.Objects;
+import java.util.Set;
+
 public class Book {
+
+    /**
+     * Campos gravados por {@code BookDAO.updateBook}, na ordem das colunas da tabela.
+     */
+    public enum Field {
+        TITLE, AUTHOR, ISBN, GENRE, TOTAL_COPIES, AVAILABLE_COPIES, PUBLISHER, YEAR, IMAGE_URL, COVER_IMAGE_PATH
+    }
+
+    private static final Field[] FIELDS = Field.values();
+    private static final int ALL_FIELDS = (1 << FIELDS.length) - 1;
+
+    // Campos alterados desde a última leitura ou gravação no banco, um bit por Field. Um livro
+    // criado na aplicação ainda não tem estado gravado, então começa com todos os campos alterados.
+    private int dirtyFields = ALL_FIELDS;
+
     private int id;
     private String title;
     private String author;
@@ -35,6 +54,16 @@ public class Book {
         this.coverImagePath = coverImagePath;
     }
 
+    /**
+     * Cópia de um livro, com os mesmos campos alterados (ex: para caches que não podem devolver
+     * a instância que guardam, já que quem a recebe pode alterá-la).
+     */
+    public Book(Book other) {
+        this(other.id, other.title, other.author, other.isbn, other.publisher, other.year, other.genre,
+                other.totalCopies, other.availableCopies, other.imageUrl, other.coverImagePath);
+        this.dirtyFields = other.dirtyFields;
+    }
+
     // Getters e Setters
     public int getId() {
         return id;
@@ -49,7 +78,10 @@ public class Book {
     }
 
     public void setTitle(String title) {
-        this.title = title;
+        if (!Objects.equals(this.title, title)) {
+            this.title = title;
+            markDirty(Field.TITLE);
+        }
     }
 
     public String getAuthor() {
@@ -57,7 +89,10 @@ public class Book {
     }
 
     public void setAuthor(String author) {
-        this.author = author;
+        if (!Objects.equals(this.author, author)) {
+            this.author = author;
+            markDirty(Field.AUTHOR);
+        }
     }
 
     public String getIsbn() {
@@ -65,7 +100,10 @@ public class Book {
     }
 
     public void setIsbn(String isbn) {
-        this.isbn = isbn;
+        if (!Objects.equals(this.isbn, isbn)) {
+            this.isbn = isbn;
+            markDirty(Field.ISBN);
+        }
     }
 
     public String getPublisher() {
@@ -73,7 +111,10 @@ public class Book {
     }
 
     public void setPublisher(String publisher) {
-        this.publisher = publisher;
+        if (!Objects.equals(this.publisher, publisher)) {
+            this.publisher = publisher;
+            markDirty(Field.PUBLISHER);
+        }
     }
 
     public int getYear() {
@@ -81,7 +122,10 @@ public class Book {
     }
 
     public void setYear(int year) {
-        this.year = year;
+        if (this.year != year) {
+            this.year = year;
+            markDirty(Field.YEAR);
+        }
     }
 
     public String getGenre() {
@@ -89,7 +133,10 @@ public class Book {
     }
 
     public void setGenre(String genre) {
-        this.genre = genre;
+        if (!Objects.equals(this.genre, genre)) {
+            this.genre = genre;
+            markDirty(Field.GENRE);
+        }
     }
 
     public int getTotalCopies() {
@@ -97,7 +144,10 @@ public class Book {
     }
 
     public void setTotalCopies(int totalCopies) {
-        this.totalCopies = totalCopies;
+        if (this.totalCopies != totalCopies) {
+            this.totalCopies = totalCopies;
+            markDirty(Field.TOTAL_COPIES);
+        }
     }
 
     public int getAvailableCopies() {
@@ -105,7 +155,20 @@ public class Book {
     }
 
     public void setAvailableCopies(int availableCopies) {
+        if (this.availableCopies != availableCopies) {
+            this.availableCopies = availableCopies;
+            markDirty(Field.AVAILABLE_COPIES);
+        }
+    }
+
+    /**
+     * Atualiza as cópias disponíveis com o valor lido do banco (ex: depois de um checkout), sem
+     * marcá-las como alteradas: um {@code updateBook} posterior não grava essa contagem por cima
+     * dos checkouts e devoluções feitos depois. As demais alterações pendentes são mantidas.
+     */
+    public void refreshAvailableCopies(int availableCopies) {
         this.availableCopies = availableCopies;
+        dirtyFields &= ~(1 << Field.AVAILABLE_COPIES.ordinal());
     }
 
     public String getImageUrl() {
@@ -113,7 +176,10 @@ public class Book {
     }
 
     public void setImageUrl(String imageUrl) {
-        this.imageUrl = imageUrl;
+        if (!Objects.equals(this.imageUrl, imageUrl)) {
+            this.imageUrl = imageUrl;
+            markDirty(Field.IMAGE_URL);
+        }
     }
 
     // Getter para coverImagePath
@@ -123,7 +189,35 @@ public class Book {
 
     // Setter para coverImagePath (já existe)
     public void setCoverImagePath(String coverImagePath) {
-        this.coverImagePath = coverImagePath;
+        if (!Objects.equals(this.coverImagePath, coverImagePath)) {
+            this.coverImagePath = coverImagePath;
+            markDirty(Field.COVER_IMAGE_PATH);
+        }
+    }
+
+    /**
+     * @return Os campos alterados desde que o livro foi lido ou gravado no banco (todos, se foi
+     *         criado na aplicação). O UPDATE grava só esses campos.
+     */
+    public Set<Field> getDirtyFields() {
+        EnumSet<Field> fields = EnumSet.noneOf(Field.class);
+        for (Field field : FIELDS) {
+            if ((dirtyFields & (1 << field.ordinal())) != 0) {
+                fields.add(field);
+            }
+        }
+        return fields;
+    }
+
+    /**
+     * Marca o estado atual como o gravado no banco. Chamado pelos DAOs depois de ler ou gravar.
+     */
+    public void markClean() {
+        dirtyFields = 0;
+    }
+
+    private void markDirty(Field field) {
+        dirtyFields |= 1 << field.ordinal();
     }
 
     @Override
@@ -0,0 +1,43 @@
+package com.managerlibrary.entities;
+
+import java.util.List;
+
+/**
+ * Resultado de uma importação de catálogo (BookService.importBooks): quantos livros foram
+ * inseridos, quantos já existiam (mesmo ISBN) e foram atualizados, e quantos registros do arquivo
+ * foram rejeitados, com uma amostra dos primeiros rejeitados e o motivo de cada um.
+ *
+ * @param inserted        Livros novos inseridos.
+ * @param updated         Livros existentes atualizados.
+ * @param rejected        Registros do arquivo rejeitados na validação.
+ * @param rejectedSamples Os primeiros registros rejeitados, em ordem de arquivo.
+ */
+public record BookImportResult(long inserted, long updated, long rejected, List<Rejection> rejectedSamples) {
+
+    public BookImportResult {
+        rejectedSamples = List.copyOf(rejectedSamples);
+    }
+
+    /**
+     * @return O número de registros lidos do arquivo (sem o cabeçalho).
+     */
+    public long total() {
+        return inserted + updated + rejected;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%d livro(s) inserido(s), %d atualizado(s), %d registro(s) rejeitado(s)",
+                inserted, updated, rejected);
+    }
+
+    /**
+     * Um registro rejeitado.
+     *
+     * @param recordNumber A posição do registro no arquivo (1 = primeiro registro após o cabeçalho).
+     * @param isbn         O ISBN informado no registro (pode ser nulo).
+     * @param reason       O motivo da rejeição.
+     */
+    public record Rejection(long recordNumber, String isbn, String reason) {
+    }
+}
@@ -0,0 +1,26 @@
+package com.managerlibrary.entities;
+
+/**
+ * Ordens de exibição do catálogo de livros. Cada uma tem um índice correspondente
+ * (migração V3), usado pela paginação por chave em {@code BookDAO.findBooksPage}.
+ */
+public enum BookSortOrder {
+    TITLE("Título"),
+    AUTHOR("Autor"),
+    YEAR("Ano (mais recentes primeiro)");
+
+    private final String label;
+
+    BookSortOrder(String label) {
+        this.label = label;
+    }
+
+    public String getLabel() {
+        return label;
+    }
+
+    @Override
+    public String toString() {
+        return label; // Exibido diretamente no ComboBox de ordenação
+    }
+}
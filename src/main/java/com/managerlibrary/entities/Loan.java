@@ -1,8 +1,27 @@
 package com.managerlibrary.entities;
 
 import java.time.LocalDate;
+import java.util.EnumSet;
+import java.util.Objects;
+import java.util.Set;
 
 public class Loan {
+
+    /**
+     * Campos gravados por {@code LoanDAO.updateLoan}, na ordem das colunas da tabela.
+     */
+    public enum Field {
+        BOOK, USER, // book_id e user_id: só mudam se o id do livro/usuário mudar
+        LOAN_DATE, EXPECTED_RETURN_DATE, ACTUAL_RETURN_DATE, STATUS, FINE, RETURNED
+    }
+
+    private static final Field[] FIELDS = Field.values();
+    private static final int ALL_FIELDS = (1 << FIELDS.length) - 1;
+
+    // Campos alterados desde a última leitura ou gravação no banco, um bit por Field. Um empréstimo
+    // criado na aplicação ainda não tem estado gravado, então começa com todos os campos alterados.
+    private int dirtyFields = ALL_FIELDS;
+
     private int id;
     private Book book;
     private User user;
@@ -45,6 +64,9 @@ public class Loan {
     }
 
     public void setBook(Book book) {
+        if (idOf(this.book) != idOf(book)) {
+            markDirty(Field.BOOK);
+        }
         this.book = book;
     }
 
@@ -53,6 +75,9 @@ public class Loan {
     }
 
     public void setUser(User user) {
+        if (idOf(this.user) != idOf(user)) {
+            markDirty(Field.USER);
+        }
         this.user = user;
     }
 
@@ -61,7 +86,10 @@ public class Loan {
     }
 
     public void setLoanDate(LocalDate loanDate) {
-        this.loanDate = loanDate;
+        if (!Objects.equals(this.loanDate, loanDate)) {
+            this.loanDate = loanDate;
+            markDirty(Field.LOAN_DATE);
+        }
     }
 
     public LocalDate getExpectedReturnDate() {
@@ -69,7 +97,10 @@ public class Loan {
     }
 
     public void setExpectedReturnDate(LocalDate expectedReturnDate) {
-        this.expectedReturnDate = expectedReturnDate;
+        if (!Objects.equals(this.expectedReturnDate, expectedReturnDate)) {
+            this.expectedReturnDate = expectedReturnDate;
+            markDirty(Field.EXPECTED_RETURN_DATE);
+        }
     }
 
     public LocalDate getActualReturnDate() {
@@ -77,7 +108,10 @@ public class Loan {
     }
 
     public void setActualReturnDate(LocalDate actualReturnDate) {
-        this.actualReturnDate = actualReturnDate;
+        if (!Objects.equals(this.actualReturnDate, actualReturnDate)) {
+            this.actualReturnDate = actualReturnDate;
+            markDirty(Field.ACTUAL_RETURN_DATE);
+        }
     }
 
     public String getStatus() {
@@ -85,7 +119,10 @@ public class Loan {
     }
 
     public void setStatus(String status) {
-        this.status = status;
+        if (!Objects.equals(this.status, status)) {
+            this.status = status;
+            markDirty(Field.STATUS);
+        }
     }
 
     public double getFine() {
@@ -93,7 +130,10 @@ public class Loan {
     }
 
     public void setFine(double fine) {
-        this.fine = fine;
+        if (Double.compare(this.fine, fine) != 0) {
+            this.fine = fine;
+            markDirty(Field.FINE);
+        }
     }
 
     // Getter e Setter para o novo campo 'returned'
@@ -102,7 +142,44 @@ public class Loan {
     }
 
     public void setReturned(boolean returned) {
-        this.returned = returned;
+        if (this.returned != returned) {
+            this.returned = returned;
+            markDirty(Field.RETURNED);
+        }
+    }
+
+    /**
+     * @return Os campos alterados desde que o empréstimo foi lido ou gravado no banco (todos, se
+     *         foi criado na aplicação). O UPDATE grava só esses campos.
+     */
+    public Set<Field> getDirtyFields() {
+        EnumSet<Field> fields = EnumSet.noneOf(Field.class);
+        for (Field field : FIELDS) {
+            if ((dirtyFields & (1 << field.ordinal())) != 0) {
+                fields.add(field);
+            }
+        }
+        return fields;
+    }
+
+    /**
+     * Marca o estado atual como o gravado no banco. Chamado pelos DAOs depois de ler ou gravar.
+     * Só os campos do empréstimo: livro e usuário têm o próprio controle.
+     */
+    public void markClean() {
+        dirtyFields = 0;
+    }
+
+    private void markDirty(Field field) {
+        dirtyFields |= 1 << field.ordinal();
+    }
+
+    private static int idOf(Book book) {
+        return book != null ? book.getId() : 0;
+    }
+
+    private static int idOf(User user) {
+        return user != null ? user.getId() : 0;
     }
 
     // Opcional: ajustar toString() para incluir 'returned'
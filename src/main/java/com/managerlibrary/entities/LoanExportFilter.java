@@ -0,0 +1,50 @@
+package com.managerlibrary.entities;
+
+import java.time.LocalDate;
+
+/**
+ * Filtros da exportação do histórico de empréstimos ({@code LoanService.exportLoans}). Qualquer
+ * filtro nulo é ignorado; {@link #ALL} exporta todos os empréstimos.
+ *
+ * @param from   Data de empréstimo mínima (inclusive).
+ * @param to     Data de empréstimo máxima (inclusive).
+ * @param status A situação dos empréstimos exportados.
+ * @param userId O id do usuário cujos empréstimos são exportados.
+ */
+public record LoanExportFilter(LocalDate from, LocalDate to, Status status, Integer userId) {
+
+    public static final LoanExportFilter ALL = new LoanExportFilter(null, null, null, null);
+
+    public LoanExportFilter {
+        if (from != null && to != null && from.isAfter(to)) {
+            throw new IllegalArgumentException("A data inicial não pode ser posterior à data final.");
+        }
+        if (userId != null && userId <= 0) {
+            throw new IllegalArgumentException("ID do usuário inválido.");
+        }
+    }
+
+    /**
+     * Situações de empréstimo, com os mesmos critérios dos filtros da tela de empréstimos.
+     */
+    public enum Status {
+        ACTIVE("Ativos"),
+        RETURNED("Devolvidos"),
+        OVERDUE("Atrasados");
+
+        private final String label;
+
+        Status(String label) {
+            this.label = label;
+        }
+
+        public String getLabel() {
+            return label;
+        }
+
+        @Override
+        public String toString() {
+            return label;
+        }
+    }
+}
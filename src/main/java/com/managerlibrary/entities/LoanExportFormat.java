@@ -0,0 +1,46 @@
+package com.managerlibrary.entities;
+
+import java.util.Locale;
+
+/**
+ * Formatos de arquivo da exportação do histórico de empréstimos.
+ */
+public enum LoanExportFormat {
+    CSV("csv"),                // Com linha de cabeçalho
+    JSON_LINES("jsonl");       // Um objeto JSON por linha
+
+    private static final String GZIP_EXTENSION = ".gz";
+
+    private final String extension;
+
+    LoanExportFormat(String extension) {
+        this.extension = extension;
+    }
+
+    public String getExtension() {
+        return extension;
+    }
+
+    /**
+     * Deduz o formato pela extensão do arquivo, ignorando um ".gz" final
+     * (ex: "emprestimos.jsonl.gz" é JSON_LINES). Extensões desconhecidas exportam CSV.
+     *
+     * @param fileName O nome do arquivo.
+     * @return O formato correspondente.
+     */
+    public static LoanExportFormat forFileName(String fileName) {
+        String name = fileName.toLowerCase(Locale.ROOT);
+        if (name.endsWith(GZIP_EXTENSION)) {
+            name = name.substring(0, name.length() - GZIP_EXTENSION.length());
+        }
+        return name.endsWith(".jsonl") || name.endsWith(".json") ? JSON_LINES : CSV;
+    }
+
+    /**
+     * @param fileName O nome do arquivo.
+     * @return {@code true} se o arquivo deve ser compactado com gzip (extensão ".gz").
+     */
+    public static boolean isGzipFileName(String fileName) {
+        return fileName.toLowerCase(Locale.ROOT).endsWith(GZIP_EXTENSION);
+    }
+}
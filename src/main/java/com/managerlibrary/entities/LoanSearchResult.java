@@ -0,0 +1,30 @@
+package com.managerlibrary.entities;
+
+import java.util.List;
+
+/**
+ * Resultado de uma busca ou de um filtro de empréstimos (LoanService.searchLoans, getLoansByStatus,
+ * getOverdueLoans), limitado a um número máximo de empréstimos.
+ *
+ * @param loans     Os resumos dos empréstimos encontrados, no máximo o limite pedido.
+ * @param truncated {@code true} se havia mais empréstimos do que o limite: o resultado foi cortado e
+ *                  a busca deve ser refinada para ver os demais.
+ */
+public record LoanSearchResult(List<LoanSummary> loans, boolean truncated) {
+
+    public LoanSearchResult {
+        loans = List.copyOf(loans);
+    }
+
+    /**
+     * Monta o resultado de uma consulta feita com {@code limit + 1} linhas: a linha a mais só indica
+     * que havia mais empréstimos e não é devolvida.
+     *
+     * @param fetched As linhas consultadas (no máximo {@code limit + 1}).
+     * @param limit   O limite pedido.
+     */
+    public static LoanSearchResult ofLimitPlusOne(List<LoanSummary> fetched, int limit) {
+        boolean truncated = fetched.size() > limit;
+        return new LoanSearchResult(truncated ? fetched.subList(0, limit) : fetched, truncated);
+    }
+}
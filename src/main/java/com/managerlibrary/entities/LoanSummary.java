@@ -0,0 +1,53 @@
+package com.managerlibrary.entities;
+
+import java.time.LocalDate;
+
+/**
+ * Resumo de um empréstimo para a lista de empréstimos: apenas o que os cards exibem e o que a
+ * busca e os filtros da tela usam. Os dados completos do livro e do usuário ficam de fora e são
+ * carregados sob demanda ({@code LoanService.getLoanById}) quando o empréstimo é aberto,
+ * editado ou devolvido.
+ *
+ * @param id                 O id do empréstimo.
+ * @param bookId             O id do livro.
+ * @param bookTitle          O título do livro.
+ * @param bookCoverImagePath O caminho da capa do livro (pode ser nulo).
+ * @param userId             O id do usuário.
+ * @param userName           O nome do usuário.
+ * @param userCpf            O CPF do usuário (pode ser nulo).
+ * @param loanDate           A data do empréstimo.
+ * @param expectedReturnDate A data de devolução prevista.
+ * @param actualReturnDate   A data em que o livro foi devolvido, ou nulo se ainda não foi.
+ * @param status             A situação do empréstimo ("Ativo", "Devolvido").
+ * @param fine               A multa cobrada.
+ */
+public record LoanSummary(int id, int bookId, String bookTitle, String bookCoverImagePath, int userId, String userName,
+                          String userCpf, LocalDate loanDate, LocalDate expectedReturnDate, LocalDate actualReturnDate,
+                          String status, double fine) {
+
+    /**
+     * Resumo de um empréstimo já carregado com o livro e o usuário (ex: pelos filtros do banco).
+     */
+    public static LoanSummary of(Loan loan) {
+        Book book = loan.getBook();
+        User user = loan.getUser();
+        return new LoanSummary(loan.getId(), book.getId(), book.getTitle(), book.getCoverImagePath(), user.getId(),
+                user.getName(), user.getCpf(), loan.getLoanDate(), loan.getExpectedReturnDate(),
+                loan.getActualReturnDate(), loan.getStatus(), loan.getFine());
+    }
+
+    /**
+     * @return {@code true} se o livro já foi devolvido.
+     */
+    public boolean isReturned() {
+        return actualReturnDate != null;
+    }
+
+    /**
+     * @return {@code true} se o empréstimo está ativo e a devolução prevista é anterior a {@code today}.
+     */
+    public boolean isOverdue(LocalDate today) {
+        return actualReturnDate == null && "Ativo".equalsIgnoreCase(status)
+                && expectedReturnDate != null && today.isAfter(expectedReturnDate);
+    }
+}
@@ -5,7 +5,28 @@ import javafx.beans.property.SimpleIntegerProperty;
 import javafx.beans.property.SimpleStringProperty;
 import javafx.beans.property.StringProperty;
 
+import java.util.EnumSet;
+import java.util.Objects;
+import java.util.Set;
+
 public class User {
+
+    /**
+     * Campos gravados por {@code UserDAO.updateUser}, na ordem das colunas da tabela.
+     * (registrationNumber não é gravado.) Só as alterações feitas pelos setters são rastreadas,
+     * não as feitas diretamente pelas properties.
+     */
+    public enum Field {
+        NAME, ADDRESS, PHONE, EMAIL, CPF, PROFILE_IMAGE_PATH
+    }
+
+    private static final Field[] FIELDS = Field.values();
+    private static final int ALL_FIELDS = (1 << FIELDS.length) - 1;
+
+    // Campos alterados desde a última leitura ou gravação no banco, um bit por Field. Um usuário
+    // criado na aplicação ainda não tem estado gravado, então começa com todos os campos alterados.
+    private int dirtyFields = ALL_FIELDS;
+
     private final IntegerProperty id = new SimpleIntegerProperty(this, "id");
     private final StringProperty name = new SimpleStringProperty(this, "name");
     private final StringProperty address = new SimpleStringProperty(this, "address");
@@ -41,7 +62,17 @@ public class User {
         setEmail(email);
         setRegistrationNumber(registrationNumber);
         setCpf(cpf);
-        this.profileImagePath.set(profileImagePath); // Inicializando o profileImagePath no construtor
+        setProfileImagePath(profileImagePath); // Inicializando o profileImagePath no construtor
+    }
+
+    /**
+     * Cópia de um usuário, com os mesmos campos alterados (ex: para caches que não podem devolver
+     * a instância que guardam, já que quem a recebe pode alterá-la).
+     */
+    public User(User other) {
+        this(other.getId(), other.getName(), other.getAddress(), other.getPhone(), other.getEmail(),
+                other.getRegistrationNumber(), other.getCpf(), other.getProfileImagePath());
+        this.dirtyFields = other.dirtyFields;
     }
 
     // Getter para a Property profileImagePath
@@ -56,7 +87,10 @@ public class User {
 
     // Setter para o valor de profileImagePath
     public void setProfileImagePath(String profileImagePath) {
-        this.profileImagePath.set(profileImagePath);
+        if (!Objects.equals(this.profileImagePath.get(), profileImagePath)) {
+            this.profileImagePath.set(profileImagePath);
+            markDirty(Field.PROFILE_IMAGE_PATH);
+        }
     }
 
     // Getters para as Properties
@@ -123,19 +157,31 @@ public class User {
     }
 
     public void setName(String name) {
-        this.name.set(name);
+        if (!Objects.equals(this.name.get(), name)) {
+            this.name.set(name);
+            markDirty(Field.NAME);
+        }
     }
 
     public void setAddress(String address) {
-        this.address.set(address);
+        if (!Objects.equals(this.address.get(), address)) {
+            this.address.set(address);
+            markDirty(Field.ADDRESS);
+        }
     }
 
     public void setPhone(String phone) {
-        this.phone.set(phone);
+        if (!Objects.equals(this.phone.get(), phone)) {
+            this.phone.set(phone);
+            markDirty(Field.PHONE);
+        }
     }
 
     public void setEmail(String email) {
-        this.email.set(email);
+        if (!Objects.equals(this.email.get(), email)) {
+            this.email.set(email);
+            markDirty(Field.EMAIL);
+        }
     }
 
     public void setRegistrationNumber(String registrationNumber) {
@@ -143,6 +189,34 @@ public class User {
     }
 
     public void setCpf(String cpf) {
-        this.cpf.set(cpf);
+        if (!Objects.equals(this.cpf.get(), cpf)) {
+            this.cpf.set(cpf);
+            markDirty(Field.CPF);
+        }
+    }
+
+    /**
+     * @return Os campos alterados desde que o usuário foi lido ou gravado no banco (todos, se foi
+     *         criado na aplicação). O UPDATE grava só esses campos.
+     */
+    public Set<Field> getDirtyFields() {
+        EnumSet<Field> fields = EnumSet.noneOf(Field.class);
+        for (Field field : FIELDS) {
+            if ((dirtyFields & (1 << field.ordinal())) != 0) {
+                fields.add(field);
+            }
+        }
+        return fields;
+    }
+
+    /**
+     * Marca o estado atual como o gravado no banco. Chamado pelos DAOs depois de ler ou gravar.
+     */
+    public void markClean() {
+        dirtyFields = 0;
+    }
+
+    private void markDirty(Field field) {
+        dirtyFields |= 1 << field.ordinal();
     }
-}
\ No newline at end of file
+}
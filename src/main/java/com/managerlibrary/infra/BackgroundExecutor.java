@@ -0,0 +1,118 @@
+package com.managerlibrary.infra;
+
+import javafx.application.Platform;
+
+import java.time.Duration;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Executa operações bloqueantes (consultas ao banco de dados) fora da thread da interface JavaFX.
+ * <p>
+ * Cada tarefa roda em uma virtual thread própria e é exposta como {@link CompletableFuture}.
+ * Cancelar o future (ou estourar o tempo limite) interrompe a virtual thread que executa a tarefa.
+ * Os callbacks de {@link #submit(Task, Duration, Consumer, Consumer)} são entregues na thread
+ * da interface via {@link Platform#runLater(Runnable)}.
+ */
+public class BackgroundExecutor {
+
+    /**
+     * Executor que encaminha a execução para a thread de aplicação do JavaFX.
+     */
+    public static final Executor FX_THREAD = Platform::runLater;
+
+    private static final ExecutorService EXECUTOR = Executors.newVirtualThreadPerTaskExecutor();
+
+    // Construtor privado para evitar instâncias da classe (é uma classe utilitária estática)
+    private BackgroundExecutor() {
+    }
+
+    /**
+     * Tarefa executada em segundo plano. Pode lançar exceções verificadas, como SQLException.
+     *
+     * @param <T> O tipo do resultado.
+     */
+    @FunctionalInterface
+    public interface Task<T> {
+        T call() throws Exception;
+    }
+
+    /**
+     * Executa a tarefa em uma virtual thread.
+     *
+     * @param task A tarefa a ser executada.
+     * @param <T>  O tipo do resultado.
+     * @return Um future com o resultado. Cancelá-lo interrompe a execução da tarefa.
+     */
+    public static <T> CompletableFuture<T> supply(Task<T> task) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        Future<?> worker = EXECUTOR.submit(() -> {
+            try {
+                result.complete(task.call());
+            } catch (Throwable e) {
+                result.completeExceptionally(e);
+            }
+        });
+        // Cancelamento ou tempo limite esgotado: interrompe a virtual thread, se ainda estiver rodando.
+        result.whenComplete((value, error) -> {
+            if (error != null) {
+                worker.cancel(true);
+            }
+        });
+        return result;
+    }
+
+    /**
+     * Executa a tarefa em uma virtual thread, falhando com {@link java.util.concurrent.TimeoutException}
+     * se ela não terminar dentro do tempo limite.
+     *
+     * @param task    A tarefa a ser executada.
+     * @param timeout O tempo máximo de execução.
+     * @param <T>     O tipo do resultado.
+     * @return Um future com o resultado.
+     */
+    public static <T> CompletableFuture<T> supply(Task<T> task, Duration timeout) {
+        return supply(task).orTimeout(timeout.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Executa a tarefa em segundo plano e entrega o resultado (ou o erro) na thread da interface.
+     * Tarefas canceladas não disparam nenhum dos callbacks.
+     *
+     * @param task      A tarefa a ser executada.
+     * @param timeout   O tempo máximo de execução.
+     * @param onSuccess Chamado na thread da interface com o resultado.
+     * @param onError   Chamado na thread da interface com a causa da falha.
+     * @param <T>       O tipo do resultado.
+     * @return O future da tarefa, que pode ser cancelado pelo chamador.
+     */
+    public static <T> CompletableFuture<T> submit(Task<T> task, Duration timeout,
+                                                  Consumer<? super T> onSuccess, Consumer<Throwable> onError) {
+        CompletableFuture<T> future = supply(task, timeout);
+        future.whenCompleteAsync((value, error) -> {
+            if (error == null) {
+                onSuccess.accept(value);
+                return;
+            }
+            Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+            if (!(cause instanceof CancellationException)) {
+                onError.accept(cause);
+            }
+        }, FX_THREAD);
+        return future;
+    }
+
+    /**
+     * Interrompe as tarefas em andamento. Chamado no encerramento da aplicação.
+     */
+    public static void shutdown() {
+        EXECUTOR.shutdownNow();
+    }
+}
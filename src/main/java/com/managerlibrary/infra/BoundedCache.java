@@ -0,0 +1,214 @@
+package com.managerlibrary.infra;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.Callable;
+import java.util.function.ToIntFunction;
+import java.util.function.UnaryOperator;
+
+/**
+ * Cache de tamanho e validade limitados para as consultas dos DAOs (ver {@link CachingDecorator}),
+ * com contadores de acertos, falhas, remoções e da latência das cargas.
+ * <p>
+ * Cheio, o cache remove o item usado há mais tempo (LRU). Com {@link Eviction#TINY_LFU}, um item
+ * novo só entra se a sua frequência recente de acesso ({@link FrequencySketch}) for maior que a
+ * do item que sairia: uma sequência de consultas únicas (ex: percorrer o catálogo) não expulsa os
+ * livros e usuários consultados a todo momento no balcão, como aconteceria no LRU puro.
+ * <p>
+ * Os valores podem ser entidades mutáveis: o cache guarda uma cópia feita por {@code copier} e
+ * devolve uma nova cópia a cada acerto. Resultados nulos não são guardados. Cada item pertence a
+ * uma entidade ({@code entityId}, ex: o id do livro), o que permite remover de uma vez todos os
+ * itens de um livro alterado, mesmo os guardados por outra chave (ex: ISBN).
+ * <p>
+ * Uma carga que começou antes de uma remoção não é guardada ao terminar, pois pode ter lido o
+ * valor anterior à alteração. As operações usam um único lock por cache, mantido só durante a
+ * consulta aos mapas; as cargas (consultas ao banco) rodam fora dele.
+ *
+ * @param <K> O tipo da chave.
+ * @param <V> O tipo do valor.
+ */
+public final class BoundedCache<K, V> {
+
+    /**
+     * Política de substituição quando o cache está cheio.
+     */
+    public enum Eviction {
+        /** Remove o item usado há mais tempo e sempre admite o novo. */
+        LRU,
+        /** Como o LRU, mas só admite o novo item se ele for mais frequente que o que sairia. */
+        TINY_LFU
+    }
+
+    private final String name;
+    private final int maximumSize;
+    private final long ttlNanos;
+    private final Eviction eviction;
+    private final ToIntFunction<? super V> entityId;
+    private final UnaryOperator<V> copier;
+    private final FrequencySketch sketch;
+    private final LinkedHashMap<K, Entry<V>> entries = new LinkedHashMap<>(16, 0.75f, true); // Ordem de acesso
+    private volatile LatencyHistogram loadLatency = new LatencyHistogram(); // Trocado por um novo em resetStats()
+    // Incrementado a cada remoção por entidade ou total; uma carga só é guardada se não mudou.
+    private long invalidations;
+    private long hits;
+    private long misses;
+    private long evictions;
+    private long rejections;
+
+    /**
+     * @param name        O nome do cache nas métricas (ex: o método do DAO).
+     * @param maximumSize Quantos itens o cache guarda, no máximo.
+     * @param ttl         Por quanto tempo um item vale depois de carregado.
+     * @param eviction    A política de substituição.
+     * @param entityId    O id da entidade de cada valor, usado por {@link #invalidateEntities(Collection)}.
+     * @param copier      Copia um valor (use {@code UnaryOperator.identity()} para valores imutáveis).
+     */
+    public BoundedCache(String name, int maximumSize, Duration ttl, Eviction eviction,
+                        ToIntFunction<? super V> entityId, UnaryOperator<V> copier) {
+        if (maximumSize <= 0) {
+            throw new IllegalArgumentException("O tamanho máximo do cache " + name + " deve ser positivo.");
+        }
+        if (ttl.isNegative() || ttl.isZero()) {
+            throw new IllegalArgumentException("A validade dos itens do cache " + name + " deve ser positiva.");
+        }
+        this.name = Objects.requireNonNull(name, "O nome do cache não pode ser nulo.");
+        this.maximumSize = maximumSize;
+        this.ttlNanos = ttl.toNanos();
+        this.eviction = Objects.requireNonNull(eviction, "A política de substituição não pode ser nula.");
+        this.entityId = Objects.requireNonNull(entityId, "O id da entidade não pode ser nulo.");
+        this.copier = Objects.requireNonNull(copier, "A cópia dos valores não pode ser nula.");
+        this.sketch = eviction == Eviction.TINY_LFU ? new FrequencySketch(maximumSize) : null;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Devolve o valor da chave, carregando-o com {@code loader} se não estiver no cache ou tiver vencido.
+     *
+     * @param key    A chave (não nula).
+     * @param loader A consulta ao banco; suas exceções são repassadas sem alteração.
+     * @return Uma cópia do valor, ou {@code null} se a carga não encontrar nada.
+     * @throws Exception A exceção da carga.
+     */
+    public V get(K key, Callable<V> loader) throws Exception {
+        long generation;
+        synchronized (entries) {
+            if (sketch != null) {
+                sketch.increment(key);
+            }
+            Entry<V> entry = entries.get(key);
+            if (entry != null && entry.expiresAt() - System.nanoTime() > 0) {
+                hits++;
+                return copier.apply(entry.value());
+            }
+            if (entry != null) {
+                entries.remove(key); // Vencido
+            }
+            misses++;
+            generation = invalidations;
+        }
+        long start = System.nanoTime();
+        V value = loader.call();
+        loadLatency.record(System.nanoTime() - start);
+        if (value != null) {
+            V stored = copier.apply(value); // Quem chamou pode alterar o valor devolvido
+            synchronized (entries) {
+                if (generation == invalidations) {
+                    admit(key, new Entry<>(stored, System.nanoTime() + ttlNanos));
+                }
+            }
+        }
+        return value;
+    }
+
+    /**
+     * Remove os itens das entidades informadas (ex: os livros alterados), qualquer que seja a chave.
+     */
+    public void invalidateEntities(Collection<Integer> ids) {
+        if (ids.isEmpty()) {
+            return;
+        }
+        synchronized (entries) {
+            invalidations++;
+            entries.values().removeIf(entry -> ids.contains(entityId.applyAsInt(entry.value())));
+        }
+    }
+
+    /**
+     * Remove todos os itens (ex: depois de uma importação do catálogo).
+     */
+    public void invalidateAll() {
+        synchronized (entries) {
+            invalidations++;
+            entries.clear();
+        }
+    }
+
+    /**
+     * @return Uma cópia dos contadores do cache.
+     */
+    public Stats stats() {
+        LatencyHistogram.Snapshot loads = loadLatency.snapshot();
+        synchronized (entries) {
+            return new Stats(name, eviction, entries.size(), maximumSize, hits, misses, evictions, rejections,
+                    loads.getCount(), loads.getMeanMillis(), loads.percentileMillis(95));
+        }
+    }
+
+    /**
+     * Zera os contadores (os itens guardados continuam no cache).
+     */
+    public void resetStats() {
+        synchronized (entries) {
+            hits = 0;
+            misses = 0;
+            evictions = 0;
+            rejections = 0;
+        }
+        loadLatency = new LatencyHistogram();
+    }
+
+    private void admit(K key, Entry<V> entry) {
+        if (entries.containsKey(key) || entries.size() < maximumSize) {
+            entries.put(key, entry);
+            return;
+        }
+        Iterator<Map.Entry<K, Entry<V>>> eldest = entries.entrySet().iterator();
+        K victim = eldest.next().getKey();
+        if (sketch != null && sketch.frequency(key) <= sketch.frequency(victim)) {
+            rejections++; // O item que sairia é mais usado que o novo
+            return;
+        }
+        eldest.remove();
+        evictions++;
+        entries.put(key, entry);
+    }
+
+    private record Entry<V>(V value, long expiresAt) {
+    }
+
+    /**
+     * Cópia dos contadores de um cache.
+     *
+     * @param loads          Quantas cargas (consultas ao banco) o cache fez.
+     * @param meanLoadMillis A latência média das cargas.
+     * @param p95LoadMillis  O percentil 95 da latência das cargas.
+     */
+    public record Stats(String name, Eviction eviction, int size, int maximumSize, long hits, long misses,
+                        long evictions, long rejections, long loads, double meanLoadMillis, double p95LoadMillis) {
+
+        /**
+         * @return Acertos / consultas (0 sem consultas).
+         */
+        public double hitRate() {
+            long requests = hits + misses;
+            return requests == 0 ? 0 : (double) hits / requests;
+        }
+    }
+}
@@ -0,0 +1,175 @@
+package com.managerlibrary.infra;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Envolve um DAO em um proxy da sua interface que atende consultas de um {@link BoundedCache} e
+ * remove do cache as entidades alteradas pelas gravações, no mesmo estilo de
+ * {@link PerformanceMetrics#instrument(Class, Object)}.
+ * <p>
+ * Cada consulta em cache é um método de um único parâmetro, que é a chave (ex: {@code findBookById(id)}).
+ * Cada gravação informa, a partir dos argumentos e do resultado, os ids das entidades que alterou;
+ * depois que ela termina (com sucesso ou não), esses ids saem dos caches indicados. Os caches
+ * podem ser compartilhados entre DAOs: o checkout, feito pelo DAO de empréstimos, altera as cópias
+ * disponíveis do livro e remove o livro dos caches do DAO de livros.
+ * <p>
+ * Só as gravações feitas por DAOs decorados removem itens; as feitas por outros balcões aparecem
+ * quando o item vence (a validade de cada cache). Dentro de uma transação do {@link TransactionManager},
+ * a remoção acontece antes da confirmação, então outra thread pode guardar o valor antigo até ele vencer.
+ *
+ * @param <T> O tipo da interface do DAO.
+ */
+public final class CachingDecorator<T> {
+
+    /**
+     * Os ids das entidades alteradas por uma gravação.
+     */
+    @FunctionalInterface
+    public interface AffectedIds {
+        /**
+         * @param args   Os argumentos da gravação.
+         * @param result O resultado da gravação ({@code null} se ela falhou ou não devolve nada).
+         * @return Os ids das entidades alteradas.
+         */
+        Collection<Integer> of(Object[] args, Object result);
+    }
+
+    private final Class<T> daoInterface;
+    private final Map<String, BoundedCache<Object, Object>> lookups = new HashMap<>();
+    private final Map<String, List<Invalidation>> invalidations = new HashMap<>();
+
+    private CachingDecorator(Class<T> daoInterface) {
+        this.daoInterface = daoInterface;
+    }
+
+    /**
+     * @param daoInterface A interface do DAO (ex: {@code BookDAO.class}).
+     */
+    public static <T> CachingDecorator<T> forInterface(Class<T> daoInterface) {
+        Objects.requireNonNull(daoInterface, "A interface do DAO não pode ser nula.");
+        if (!daoInterface.isInterface()) {
+            throw new IllegalArgumentException(daoInterface.getName() + " não é uma interface.");
+        }
+        return new CachingDecorator<>(daoInterface);
+    }
+
+    /**
+     * Atende o método de consulta pelo cache, usando o único argumento como chave.
+     */
+    @SuppressWarnings("unchecked")
+    public CachingDecorator<T> cache(String methodName, BoundedCache<?, ?> cache) {
+        for (Method method : methods(methodName)) {
+            if (method.getParameterCount() != 1) {
+                throw new IllegalArgumentException(daoInterface.getSimpleName() + "." + methodName
+                        + " precisa de um único parâmetro para ser guardado em cache.");
+            }
+        }
+        lookups.put(methodName, (BoundedCache<Object, Object>) Objects.requireNonNull(cache, "O cache não pode ser nulo."));
+        return this;
+    }
+
+    /**
+     * Depois do método de gravação, remove dos caches as entidades que ele alterou.
+     */
+    public CachingDecorator<T> invalidate(String methodName, AffectedIds affectedIds, BoundedCache<?, ?>... caches) {
+        methods(methodName);
+        Objects.requireNonNull(affectedIds, "Os ids alterados não podem ser nulos.");
+        invalidations.computeIfAbsent(methodName, name -> new ArrayList<>()).add(new Invalidation(affectedIds, List.of(caches)));
+        return this;
+    }
+
+    /**
+     * Depois do método de gravação, esvazia os caches (para gravações em massa, como importações).
+     */
+    public CachingDecorator<T> invalidateAll(String methodName, BoundedCache<?, ?>... caches) {
+        methods(methodName);
+        invalidations.computeIfAbsent(methodName, name -> new ArrayList<>()).add(new Invalidation(null, List.of(caches)));
+        return this;
+    }
+
+    /**
+     * @param dao A implementação decorada.
+     * @return O DAO com as consultas em cache.
+     */
+    public T wrap(T dao) {
+        Objects.requireNonNull(dao, "O DAO não pode ser nulo.");
+        Map<String, BoundedCache<Object, Object>> lookupsByName = Map.copyOf(lookups);
+        Map<String, List<Invalidation>> invalidationsByName = Map.copyOf(invalidations);
+        String prefix = daoInterface.getSimpleName() + ".";
+        return daoInterface.cast(Proxy.newProxyInstance(daoInterface.getClassLoader(), new Class<?>[]{daoInterface},
+                (proxy, method, args) -> {
+                    if (method.getDeclaringClass() == Object.class) {
+                        switch (method.getName()) {
+                            case "equals":
+                                return proxy == args[0];
+                            case "hashCode":
+                                return System.identityHashCode(proxy);
+                            default:
+                                return prefix + "emCache(" + dao + ")";
+                        }
+                    }
+                    BoundedCache<Object, Object> cache = lookupsByName.get(method.getName());
+                    if (cache != null && args[0] != null) {
+                        return cache.get(args[0], () -> invoke(dao, method, args));
+                    }
+                    List<Invalidation> affected = invalidationsByName.get(method.getName());
+                    if (affected == null) {
+                        return invoke(dao, method, args);
+                    }
+                    Object result = null;
+                    try {
+                        result = invoke(dao, method, args);
+                        return result;
+                    } finally {
+                        for (Invalidation invalidation : affected) {
+                            invalidation.apply(args, result);
+                        }
+                    }
+                }));
+    }
+
+    private List<Method> methods(String methodName) {
+        List<Method> methods = Arrays.stream(daoInterface.getMethods())
+                .filter(method -> method.getName().equals(methodName))
+                .toList();
+        if (methods.isEmpty()) {
+            throw new IllegalArgumentException(daoInterface.getSimpleName() + " não tem o método " + methodName + ".");
+        }
+        return methods;
+    }
+
+    private static Object invoke(Object dao, Method method, Object[] args) throws Exception {
+        try {
+            return method.invoke(dao, args);
+        } catch (InvocationTargetException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof Exception exception) {
+                throw exception;
+            }
+            throw (Error) cause;
+        }
+    }
+
+    // affectedIds nulo: esvazia os caches.
+    private record Invalidation(AffectedIds affectedIds, List<BoundedCache<?, ?>> caches) {
+        private void apply(Object[] args, Object result) {
+            Collection<Integer> ids = affectedIds == null ? null : affectedIds.of(args, result);
+            for (BoundedCache<?, ?> cache : caches) {
+                if (ids == null) {
+                    cache.invalidateAll();
+                } else {
+                    cache.invalidateEntities(ids);
+                }
+            }
+        }
+    }
+}
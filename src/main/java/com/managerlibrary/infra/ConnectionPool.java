@@ -0,0 +1,431 @@
+package com.managerlibrary.infra;
+
+import javax.sql.DataSource;
+import java.io.PrintWriter;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.sql.SQLTimeoutException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.Properties;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Logger;
+
+/**
+ * Pool de conexões JDBC limitado, exposto como {@link DataSource}.
+ * <p>
+ * Cada chamada a {@link #getConnection()} empresta uma conexão física do pool; ao chamar
+ * {@code close()} na conexão retornada ela volta para o pool em vez de ser fechada.
+ * O pool mantém entre {@code minSize} e {@code maxSize} conexões, valida a conexão antes
+ * de emprestá-la, remove conexões ociosas há mais de {@code idleTimeoutMillis} e aguarda no
+ * máximo {@code maxWaitMillis} por uma conexão livre antes de lançar {@link SQLTimeoutException}.
+ * Cada conexão física mantém seu próprio {@link StatementCache}.
+ */
+public class ConnectionPool implements DataSource, AutoCloseable {
+
+    private static final long EVICTION_INTERVAL_MILLIS = 30_000;
+
+    private final String url;
+    private final Properties driverProperties;
+    private final int minSize;
+    private final int maxSize;
+    private final long maxWaitMillis;
+    private final long idleTimeoutMillis;
+    private final int validationTimeoutSeconds;
+    private final int statementCacheSize;
+    private final StatementCache.Stats statementCacheStats = new StatementCache.Stats();
+
+    // Conexões ociosas; a cabeça da fila guarda as usadas mais recentemente (LIFO).
+    private final LinkedBlockingDeque<PooledConnection> idleConnections = new LinkedBlockingDeque<>();
+    // Limita o número de conexões emprestadas simultaneamente a maxSize.
+    private final Semaphore permits;
+    private final AtomicInteger totalConnections = new AtomicInteger();
+    private final ScheduledExecutorService evictor;
+    private volatile boolean closed;
+
+    /**
+     * Construtor do ConnectionPool.
+     *
+     * @param url                      A URL JDBC do banco de dados.
+     * @param driverProperties         Propriedades repassadas ao driver (user, password e ajustes do driver).
+     * @param minSize                  Número mínimo de conexões mantidas abertas.
+     * @param maxSize                  Número máximo de conexões abertas.
+     * @param maxWaitMillis            Tempo máximo de espera por uma conexão livre.
+     * @param idleTimeoutMillis        Tempo após o qual uma conexão ociosa (acima do mínimo) é fechada.
+     * @param validationTimeoutSeconds Tempo limite da validação feita antes de emprestar a conexão.
+     * @param statementCacheSize       Número de PreparedStatements mantidos abertos por conexão (0 desativa o cache).
+     */
+    public ConnectionPool(String url, Properties driverProperties, int minSize, int maxSize,
+                          long maxWaitMillis, long idleTimeoutMillis, int validationTimeoutSeconds,
+                          int statementCacheSize) {
+        if (minSize < 0 || maxSize <= 0 || minSize > maxSize) {
+            throw new IllegalArgumentException("Tamanhos do pool inválidos: min=" + minSize + ", max=" + maxSize);
+        }
+        this.url = url;
+        this.driverProperties = driverProperties;
+        this.minSize = minSize;
+        this.maxSize = maxSize;
+        this.maxWaitMillis = maxWaitMillis;
+        this.idleTimeoutMillis = idleTimeoutMillis;
+        this.validationTimeoutSeconds = validationTimeoutSeconds;
+        this.statementCacheSize = statementCacheSize;
+        this.permits = new Semaphore(maxSize, true);
+
+        this.evictor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "connection-pool-evictor");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.evictor.scheduleWithFixedDelay(this::evictIdleConnections,
+                EVICTION_INTERVAL_MILLIS, EVICTION_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Abre conexões até atingir o tamanho mínimo do pool.
+     *
+     * @throws SQLException Se não for possível abrir uma conexão.
+     */
+    public void fillToMinimum() throws SQLException {
+        while (!closed && totalConnections.get() < minSize) {
+            idleConnections.offerFirst(openPhysicalConnection());
+        }
+    }
+
+    /**
+     * Prepara os statements informados em cada conexão ociosa, deixando-os no cache de cada uma.
+     * Além de popular o cache, {@code getMetaData()} obriga o servidor a analisar o SQL, de modo que
+     * as primeiras consultas da interface não pagam esse custo. Conexões emprestadas por outras
+     * threads durante o aquecimento são simplesmente ignoradas.
+     *
+     * @param sqls Os comandos SQL a serem preparados (sem pedido de chaves geradas).
+     * @return O número de conexões aquecidas.
+     * @throws SQLException Se algum statement não puder ser preparado.
+     */
+    public int warmUp(Collection<String> sqls) throws SQLException {
+        if (statementCacheSize <= 0 || sqls.isEmpty()) {
+            return 0;
+        }
+        int warmed = 0;
+        for (PooledConnection pooled : new ArrayList<>(idleConnections)) {
+            if (closed || !permits.tryAcquire()) {
+                break;
+            }
+            if (!idleConnections.remove(pooled)) {
+                permits.release(); // Já foi emprestada por outra thread.
+                continue;
+            }
+            // Fechar a conexão devolve a conexão ao pool e o permit ao semáforo.
+            try (Connection connection = pooled.lease()) {
+                for (String sql : sqls) {
+                    try (PreparedStatement statement = connection.prepareStatement(sql)) {
+                        statement.getMetaData();
+                    }
+                }
+            }
+            warmed++;
+        }
+        return warmed;
+    }
+
+    /**
+     * Empresta uma conexão do pool. A conexão deve ser fechada pelo chamador
+     * (de preferência com try-with-resources) para ser devolvida ao pool.
+     *
+     * @return Uma conexão válida.
+     * @throws SQLException Se o pool estiver fechado, se o tempo de espera esgotar
+     *                      ou se não for possível abrir uma nova conexão.
+     */
+    @Override
+    public Connection getConnection() throws SQLException {
+        if (closed) {
+            throw new SQLException("O pool de conexões está fechado.");
+        }
+        try {
+            if (!permits.tryAcquire(maxWaitMillis, TimeUnit.MILLISECONDS)) {
+                throw new SQLTimeoutException("Tempo de espera por uma conexão livre esgotado (" + maxWaitMillis + " ms). "
+                        + "Conexões em uso: " + getActiveCount() + "/" + maxSize);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrompido enquanto aguardava uma conexão do pool.", e);
+        }
+
+        try {
+            PooledConnection pooled;
+            while ((pooled = idleConnections.pollFirst()) != null) {
+                if (isValid(pooled)) {
+                    return pooled.lease();
+                }
+                discard(pooled);
+            }
+            return openPhysicalConnection().lease();
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        throw new SQLFeatureNotSupportedException("O pool usa as credenciais configuradas em application.properties.");
+    }
+
+    /**
+     * @return O número de conexões atualmente emprestadas.
+     */
+    public int getActiveCount() {
+        return maxSize - permits.availablePermits();
+    }
+
+    /**
+     * @return O número de conexões ociosas no pool.
+     */
+    public int getIdleCount() {
+        return idleConnections.size();
+    }
+
+    /**
+     * @return O número total de conexões físicas abertas.
+     */
+    public int getTotalCount() {
+        return totalConnections.get();
+    }
+
+    /**
+     * @return Os contadores do cache de PreparedStatements, somados entre todas as conexões.
+     */
+    public StatementCache.Stats getStatementCacheStats() {
+        return statementCacheStats;
+    }
+
+    /**
+     * Fecha o pool e todas as conexões ociosas. Conexões ainda emprestadas são fechadas
+     * quando devolvidas.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        evictor.shutdownNow();
+        PooledConnection pooled;
+        while ((pooled = idleConnections.pollFirst()) != null) {
+            discard(pooled);
+        }
+    }
+
+    private PooledConnection openPhysicalConnection() throws SQLException {
+        Connection physical = DriverManager.getConnection(url, driverProperties);
+        totalConnections.incrementAndGet();
+        return new PooledConnection(physical);
+    }
+
+    private boolean isValid(PooledConnection pooled) {
+        try {
+            return pooled.physical.isValid(validationTimeoutSeconds);
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    private void discard(PooledConnection pooled) {
+        totalConnections.decrementAndGet();
+        if (pooled.statementCache != null) {
+            pooled.statementCache.closeAll();
+        }
+        try {
+            pooled.physical.close();
+        } catch (SQLException e) {
+            System.err.println("Erro ao fechar conexão descartada do pool: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Chamado pela conexão emprestada ao ser fechada. Restaura o estado padrão da conexão
+     * e a devolve ao pool, ou a descarta se estiver quebrada ou se o pool estiver fechado.
+     */
+    private void release(PooledConnection pooled) {
+        try {
+            boolean reusable = !closed && !pooled.physical.isClosed();
+            if (reusable) {
+                try {
+                    if (pooled.statementCache != null) {
+                        pooled.statementCache.checkInAll();
+                    }
+                    if (!pooled.physical.getAutoCommit()) {
+                        pooled.physical.rollback();
+                        pooled.physical.setAutoCommit(true);
+                    }
+                    if (pooled.physical.isReadOnly()) {
+                        pooled.physical.setReadOnly(false);
+                    }
+                    pooled.physical.clearWarnings();
+                } catch (SQLException e) {
+                    reusable = false;
+                }
+            }
+            if (reusable) {
+                pooled.lastUsedMillis = System.currentTimeMillis();
+                idleConnections.offerFirst(pooled);
+            } else {
+                discard(pooled);
+            }
+        } catch (SQLException e) {
+            discard(pooled);
+        } finally {
+            permits.release();
+        }
+    }
+
+    /**
+     * Fecha conexões ociosas há mais tempo que o limite, preservando o tamanho mínimo,
+     * e reabre conexões caso o pool tenha ficado abaixo do mínimo.
+     */
+    private void evictIdleConnections() {
+        long now = System.currentTimeMillis();
+        Iterator<PooledConnection> oldestFirst = idleConnections.descendingIterator();
+        while (oldestFirst.hasNext() && totalConnections.get() > minSize) {
+            PooledConnection pooled = oldestFirst.next();
+            if (now - pooled.lastUsedMillis > idleTimeoutMillis && idleConnections.removeLastOccurrence(pooled)) {
+                discard(pooled);
+            }
+        }
+        try {
+            fillToMinimum();
+        } catch (SQLException e) {
+            System.err.println("Erro ao repor conexões mínimas do pool: " + e.getMessage());
+        }
+    }
+
+    // --- Métodos de DataSource sem uso no pool ---
+
+    @Override
+    public PrintWriter getLogWriter() {
+        return null;
+    }
+
+    @Override
+    public void setLogWriter(PrintWriter out) {
+        // Sem suporte: o pool registra mensagens no console.
+    }
+
+    @Override
+    public void setLoginTimeout(int seconds) {
+        DriverManager.setLoginTimeout(seconds);
+    }
+
+    @Override
+    public int getLoginTimeout() {
+        return DriverManager.getLoginTimeout();
+    }
+
+    @Override
+    public Logger getParentLogger() throws SQLFeatureNotSupportedException {
+        throw new SQLFeatureNotSupportedException();
+    }
+
+    @Override
+    public <T> T unwrap(Class<T> iface) throws SQLException {
+        if (iface.isInstance(this)) {
+            return iface.cast(this);
+        }
+        throw new SQLException("ConnectionPool não implementa " + iface.getName());
+    }
+
+    @Override
+    public boolean isWrapperFor(Class<?> iface) {
+        return iface.isInstance(this);
+    }
+
+    /**
+     * Conexão física mantida pelo pool.
+     */
+    private final class PooledConnection {
+        private final Connection physical;
+        private final StatementCache statementCache;
+        private volatile long lastUsedMillis = System.currentTimeMillis();
+
+        private PooledConnection(Connection physical) {
+            this.physical = physical;
+            this.statementCache = statementCacheSize > 0
+                    ? new StatementCache(physical, statementCacheSize, statementCacheStats)
+                    : null;
+        }
+
+        /**
+         * Cria o proxy entregue ao chamador. O proxy encaminha todas as chamadas para a
+         * conexão física, exceto {@code close()}, que devolve a conexão ao pool.
+         */
+        private Connection lease() {
+            return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                    new Class<?>[]{Connection.class}, new LeaseHandler(this));
+        }
+    }
+
+    /**
+     * Intercepta as chamadas feitas sobre uma conexão emprestada. Além de {@code close()},
+     * desvia {@code prepareStatement(sql)} e {@code prepareStatement(sql, autoGeneratedKeys)}
+     * para o cache de statements da conexão.
+     */
+    private final class LeaseHandler implements InvocationHandler {
+        private final PooledConnection pooled;
+        private boolean returned;
+
+        private LeaseHandler(PooledConnection pooled) {
+            this.pooled = pooled;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    if (!returned) {
+                        returned = true;
+                        release(pooled);
+                    }
+                    return null;
+                case "isClosed":
+                    return returned || pooled.physical.isClosed();
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "PooledConnection[" + pooled.physical + (returned ? ", devolvida" : "") + "]";
+                default:
+                    break;
+            }
+            if (returned) {
+                throw new SQLException("Conexão já devolvida ao pool.");
+            }
+            if ("unwrap".equals(method.getName()) && ((Class<?>) args[0]).isInstance(pooled.physical)) {
+                return pooled.physical;
+            }
+            if ("prepareStatement".equals(method.getName()) && pooled.statementCache != null) {
+                if (args.length == 1) {
+                    return pooled.statementCache.prepare((String) args[0], Statement.NO_GENERATED_KEYS, (Connection) proxy);
+                }
+                if (args.length == 2 && args[1] instanceof Integer autoGeneratedKeys) {
+                    return pooled.statementCache.prepare((String) args[0], autoGeneratedKeys, (Connection) proxy);
+                }
+            }
+            try {
+                return method.invoke(pooled.physical, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+    }
+}
@@ -1,20 +1,26 @@
 package com.managerlibrary.infra;
 
+import javax.sql.DataSource;
 import java.io.IOException;
 import java.io.InputStream;
 import java.sql.Connection;
-import java.sql.DriverManager;
 import java.sql.SQLException;
+import java.util.Collection;
+import java.util.List;
 import java.util.Properties;
 
 /**
- * Classe responsável por gerenciar a conexão com o banco de dados PostgreSQL.
- * Implementa um padrão singleton para a conexão.
+ * Classe responsável por gerenciar o acesso ao banco de dados PostgreSQL.
+ * Mantém um único {@link ConnectionPool} para toda a aplicação; cada operação
+ * empresta uma conexão do pool e a devolve ao fechá-la.
  */
 public class DataBaseConnection {
 
     // Mantido private para encapsulamento e segurança.
-    private static Connection connection;
+    private static ConnectionPool pool;
+    // Pool da réplica de leitura; nulo quando jdbc.replica.url não está configurada.
+    private static ConnectionPool replicaPool;
+    private static DataSource dataSource;
 
     // Construtor privado para evitar instâncias da classe (é uma classe utilitária estática)
     private DataBaseConnection() {
@@ -22,66 +28,205 @@ public class DataBaseConnection {
     }
 
     /**
-     * Obtém uma conexão com o banco de dados PostgreSQL.
-     * Se a conexão ainda não existir ou estiver fechada, uma nova conexão é criada.
-     * As informações de conexão são lidas do arquivo application.properties.
+     * Obtém o DataSource da aplicação, criando-o na primeira chamada.
+     * As informações de conexão e os limites do pool são lidos do arquivo application.properties.
+     * Se uma réplica de leitura estiver configurada (jdbc.replica.url), o DataSource devolvido é um
+     * {@link RoutingDataSource} que envia as consultas dos DAOs à réplica.
      *
-     * @return A conexão com o banco de dados.
-     * @throws SQLException Se ocorrer um erro ao estabelecer a conexão,
-     * a exceção original é relançada para ser tratada pelo chamador.
+     * @return O pool de conexões (ou o roteador entre primário e réplica).
+     * @throws SQLException Se o arquivo de configuração não puder ser lido ou se a conexão
+     *                      inicial falhar; a exceção é relançada para ser tratada pelo chamador.
      */
-    public static Connection getConnection() throws SQLException {
-        if (connection == null || connection.isClosed()) {
-            // Usa try-with-resources para garantir que o InputStream seja fechado
-            try (InputStream inputStream = DataBaseConnection.class.getClassLoader().getResourceAsStream("application.properties")) {
-                Properties properties = new Properties();
-
-                if (inputStream == null) {
-                    // Lançar uma exceção mais específica ou relançar SQLException com uma mensagem clara
-                    throw new SQLException("Erro: Arquivo application.properties não encontrado no classpath.");
+    public static synchronized DataSource getDataSource() throws SQLException {
+        if (dataSource == null) {
+            Properties properties = loadProperties();
+
+            ConnectionPool newPool = createPool(properties, properties.getProperty("jdbc.url"),
+                    driverProperties(properties, "jdbc.user", "jdbc.password", "jdbc.driver."));
+            String replicaUrl = properties.getProperty("jdbc.replica.url");
+            ConnectionPool newReplicaPool = null;
+            if (replicaUrl != null && !replicaUrl.isBlank()) {
+                // Usuário, senha e propriedades do driver da réplica herdam as do primário quando omitidos.
+                Properties replicaDriverProperties = driverProperties(properties, "jdbc.user", "jdbc.password", "jdbc.driver.");
+                replicaDriverProperties.putAll(driverProperties(properties, "jdbc.replica.user", "jdbc.replica.password", "jdbc.replica.driver."));
+                newReplicaPool = createPool(properties, replicaUrl, replicaDriverProperties);
+            }
+            try {
+                newPool.fillToMinimum();
+            } catch (SQLException e) {
+                System.err.println("Erro ao conectar ao banco de dados: " + e.getMessage());
+                newPool.close();
+                if (newReplicaPool != null) {
+                    newReplicaPool.close();
+                }
+                throw e; // Lança a exceção para que o chamador possa lidar com ela
+            }
+            if (newReplicaPool != null) {
+                try {
+                    newReplicaPool.fillToMinimum();
+                } catch (SQLException e) {
+                    // Não é fatal: o roteador usa o primário enquanto a réplica estiver fora do ar.
+                    System.err.println("Réplica de leitura indisponível na inicialização: " + e.getMessage());
                 }
+            }
+            pool = newPool;
+            replicaPool = newReplicaPool;
+            if (replicaPool != null) {
+                dataSource = new RoutingDataSource(pool, replicaPool,
+                        longProperty(properties, "jdbc.replica.readYourWritesMillis", 2_000));
+                System.out.println("Pools de conexões do primário e da réplica de leitura inicializados com sucesso.");
+            } else {
+                dataSource = pool;
+                System.out.println("Pool de conexões com o banco de dados inicializado com sucesso.");
+            }
+        }
+        return dataSource;
+    }
 
-                properties.load(inputStream);
+    /**
+     * Empresta uma conexão do pool. O chamador é responsável por fechá-la
+     * (de preferência com try-with-resources), o que a devolve ao pool.
+     *
+     * @return Uma conexão com o banco de dados.
+     * @throws SQLException Se ocorrer um erro ao obter a conexão.
+     */
+    public static Connection getConnection() throws SQLException {
+        return getDataSource().getConnection();
+    }
 
-                String url = properties.getProperty("jdbc.url");
-                String user = properties.getProperty("jdbc.user");
-                String password = properties.getProperty("jdbc.password");
+    /**
+     * Pré-prepara os statements informados nas conexões ociosas do pool.
+     *
+     * @param sqls Os comandos SQL a serem preparados.
+     * @return O número de conexões aquecidas.
+     * @throws SQLException Se o pool não puder ser criado ou algum statement não puder ser preparado.
+     */
+    public static int warmUpStatements(Collection<String> sqls) throws SQLException {
+        getDataSource();
+        int warmed = pool.warmUp(sqls);
+        if (replicaPool != null) {
+            warmed += replicaPool.warmUp(sqls);
+        }
+        return warmed;
+    }
 
-                // Class.forName("org.postgresql.Driver"); // Geralmente não é necessário para drivers JDBC 4.0+,
-                // o DriverManager já deve encontrar o driver automaticamente.
-                // Pode ser útil para compatibilidade com versões muito antigas do JDBC.
+    /**
+     * Aplica no banco primário as migrações de esquema pendentes (ver {@link MigrationRunner}).
+     *
+     * @return As migrações aplicadas nesta chamada.
+     * @throws SQLException Se o pool não puder ser criado ou alguma migração falhar.
+     */
+    public static List<MigrationRunner.Migration> migrate() throws SQLException {
+        getDataSource();
+        return new MigrationRunner(pool).migrate();
+    }
 
-                connection = DriverManager.getConnection(url, user, password);
-                System.out.println("Conexão com o banco de dados estabelecida com sucesso.");
+    /**
+     * @return {@code true} se as migrações devem ser aplicadas na inicialização da aplicação
+     * (propriedade db.migration.onStartup, ligada por padrão).
+     * @throws SQLException Se o arquivo de configuração não puder ser lido.
+     */
+    public static boolean isMigrationOnStartupEnabled() throws SQLException {
+        return Boolean.parseBoolean(loadProperties().getProperty("db.migration.onStartup", "true").trim());
+    }
 
-            } catch (IOException e) {
-                // Envolver a IOException em uma SQLException para uniformizar o tratamento de erros
-                throw new SQLException("Erro ao carregar application.properties: " + e.getMessage(), e);
-            } catch (SQLException e) {
-                // Relança a SQLException original
-                System.err.println("Erro ao conectar ao banco de dados: " + e.getMessage());
-                throw e; // Lança a exceção para que o chamador possa lidar com ela
+    /**
+     * @return {@code true} se as consultas do catálogo de livros devem ser atendidas por uma réplica
+     * em memória mantida por LISTEN/NOTIFY (propriedade books.catalogReplica.enabled, desligada por padrão).
+     * @throws SQLException Se o arquivo de configuração não puder ser lido.
+     */
+    public static boolean isCatalogReplicaEnabled() throws SQLException {
+        return Boolean.parseBoolean(loadProperties().getProperty("books.catalogReplica.enabled", "false").trim());
+    }
+
+    /**
+     * @return Quantas linhas cada INSERT de múltiplas linhas das inserções em lote dos DAOs insere
+     * (propriedade jdbc.batchSize, 500 por padrão).
+     * @throws SQLException Se o arquivo de configuração não puder ser lido.
+     */
+    public static int getBatchSize() throws SQLException {
+        return intProperty(loadProperties(), "jdbc.batchSize", 500);
+    }
+
+    /**
+     * Fecha o pool e todas as conexões abertas, se ele tiver sido criado.
+     */
+    public static synchronized void closePool() {
+        if (pool != null) {
+            System.out.println("Estatísticas do cache de statements: " + pool.getStatementCacheStats());
+            pool.close();
+            pool = null; // Zera a referência após fechar
+            System.out.println("Pool de conexões com o banco de dados fechado.");
+        }
+        if (replicaPool != null) {
+            System.out.println("Estatísticas do cache de statements da réplica: " + replicaPool.getStatementCacheStats());
+            replicaPool.close();
+            replicaPool = null;
+            System.out.println("Pool de conexões da réplica de leitura fechado.");
+        }
+        dataSource = null;
+    }
+
+    /**
+     * Carrega o arquivo application.properties do classpath.
+     *
+     * @return As propriedades de configuração da aplicação.
+     * @throws SQLException Se o arquivo não for encontrado ou não puder ser lido.
+     */
+    public static Properties loadProperties() throws SQLException {
+        // Usa try-with-resources para garantir que o InputStream seja fechado
+        try (InputStream inputStream = DataBaseConnection.class.getClassLoader().getResourceAsStream("application.properties")) {
+            if (inputStream == null) {
+                throw new SQLException("Erro: Arquivo application.properties não encontrado no classpath.");
             }
+            Properties properties = new Properties();
+            properties.load(inputStream);
+            return properties;
+        } catch (IOException e) {
+            // Envolver a IOException em uma SQLException para uniformizar o tratamento de erros
+            throw new SQLException("Erro ao carregar application.properties: " + e.getMessage(), e);
         }
-        return connection;
+    }
+
+    private static ConnectionPool createPool(Properties properties, String url, Properties driverProperties) {
+        return new ConnectionPool(
+                url,
+                driverProperties,
+                intProperty(properties, "jdbc.pool.minSize", 2),
+                intProperty(properties, "jdbc.pool.maxSize", 10),
+                longProperty(properties, "jdbc.pool.maxWaitMillis", 5_000),
+                longProperty(properties, "jdbc.pool.idleTimeoutMillis", 300_000),
+                intProperty(properties, "jdbc.pool.validationTimeoutSeconds", 2),
+                intProperty(properties, "jdbc.statementCache.size", 64));
     }
 
     /**
-     * Fecha a conexão com o banco de dados, se ela estiver aberta.
+     * Monta as propriedades repassadas ao driver: usuário, senha e qualquer chave
+     * com o prefixo informado (ex: jdbc.driver.prepareThreshold=1). Chaves ausentes são omitidas.
      */
-    public static void closeConnection() {
-        if (connection != null) {
-            try {
-                if (!connection.isClosed()) {
-                    connection.close();
-                    connection = null; // Zera a referência após fechar
-                    System.out.println("Conexão com o banco de dados fechada.");
-                }
-            } catch (SQLException e) {
-                System.err.println("Erro ao fechar a conexão: " + e.getMessage());
-                // Você pode escolher relançar uma RuntimeException aqui se quiser forçar o tratamento,
-                // mas para fechar a conexão, logar é geralmente suficiente.
+    private static Properties driverProperties(Properties properties, String userKey, String passwordKey, String prefix) {
+        Properties driverProperties = new Properties();
+        if (properties.getProperty(userKey) != null) {
+            driverProperties.setProperty("user", properties.getProperty(userKey));
+        }
+        if (properties.getProperty(passwordKey) != null) {
+            driverProperties.setProperty("password", properties.getProperty(passwordKey));
+        }
+        for (String key : properties.stringPropertyNames()) {
+            if (key.startsWith(prefix)) {
+                driverProperties.setProperty(key.substring(prefix.length()), properties.getProperty(key));
             }
         }
+        return driverProperties;
+    }
+
+    private static int intProperty(Properties properties, String key, int defaultValue) {
+        String value = properties.getProperty(key);
+        return value == null || value.isBlank() ? defaultValue : Integer.parseInt(value.trim());
+    }
+
+    private static long longProperty(Properties properties, String key, long defaultValue) {
+        String value = properties.getProperty(key);
+        return value == null || value.isBlank() ? defaultValue : Long.parseLong(value.trim());
     }
-}
\ No newline at end of file
+}
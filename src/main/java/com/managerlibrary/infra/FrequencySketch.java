@@ -0,0 +1,84 @@
+package com.managerlibrary.infra;
+
+/**
+ * Estimativa aproximada de quantas vezes cada chave foi acessada recentemente (count-min sketch),
+ * usada pela admissão TinyLFU do {@link BoundedCache}.
+ * <p>
+ * São {@value #DEPTH} linhas de contadores de até {@value #MAX_COUNT}, cada uma indexada por um hash
+ * diferente da chave; a frequência estimada é o menor dos contadores da chave, que só erra para
+ * mais (quando outras chaves caem nos mesmos contadores). A memória é fixa, proporcional ao tamanho
+ * do cache, e não guarda as chaves. Para que a estimativa reflita o uso recente, todos os contadores
+ * são divididos por dois a cada {@code 10 x tamanho do cache} acessos.
+ * <p>
+ * Não é thread-safe: o cache só o usa com o seu lock.
+ */
+final class FrequencySketch {
+
+    private static final int DEPTH = 4;
+    private static final int MAX_COUNT = 15;
+    private static final int[] SEEDS = {0x9E3779B9, 0x85EBCA6B, 0xC2B2AE35, 0x27D4EB2F};
+
+    private final byte[][] counters;
+    private final int mask;
+    private final int sampleSize;
+    private int additions;
+
+    /**
+     * @param maximumSize O tamanho máximo do cache que usa o sketch.
+     */
+    FrequencySketch(int maximumSize) {
+        int width = Integer.highestOneBit(Math.max(maximumSize, 8) - 1) << 1; // Potência de dois >= tamanho
+        counters = new byte[DEPTH][width];
+        mask = width - 1;
+        sampleSize = 10 * Math.max(maximumSize, 8);
+    }
+
+    /**
+     * Registra um acesso à chave.
+     */
+    void increment(Object key) {
+        int hash = spread(key.hashCode());
+        boolean added = false;
+        for (int row = 0; row < DEPTH; row++) {
+            int index = indexOf(hash, row);
+            if (counters[row][index] < MAX_COUNT) {
+                counters[row][index]++;
+                added = true;
+            }
+        }
+        if (added && ++additions >= sampleSize) {
+            age();
+        }
+    }
+
+    /**
+     * @return A frequência estimada da chave (0 a {@value #MAX_COUNT}).
+     */
+    int frequency(Object key) {
+        int hash = spread(key.hashCode());
+        int frequency = MAX_COUNT;
+        for (int row = 0; row < DEPTH; row++) {
+            frequency = Math.min(frequency, counters[row][indexOf(hash, row)]);
+        }
+        return frequency;
+    }
+
+    private void age() {
+        for (byte[] row : counters) {
+            for (int i = 0; i < row.length; i++) {
+                row[i] >>= 1;
+            }
+        }
+        additions /= 2;
+    }
+
+    private int indexOf(int hash, int row) {
+        int h = (hash ^ SEEDS[row]) * SEEDS[(row + 1) % DEPTH];
+        return (h ^ (h >>> 16)) & mask;
+    }
+
+    private static int spread(int hash) {
+        int h = hash * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+}
@@ -0,0 +1,325 @@
+package com.managerlibrary.infra;
+
+import javafx.scene.image.Image;
+import javafx.scene.image.ImageView;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.SoftReference;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+/**
+ * Cache das imagens decodificadas (capas dos livros e fotos de perfil), compartilhado por todas as
+ * telas. Antes cada card criava um {@code new Image(...)} na thread da interface a cada exibição,
+ * decodificando de novo o mesmo JPEG sempre que a lista era recarregada.
+ * <p>
+ * A chave é a URL mais o tamanho pedido: a imagem é decodificada já no tamanho do ImageView (ex:
+ * 80x80 no card do livro), e não no tamanho original do arquivo. A decodificação roda em segundo
+ * plano ({@link BackgroundExecutor}); {@link #load(ImageView, String, Image, Consumer)} exibe a
+ * imagem de espera e a troca pela imagem decodificada quando ela fica pronta. Vários pedidos da
+ * mesma imagem enquanto ela decodifica esperam a mesma decodificação.
+ * <p>
+ * O total guardado é limitado em bytes (largura x altura x 4 de cada imagem decodificada): cheio,
+ * o cache remove as imagens usadas há mais tempo. As imagens ficam em {@link SoftReference}, então
+ * o GC também pode removê-las se faltar memória; elas são decodificadas de novo no próximo pedido.
+ * Imagens que falham não são guardadas.
+ */
+public final class ImageCache {
+
+    /** O limite padrão (propriedade {@code imageCache.maxMegabytes}). */
+    public static final long DEFAULT_MAXIMUM_BYTES = 64L * 1024 * 1024;
+
+    private static final ImageCache INSTANCE = new ImageCache();
+
+    private final LinkedHashMap<Key, Entry> entries = new LinkedHashMap<>(16, 0.75f, true); // Ordem de acesso
+    private final Map<Key, CompletableFuture<Image>> decoding = new HashMap<>(); // Protegido pelo lock de entries
+    private final ReferenceQueue<Image> collected = new ReferenceQueue<>();
+    // Imagens dos recursos da aplicação (ícones padrão): poucas e pequenas, guardadas sem limite.
+    private final Map<String, Image> resources = new ConcurrentHashMap<>();
+    private final Set<String> failedResources = ConcurrentHashMap.newKeySet(); // O erro é registrado uma única vez
+    private long maximumBytes = DEFAULT_MAXIMUM_BYTES;
+    private long bytes;
+    private long hits;
+    private long misses;
+    private long evictions;
+    private long collections;
+
+    private ImageCache() {
+    }
+
+    /**
+     * @return O cache compartilhado pela aplicação.
+     */
+    public static ImageCache getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Altera o limite do cache, removendo as imagens que passarem dele.
+     *
+     * @param maximumBytes O total máximo, em bytes, das imagens decodificadas guardadas.
+     */
+    public void setMaximumBytes(long maximumBytes) {
+        if (maximumBytes <= 0) {
+            throw new IllegalArgumentException("O tamanho máximo do cache de imagens deve ser positivo.");
+        }
+        synchronized (entries) {
+            this.maximumBytes = maximumBytes;
+            evictOver(maximumBytes);
+        }
+    }
+
+    /**
+     * Exibe a imagem no ImageView, decodificada no tamanho dele ({@code fitWidth} x {@code fitHeight}).
+     * Se ela estiver no cache, é exibida na hora; senão o ImageView mostra {@code placeholder} até
+     * a decodificação terminar. Se o ImageView receber outra imagem antes disso (ex: o card foi
+     * reaproveitado para outro livro), o resultado é descartado.
+     * <p>
+     * Deve ser chamado na thread da interface.
+     *
+     * @param view        O ImageView.
+     * @param url         A URL da imagem (ex: {@code file.toURI().toString()}).
+     * @param placeholder A imagem exibida durante a decodificação e em caso de erro (pode ser nula).
+     * @param onError     Chamado na thread da interface com a causa, se a imagem não puder ser carregada.
+     */
+    public void load(ImageView view, String url, Image placeholder, Consumer<Exception> onError) {
+        Objects.requireNonNull(view, "O ImageView não pode ser nulo.");
+        Objects.requireNonNull(url, "A URL da imagem não pode ser nula.");
+        Key key = new Key(url, view.getFitWidth(), view.getFitHeight());
+        view.getProperties().put(ImageCache.class, key);
+        Image cached = getIfPresent(key);
+        if (cached != null) {
+            view.setImage(cached);
+            return;
+        }
+        view.setImage(placeholder);
+        get(key).whenCompleteAsync((image, error) -> {
+            if (!key.equals(view.getProperties().get(ImageCache.class))) {
+                return; // O ImageView já exibe outra imagem
+            }
+            if (error == null) {
+                view.setImage(image);
+                return;
+            }
+            view.setImage(placeholder);
+            Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+            onError.accept(cause instanceof Exception exception ? exception : new IOException(cause));
+        }, BackgroundExecutor.FX_THREAD);
+    }
+
+    /**
+     * Exibe uma imagem já pronta (ex: a imagem padrão), cancelando a troca de uma carga anterior
+     * de {@link #load(ImageView, String, Image, Consumer)} ainda pendente no mesmo ImageView.
+     */
+    public void show(ImageView view, Image image) {
+        view.getProperties().remove(ImageCache.class);
+        view.setImage(image);
+    }
+
+    /**
+     * Devolve a imagem decodificada no tamanho pedido, do cache ou decodificando-a em segundo plano.
+     *
+     * @param url    A URL da imagem.
+     * @param width  A largura pedida (0 para o tamanho original).
+     * @param height A altura pedida (0 para o tamanho original).
+     * @return Um future com a imagem; falha com {@link IOException} se ela não puder ser carregada.
+     */
+    public CompletableFuture<Image> get(String url, double width, double height) {
+        return get(new Key(Objects.requireNonNull(url, "A URL da imagem não pode ser nula."), width, height));
+    }
+
+    /**
+     * Uma imagem dos recursos da aplicação (ex: {@code /images/default_book_icon.png}), decodificada
+     * uma única vez.
+     *
+     * @return A imagem, ou {@code null} se o recurso não existir ou não puder ser decodificado.
+     */
+    public Image resource(String path) {
+        Image image = resources.get(path);
+        if (image != null || failedResources.contains(path)) {
+            return image;
+        }
+        try (InputStream stream = ImageCache.class.getResourceAsStream(path)) {
+            if (stream == null) {
+                failResource(path, "Recurso de imagem não encontrado: " + path);
+                return null;
+            }
+            image = new Image(stream);
+        } catch (IOException e) {
+            failResource(path, "Erro ao ler o recurso de imagem " + path + ": " + e.getMessage());
+            return null;
+        }
+        if (image.isError()) {
+            failResource(path, "Erro ao decodificar o recurso de imagem " + path + ".");
+            return null;
+        }
+        Image previous = resources.putIfAbsent(path, image);
+        return previous != null ? previous : image;
+    }
+
+    private void failResource(String path, String message) {
+        if (failedResources.add(path)) {
+            System.err.println(message);
+        }
+    }
+
+    /**
+     * Remove todos os tamanhos guardados da imagem (ex: o arquivo da capa foi substituído).
+     */
+    public void invalidate(String url) {
+        synchronized (entries) {
+            Iterator<Map.Entry<Key, Entry>> iterator = entries.entrySet().iterator();
+            while (iterator.hasNext()) {
+                Map.Entry<Key, Entry> entry = iterator.next();
+                if (entry.getKey().url().equals(url)) {
+                    bytes -= entry.getValue().bytes;
+                    iterator.remove();
+                }
+            }
+        }
+    }
+
+    /**
+     * @return Uma cópia dos contadores do cache.
+     */
+    public Stats stats() {
+        synchronized (entries) {
+            purgeCollected();
+            return new Stats(entries.size(), bytes, maximumBytes, hits, misses, evictions, collections);
+        }
+    }
+
+    private Image getIfPresent(Key key) {
+        synchronized (entries) {
+            purgeCollected();
+            Entry entry = entries.get(key);
+            Image image = entry != null ? entry.get() : null;
+            if (image != null) {
+                hits++;
+            }
+            return image;
+        }
+    }
+
+    private CompletableFuture<Image> get(Key key) {
+        synchronized (entries) {
+            purgeCollected();
+            Entry entry = entries.get(key);
+            Image image = entry != null ? entry.get() : null;
+            if (image != null) {
+                hits++;
+                return CompletableFuture.completedFuture(image);
+            }
+            CompletableFuture<Image> pending = decoding.get(key);
+            if (pending != null) {
+                return pending; // Outro card já pediu a mesma imagem
+            }
+            misses++;
+            CompletableFuture<Image> future = BackgroundExecutor.supply(() -> decode(key));
+            decoding.put(key, future);
+            future.whenComplete((decoded, error) -> {
+                synchronized (entries) {
+                    decoding.remove(key);
+                    if (error == null) {
+                        admit(key, decoded);
+                    }
+                }
+            });
+            return future;
+        }
+    }
+
+    private static Image decode(Key key) throws IOException {
+        long start = System.nanoTime();
+        // Carga síncrona: esta já é uma thread de segundo plano.
+        Image image = new Image(key.url(), key.width(), key.height(), true, true, false);
+        boolean failed = image.isError();
+        PerformanceMetrics.getInstance().record("ImageCache.decode", System.nanoTime() - start, 1, failed);
+        if (failed) {
+            throw new IOException("Erro ao carregar a imagem " + key.url(), image.getException());
+        }
+        return image;
+    }
+
+    private void admit(Key key, Image image) {
+        long size = (long) Math.ceil(image.getWidth()) * (long) Math.ceil(image.getHeight()) * 4;
+        if (size > maximumBytes) {
+            return; // Maior que o cache inteiro: exibida, mas não guardada
+        }
+        Entry previous = entries.put(key, new Entry(key, image, size, collected));
+        if (previous != null) {
+            bytes -= previous.bytes;
+        }
+        bytes += size;
+        evictOver(maximumBytes);
+    }
+
+    private void evictOver(long limit) {
+        Iterator<Entry> eldest = entries.values().iterator();
+        while (bytes > limit && eldest.hasNext()) {
+            bytes -= eldest.next().bytes;
+            eldest.remove();
+            evictions++;
+        }
+    }
+
+    // Tira do cache (e da conta de bytes) as imagens que o GC removeu.
+    private void purgeCollected() {
+        for (Object reference; (reference = collected.poll()) != null; ) {
+            Entry entry = (Entry) reference;
+            if (entries.remove(entry.key, entry)) { // Pode já ter sido substituída ou removida
+                bytes -= entry.bytes;
+                collections++;
+            }
+        }
+    }
+
+    private record Key(String url, double width, double height) {
+    }
+
+    private static final class Entry extends SoftReference<Image> {
+        private final Key key;
+        private final long bytes;
+
+        private Entry(Key key, Image image, long bytes, ReferenceQueue<Image> queue) {
+            super(image, queue);
+            this.key = key;
+            this.bytes = bytes;
+        }
+    }
+
+    /**
+     * Cópia dos contadores do cache de imagens.
+     *
+     * @param evictions   Imagens removidas por falta de espaço.
+     * @param collections Imagens removidas pelo GC (falta de memória).
+     */
+    public record Stats(int size, long bytes, long maximumBytes, long hits, long misses, long evictions, long collections) {
+
+        /**
+         * @return Acertos / pedidos (0 sem pedidos).
+         */
+        public double hitRate() {
+            long requests = hits + misses;
+            return requests == 0 ? 0 : (double) hits / requests;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%d imagens, %.1f de %.1f MB, taxa de acerto %.1f%% (%d acertos, %d decodificações),"
+                            + " %d removidas por espaço, %d pelo GC",
+                    size, bytes / (1024.0 * 1024.0), maximumBytes / (1024.0 * 1024.0), hitRate() * 100,
+                    hits, misses, evictions, collections);
+        }
+    }
+}
@@ -0,0 +1,138 @@
+package com.managerlibrary.infra;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Histograma de latências log-linear, no estilo do HdrHistogram, sem locks.
+ * <p>
+ * Cada potência de dois é dividida em {@value #SUB_BUCKETS} faixas de mesma largura, o que limita o
+ * erro relativo de qualquer percentil a cerca de 6% em toda a escala (de nanossegundos a horas) com
+ * um array de tamanho fixo. Registrar um valor é um cálculo de índice e um incremento atômico, então
+ * várias threads podem registrar ao mesmo tempo sem disputar um lock.
+ */
+public final class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 4;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int BUCKET_COUNT = (Long.SIZE - SUB_BUCKET_BITS) * SUB_BUCKETS;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKET_COUNT);
+    private final LongAdder totalCount = new LongAdder();
+    private final LongAdder totalNanos = new LongAdder();
+    private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+
+    /**
+     * Registra uma medição.
+     *
+     * @param nanos A duração medida, em nanossegundos (valores negativos contam como zero).
+     */
+    public void record(long nanos) {
+        long value = Math.max(nanos, 0);
+        counts.incrementAndGet(indexOf(value));
+        totalCount.increment();
+        totalNanos.add(value);
+        maxNanos.accumulate(value);
+    }
+
+    /**
+     * Copia os contadores atuais. Medições registradas durante a cópia podem ou não entrar nela,
+     * mas os percentis são sempre calculados sobre uma mesma cópia.
+     *
+     * @return Uma cópia imutável do histograma.
+     */
+    public Snapshot snapshot() {
+        long[] copy = new long[BUCKET_COUNT];
+        long count = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            copy[i] = counts.get(i);
+            count += copy[i];
+        }
+        return new Snapshot(copy, count, totalNanos.sum(), maxNanos.get());
+    }
+
+    /**
+     * @return O número de medições registradas.
+     */
+    public long getCount() {
+        return totalCount.sum();
+    }
+
+    // Valores menores que SUB_BUCKETS têm uma faixa cada; acima disso, SUB_BUCKETS faixas por potência de dois.
+    static int indexOf(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int shift = (Long.SIZE - 1 - Long.numberOfLeadingZeros(value)) - SUB_BUCKET_BITS;
+        int subBucket = (int) (value >>> shift) & (SUB_BUCKETS - 1);
+        return (shift + 1) * SUB_BUCKETS + subBucket;
+    }
+
+    // Maior valor que cai na faixa informada.
+    static long highestValueAt(int index) {
+        if (index < SUB_BUCKETS) {
+            return index;
+        }
+        int shift = index / SUB_BUCKETS - 1;
+        long lowest = (long) (SUB_BUCKETS + index % SUB_BUCKETS) << shift;
+        return lowest + (1L << shift) - 1;
+    }
+
+    /**
+     * Cópia imutável de um {@link LatencyHistogram}.
+     */
+    public static final class Snapshot {
+        private final long[] counts;
+        private final long count;
+        private final long totalNanos;
+        private final long maxNanos;
+
+        private Snapshot(long[] counts, long count, long totalNanos, long maxNanos) {
+            this.counts = counts;
+            this.count = count;
+            this.totalNanos = totalNanos;
+            this.maxNanos = maxNanos;
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        /**
+         * @param percentile O percentil desejado, entre 0 e 100.
+         * @return O limite superior da faixa que contém o percentil, em nanossegundos
+         *         (nunca maior que o máximo registrado); 0 se não houver medições.
+         */
+        public long valueAtPercentile(double percentile) {
+            if (percentile < 0 || percentile > 100) {
+                throw new IllegalArgumentException("O percentil deve estar entre 0 e 100: " + percentile);
+            }
+            if (count == 0) {
+                return 0;
+            }
+            long rank = Math.max(1, (long) Math.ceil(percentile / 100.0 * count));
+            long seen = 0;
+            for (int i = 0; i < counts.length; i++) {
+                seen += counts[i];
+                if (seen >= rank) {
+                    return Math.min(highestValueAt(i), maxNanos);
+                }
+            }
+            return maxNanos;
+        }
+
+        public double getMeanMillis() {
+            return count == 0 ? 0.0 : totalNanos / (double) count / TimeUnit.MILLISECONDS.toNanos(1);
+        }
+
+        public double getMaxMillis() {
+            return maxNanos / (double) TimeUnit.MILLISECONDS.toNanos(1);
+        }
+
+        public double percentileMillis(double percentile) {
+            return valueAtPercentile(percentile) / (double) TimeUnit.MILLISECONDS.toNanos(1);
+        }
+    }
+}
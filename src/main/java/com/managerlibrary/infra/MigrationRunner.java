@@ -0,0 +1,236 @@
+package com.managerlibrary.infra;
+
+import javax.sql.DataSource;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Aplica as migrações versionadas do esquema do banco de dados.
+ * <p>
+ * Os scripts ficam em {@code db/migration/} no classpath e são listados, em ordem, no arquivo
+ * {@code db/migration/migrations.index} (o conteúdo de um diretório não pode ser listado de forma
+ * portável dentro de um JAR). Cada script é aplicado em sua própria transação e registrado na
+ * tabela {@code schema_version} com o checksum SHA-256 do conteúdo. Na execução seguinte, os
+ * checksums dos scripts já aplicados são conferidos: um script alterado depois de aplicado
+ * interrompe a migração. Um advisory lock impede que dois terminais migrem ao mesmo tempo.
+ */
+public class MigrationRunner {
+
+    private static final String MIGRATION_DIRECTORY = "db/migration/";
+    private static final String INDEX_RESOURCE = MIGRATION_DIRECTORY + "migrations.index";
+    private static final Pattern FILE_NAME_PATTERN = Pattern.compile("V(\\d+)__(\\w+)\\.sql");
+    // Chave arbitrária do advisory lock que serializa as migrações entre instâncias da aplicação.
+    private static final long MIGRATION_LOCK_KEY = 0x4D4C4D4947L;
+
+    private static final String CREATE_VERSION_TABLE_SQL = "CREATE TABLE IF NOT EXISTS schema_version (" +
+            "version INTEGER PRIMARY KEY, " +
+            "description VARCHAR(200) NOT NULL, " +
+            "script VARCHAR(200) NOT NULL, " +
+            "checksum CHAR(64) NOT NULL, " +
+            "execution_millis BIGINT NOT NULL, " +
+            "installed_on TIMESTAMPTZ NOT NULL DEFAULT now())";
+    private static final String FIND_APPLIED_SQL = "SELECT version, checksum FROM schema_version";
+    private static final String INSERT_VERSION_SQL = "INSERT INTO schema_version (version, description, script, checksum, execution_millis) VALUES (?, ?, ?, ?, ?)";
+
+    private final DataSource dataSource;
+
+    /**
+     * Construtor do MigrationRunner.
+     *
+     * @param dataSource O DataSource do banco primário (as migrações nunca vão para a réplica).
+     */
+    public MigrationRunner(DataSource dataSource) {
+        this.dataSource = Objects.requireNonNull(dataSource, "DataSource não pode ser nulo.");
+    }
+
+    /**
+     * Script de migração lido do classpath.
+     */
+    public record Migration(int version, String description, String script, String sql, String checksum) {
+    }
+
+    /**
+     * Aplica, em ordem de versão, as migrações ainda não registradas em {@code schema_version}.
+     *
+     * @return As migrações aplicadas nesta execução (vazia se o esquema já estava atualizado).
+     * @throws SQLException Se um script falhar, se o checksum de um script já aplicado não conferir
+     *                      ou se os scripts não puderem ser lidos.
+     */
+    public List<Migration> migrate() throws SQLException {
+        List<Migration> migrations = loadMigrations();
+        List<Migration> applied = new ArrayList<>();
+
+        try (Connection connection = dataSource.getConnection()) {
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("SELECT pg_advisory_lock(" + MIGRATION_LOCK_KEY + ")");
+            }
+            try {
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute(CREATE_VERSION_TABLE_SQL);
+                }
+                Map<Integer, String> appliedChecksums = findAppliedChecksums(connection);
+
+                for (Migration migration : migrations) {
+                    String appliedChecksum = appliedChecksums.get(migration.version());
+                    if (appliedChecksum != null) {
+                        if (!appliedChecksum.trim().equals(migration.checksum())) {
+                            throw new SQLException("O script " + migration.script() + " foi alterado depois de aplicado "
+                                    + "(checksum registrado " + appliedChecksum.trim() + ", atual " + migration.checksum() + ").");
+                        }
+                        continue;
+                    }
+                    apply(connection, migration);
+                    applied.add(migration);
+                }
+            } finally {
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute("SELECT pg_advisory_unlock(" + MIGRATION_LOCK_KEY + ")");
+                }
+            }
+        }
+        return applied;
+    }
+
+    private void apply(Connection connection, Migration migration) throws SQLException {
+        long start = System.currentTimeMillis();
+        connection.setAutoCommit(false);
+        try {
+            try (Statement statement = connection.createStatement()) {
+                for (String sql : splitStatements(migration.sql())) {
+                    statement.execute(sql);
+                }
+            }
+            long elapsed = System.currentTimeMillis() - start;
+            try (PreparedStatement pstmt = connection.prepareStatement(INSERT_VERSION_SQL)) {
+                pstmt.setInt(1, migration.version());
+                pstmt.setString(2, migration.description());
+                pstmt.setString(3, migration.script());
+                pstmt.setString(4, migration.checksum());
+                pstmt.setLong(5, elapsed);
+                pstmt.executeUpdate();
+            }
+            connection.commit();
+            System.out.println("Migração " + migration.script() + " aplicada em " + elapsed + " ms.");
+        } catch (SQLException e) {
+            connection.rollback();
+            throw new SQLException("Erro ao aplicar a migração " + migration.script() + ": " + e.getMessage(), e);
+        } finally {
+            connection.setAutoCommit(true);
+        }
+    }
+
+    private Map<Integer, String> findAppliedChecksums(Connection connection) throws SQLException {
+        Map<Integer, String> checksums = new HashMap<>();
+        try (PreparedStatement pstmt = connection.prepareStatement(FIND_APPLIED_SQL);
+             ResultSet rs = pstmt.executeQuery()) {
+            while (rs.next()) {
+                checksums.put(rs.getInt("version"), rs.getString("checksum"));
+            }
+        }
+        return checksums;
+    }
+
+    /**
+     * Lê o índice e os scripts de migração do classpath, validando nomes e a ordem das versões.
+     */
+    private List<Migration> loadMigrations() throws SQLException {
+        List<Migration> migrations = new ArrayList<>();
+        int previousVersion = 0;
+        for (String script : readResource(INDEX_RESOURCE).split("\n")) {
+            script = script.trim();
+            if (script.isEmpty() || script.startsWith("#")) {
+                continue;
+            }
+            Matcher matcher = FILE_NAME_PATTERN.matcher(script);
+            if (!matcher.matches()) {
+                throw new SQLException("Nome de script de migração inválido: " + script);
+            }
+            int version = Integer.parseInt(matcher.group(1));
+            if (version <= previousVersion) {
+                throw new SQLException("As versões em " + INDEX_RESOURCE + " devem ser crescentes: " + script);
+            }
+            previousVersion = version;
+            String sql = readResource(MIGRATION_DIRECTORY + script);
+            migrations.add(new Migration(version, matcher.group(2).replace('_', ' '), script, sql, checksum(sql)));
+        }
+        return migrations;
+    }
+
+    /**
+     * Lê um recurso de texto do classpath, normalizando as quebras de linha para que o checksum
+     * não dependa do sistema operacional em que o arquivo foi editado.
+     */
+    private static String readResource(String resource) throws SQLException {
+        try (InputStream inputStream = MigrationRunner.class.getClassLoader().getResourceAsStream(resource)) {
+            if (inputStream == null) {
+                throw new SQLException("Recurso de migração não encontrado no classpath: " + resource);
+            }
+            StringBuilder content = new StringBuilder();
+            try (BufferedReader reader = new BufferedReader(new InputStreamReader(inputStream, StandardCharsets.UTF_8))) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    content.append(line).append('\n');
+                }
+            }
+            return content.toString();
+        } catch (IOException e) {
+            throw new SQLException("Erro ao ler " + resource + ": " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Divide um script em comandos. Um comando termina em uma linha cujo último caractere
+     * (ignorando espaços) é ';', fora de um corpo entre {@code $$} (ex: o corpo de uma função
+     * PL/pgSQL, cujas linhas também terminam em ';'). Linhas de comentário ('--') são descartadas.
+     */
+    static List<String> splitStatements(String script) {
+        List<String> statements = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+        boolean inDollarQuote = false;
+        for (String line : script.split("\n")) {
+            String trimmed = line.trim();
+            if (trimmed.isEmpty() || trimmed.startsWith("--")) {
+                continue;
+            }
+            current.append(line).append('\n');
+            for (int i = line.indexOf("$$"); i >= 0; i = line.indexOf("$$", i + 2)) {
+                inDollarQuote = !inDollarQuote;
+            }
+            if (!inDollarQuote && trimmed.endsWith(";")) {
+                statements.add(current.toString().trim());
+                current.setLength(0);
+            }
+        }
+        if (!current.toString().isBlank()) {
+            statements.add(current.toString().trim());
+        }
+        return statements;
+    }
+
+    private static String checksum(String sql) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(sql.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 não disponível na JVM.", e);
+        }
+    }
+}
@@ -0,0 +1,229 @@
+package com.managerlibrary.infra;
+
+import java.io.IOException;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Contadores e histogramas de latência por operação: chamadas, erros, linhas devolvidas e
+ * p50/p95/p99/máximo.
+ * <p>
+ * Os DAOs são medidos por {@link #instrument(Class, Object)}, que os envolve em um proxy da sua
+ * interface; operações que não passam por um DAO (ex: carregamento das capas dos livros) são
+ * medidas com {@link #record(String, long, long, boolean)}. Os contadores são {@link LongAdder} e
+ * {@link LatencyHistogram}, então o custo por chamada é pequeno mesmo com várias threads.
+ * O resultado é lido com {@link #snapshot()}, formatado por {@link #format()} ou gravado em arquivo
+ * por {@link #dumpTo(Path)}. Os caches registrados com {@link #registerCache(BoundedCache)} entram
+ * no mesmo relatório, com taxa de acerto, remoções e latência das cargas.
+ */
+public final class PerformanceMetrics {
+
+    private static final PerformanceMetrics INSTANCE = new PerformanceMetrics();
+
+    // Chave: nome da operação (ex: "LoanDAO.findAllLoansWithBookAndUser").
+    private final Map<String, OperationStats> operations = new ConcurrentHashMap<>();
+    // Evita montar o nome da operação a cada chamada dos proxies.
+    private final Map<Method, OperationStats> byMethod = new ConcurrentHashMap<>();
+    private final List<BoundedCache<?, ?>> caches = new CopyOnWriteArrayList<>();
+
+    /**
+     * @return As métricas compartilhadas pela aplicação.
+     */
+    public static PerformanceMetrics getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Envolve um DAO em um proxy que mede cada método da interface informada. As exceções do DAO
+     * são repassadas sem alteração.
+     *
+     * @param daoInterface A interface do DAO (ex: {@code BookDAO.class}).
+     * @param dao          A implementação a ser medida.
+     * @param <T>          O tipo da interface.
+     * @return O DAO instrumentado.
+     */
+    public <T> T instrument(Class<T> daoInterface, T dao) {
+        Objects.requireNonNull(daoInterface, "A interface do DAO não pode ser nula.");
+        Objects.requireNonNull(dao, "O DAO não pode ser nulo.");
+        if (!daoInterface.isInterface()) {
+            throw new IllegalArgumentException(daoInterface.getName() + " não é uma interface.");
+        }
+        String prefix = daoInterface.getSimpleName() + ".";
+        return daoInterface.cast(Proxy.newProxyInstance(daoInterface.getClassLoader(), new Class<?>[]{daoInterface},
+                (proxy, method, args) -> {
+                    if (method.getDeclaringClass() == Object.class) {
+                        switch (method.getName()) {
+                            case "equals":
+                                return proxy == args[0];
+                            case "hashCode":
+                                return System.identityHashCode(proxy);
+                            default:
+                                return prefix + "instrumentado(" + dao + ")";
+                        }
+                    }
+                    OperationStats stats = byMethod.computeIfAbsent(method, m -> operation(prefix + m.getName()));
+                    long start = System.nanoTime();
+                    try {
+                        Object result = method.invoke(dao, args);
+                        stats.record(System.nanoTime() - start, rowsOf(method, result), false);
+                        return result;
+                    } catch (InvocationTargetException e) {
+                        stats.record(System.nanoTime() - start, 0, true);
+                        throw e.getCause();
+                    }
+                }));
+    }
+
+    /**
+     * Registra uma medição feita fora de um DAO instrumentado.
+     *
+     * @param operation O nome da operação.
+     * @param nanos     A duração, em nanossegundos.
+     * @param rows      Quantos itens a operação devolveu ou processou.
+     * @param error     {@code true} se a operação falhou.
+     */
+    public void record(String operation, long nanos, long rows, boolean error) {
+        operation(operation).record(nanos, rows, error);
+    }
+
+    /**
+     * Inclui os contadores do cache nas métricas.
+     */
+    public void registerCache(BoundedCache<?, ?> cache) {
+        caches.add(Objects.requireNonNull(cache, "O cache não pode ser nulo."));
+    }
+
+    /**
+     * @return Uma cópia dos contadores de cada cache registrado.
+     */
+    public List<BoundedCache.Stats> cacheSnapshot() {
+        return caches.stream().map(BoundedCache::stats).toList();
+    }
+
+    /**
+     * @return Uma cópia dos contadores de cada operação, em ordem decrescente de tempo total.
+     */
+    public List<OperationSnapshot> snapshot() {
+        return operations.entrySet().stream()
+                .map(entry -> entry.getValue().snapshot(entry.getKey()))
+                .sorted(Comparator.comparingDouble(OperationSnapshot::totalMillis).reversed())
+                .toList();
+    }
+
+    /**
+     * @return As métricas em forma de tabela de texto, uma operação por linha.
+     */
+    public String format() {
+        StringBuilder table = new StringBuilder();
+        table.append(String.format("%-52s %8s %6s %10s %9s %9s %9s %9s %9s%n",
+                "operação", "chamadas", "erros", "linhas", "média ms", "p50 ms", "p95 ms", "p99 ms", "máx ms"));
+        for (OperationSnapshot op : snapshot()) {
+            table.append(String.format("%-52s %8d %6d %10d %9.2f %9.2f %9.2f %9.2f %9.2f%n",
+                    op.operation(), op.calls(), op.errors(), op.rows(), op.meanMillis(),
+                    op.p50Millis(), op.p95Millis(), op.p99Millis(), op.maxMillis()));
+        }
+        List<BoundedCache.Stats> cacheStats = cacheSnapshot();
+        if (!cacheStats.isEmpty()) {
+            table.append(String.format("%n%-24s %9s %11s %9s %9s %7s %9s %9s %8s %13s %12s%n",
+                    "cache", "política", "itens", "acertos", "falhas", "acerto", "remoções", "recusas", "cargas",
+                    "carga média ms", "carga p95 ms"));
+            for (BoundedCache.Stats cache : cacheStats) {
+                table.append(String.format("%-24s %9s %5d/%-5d %9d %9d %6.1f%% %9d %9d %8d %13.2f %12.2f%n",
+                        cache.name(), cache.eviction(), cache.size(), cache.maximumSize(), cache.hits(), cache.misses(),
+                        cache.hitRate() * 100, cache.evictions(), cache.rejections(), cache.loads(),
+                        cache.meanLoadMillis(), cache.p95LoadMillis()));
+            }
+        }
+        return table.toString();
+    }
+
+    /**
+     * Grava as métricas atuais em um arquivo de texto, substituindo o conteúdo anterior.
+     *
+     * @param file O arquivo de destino (os diretórios ausentes são criados).
+     * @throws IOException Se o arquivo não puder ser gravado.
+     */
+    public void dumpTo(Path file) throws IOException {
+        Path parent = file.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        String header = "Métricas de desempenho em " + LocalDateTime.now().format(DateTimeFormatter.ISO_LOCAL_DATE_TIME)
+                + System.lineSeparator();
+        Files.writeString(file, header + format(), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Zera todas as métricas (ex: para medir apenas uma tela específica).
+     */
+    public void reset() {
+        operations.clear();
+        byMethod.clear();
+        caches.forEach(BoundedCache::resetStats);
+    }
+
+    private OperationStats operation(String name) {
+        return operations.computeIfAbsent(Objects.requireNonNull(name, "O nome da operação não pode ser nulo."),
+                key -> new OperationStats());
+    }
+
+    /**
+     * Linhas devolvidas por um método de DAO: o tamanho das listas, o valor de retorno dos métodos
+     * stream* e export* (que devolvem quantas linhas percorreram) e 1 para um objeto encontrado.
+     */
+    private static long rowsOf(Method method, Object result) {
+        if (result instanceof Collection<?> collection) {
+            return collection.size();
+        }
+        if (result instanceof Number number && (method.getName().startsWith("stream") || method.getName().startsWith("export"))) {
+            return number.longValue();
+        }
+        return result != null ? 1 : 0;
+    }
+
+    /**
+     * Cópia dos contadores de uma operação.
+     */
+    public record OperationSnapshot(String operation, long calls, long errors, long rows, double totalMillis,
+                                    double meanMillis, double p50Millis, double p95Millis, double p99Millis,
+                                    double maxMillis) {
+    }
+
+    private static final class OperationStats {
+        private final LongAdder calls = new LongAdder();
+        private final LongAdder errors = new LongAdder();
+        private final LongAdder rows = new LongAdder();
+        private final LatencyHistogram latency = new LatencyHistogram();
+
+        private void record(long nanos, long rowCount, boolean error) {
+            calls.increment();
+            if (error) {
+                errors.increment();
+            }
+            rows.add(rowCount);
+            latency.record(nanos);
+        }
+
+        private OperationSnapshot snapshot(String name) {
+            LatencyHistogram.Snapshot histogram = latency.snapshot();
+            return new OperationSnapshot(name, calls.sum(), errors.sum(), rows.sum(),
+                    histogram.getMeanMillis() * histogram.getCount(), histogram.getMeanMillis(),
+                    histogram.percentileMillis(50), histogram.percentileMillis(95), histogram.percentileMillis(99),
+                    histogram.getMaxMillis());
+        }
+    }
+}
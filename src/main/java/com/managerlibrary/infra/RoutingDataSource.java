@@ -0,0 +1,257 @@
+package com.managerlibrary.infra;
+
+import javax.sql.DataSource;
+import java.io.PrintWriter;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.sql.Statement;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.Set;
+import java.util.logging.Logger;
+
+/**
+ * DataSource que separa leituras e escritas entre o banco primário e uma réplica de leitura.
+ * <p>
+ * {@link #getConnection()} sempre devolve uma conexão do primário: é o caminho usado pelas
+ * escritas (insert, update, delete) e por qualquer código que não saiba que existe uma réplica.
+ * As consultas dos DAOs obtêm sua conexão por {@link #readConnection(DataSource)}, que usa a réplica
+ * (exceto dentro de uma transação do {@link TransactionManager}, que usa sempre a conexão da transação).
+ * <p>
+ * Leitura das próprias escritas: a réplica pode estar alguns instantes atrás do primário. Por isso,
+ * durante {@code readYourWritesMillis} após a devolução de uma conexão do primário que alterou o banco,
+ * as leituras desta sessão (esta instância da aplicação) também vão para o primário. Consultas feitas
+ * pelo primário não abrem essa janela.
+ */
+public class RoutingDataSource implements DataSource {
+
+    private final DataSource primary;
+    private final DataSource replica;
+    private final long readYourWritesMillis;
+    // Momento (System.nanoTime) em que a última conexão do primário foi devolvida.
+    private volatile long lastWriteNanos;
+    private volatile boolean wroteAtLeastOnce;
+
+    /**
+     * Construtor do RoutingDataSource.
+     *
+     * @param primary              O DataSource do banco primário (leituras e escritas).
+     * @param replica              O DataSource da réplica (somente leituras).
+     * @param readYourWritesMillis Por quanto tempo, após uma escrita, as leituras continuam no primário.
+     */
+    public RoutingDataSource(DataSource primary, DataSource replica, long readYourWritesMillis) {
+        this.primary = Objects.requireNonNull(primary, "O DataSource primário não pode ser nulo.");
+        this.replica = Objects.requireNonNull(replica, "O DataSource da réplica não pode ser nulo.");
+        if (readYourWritesMillis < 0) {
+            throw new IllegalArgumentException("A janela de leitura das próprias escritas não pode ser negativa.");
+        }
+        this.readYourWritesMillis = readYourWritesMillis;
+    }
+
+    /**
+     * Obtém uma conexão para uma consulta somente leitura. Se o DataSource informado for um
+     * {@link RoutingDataSource}, a conexão vem da réplica (ou do primário, dentro da janela de
+     * leitura das próprias escritas); caso contrário, vem do próprio DataSource.
+     *
+     * @param dataSource O DataSource usado pelo DAO.
+     * @return Uma conexão adequada para leitura.
+     * @throws SQLException Se não for possível obter a conexão.
+     */
+    public static Connection readConnection(DataSource dataSource) throws SQLException {
+        // Dentro de uma transação, as leituras usam a conexão dela para enxergar as próprias escritas.
+        Connection bound = TransactionManager.boundConnection(dataSource);
+        if (bound != null) {
+            return bound;
+        }
+        if (dataSource instanceof RoutingDataSource router) {
+            return router.getReadConnection();
+        }
+        return dataSource.getConnection();
+    }
+
+    /**
+     * Empresta uma conexão do primário. Se algum comando executado por ela alterar o banco, a
+     * devolução da conexão abre a janela de leitura das próprias escritas; consultas feitas pelo
+     * primário (por exemplo, as que antecedem uma escrita) não a abrem.
+     */
+    @Override
+    public Connection getConnection() throws SQLException {
+        return new PrimaryLease().wrap(Connection.class, primary.getConnection(), null);
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        throw new SQLFeatureNotSupportedException("O roteador usa as credenciais configuradas em application.properties.");
+    }
+
+    /**
+     * Empresta uma conexão para leitura: da réplica, exceto logo após uma escrita desta sessão.
+     * Se a réplica estiver indisponível, a leitura é atendida pelo primário.
+     *
+     * @return Uma conexão para leitura.
+     * @throws SQLException Se nem a réplica nem o primário fornecerem uma conexão.
+     */
+    public Connection getReadConnection() throws SQLException {
+        if (isWithinReadYourWritesWindow()) {
+            return primary.getConnection();
+        }
+        try {
+            Connection connection = replica.getConnection();
+            try {
+                connection.setReadOnly(true); // O pool restaura o modo leitura/escrita na devolução.
+            } catch (SQLException e) {
+                try {
+                    connection.close(); // Devolve a conexão à réplica antes de usar o primário
+                } catch (SQLException closeError) {
+                    e.addSuppressed(closeError);
+                }
+                throw e;
+            }
+            return connection;
+        } catch (SQLException e) {
+            System.err.println("Réplica de leitura indisponível, usando o primário: " + e.getMessage());
+            return primary.getConnection();
+        }
+    }
+
+    /**
+     * @return {@code true} se uma escrita foi feita há menos de {@code readYourWritesMillis}.
+     */
+    public boolean isWithinReadYourWritesWindow() {
+        return wroteAtLeastOnce && System.nanoTime() - lastWriteNanos < readYourWritesMillis * 1_000_000L;
+    }
+
+    public DataSource getPrimary() {
+        return primary;
+    }
+
+    public DataSource getReplica() {
+        return replica;
+    }
+
+    private void markWrite() {
+        lastWriteNanos = System.nanoTime();
+        wroteAtLeastOnce = true;
+    }
+
+    /**
+     * Conexão do primário emprestada por {@link #getConnection()} e os comandos criados por ela.
+     * Registra se algum comando alterou o banco e, nesse caso, marca a escrita quando a conexão
+     * é devolvida.
+     */
+    private final class PrimaryLease {
+        // Comandos cujo primeiro termo indica que não alteram o banco quando executados.
+        private static final Set<String> READ_COMMANDS = Set.of("select", "show", "listen", "unlisten");
+
+        private volatile boolean wrote;
+
+        /**
+         * @param sql O SQL do comando preparado; {@code null} para a conexão e para um {@link Statement}.
+         */
+        private <T> T wrap(Class<T> type, T target, String sql) {
+            return type.cast(Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type},
+                    (proxy, method, args) -> {
+                        String name = method.getName();
+                        if ("equals".equals(name)) {
+                            return proxy == args[0];
+                        }
+                        if ("hashCode".equals(name)) {
+                            return System.identityHashCode(proxy);
+                        }
+                        Object result;
+                        try {
+                            result = method.invoke(target, args);
+                        } catch (InvocationTargetException e) {
+                            throw e.getCause();
+                        } finally {
+                            if (type == Connection.class && "close".equals(name) && wrote) {
+                                markWrite();
+                            }
+                        }
+                        if (target instanceof Statement && name.startsWith("execute")) {
+                            String executed = args != null && args.length > 0 && args[0] instanceof String text ? text : sql;
+                            if (changes(name, result, executed)) {
+                                wrote = true;
+                            }
+                        }
+                        Class<?> returnType = method.getReturnType();
+                        if (result != null && Statement.class.isAssignableFrom(returnType)) {
+                            String prepared = args != null && args.length > 0 && args[0] instanceof String text ? text : null;
+                            return wrapStatement(returnType, result, prepared);
+                        }
+                        return result;
+                    }));
+        }
+
+        @SuppressWarnings("unchecked")
+        private <T> T wrapStatement(Class<T> type, Object statement, String sql) {
+            return wrap(type, (T) statement, sql);
+        }
+
+        private static boolean changes(String method, Object result, String sql) {
+            return switch (method) {
+                case "executeUpdate", "executeLargeUpdate" -> ((Number) result).longValue() != 0;
+                case "executeBatch" -> Arrays.stream((int[]) result).anyMatch(count -> count != 0);
+                case "executeLargeBatch" -> Arrays.stream((long[]) result).anyMatch(count -> count != 0);
+                // executeQuery também escreve com INSERT/UPDATE ... RETURNING
+                default -> sql == null || !READ_COMMANDS.contains(firstWord(sql));
+            };
+        }
+
+        private static String firstWord(String sql) {
+            int start = 0;
+            while (start < sql.length() && (Character.isWhitespace(sql.charAt(start)) || sql.charAt(start) == '(')) {
+                start++;
+            }
+            int end = start;
+            while (end < sql.length() && Character.isLetter(sql.charAt(end))) {
+                end++;
+            }
+            return sql.substring(start, end).toLowerCase(Locale.ROOT);
+        }
+    }
+
+    // --- Métodos de DataSource delegados ao primário ---
+
+    @Override
+    public PrintWriter getLogWriter() throws SQLException {
+        return primary.getLogWriter();
+    }
+
+    @Override
+    public void setLogWriter(PrintWriter out) throws SQLException {
+        primary.setLogWriter(out);
+    }
+
+    @Override
+    public void setLoginTimeout(int seconds) throws SQLException {
+        primary.setLoginTimeout(seconds);
+    }
+
+    @Override
+    public int getLoginTimeout() throws SQLException {
+        return primary.getLoginTimeout();
+    }
+
+    @Override
+    public Logger getParentLogger() throws SQLFeatureNotSupportedException {
+        return primary.getParentLogger();
+    }
+
+    @Override
+    public <T> T unwrap(Class<T> iface) throws SQLException {
+        if (iface.isInstance(this)) {
+            return iface.cast(this);
+        }
+        return primary.unwrap(iface);
+    }
+
+    @Override
+    public boolean isWrapperFor(Class<?> iface) throws SQLException {
+        return iface.isInstance(this) || primary.isWrapperFor(iface);
+    }
+}
@@ -0,0 +1,221 @@
+package com.managerlibrary.infra;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Cache LRU de {@link PreparedStatement}s de uma única conexão física.
+ * <p>
+ * Os statements são indexados pelo texto SQL (e pelo pedido de chaves geradas) e continuam
+ * abertos entre empréstimos da conexão, de modo que o driver reaproveita o statement já
+ * preparado no servidor em vez de analisar e planejar o mesmo SQL a cada chamada.
+ * O chamador recebe um proxy cujo {@code close()} devolve o statement ao cache.
+ * <p>
+ * Uma instância pertence a uma única conexão, que só é usada por uma thread por vez;
+ * por isso a classe não é thread-safe. Apenas os contadores em {@link Stats} são compartilhados.
+ */
+public class StatementCache {
+
+    private final Connection physical;
+    private final int maxSize;
+    private final Stats stats;
+    private final LinkedHashMap<Key, Entry> entries;
+
+    StatementCache(Connection physical, int maxSize, Stats stats) {
+        this.physical = physical;
+        this.maxSize = maxSize;
+        this.stats = stats;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true);
+    }
+
+    /**
+     * Retorna um statement preparado para o SQL informado, reutilizando o do cache quando possível.
+     *
+     * @param sql               O SQL a ser preparado.
+     * @param autoGeneratedKeys {@link Statement#RETURN_GENERATED_KEYS} ou {@link Statement#NO_GENERATED_KEYS}.
+     * @param lease             A conexão emprestada que será devolvida por {@code getConnection()}.
+     * @return Um statement que volta ao cache quando fechado.
+     * @throws SQLException Se o driver não conseguir preparar o statement.
+     */
+    PreparedStatement prepare(String sql, int autoGeneratedKeys, Connection lease) throws SQLException {
+        Key key = new Key(sql, autoGeneratedKeys);
+        Entry entry = entries.get(key);
+        if (entry != null && !entry.inUse) {
+            stats.hits.increment();
+            return entry.checkOut(lease);
+        }
+        stats.misses.increment();
+        PreparedStatement statement = physical.prepareStatement(sql, autoGeneratedKeys);
+        if (entry != null) {
+            // O mesmo SQL já está aberto neste empréstimo (uso aninhado): entrega um statement avulso.
+            return statement;
+        }
+        entry = new Entry(statement);
+        entries.put(key, entry);
+        evictOverflow();
+        return entry.checkOut(lease);
+    }
+
+    /**
+     * Devolve ao cache os statements que o chamador não fechou antes de devolver a conexão.
+     */
+    void checkInAll() {
+        for (Entry entry : entries.values()) {
+            if (entry.inUse) {
+                entry.checkIn();
+            }
+        }
+    }
+
+    /**
+     * Fecha todos os statements do cache. Chamado quando a conexão física é descartada.
+     */
+    void closeAll() {
+        for (Entry entry : entries.values()) {
+            entry.closePhysical();
+        }
+        entries.clear();
+    }
+
+    private void evictOverflow() {
+        Iterator<Entry> leastRecentlyUsed = entries.values().iterator();
+        while (entries.size() > maxSize && leastRecentlyUsed.hasNext()) {
+            Entry eldest = leastRecentlyUsed.next();
+            leastRecentlyUsed.remove();
+            stats.evictions.increment();
+            if (eldest.inUse) {
+                eldest.evicted = true; // Fecha quando o chamador devolver o statement.
+            } else {
+                eldest.closePhysical();
+            }
+        }
+    }
+
+    private record Key(String sql, int autoGeneratedKeys) {
+    }
+
+    /**
+     * Statement físico mantido pelo cache, junto com o proxy reutilizado entre empréstimos.
+     */
+    private static final class Entry implements InvocationHandler {
+        private final PreparedStatement physical;
+        private final PreparedStatement proxy;
+        private Connection lease;
+        private boolean inUse;
+        private boolean evicted;
+
+        private Entry(PreparedStatement physical) {
+            this.physical = physical;
+            this.proxy = (PreparedStatement) Proxy.newProxyInstance(PreparedStatement.class.getClassLoader(),
+                    new Class<?>[]{PreparedStatement.class}, this);
+        }
+
+        private PreparedStatement checkOut(Connection lease) {
+            this.lease = lease;
+            this.inUse = true;
+            return proxy;
+        }
+
+        private void checkIn() {
+            inUse = false;
+            lease = null;
+            if (evicted) {
+                closePhysical();
+                return;
+            }
+            try {
+                physical.clearParameters();
+                physical.clearWarnings();
+                physical.setFetchSize(0);
+                physical.setMaxRows(0);
+            } catch (SQLException e) {
+                evicted = true;
+                closePhysical();
+            }
+        }
+
+        private void closePhysical() {
+            try {
+                physical.close();
+            } catch (SQLException e) {
+                System.err.println("Erro ao fechar statement do cache: " + e.getMessage());
+            }
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    if (inUse) {
+                        checkIn();
+                    }
+                    return null;
+                case "isClosed":
+                    return !inUse || physical.isClosed();
+                case "getConnection":
+                    return lease;
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "CachedStatement[" + physical + "]";
+                default:
+                    break;
+            }
+            if (!inUse) {
+                throw new SQLException("Statement já devolvido ao cache.");
+            }
+            try {
+                return method.invoke(physical, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+    }
+
+    /**
+     * Contadores de acertos, falhas e remoções, somados entre todas as conexões do pool.
+     */
+    public static final class Stats {
+        private final LongAdder hits = new LongAdder();
+        private final LongAdder misses = new LongAdder();
+        private final LongAdder evictions = new LongAdder();
+
+        public long getHits() {
+            return hits.sum();
+        }
+
+        public long getMisses() {
+            return misses.sum();
+        }
+
+        public long getEvictions() {
+            return evictions.sum();
+        }
+
+        /**
+         * @return A fração de preparações atendidas pelo cache, entre 0 e 1.
+         */
+        public double getHitRate() {
+            long hitCount = getHits();
+            long total = hitCount + getMisses();
+            return total == 0 ? 0.0 : (double) hitCount / total;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("StatementCache{hits=%d, misses=%d, evictions=%d, hitRate=%.2f}",
+                    getHits(), getMisses(), getEvictions(), getHitRate());
+        }
+    }
+}
@@ -0,0 +1,211 @@
+package com.managerlibrary.infra;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Executa um bloco de trabalho (unidade de trabalho) em uma única transação.
+ * <p>
+ * Durante {@link #execute(TransactionalWork)} a conexão da transação fica associada à thread atual.
+ * Os DAOs obtêm suas conexões por {@link #getConnection(DataSource)} (escritas) e
+ * {@link RoutingDataSource#readConnection(DataSource)} (leituras), que devolvem essa mesma conexão
+ * enquanto houver uma transação ativa; fora de uma transação, cada operação continua emprestando
+ * sua própria conexão em modo autocommit. Assim, várias chamadas de serviços diferentes são
+ * confirmadas com um único COMMIT, ou desfeitas juntas se alguma delas falhar.
+ */
+public class TransactionManager {
+
+    // Transação ativa na thread atual, se houver.
+    private static final ThreadLocal<ActiveTransaction> CURRENT = new ThreadLocal<>();
+
+    private final DataSource dataSource;
+    private final Stats stats = new Stats();
+
+    /**
+     * Construtor do TransactionManager.
+     *
+     * @param dataSource O DataSource de onde as conexões das transações são emprestadas.
+     */
+    public TransactionManager(DataSource dataSource) {
+        this.dataSource = Objects.requireNonNull(dataSource, "DataSource não pode ser nulo.");
+    }
+
+    /**
+     * Bloco de trabalho executado dentro de uma transação.
+     *
+     * @param <T> O tipo do resultado.
+     */
+    @FunctionalInterface
+    public interface TransactionalWork<T> {
+        T execute() throws SQLException;
+    }
+
+    /**
+     * Executa o trabalho em uma transação. Se já houver uma transação ativa nesta thread para o
+     * mesmo DataSource, o trabalho participa dela e o COMMIT fica a cargo da transação externa.
+     *
+     * @param work O trabalho a ser executado.
+     * @param <T>  O tipo do resultado.
+     * @return O resultado do trabalho.
+     * @throws SQLException Se o trabalho ou o COMMIT falharem; nesse caso a transação é desfeita.
+     */
+    public <T> T execute(TransactionalWork<T> work) throws SQLException {
+        ActiveTransaction current = CURRENT.get();
+        if (current != null) {
+            if (current.dataSource != dataSource) {
+                throw new IllegalStateException("Já existe uma transação ativa nesta thread para outro DataSource.");
+            }
+            return work.execute();
+        }
+
+        long start = System.nanoTime();
+        try (Connection connection = dataSource.getConnection()) {
+            connection.setAutoCommit(false);
+            CURRENT.set(new ActiveTransaction(dataSource, connection));
+            try {
+                T result = work.execute();
+                connection.commit();
+                stats.record(System.nanoTime() - start, true);
+                return result;
+            } catch (SQLException | RuntimeException | Error e) {
+                rollbackQuietly(connection, e);
+                stats.record(System.nanoTime() - start, false);
+                throw e;
+            } finally {
+                // O pool restaura o autocommit quando a conexão é devolvida.
+                CURRENT.remove();
+            }
+        }
+    }
+
+    /**
+     * Obtém a conexão para uma operação de escrita de um DAO: a da transação ativa nesta thread,
+     * se houver uma para o DataSource informado, ou uma nova conexão emprestada do DataSource.
+     * A conexão da transação é devolvida como um proxy cujo {@code close()} não faz nada, para que
+     * o try-with-resources dos DAOs não a devolva ao pool antes do COMMIT.
+     *
+     * @param dataSource O DataSource usado pelo DAO.
+     * @return Uma conexão para a operação.
+     * @throws SQLException Se não for possível obter a conexão.
+     */
+    public static Connection getConnection(DataSource dataSource) throws SQLException {
+        Connection bound = boundConnection(dataSource);
+        return bound != null ? bound : dataSource.getConnection();
+    }
+
+    /**
+     * @return A conexão da transação ativa nesta thread para o DataSource informado, ou {@code null}.
+     */
+    static Connection boundConnection(DataSource dataSource) {
+        ActiveTransaction current = CURRENT.get();
+        return current != null && current.dataSource == dataSource ? current.participant : null;
+    }
+
+    /**
+     * @return {@code true} se houver uma transação ativa na thread atual.
+     */
+    public static boolean isTransactionActive() {
+        return CURRENT.get() != null;
+    }
+
+    /**
+     * @return As métricas de duração das transações executadas por este gerenciador.
+     */
+    public Stats getStats() {
+        return stats;
+    }
+
+    private static void rollbackQuietly(Connection connection, Throwable cause) {
+        try {
+            connection.rollback();
+        } catch (SQLException e) {
+            cause.addSuppressed(e);
+        }
+    }
+
+    /**
+     * Transação associada a uma thread. {@code participant} é o proxy entregue aos DAOs.
+     */
+    private static final class ActiveTransaction {
+        private final DataSource dataSource;
+        private final Connection participant;
+
+        private ActiveTransaction(DataSource dataSource, Connection connection) {
+            this.dataSource = dataSource;
+            this.participant = (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                    new Class<?>[]{Connection.class}, (proxy, method, args) -> {
+                        switch (method.getName()) {
+                            case "close":
+                                return null; // Quem fecha é o TransactionManager, após o COMMIT/ROLLBACK.
+                            case "commit":
+                            case "rollback":
+                            case "setAutoCommit":
+                                throw new SQLException("A transação é controlada pelo TransactionManager.");
+                            case "equals":
+                                return proxy == args[0];
+                            case "hashCode":
+                                return System.identityHashCode(proxy);
+                            default:
+                                break;
+                        }
+                        try {
+                            return method.invoke(connection, args);
+                        } catch (InvocationTargetException e) {
+                            throw e.getCause();
+                        }
+                    });
+        }
+    }
+
+    /**
+     * Contadores de transações confirmadas e desfeitas e tempo gasto dentro delas.
+     */
+    public static final class Stats {
+        private final LongAdder commits = new LongAdder();
+        private final LongAdder rollbacks = new LongAdder();
+        private final LongAdder totalNanos = new LongAdder();
+        private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+
+        private void record(long elapsedNanos, boolean committed) {
+            (committed ? commits : rollbacks).increment();
+            totalNanos.add(elapsedNanos);
+            maxNanos.accumulate(elapsedNanos);
+        }
+
+        public long getCommits() {
+            return commits.sum();
+        }
+
+        public long getRollbacks() {
+            return rollbacks.sum();
+        }
+
+        /**
+         * @return A duração média das transações, em milissegundos.
+         */
+        public double getAverageMillis() {
+            long count = getCommits() + getRollbacks();
+            return count == 0 ? 0.0 : totalNanos.sum() / (double) count / TimeUnit.MILLISECONDS.toNanos(1);
+        }
+
+        /**
+         * @return A duração da transação mais longa, em milissegundos.
+         */
+        public double getMaxMillis() {
+            return maxNanos.get() / (double) TimeUnit.MILLISECONDS.toNanos(1);
+        }
+
+        @Override
+        public String toString() {
+            return String.format("Transactions{commits=%d, rollbacks=%d, avgMs=%.2f, maxMs=%.2f}",
+                    getCommits(), getRollbacks(), getAverageMillis(), getMaxMillis());
+        }
+    }
+}
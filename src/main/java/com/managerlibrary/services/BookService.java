@@ -1,19 +1,36 @@
 package com.managerlibrary.services;
 
+import com.managerlibrary.daos.implement.BookCatalogReplica;
 import com.managerlibrary.daos.interfaces.BookDAO;
+import com.managerlibrary.daos.interfaces.RowCallback;
 import com.managerlibrary.entities.Book;
+import com.managerlibrary.entities.BookImportResult;
+import com.managerlibrary.entities.BookSortOrder;
+import com.managerlibrary.infra.TransactionManager;
 
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.sql.SQLException;
+import java.util.Collection;
 import java.util.List;
 import java.util.Objects; // Importação adicionada para Objects.requireNonNull
+import java.util.stream.Collectors;
 
 /**
  * Serviço responsável por gerenciar as operações de negócio relacionadas a livros.
  * Atua como uma camada intermediária entre os controladores e o DAO de livros.
+ * <p>
+ * Com uma {@link BookCatalogReplica}, as consultas do catálogo (todos os livros, por id, por título,
+ * por ISBN e os disponíveis) são respondidas pela réplica em memória enquanto ela estiver
+ * atualizada, sem ir ao banco; as gravações continuam no DAO e atualizam a réplica em seguida.
  */
 public class BookService {
 
     private final BookDAO bookDAO;
+    private final BookCatalogReplica catalogReplica; // Nulo: todas as consultas vão ao banco
 
     /**
      * Construtor do BookService.
@@ -24,6 +41,18 @@ public class BookService {
     public BookService(BookDAO bookDAO) {
         // Garantir que o DAO não seja nulo para evitar NullPointerException em tempo de execução.
         this.bookDAO = Objects.requireNonNull(bookDAO, "BookDAO não pode ser nulo.");
+        this.catalogReplica = null;
+    }
+
+    /**
+     * Construtor do BookService com as consultas do catálogo atendidas por uma réplica em memória.
+     *
+     * @param bookDAO        A implementação de BookDAO a ser utilizada para acesso a dados.
+     * @param catalogReplica A réplica do catálogo, já iniciada. Quem a criou é responsável por fechá-la.
+     */
+    public BookService(BookDAO bookDAO, BookCatalogReplica catalogReplica) {
+        this.bookDAO = Objects.requireNonNull(bookDAO, "BookDAO não pode ser nulo.");
+        this.catalogReplica = Objects.requireNonNull(catalogReplica, "A réplica do catálogo não pode ser nula.");
     }
 
     /**
@@ -34,6 +63,54 @@ public class BookService {
      * @throws IllegalArgumentException Se o livro for nulo ou inválido (ex: título vazio).
      */
     public void insertBook(Book book) throws SQLException {
+        validateNewBook(book);
+        System.out.println("BookService.insertBook recebendo: " + book.getTitle() + ", Editora: " + book.getPublisher() + ", Ano: " + book.getYear());
+        bookDAO.insertBook(book);
+        refreshReplica(List.of(book.getId()));
+    }
+
+    /**
+     * Insere vários livros de uma vez (ex: importação de um catálogo), em lotes de INSERTs de
+     * múltiplas linhas. Todos são validados antes de qualquer inserção; ao final, cada livro
+     * recebe o id gerado.
+     *
+     * @param books Os livros a serem inseridos.
+     * @throws SQLException Se ocorrer um erro de acesso ao banco de dados (nenhum livro é inserido).
+     * @throws IllegalArgumentException Se algum livro for nulo ou inválido.
+     */
+    public void insertBooks(List<Book> books) throws SQLException {
+        Objects.requireNonNull(books, "A lista de livros não pode ser nula.");
+        for (Book book : books) {
+            validateNewBook(book);
+        }
+        bookDAO.insertBooks(books);
+        if (catalogReplica != null) {
+            refreshReplica(books.stream().map(Book::getId).toList());
+        }
+    }
+
+    /**
+     * Importa um catálogo de livros de um arquivo CSV (UTF-8, com cabeçalho) com as colunas
+     * {@code title, author, isbn, genre, total_copies, available_copies, publisher, year, image_url,
+     * cover_image_path}, nessa ordem. Livros com um ISBN já cadastrado são atualizados; os demais
+     * são inseridos. Registros inválidos (ex: sem título ou ISBN, números inválidos) são rejeitados
+     * sem interromper a importação.
+     *
+     * @param csvFile O arquivo a ser importado.
+     * @return Quantos livros foram inseridos, atualizados e rejeitados.
+     * @throws IOException Se o arquivo não puder ser lido.
+     * @throws SQLException Se ocorrer um erro de acesso ao banco de dados (nenhum livro é alterado).
+     */
+    public BookImportResult importBooks(Path csvFile) throws SQLException, IOException {
+        Objects.requireNonNull(csvFile, "O arquivo de importação não pode ser nulo.");
+        try (Reader reader = Files.newBufferedReader(csvFile, StandardCharsets.UTF_8)) {
+            BookImportResult result = bookDAO.importBooks(reader);
+            System.out.println("BookService.importBooks " + csvFile.getFileName() + ": " + result);
+            return result;
+        }
+    }
+
+    private static void validateNewBook(Book book) {
         // Validação básica de negócio
         if (book == null) {
             throw new IllegalArgumentException("O livro não pode ser nulo.");
@@ -42,9 +119,6 @@ public class BookService {
             throw new IllegalArgumentException("O título do livro não pode ser vazio.");
         }
         // Adicionar outras validações conforme regras de negócio (ex: ISBN único, ano válido)
-
-        System.out.println("BookService.insertBook recebendo: " + book.getTitle() + ", Editora: " + book.getPublisher() + ", Ano: " + book.getYear());
-        bookDAO.insertBook(book);
     }
 
     /**
@@ -72,7 +146,7 @@ public class BookService {
         if (id <= 0) {
             throw new IllegalArgumentException("ID do livro inválido.");
         }
-        Book book = bookDAO.findBookById(id);
+        Book book = replicaIsLive() ? catalogReplica.findById(id) : bookDAO.findBookById(id);
         if (book != null) {
             System.out.println("BookService.findBookById: Livro encontrado - Título: " + book.getTitle() + ", Editora: " + book.getPublisher() + ", Ano: " + book.getYear());
         } else {
@@ -88,9 +162,25 @@ public class BookService {
      * @throws SQLException Se ocorrer um erro de acesso ao banco de dados.
      */
     public List<Book> findAllBooks() throws SQLException {
+        if (replicaIsLive()) {
+            return catalogReplica.findAll();
+        }
         return bookDAO.findAllBooks();
     }
 
+    /**
+     * Percorre todos os livros em memória constante, entregando-os um a um ao callback
+     * (para exportações, relatórios e carregamento progressivo da interface).
+     *
+     * @param callback Quem recebe cada livro.
+     * @return O número de livros percorridos.
+     * @throws SQLException Se ocorrer um erro de acesso ao banco de dados ou no callback.
+     */
+    public long streamAllBooks(RowCallback<? super Book> callback) throws SQLException {
+        Objects.requireNonNull(callback, "O callback não pode ser nulo.");
+        return bookDAO.streamAllBooks(callback);
+    }
+
     /**
      * Atualiza as informações de um livro existente no banco de dados.
      *
@@ -104,6 +194,7 @@ public class BookService {
         }
         // Poderia adicionar mais validações de campos do livro aqui
         bookDAO.updateBook(book);
+        refreshReplica(List.of(book.getId()));
     }
 
     /**
@@ -119,10 +210,12 @@ public class BookService {
         }
         // Poderia adicionar lógica de negócio aqui, como verificar se o livro não está emprestado
         bookDAO.deleteBook(id);
+        refreshReplica(List.of(id));
     }
 
     /**
-     * Decrementa o número de cópias disponíveis de um livro.
+     * Decrementa o número de cópias disponíveis de um livro, em um único UPDATE condicional
+     * (sem ler o livro antes, então dois decrementos simultâneos não vendem a mesma cópia).
      *
      * @param bookId O ID do livro.
      * @throws SQLException Se ocorrer um erro de acesso ao banco de dados.
@@ -133,21 +226,18 @@ public class BookService {
         if (bookId <= 0) {
             throw new IllegalArgumentException("ID do livro inválido para decremento.");
         }
-        Book book = bookDAO.findBookById(bookId);
-        if (book != null) {
-            if (book.getAvailableCopies() > 0) {
-                book.setAvailableCopies(book.getAvailableCopies() - 1);
-                bookDAO.updateBook(book);
-            } else {
-                throw new IllegalStateException("Não há cópias disponíveis para decremento do livro ID: " + bookId);
+        if (!bookDAO.decrementAvailableCopies(bookId)) {
+            // Só no caso de falha: distingue livro inexistente de livro sem cópias.
+            if (bookDAO.findBookById(bookId) == null) {
+                throw new IllegalArgumentException("Livro não encontrado com ID: " + bookId);
             }
-        } else {
-            throw new IllegalArgumentException("Livro não encontrado com ID: " + bookId);
+            throw new IllegalStateException("Não há cópias disponíveis para decremento do livro ID: " + bookId);
         }
+        refreshReplica(List.of(bookId));
     }
 
     /**
-     * Incrementa o número de cópias disponíveis de um livro.
+     * Incrementa o número de cópias disponíveis de um livro, em um único UPDATE.
      *
      * @param bookId O ID do livro.
      * @throws SQLException Se ocorrer um erro de acesso ao banco de dados.
@@ -157,13 +247,10 @@ public class BookService {
         if (bookId <= 0) {
             throw new IllegalArgumentException("ID do livro inválido para incremento.");
         }
-        Book book = bookDAO.findBookById(bookId);
-        if (book != null) {
-            book.setAvailableCopies(book.getAvailableCopies() + 1);
-            bookDAO.updateBook(book);
-        } else {
+        if (!bookDAO.incrementAvailableCopies(bookId)) {
             throw new IllegalArgumentException("Livro não encontrado com ID: " + bookId);
         }
+        refreshReplica(List.of(bookId));
     }
 
     /**
@@ -174,6 +261,9 @@ public class BookService {
      * @throws SQLException Se ocorrer um erro de acesso ao banco de dados.
      */
     public List<Book> findBooksByTitle(String title) throws SQLException {
+        if (replicaIsLive()) {
+            return catalogReplica.findByTitle(title);
+        }
         return bookDAO.findBooksByTitle(title);
     }
 
@@ -196,6 +286,9 @@ public class BookService {
      * @throws SQLException Se ocorrer um erro de acesso ao banco de dados.
      */
     public Book findBookByISBN(String isbn) throws SQLException {
+        if (replicaIsLive()) {
+            return catalogReplica.findByIsbn(isbn);
+        }
         return bookDAO.findBookByISBN(isbn);
     }
 
@@ -210,6 +303,24 @@ public class BookService {
         return bookDAO.findBooksByGenre(genre);
     }
 
+    /**
+     * Busca uma página do catálogo na ordem informada, continuando depois do último livro da
+     * página anterior (paginação por chave, sem OFFSET).
+     *
+     * @param sortOrder A ordem de exibição.
+     * @param after     O último livro da página anterior, ou {@code null} para a primeira página.
+     * @param pageSize  Quantos livros buscar.
+     * @return Os livros da página; uma lista menor que {@code pageSize} indica a última página.
+     * @throws SQLException Se ocorrer um erro de acesso ao banco de dados.
+     */
+    public List<Book> findBooksPage(BookSortOrder sortOrder, Book after, int pageSize) throws SQLException {
+        Objects.requireNonNull(sortOrder, "A ordem de exibição não pode ser nula.");
+        if (pageSize <= 0) {
+            throw new IllegalArgumentException("O tamanho da página deve ser positivo.");
+        }
+        return bookDAO.findBooksPage(sortOrder, after, pageSize);
+    }
+
     /**
      * Retorna todos os livros que possuem cópias disponíveis.
      *
@@ -217,10 +328,79 @@ public class BookService {
      * @throws SQLException Se ocorrer um erro de acesso ao banco de dados.
      */
     public List<Book> getAllAvailableBooks() throws SQLException {
+        if (replicaIsLive()) {
+            return catalogReplica.findAvailable();
+        }
         // Assumindo que seu BookDAO tem um método findAllAvailable
         return bookDAO.findAllAvailable();
     }
 
+    /**
+     * Filtra em memória os livros cujo campo escolhido contém o termo pesquisado (sem diferenciar
+     * maiúsculas de minúsculas). É o filtro da barra de busca da tela de livros.
+     *
+     * @param books        Os livros a serem filtrados.
+     * @param searchOption O campo pesquisado: "Título", "Autor", "ISBN", "Editora", "Gênero" ou "Ano"
+     *                     (qualquer outro valor pesquisa pelo título).
+     * @param searchTerm   O termo pesquisado, já em minúsculas.
+     * @return Os livros que correspondem ao termo, na ordem original.
+     */
+    public static List<Book> filterBooks(Collection<Book> books, String searchOption, String searchTerm) {
+        return books.stream()
+                .filter(book -> {
+                    if (book == null) return false; // Evita NPE
+                    String valueToSearch = "";
+                    switch (searchOption != null ? searchOption : "Título") {
+                        case "Título":
+                            valueToSearch = book.getTitle();
+                            break;
+                        case "Autor":
+                            valueToSearch = book.getAuthor();
+                            break;
+                        case "ISBN":
+                            valueToSearch = book.getIsbn();
+                            break;
+                        case "Editora":
+                            valueToSearch = book.getPublisher();
+                            break;
+                        case "Gênero":
+                            valueToSearch = book.getGenre();
+                            break;
+                        case "Ano":
+                            valueToSearch = String.valueOf(book.getYear());
+                            break;
+                        default:
+                            valueToSearch = book.getTitle(); // Padrão se a opção for nula/inválida
+                    }
+                    return valueToSearch != null && valueToSearch.toLowerCase().contains(searchTerm);
+                })
+                .collect(Collectors.toList());
+    }
+
+    private boolean replicaIsLive() {
+        return catalogReplica != null && catalogReplica.isLive();
+    }
+
+    /**
+     * Atualiza na réplica os livros que este serviço acabou de gravar, sem esperar pelo aviso do
+     * banco: quem grava um livro já o encontra atualizado na consulta seguinte. Uma falha aqui não
+     * desfaz a gravação; o aviso do banco atualiza a réplica logo depois.
+     * <p>
+     * Dentro de uma transação do {@link TransactionManager} a gravação ainda não foi confirmada e a
+     * releitura (por outra conexão) veria o valor anterior; a réplica é atualizada pelo aviso que o
+     * banco envia na confirmação.
+     */
+    private void refreshReplica(Collection<Integer> bookIds) {
+        if (catalogReplica == null || TransactionManager.isTransactionActive()) {
+            return;
+        }
+        try {
+            catalogReplica.refresh(bookIds);
+        } catch (SQLException e) {
+            System.err.println("BookService: falha ao atualizar a réplica do catálogo: " + e.getMessage());
+        }
+    }
+
     /**
      * Marca um livro como emprestado, decrementando suas cópias disponíveis.
      * Este método é equivalente a `decrementAvailableCopies`.
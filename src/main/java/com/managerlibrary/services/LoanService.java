@@ -2,15 +2,28 @@ package com.managerlibrary.services;
 
 import com.managerlibrary.daos.implement.LoanDAOImpl; // Considerar mudar para interfaces sempre que possível
 import com.managerlibrary.daos.interfaces.LoanDAO;
+import com.managerlibrary.daos.interfaces.RowCallback;
 import com.managerlibrary.entities.Loan;
+import com.managerlibrary.entities.LoanExportFilter;
+import com.managerlibrary.entities.LoanExportFormat;
+import com.managerlibrary.entities.LoanSearchResult;
+import com.managerlibrary.entities.LoanSummary;
+import com.managerlibrary.infra.TransactionManager;
 
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
 import java.sql.SQLException;
 import java.time.LocalDate;
 import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Objects;
-import java.util.stream.Collectors;
+import java.util.zip.GZIPOutputStream;
 
 /**
  * Serviço responsável por gerenciar as operações de negócio relacionadas a empréstimos.
@@ -19,16 +32,116 @@ import java.util.stream.Collectors;
  */
 public class LoanService {
 
+    // Buffer de escrita da exportação: grava em blocos grandes em vez de uma escrita por linha.
+    private static final int EXPORT_BUFFER_SIZE = 64 * 1024;
+
+    /**
+     * Máximo de empréstimos que a tela de empréstimos pede à busca e aos filtros de status e de atraso.
+     */
+    public static final int MAX_FILTER_RESULTS = 500;
+
+    // Multa por dia de atraso, em reais. NUMERIC no banco, onde a devolução calcula a multa.
+    private static final BigDecimal LATE_FEE_PER_DAY = new BigDecimal("0.50");
+
+    /**
+     * Dias após a devolução a partir dos quais um empréstimo vai para o arquivo, se outro prazo
+     * não for informado.
+     */
+    public static final int DEFAULT_ARCHIVE_AFTER_DAYS = 365;
+
+    private static final List<String> KNOWN_STATUSES = List.of("Ativo", "Devolvido");
+
     private final LoanDAO loanDAO;
+    private final BookService bookService;
+    private final TransactionManager transactionManager;
 
     /**
      * Construtor do LoanService.
      *
-     * @param loanDAO A implementação de LoanDAO a ser utilizada para acesso a dados.
-     * Não pode ser nula.
+     * @param loanDAO            A implementação de LoanDAO a ser utilizada para acesso a dados.
+     *                           Não pode ser nula.
+     * @param bookService        O serviço de livros, usado para atualizar as cópias disponíveis
+     *                           na mesma transação da edição do empréstimo.
+     * @param transactionManager O gerenciador das transações que envolvem empréstimo e livro.
+     *                           Deve usar o mesmo DataSource dos DAOs.
      */
-    public LoanService(LoanDAO loanDAO) {
+    public LoanService(LoanDAO loanDAO, BookService bookService, TransactionManager transactionManager) {
         this.loanDAO = Objects.requireNonNull(loanDAO, "LoanDAO não pode ser nulo.");
+        this.bookService = Objects.requireNonNull(bookService, "BookService não pode ser nulo.");
+        this.transactionManager = Objects.requireNonNull(transactionManager, "TransactionManager não pode ser nulo.");
+    }
+
+    /**
+     * Registra um empréstimo e decrementa as cópias disponíveis do livro em um único comando no
+     * banco de dados ({@link LoanDAO#checkoutLoan}). A disponibilidade é verificada na própria
+     * linha do livro, não no objeto em memória (que pode estar desatualizado), então checkouts
+     * simultâneos do mesmo livro nunca emprestam mais cópias do que existem. Se o comando falhar,
+     * nada é gravado.
+     * <p>
+     * Em caso de sucesso, o id e a situação do empréstimo e as cópias disponíveis do livro são
+     * atualizados nos objetos informados.
+     *
+     * @param loan O empréstimo a ser registrado, com livro e usuário definidos.
+     * @throws SQLException Se ocorrer um erro de acesso ao banco de dados.
+     * @throws IllegalArgumentException Se o empréstimo for inválido.
+     * @throws IllegalStateException Se o livro não tiver cópias disponíveis (ou não existir mais).
+     */
+    public void checkoutLoan(Loan loan) throws SQLException {
+        validateLoan(loan);
+        Loan created = loanDAO.checkoutLoan(loan.getBook().getId(), loan.getUser().getId(),
+                loan.getLoanDate(), loan.getExpectedReturnDate());
+        if (created == null) {
+            throw new IllegalStateException("O livro selecionado não possui cópias disponíveis para empréstimo.");
+        }
+        loan.setId(created.getId());
+        loan.setStatus(created.getStatus());
+        loan.setActualReturnDate(null);
+        loan.setFine(created.getFine());
+        loan.setReturned(false);
+        loan.markClean(); // O empréstimo em memória agora é o gravado
+        // Sem marcar o livro como alterado: um updateBook posterior gravaria esta contagem por cima
+        // dos checkouts feitos depois em outros balcões.
+        loan.getBook().refreshAvailableCopies(created.getBook().getAvailableCopies());
+    }
+
+    /**
+     * Marca um empréstimo como devolvido, calculando a multa, e incrementa as cópias disponíveis
+     * do livro em um único comando no banco de dados ({@link LoanDAO#returnLoan}). Devoluções
+     * simultâneas do mesmo empréstimo (ex: em dois balcões) incrementam o livro uma única vez.
+     *
+     * @param loanId O id do empréstimo a ser devolvido.
+     * @return O empréstimo devolvido, com a multa e o livro já atualizados.
+     * @throws SQLException Se ocorrer um erro de acesso ao banco de dados.
+     * @throws IllegalArgumentException Se o id for inválido.
+     * @throws IllegalStateException Se o empréstimo não existir ou já tiver sido devolvido.
+     */
+    public Loan returnLoan(int loanId) throws SQLException {
+        if (loanId <= 0) {
+            throw new IllegalArgumentException("ID do empréstimo inválido.");
+        }
+        Loan returned = loanDAO.returnLoan(loanId, LocalDate.now(), LATE_FEE_PER_DAY);
+        if (returned == null) {
+            throw new IllegalStateException("O empréstimo " + loanId + " não existe ou já foi devolvido.");
+        }
+        return returned;
+    }
+
+    /**
+     * Move para o arquivo os empréstimos devolvidos há mais de {@code olderThanDays} dias
+     * ({@link LoanDAO#archiveReturnedLoans}). As telas de empréstimos ativos e atrasados consultam
+     * só a partição quente, que assim fica pequena; o histórico (por usuário, por livro,
+     * exportação) continua incluindo os empréstimos arquivados.
+     *
+     * @param olderThanDays Há quantos dias, no mínimo, o empréstimo foi devolvido.
+     * @return Quantos empréstimos foram arquivados.
+     * @throws SQLException Se ocorrer um erro de acesso ao banco de dados.
+     * @throws IllegalArgumentException Se o prazo for negativo.
+     */
+    public int archiveReturnedLoans(int olderThanDays) throws SQLException {
+        if (olderThanDays < 0) {
+            throw new IllegalArgumentException("O prazo para arquivamento não pode ser negativo.");
+        }
+        return loanDAO.archiveReturnedLoans(LocalDate.now().minusDays(olderThanDays));
     }
 
     /**
@@ -40,6 +153,37 @@ public class LoanService {
      * @throws IllegalArgumentException Se o empréstimo for nulo ou inválido (ex: datas, livro/usuário nulos).
      */
     public void addLoan(Loan loan) throws SQLException {
+        validateLoan(loan);
+
+        loan.setStatus("Ativo");
+        loan.setActualReturnDate(null);
+        loan.setFine(0.0);
+
+        loanDAO.insertLoan(loan);
+    }
+
+    /**
+     * Importa empréstimos já existentes (ex: histórico migrado de outro sistema) em lotes de
+     * INSERTs de múltiplas linhas. Ao contrário de {@link #addLoan(Loan)}, status, data de devolução
+     * e multa são mantidos como vieram, e as cópias disponíveis dos livros não são alteradas.
+     * Todos os empréstimos são validados antes de qualquer inserção.
+     *
+     * @param loans Os empréstimos a serem importados; livros e usuários já devem existir.
+     * @throws SQLException Se ocorrer um erro de acesso ao banco de dados (nenhum empréstimo é inserido).
+     * @throws IllegalArgumentException Se algum empréstimo for inválido.
+     */
+    public void importLoans(List<Loan> loans) throws SQLException {
+        Objects.requireNonNull(loans, "A lista de empréstimos não pode ser nula.");
+        for (Loan loan : loans) {
+            validateLoan(loan);
+            if (loan.getStatus() == null || loan.getStatus().trim().isEmpty()) {
+                throw new IllegalArgumentException("O status do empréstimo " + loan.getId() + " não pode ser vazio.");
+            }
+        }
+        loanDAO.insertLoans(loans);
+    }
+
+    private static void validateLoan(Loan loan) {
         if (loan == null) {
             throw new IllegalArgumentException("O empréstimo não pode ser nulo.");
         }
@@ -60,12 +204,6 @@ public class LoanService {
         if (loan.getExpectedReturnDate().isBefore(loan.getLoanDate())) {
             throw new IllegalArgumentException("A data de devolução prevista não pode ser anterior à data de empréstimo.");
         }
-
-        loan.setStatus("Ativo");
-        loan.setActualReturnDate(null);
-        loan.setFine(0.0);
-
-        loanDAO.insertLoan(loan);
     }
 
     /**
@@ -101,14 +239,72 @@ public class LoanService {
      * @param loan O objeto Loan com as informações atualizadas.
      * @throws SQLException Se ocorrer um erro de acesso ao banco de dados.
      * @throws IllegalArgumentException Se o empréstimo for nulo ou inválido (ex: ID nulo ou zero).
+     * @throws IllegalStateException Se a edição reabrir (tirar a data de devolução de) um empréstimo
+     *                               arquivado: no arquivo só ficam empréstimos devolvidos.
      */
     public void updateLoan(Loan loan) throws SQLException {
         if (loan == null || loan.getId() <= 0) {
             throw new IllegalArgumentException("Empréstimo para atualização inválido.");
         }
+        if (loan.getActualReturnDate() == null && loan.getDirtyFields().contains(Loan.Field.ACTUAL_RETURN_DATE)) {
+            ensureReopenable(loan.getId());
+        }
         loanDAO.updateLoan(loan);
     }
 
+    /**
+     * Grava a edição de um empréstimo (tela de edição) e ajusta as cópias disponíveis do livro
+     * quando a edição muda a situação dele: reabrir um empréstimo devolvido decrementa as cópias,
+     * e devolvê-lo pela primeira vez as incrementa. As duas gravações são feitas em uma única
+     * transação ({@link TransactionManager#execute}): se qualquer uma falhar (ex: o livro não tem
+     * mais cópias para a reabertura), nenhuma é confirmada.
+     *
+     * @param loan        O empréstimo com as alterações (datas, situação e multa).
+     * @param wasReturned Se o empréstimo estava devolvido quando foi aberto para edição.
+     * @throws SQLException Se ocorrer um erro de acesso ao banco de dados.
+     * @throws IllegalArgumentException Se o empréstimo for inválido ou o livro não existir mais.
+     * @throws IllegalStateException Se a edição reabrir um empréstimo arquivado, ou se o livro não
+     *                               tiver cópias disponíveis para a reabertura.
+     */
+    public void saveLoanEdit(Loan loan, boolean wasReturned) throws SQLException {
+        if (loan == null || loan.getId() <= 0) {
+            throw new IllegalArgumentException("Empréstimo para atualização inválido.");
+        }
+        boolean reopening = wasReturned && !loan.isReturned();
+        boolean returning = !wasReturned && loan.isReturned();
+        transactionManager.execute(() -> {
+            if (reopening) {
+                ensureReopenable(loan.getId());
+            }
+            if (loan.getBook() != null) {
+                if (reopening) {
+                    bookService.decrementAvailableCopies(loan.getBook().getId());
+                } else if (returning) {
+                    bookService.incrementAvailableCopies(loan.getBook().getId());
+                }
+            }
+            // Por último: o DAO marca o empréstimo como gravado, então uma falha antes daqui o
+            // deixa com as alterações pendentes para uma nova tentativa.
+            loanDAO.updateLoan(loan);
+            return null;
+        });
+    }
+
+    /**
+     * Verifica se um empréstimo devolvido pode ser reaberto (voltar a ativo, sem data de devolução).
+     * Os arquivados não podem: no arquivo só ficam empréstimos devolvidos.
+     *
+     * @param loanId O id do empréstimo.
+     * @throws SQLException Se ocorrer um erro de acesso ao banco de dados.
+     * @throws IllegalStateException Se o empréstimo estiver arquivado.
+     */
+    private void ensureReopenable(int loanId) throws SQLException {
+        if (loanDAO.isArchived(loanId)) {
+            throw new IllegalStateException("O empréstimo " + loanId
+                    + " está arquivado e não pode ser reaberto. Registre um novo empréstimo.");
+        }
+    }
+
     /**
      * Remove um empréstimo do banco de dados pelo seu ID.
      *
@@ -141,28 +337,65 @@ public class LoanService {
     }
 
     /**
-     * Marca um empréstimo como devolvido.
-     * Atualiza a data de devolução efetiva para a data atual, define o status como "Devolvido"
-     * e calcula a multa por atraso, atualizando o empréstimo no banco de dados.
+     * Busca o resumo de todos os empréstimos para a lista de empréstimos: título e capa do livro,
+     * nome e CPF do usuário, datas, situação e multa. Os detalhes completos de um empréstimo são
+     * carregados com {@link #getLoanById(int)}.
      *
-     * @param loan O objeto Loan a ser marcado como devolvido.
-     * @throws SQLException Se ocorrer um erro ao atualizar o empréstimo.
-     * @throws IllegalArgumentException Se o empréstimo for nulo ou já tiver sido devolvido.
+     * @return Os resumos dos empréstimos. Retorna uma lista vazia se não houver empréstimos.
+     * @throws SQLException Se ocorrer um erro de acesso ao banco de dados.
      */
-    public void markLoanAsReturned(Loan loan) throws SQLException {
-        if (loan == null) {
-            throw new IllegalArgumentException("Empréstimo não pode ser nulo ao marcar como devolvido.");
-        }
-        if (loan.getActualReturnDate() != null) {
-            throw new IllegalArgumentException("Este empréstimo já foi devolvido.");
-        }
+    public List<LoanSummary> getAllLoanSummaries() throws SQLException {
+        List<LoanSummary> summaries = loanDAO.findAllLoanSummaries();
+        return summaries != null ? summaries : new ArrayList<>();
+    }
 
-        loan.setActualReturnDate(LocalDate.now());
-        loan.setStatus("Devolvido");
-        // CORREÇÃO AQUI: Usar getExpectedReturnDate()
-        double multa = calculateLateFee(loan.getExpectedReturnDate(), loan.getActualReturnDate());
-        loan.setFine(multa);
-        loanDAO.updateLoan(loan);
+    /**
+     * Percorre todos os empréstimos com os detalhes do livro e do usuário em memória constante,
+     * entregando-os um a um ao callback (para exportações, relatórios e carregamento progressivo).
+     *
+     * @param callback Quem recebe cada empréstimo.
+     * @return O número de empréstimos percorridos.
+     * @throws SQLException Se ocorrer um erro de acesso ao banco de dados ou no callback.
+     */
+    public long streamAllLoansWithDetails(RowCallback<? super Loan> callback) throws SQLException {
+        Objects.requireNonNull(callback, "O callback não pode ser nulo.");
+        return loanDAO.streamAllLoansWithBookAndUser(callback);
+    }
+
+    /**
+     * Exporta o histórico de empréstimos, com os dados do livro e do usuário, para um arquivo.
+     * As linhas são formatadas pelo banco e gravadas à medida que chegam, em memória constante.
+     * O arquivo é escrito primeiro com um nome temporário e só substitui o destino quando a
+     * exportação termina; se ela falhar, o destino não é alterado.
+     *
+     * @param target O arquivo de destino.
+     * @param filter Os filtros dos empréstimos exportados ({@link LoanExportFilter#ALL} para todos).
+     * @param format O formato do arquivo.
+     * @param gzip   {@code true} para compactar o arquivo com gzip.
+     * @return O número de empréstimos exportados.
+     * @throws IOException Se o arquivo não puder ser gravado.
+     * @throws SQLException Se ocorrer um erro de acesso ao banco de dados.
+     */
+    public long exportLoans(Path target, LoanExportFilter filter, LoanExportFormat format, boolean gzip)
+            throws SQLException, IOException {
+        Objects.requireNonNull(target, "O arquivo de destino não pode ser nulo.");
+        Objects.requireNonNull(filter, "O filtro da exportação não pode ser nulo.");
+        Objects.requireNonNull(format, "O formato da exportação não pode ser nulo.");
+        Path absoluteTarget = target.toAbsolutePath();
+        Files.createDirectories(absoluteTarget.getParent());
+        Path temporary = Files.createTempFile(absoluteTarget.getParent(), absoluteTarget.getFileName().toString(), ".tmp");
+        try {
+            long rows;
+            try (OutputStream file = new BufferedOutputStream(Files.newOutputStream(temporary), EXPORT_BUFFER_SIZE);
+                 OutputStream out = gzip ? new GZIPOutputStream(file, EXPORT_BUFFER_SIZE) : file) {
+                rows = loanDAO.exportLoansWithBookAndUser(filter, format, out);
+            }
+            Files.move(temporary, absoluteTarget, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            System.out.println("LoanService.exportLoans: " + rows + " empréstimo(s) exportado(s) para " + absoluteTarget);
+            return rows;
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
     }
 
     /**
@@ -182,7 +415,7 @@ public class LoanService {
         // Se a data de devolução real for DEPOIS da data prevista, há atraso
         if (actualReturnDate.isAfter(expectedReturnDate)) {
             long daysLate = ChronoUnit.DAYS.between(expectedReturnDate, actualReturnDate);
-            double feePerDay = 0.50;
+            double feePerDay = LATE_FEE_PER_DAY.doubleValue();
             return daysLate * feePerDay;
         }
         return 0.0;
@@ -190,78 +423,70 @@ public class LoanService {
 
     /**
      * Este método busca empréstimos com base em um termo de pesquisa que pode ser parte
-     * do título do livro, nome do usuário ou CPF do usuário.
+     * do título do livro, nome do usuário ou CPF do usuário. A busca é feita no banco, pelos
+     * índices trigrama, e devolve no máximo {@code limit} empréstimos, os mais recentes primeiro.
+     * Com o termo vazio, devolve os {@code limit} empréstimos mais recentes.
      *
      * @param searchTerm O termo de pesquisa.
-     * @return Uma lista de empréstimos que correspondem ao termo de pesquisa.
+     * @param limit      O número máximo de empréstimos (ex: {@link #MAX_FILTER_RESULTS}).
+     * @return Os empréstimos que correspondem ao termo de pesquisa, indicando se havia mais do que o limite.
      * @throws SQLException Se ocorrer um erro de acesso ao banco de dados.
+     * @throws IllegalArgumentException Se o limite não for positivo.
      */
-    public List<Loan> searchLoans(String searchTerm) throws SQLException {
+    public LoanSearchResult searchLoans(String searchTerm, int limit) throws SQLException {
+        requirePositiveLimit(limit);
+        // Uma linha além do limite só para saber se o resultado foi cortado
         if (searchTerm == null || searchTerm.trim().isEmpty()) {
-            return getAllLoansWithDetails(); // Se a busca está vazia, retorna todos
+            return LoanSearchResult.ofLimitPlusOne(loanDAO.findRecentLoanSummaries(limit + 1), limit);
         }
-        // Este método precisa ser implementado no seu LoanDAOImpl
-        // Exemplo:
-        // return loanDAO.searchLoansByBookTitleOrUserNameOrUserCpf(searchTerm);
-        // Por enquanto, podemos fazer a filtragem em memória se o DAO ainda não tiver esse método otimizado.
-        // No entanto, para grandes volumes de dados, a busca no DAO é mais eficiente.
-
-        // IMPLEMENTAÇÃO TEMPORÁRIA EM MEMÓRIA (se o DAO não tem searchLoans):
-        List<Loan> all = getAllLoansWithDetails();
-        String lowerCaseSearchTerm = searchTerm.toLowerCase();
-        return all.stream()
-                .filter(loan -> {
-                    boolean matchesBook = loan.getBook() != null && loan.getBook().getTitle().toLowerCase().contains(lowerCaseSearchTerm);
-                    boolean matchesUser = false;
-                    if (loan.getUser() != null) {
-                        matchesUser = loan.getUser().getName().toLowerCase().contains(lowerCaseSearchTerm) ||
-                                (loan.getUser().getCpf() != null && loan.getUser().getCpf().toLowerCase().contains(lowerCaseSearchTerm));
-                    }
-                    return matchesBook || matchesUser;
-                })
-                .collect(Collectors.toList());
+        return summaries(loanDAO.searchLoansByBookTitleOrUserNameOrUserCpf(searchTerm.trim(), limit + 1), limit);
     }
 
     /**
-     * Retorna todos os empréstimos com um status específico.
+     * Retorna os empréstimos com um status específico, no máximo {@code limit}, os mais recentes primeiro.
      *
-     * @param status O status do empréstimo (ex: "Ativo", "Devolvido").
-     * @return Uma lista de empréstimos com o status especificado.
+     * @param status O status do empréstimo (ex: "Ativo", "Devolvido"), sem diferenciar maiúsculas de minúsculas.
+     * @param limit  O número máximo de empréstimos (ex: {@link #MAX_FILTER_RESULTS}).
+     * @return Os empréstimos com o status especificado, indicando se havia mais do que o limite.
      * @throws SQLException Se ocorrer um erro de acesso ao banco de dados.
+     * @throws IllegalArgumentException Se o status for vazio ou o limite não for positivo.
      */
-    public List<Loan> getLoansByStatus(String status) throws SQLException {
+    public LoanSearchResult getLoansByStatus(String status, int limit) throws SQLException {
         if (status == null || status.trim().isEmpty()) {
             throw new IllegalArgumentException("Status não pode ser nulo ou vazio.");
         }
-        // Este método precisa ser implementado no seu LoanDAOImpl
-        // Exemplo:
-        // return loanDAO.findLoansByStatusWithDetails(status);
-
-        // IMPLEMENTAÇÃO TEMPORÁRIA EM MEMÓRIA (se o DAO não tem getLoansByStatus):
-        List<Loan> all = getAllLoansWithDetails();
-        String lowerCaseStatus = status.toLowerCase();
-        return all.stream()
-                .filter(loan -> loan.getStatus() != null && loan.getStatus().toLowerCase().equals(lowerCaseStatus))
-                .collect(Collectors.toList());
+        requirePositiveLimit(limit);
+        // A consulta compara por igualdade para usar o índice; os status conhecidos são gravados
+        // sempre com a mesma grafia.
+        String trimmed = status.trim();
+        String canonical = KNOWN_STATUSES.stream()
+                .filter(known -> known.equalsIgnoreCase(trimmed))
+                .findFirst()
+                .orElse(trimmed);
+        return summaries(loanDAO.findLoansByStatus(canonical, limit + 1), limit);
     }
 
     /**
-     * Retorna todos os empréstimos que estão atrasados.
+     * Retorna os empréstimos que estão atrasados, no máximo {@code limit}, os atrasados há mais
+     * tempo primeiro.
      *
-     * @return Uma lista de empréstimos atrasados.
+     * @param limit O número máximo de empréstimos (ex: {@link #MAX_FILTER_RESULTS}).
+     * @return Os empréstimos atrasados, indicando se havia mais do que o limite.
      * @throws SQLException Se ocorrer um erro de acesso ao banco de dados.
+     * @throws IllegalArgumentException Se o limite não for positivo.
      */
-    public List<Loan> getOverdueLoans() throws SQLException {
-        // Este método precisa ser implementado no seu LoanDAOImpl
-        // Exemplo:
-        // return loanDAO.findOverdueLoansWithDetails();
-
-        // IMPLEMENTAÇÃO TEMPORÁRIA EM MEMÓRIA (se o DAO não tem findOverdueLoans):
-        List<Loan> all = getAllLoansWithDetails();
-        LocalDate today = LocalDate.now();
-        return all.stream()
-                .filter(loan -> loan.getActualReturnDate() == null && "Ativo".equalsIgnoreCase(loan.getStatus()) &&
-                        loan.getExpectedReturnDate() != null && today.isAfter(loan.getExpectedReturnDate()))
-                .collect(Collectors.toList());
+    public LoanSearchResult getOverdueLoans(int limit) throws SQLException {
+        requirePositiveLimit(limit);
+        return summaries(loanDAO.findOverdueLoansWithDetails(limit + 1), limit);
+    }
+
+    private static LoanSearchResult summaries(List<Loan> loans, int limit) {
+        return LoanSearchResult.ofLimitPlusOne(loans.stream().map(LoanSummary::of).toList(), limit);
+    }
+
+    private static void requirePositiveLimit(int limit) {
+        if (limit <= 0 || limit == Integer.MAX_VALUE) { // limit + 1 não pode estourar
+            throw new IllegalArgumentException("O limite de resultados deve ser positivo.");
+        }
     }
-}
\ No newline at end of file
+}
@@ -43,6 +43,25 @@ public class UserService {
         userDAO.insertUser(user);
     }
 
+    /**
+     * Adiciona vários usuários de uma vez (ex: importação de cadastros), em lotes de INSERTs de
+     * múltiplas linhas. Todos são validados antes de qualquer inserção; ao final, cada usuário
+     * recebe o id gerado.
+     *
+     * @param users Os usuários a serem adicionados.
+     * @throws IllegalArgumentException Se os dados de algum usuário forem inválidos.
+     * @throws SQLException Se ocorrer um erro de acesso ao banco de dados (nenhum usuário é inserido).
+     */
+    public void addUsers(List<User> users) throws SQLException {
+        Objects.requireNonNull(users, "A lista de usuários não pode ser nula.");
+        for (User user : users) {
+            if (!isValidUser(user)) {
+                throw new IllegalArgumentException("Dados do usuário inválidos: " + (user != null ? user.getName() : "null"));
+            }
+        }
+        userDAO.insertUsers(users);
+    }
+
     /**
      * Busca um usuário pelo seu ID.
      *
@@ -0,0 +1,37 @@
+-- Esquema base usado pelos DAOs. Usa IF NOT EXISTS para adotar bancos criados antes das migrações.
+
+CREATE TABLE IF NOT EXISTS books (
+    id               SERIAL PRIMARY KEY,
+    title            VARCHAR(255) NOT NULL,
+    author           VARCHAR(255),
+    isbn             VARCHAR(20),
+    genre            VARCHAR(100),
+    total_copies     INTEGER NOT NULL DEFAULT 0,
+    available_copies INTEGER NOT NULL DEFAULT 0,
+    publisher        VARCHAR(255),
+    year             INTEGER,
+    image_url        VARCHAR(500),
+    cover_image_path VARCHAR(500)
+);
+
+CREATE TABLE IF NOT EXISTS users (
+    id                 SERIAL PRIMARY KEY,
+    name               VARCHAR(255) NOT NULL,
+    address            VARCHAR(255),
+    phone              VARCHAR(30),
+    email              VARCHAR(255),
+    cpf                VARCHAR(14),
+    profile_image_path VARCHAR(500)
+);
+
+CREATE TABLE IF NOT EXISTS loan (
+    id                 SERIAL PRIMARY KEY,
+    book_id            INTEGER NOT NULL REFERENCES books (id),
+    user_id            INTEGER NOT NULL REFERENCES users (id),
+    loan_date          DATE NOT NULL,
+    return_date        DATE NOT NULL,
+    actual_return_date DATE,
+    status             VARCHAR(20) NOT NULL DEFAULT 'Ativo',
+    fine               NUMERIC(10, 2) NOT NULL DEFAULT 0,
+    returned           BOOLEAN NOT NULL DEFAULT FALSE
+);
@@ -0,0 +1,32 @@
+-- Índices para os filtros usados pelos DAOs. Sem eles, cada consulta abaixo é uma varredura sequencial.
+
+-- Chaves estrangeiras e status de empréstimos (findLoansByUserId, findLoansByBookId, findLoansByStatus
+-- e os JOINs de loan com books/users).
+CREATE INDEX IF NOT EXISTS idx_loan_user_id ON loan (user_id);
+CREATE INDEX IF NOT EXISTS idx_loan_book_id ON loan (book_id);
+CREATE INDEX IF NOT EXISTS idx_loan_status ON loan (status);
+
+-- Empréstimos ativos: pequena fração da tabela, consultada o tempo todo
+-- (findActiveLoansWithDetails e findOverdueLoansWithDetails, que filtra também por return_date).
+CREATE INDEX IF NOT EXISTS idx_loan_active_return_date ON loan (return_date)
+    WHERE status = 'Ativo' AND actual_return_date IS NULL;
+
+-- Buscas exatas por identificador (findBookByISBN, findUserByCPF).
+CREATE INDEX IF NOT EXISTS idx_books_isbn ON books (isbn);
+CREATE INDEX IF NOT EXISTS idx_users_cpf ON users (cpf);
+
+-- Buscas por substring ('%termo%'), que um índice btree não atende.
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+
+-- title/author/genre ILIKE ? (BookDAOImpl)
+CREATE INDEX IF NOT EXISTS idx_books_title_trgm ON books USING gin (title gin_trgm_ops);
+CREATE INDEX IF NOT EXISTS idx_books_author_trgm ON books USING gin (author gin_trgm_ops);
+CREATE INDEX IF NOT EXISTS idx_books_genre_trgm ON books USING gin (genre gin_trgm_ops);
+
+-- LOWER(b.title) LIKE ? (busca de empréstimos)
+CREATE INDEX IF NOT EXISTS idx_books_lower_title_trgm ON books USING gin (LOWER(title) gin_trgm_ops);
+
+-- LOWER(name) LIKE ?, LOWER(email) LIKE ? e LOWER(u.cpf) LIKE ? (UserDAOImpl e busca de empréstimos)
+CREATE INDEX IF NOT EXISTS idx_users_lower_name_trgm ON users USING gin (LOWER(name) gin_trgm_ops);
+CREATE INDEX IF NOT EXISTS idx_users_lower_email_trgm ON users USING gin (LOWER(email) gin_trgm_ops);
+CREATE INDEX IF NOT EXISTS idx_users_lower_cpf_trgm ON users USING gin (LOWER(cpf) gin_trgm_ops);
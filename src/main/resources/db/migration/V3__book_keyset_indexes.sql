@@ -0,0 +1,7 @@
+-- Índices da paginação por chave do catálogo (BookDAO.findBooksPage). Cada ordem de exibição
+-- percorre o índice a partir da chave do último livro da página anterior, sem OFFSET,
+-- então qualquer página custa o mesmo que a primeira. O id desempata títulos/autores/anos iguais.
+-- author e year aceitam NULL; as consultas usam as mesmas expressões COALESCE dos índices.
+CREATE INDEX IF NOT EXISTS idx_books_title_id ON books (title, id);
+CREATE INDEX IF NOT EXISTS idx_books_author_id ON books ((COALESCE(author, '')), id);
+CREATE INDEX IF NOT EXISTS idx_books_year_id ON books ((COALESCE(year, 0)), id);
@@ -0,0 +1,25 @@
+-- Importação de catálogo por COPY (BookDAO.importBooks).
+
+-- ISBN único entre os livros que têm ISBN: é a chave do INSERT ... ON CONFLICT (isbn) da importação.
+-- Se houver livros repetidos com o mesmo ISBN, esta migração falha e os duplicados precisam ser
+-- resolvidos antes. O índice simples idx_books_isbn continua atendendo findBookByISBN, cujo
+-- parâmetro não permite ao planejador usar um índice parcial.
+CREATE UNIQUE INDEX IF NOT EXISTS uq_books_isbn ON books (isbn) WHERE isbn <> '';
+
+-- Área de preparação da importação. UNLOGGED: não gera WAL (o conteúdo é descartável e é esvaziado
+-- a cada importação). As colunas do arquivo são texto para que uma linha inválida não interrompa
+-- o COPY; a validação e a conversão de tipos são feitas depois, em SQL.
+CREATE UNLOGGED TABLE IF NOT EXISTS book_import_staging (
+    line_number      BIGINT GENERATED BY DEFAULT AS IDENTITY,
+    title            TEXT,
+    author           TEXT,
+    isbn             TEXT,
+    genre            TEXT,
+    total_copies     TEXT,
+    available_copies TEXT,
+    publisher        TEXT,
+    year             TEXT,
+    image_url        TEXT,
+    cover_image_path TEXT,
+    reject_reason    TEXT
+);
@@ -0,0 +1,13 @@
+-- Índices dos filtros de empréstimos feitos no banco (LoanDAO.findLoansByStatus,
+-- findOverdueLoansWithDetails), que ordenam e limitam o resultado. Com o id (ou a data prevista e
+-- o id) no índice, o LIMIT para assim que encontra as primeiras linhas, sem ordenar o filtro inteiro.
+
+-- WHERE status = ? ORDER BY id DESC LIMIT ?. Substitui idx_loan_status, que é prefixo deste.
+CREATE INDEX IF NOT EXISTS idx_loan_status_id ON loan (status, id);
+DROP INDEX IF EXISTS idx_loan_status;
+
+-- Empréstimos ativos/atrasados ORDER BY return_date, id. Mesmo predicado de idx_loan_active_return_date,
+-- que este substitui.
+CREATE INDEX IF NOT EXISTS idx_loan_active_return_date_id ON loan (return_date, id)
+    WHERE status = 'Ativo' AND actual_return_date IS NULL;
+DROP INDEX IF EXISTS idx_loan_active_return_date;
@@ -0,0 +1,59 @@
+-- Particionamento de loan: empréstimos em andamento e devolvidos recentemente ficam em uma partição
+-- "quente" (loan_current), e os devolvidos há mais tempo são movidos por LoanDAO.archiveReturnedLoans
+-- para o arquivo (loan_archive), particionado por faixa de loan_date, um ano por partição.
+--
+-- O primeiro nível é a coluna archived, não loan_date: um empréstimo ativo pode ter começado há
+-- muito tempo (um atraso antigo, por exemplo), então faixas de loan_date não separam os ativos do
+-- histórico. Com archived = FALSE nas consultas de ativos/atrasados, o planejador descarta o
+-- arquivo inteiro sem consultá-lo; as consultas de histórico (por usuário, por livro, exportação)
+-- continuam vendo todas as partições.
+--
+-- A chave primária de uma tabela particionada precisa conter as colunas de particionamento, por
+-- isso é (id, archived, loan_date); o id continua vindo da mesma sequência e segue único na prática.
+-- O índice da chave começa pelo id, e as buscas por id usam o índice de cada partição.
+
+ALTER TABLE loan RENAME TO loan_unpartitioned;
+ALTER INDEX loan_pkey RENAME TO loan_unpartitioned_pkey;
+
+CREATE TABLE loan (
+    id                 INTEGER NOT NULL DEFAULT nextval('loan_id_seq'),
+    book_id            INTEGER NOT NULL REFERENCES books (id),
+    user_id            INTEGER NOT NULL REFERENCES users (id),
+    loan_date          DATE NOT NULL,
+    return_date        DATE NOT NULL,
+    actual_return_date DATE,
+    status             VARCHAR(20) NOT NULL DEFAULT 'Ativo',
+    fine               NUMERIC(10, 2) NOT NULL DEFAULT 0,
+    returned           BOOLEAN NOT NULL DEFAULT FALSE,
+    archived           BOOLEAN NOT NULL DEFAULT FALSE,
+    PRIMARY KEY (id, archived, loan_date)
+) PARTITION BY LIST (archived);
+
+CREATE TABLE loan_current PARTITION OF loan FOR VALUES IN (FALSE);
+
+-- Só empréstimos devolvidos podem ir para o arquivo: é o que garante que filtrar por
+-- archived = FALSE não perde nenhum empréstimo ativo. As partições anuais são criadas pelo
+-- arquivamento, conforme os anos dos empréstimos arquivados (loan_archive_<ano>).
+CREATE TABLE loan_archive PARTITION OF loan (
+    CONSTRAINT loan_archive_returned CHECK (actual_return_date IS NOT NULL)
+) FOR VALUES IN (TRUE) PARTITION BY RANGE (loan_date);
+
+-- Todos os empréstimos existentes entram na partição quente; o primeiro arquivamento move o histórico.
+INSERT INTO loan (id, book_id, user_id, loan_date, return_date, actual_return_date, status, fine, returned)
+SELECT id, book_id, user_id, loan_date, return_date, actual_return_date, status, fine, returned
+FROM loan_unpartitioned;
+
+-- A sequência do SERIAL pertencia à tabela antiga e seria removida junto com ela.
+ALTER SEQUENCE loan_id_seq OWNED BY loan.id;
+DROP TABLE loan_unpartitioned;
+
+-- Os mesmos índices das migrações V2 e V5, agora criados em cada partição.
+CREATE INDEX idx_loan_user_id ON loan (user_id);
+CREATE INDEX idx_loan_book_id ON loan (book_id);
+CREATE INDEX idx_loan_status_id ON loan (status, id);
+CREATE INDEX idx_loan_active_return_date_id ON loan (return_date, id)
+    WHERE status = 'Ativo' AND actual_return_date IS NULL;
+
+-- Candidatos ao arquivamento: devolvidos antes da data de corte, na partição quente.
+CREATE INDEX idx_loan_current_actual_return_date ON loan_current (actual_return_date)
+    WHERE actual_return_date IS NOT NULL;
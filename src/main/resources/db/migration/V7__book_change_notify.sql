@@ -0,0 +1,27 @@
+-- Avisos de alteração do catálogo para a réplica em memória (BookCatalogReplica).
+-- Cada INSERT, UPDATE ou DELETE em books envia pelo canal book_changes o id do livro alterado, e um
+-- TRUNCATE envia '*'. A réplica relê do banco os livros avisados; o aviso leva só o id porque o
+-- NOTIFY é limitado a 8000 bytes e porque reler garante o estado confirmado mais recente.
+-- O NOTIFY é transacional: só é entregue se a transação for confirmada, e avisos iguais na mesma
+-- transação são entregues uma única vez.
+
+CREATE OR REPLACE FUNCTION notify_book_change() RETURNS trigger AS $$
+BEGIN
+    IF TG_OP = 'TRUNCATE' THEN
+        PERFORM pg_notify('book_changes', '*');
+    ELSIF TG_OP = 'DELETE' THEN
+        PERFORM pg_notify('book_changes', OLD.id::text);
+    ELSE
+        PERFORM pg_notify('book_changes', NEW.id::text);
+    END IF;
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE TRIGGER books_notify_change
+    AFTER INSERT OR UPDATE OR DELETE ON books
+    FOR EACH ROW EXECUTE FUNCTION notify_book_change();
+
+CREATE TRIGGER books_notify_truncate
+    AFTER TRUNCATE ON books
+    FOR EACH STATEMENT EXECUTE FUNCTION notify_book_change();
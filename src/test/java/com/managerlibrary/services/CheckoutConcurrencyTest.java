@@ -0,0 +1,166 @@
+package com.managerlibrary.services;
+
+import com.managerlibrary.daos.implement.BookDAOImpl;
+import com.managerlibrary.daos.implement.LoanDAOImpl;
+import com.managerlibrary.entities.Book;
+import com.managerlibrary.entities.Loan;
+import com.managerlibrary.entities.User;
+import com.managerlibrary.infra.ConnectionPool;
+import com.managerlibrary.infra.TransactionManager;
+import com.managerlibrary.testing.TestDatabase;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Assumptions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Teste de concorrência do checkout ({@link LoanService#checkoutLoan}): {@value #THREADS} threads,
+ * cada uma com a sua conexão, tentam emprestar ao mesmo tempo um livro com {@value #COPIES} cópias.
+ * Nenhuma cópia pode ser emprestada além das existentes: o número de empréstimos gravados é igual
+ * ao de checkouts aceitos e ao de cópias que saíram do livro, e as cópias disponíveis nunca ficam
+ * negativas (conferidas também durante a disputa).
+ * <p>
+ * Precisa de um PostgreSQL: o de application.properties, ou o da propriedade de sistema
+ * {@code test.jdbc.url}, em um schema próprio ({@value #SCHEMA}) criado pelas migrações
+ * ({@link TestDatabase}). Sem banco acessível, o teste é ignorado.
+ */
+class CheckoutConcurrencyTest {
+
+    private static final String SCHEMA = "library_test";
+    private static final int THREADS = 32;
+    private static final int ATTEMPTS_PER_THREAD = 20;
+    private static final int COPIES = 10;
+
+    private static ConnectionPool pool;
+
+    @BeforeAll
+    static void openDatabase() {
+        try {
+            pool = TestDatabase.open(SCHEMA, "test.jdbc.url", THREADS + 1); // Uma conexão por thread e uma para a conferência durante a disputa
+        } catch (SQLException e) {
+            Assumptions.abort("PostgreSQL indisponível para o teste de concorrência: " + e.getMessage());
+        }
+    }
+
+    @AfterAll
+    static void closeDatabase() {
+        if (pool != null) {
+            pool.close();
+        }
+    }
+
+    @Test
+    void concurrentCheckoutsNeverLendMoreCopiesThanExist() throws Exception {
+        int bookId;
+        int userId;
+        try (Connection connection = pool.getConnection()) {
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("TRUNCATE loan, books, users RESTART IDENTITY CASCADE");
+            }
+            try (PreparedStatement pstmt = connection.prepareStatement(
+                    "INSERT INTO books (title, total_copies, available_copies) VALUES ('Livro disputado', ?, ?) RETURNING id")) {
+                pstmt.setInt(1, COPIES);
+                pstmt.setInt(2, COPIES);
+                bookId = singleInt(pstmt);
+            }
+            try (PreparedStatement pstmt = connection.prepareStatement(
+                    "INSERT INTO users (name) VALUES ('Leitor do teste') RETURNING id")) {
+                userId = singleInt(pstmt);
+            }
+        }
+
+        LoanService loanService = new LoanService(new LoanDAOImpl(pool), new BookService(new BookDAOImpl(pool)), new TransactionManager(pool));
+        LongAdder accepted = new LongAdder();
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicBoolean running = new AtomicBoolean(true);
+        AtomicInteger lowestAvailable = new AtomicInteger(COPIES);
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS + 1);
+        try {
+            List<Future<?>> workers = new ArrayList<>();
+            for (int i = 0; i < THREADS; i++) {
+                workers.add(executor.submit(() -> {
+                    start.await();
+                    for (int attempt = 0; attempt < ATTEMPTS_PER_THREAD; attempt++) {
+                        Loan loan = new Loan();
+                        loan.setBook(new Book(bookId));
+                        loan.setUser(new User(userId));
+                        loan.setLoanDate(LocalDate.now());
+                        loan.setExpectedReturnDate(LocalDate.now().plusDays(14));
+                        try {
+                            loanService.checkoutLoan(loan);
+                            accepted.increment();
+                        } catch (IllegalStateException e) {
+                            // Sem cópias disponíveis: recusa esperada depois que o livro se esgota
+                        }
+                    }
+                    return null;
+                }));
+            }
+            Future<?> monitor = executor.submit(() -> {
+                start.await();
+                while (running.get()) {
+                    lowestAvailable.accumulateAndGet(availableCopies(bookId), Math::min);
+                }
+                return null;
+            });
+
+            start.countDown();
+            for (Future<?> worker : workers) {
+                worker.get(60, TimeUnit.SECONDS);
+            }
+            running.set(false);
+            monitor.get(10, TimeUnit.SECONDS);
+        } finally {
+            running.set(false);
+            executor.shutdownNow();
+        }
+
+        int available = availableCopies(bookId);
+        int loans;
+        try (Connection connection = pool.getConnection();
+             PreparedStatement pstmt = connection.prepareStatement("SELECT COUNT(*) FROM loan WHERE book_id = ?")) {
+            pstmt.setInt(1, bookId);
+            loans = singleInt(pstmt);
+        }
+        assertTrue(lowestAvailable.get() >= 0, "Cópias disponíveis ficaram negativas durante a disputa: " + lowestAvailable.get());
+        assertTrue(available >= 0, "Cópias disponíveis negativas: " + available);
+        assertEquals(accepted.sum(), loans, "Empréstimos gravados diferentes dos checkouts aceitos.");
+        assertEquals(COPIES - available, loans, "Empréstimos gravados diferentes das cópias que saíram do livro.");
+        assertEquals(COPIES, loans, "Com mais tentativas que cópias, todas as cópias deveriam ter sido emprestadas.");
+    }
+
+    private static int availableCopies(int bookId) throws SQLException {
+        try (Connection connection = pool.getConnection();
+             PreparedStatement pstmt = connection.prepareStatement("SELECT available_copies FROM books WHERE id = ?")) {
+            pstmt.setInt(1, bookId);
+            return singleInt(pstmt);
+        }
+    }
+
+    private static int singleInt(PreparedStatement pstmt) throws SQLException {
+        try (ResultSet rs = pstmt.executeQuery()) {
+            rs.next();
+            return rs.getInt(1);
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package com.managerlibrary.testing;
+
+import com.managerlibrary.infra.ConnectionPool;
+import com.managerlibrary.infra.DataBaseConnection;
+import com.managerlibrary.infra.MigrationRunner;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Properties;
+
+/**
+ * Banco dos testes e benchmarks que precisam de um PostgreSQL: o de application.properties (ou o
+ * de uma propriedade de sistema), mas em um schema próprio, criado pelas migrações da aplicação.
+ * Os dados da aplicação não são tocados. Usado pelos testes (src/test) e pelos benchmarks (src/jmh).
+ */
+public final class TestDatabase {
+
+    // Sem banco acessível, a conexão falha logo em vez de esperar o tempo padrão do driver.
+    private static final String CONNECT_TIMEOUT_SECONDS = "5";
+
+    private TestDatabase() {
+    }
+
+    /**
+     * Cria o schema, se necessário, e abre um pool de conexões para ele com as migrações aplicadas.
+     *
+     * @param schema      O schema de trabalho (ex: {@code library_test}).
+     * @param urlProperty A propriedade de sistema que, se definida, substitui o {@code jdbc.url} configurado.
+     * @param maxSize     O número máximo de conexões do pool.
+     * @return O pool; quem chama é responsável por fechá-lo.
+     * @throws SQLException Se o banco não estiver acessível ou as migrações falharem.
+     */
+    public static ConnectionPool open(String schema, String urlProperty, int maxSize) throws SQLException {
+        Properties config = DataBaseConnection.loadProperties();
+        String url = System.getProperty(urlProperty, config.getProperty("jdbc.url"));
+        Properties driverProperties = new Properties();
+        driverProperties.setProperty("user", config.getProperty("jdbc.user"));
+        driverProperties.setProperty("password", config.getProperty("jdbc.password"));
+        driverProperties.setProperty("prepareThreshold", config.getProperty("jdbc.driver.prepareThreshold", "1"));
+        driverProperties.setProperty("connectTimeout", CONNECT_TIMEOUT_SECONDS);
+
+        try (Connection connection = DriverManager.getConnection(url, driverProperties);
+             Statement statement = connection.createStatement()) {
+            statement.execute("CREATE SCHEMA IF NOT EXISTS " + schema);
+        }
+        ConnectionPool pool = new ConnectionPool(withSchema(url, schema), driverProperties, 1, maxSize, 5_000, 300_000, 2, 64);
+        try {
+            new MigrationRunner(pool).migrate();
+        } catch (SQLException e) {
+            pool.close();
+            throw e;
+        }
+        return pool;
+    }
+
+    // O schema vai na URL porque o driver dá precedência aos parâmetros da URL sobre as propriedades.
+    // public continua no search_path para que as migrações encontrem as extensões instaladas lá (pg_trgm).
+    private static String withSchema(String url, String schema) {
+        String searchPath = "currentSchema=" + schema + ",public";
+        if (url.contains("currentSchema=")) {
+            return url.replaceAll("currentSchema=[^&]*", searchPath);
+        }
+        return url + (url.contains("?") ? "&" : "?") + searchPath;
+    }
+}